@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple;
+
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.BucketAggregationInstance;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Payload;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The distributed part of a quantile aggregation, which emits the serialized
+ * {@link QuantileSketch} of every bucket.
+ * <p>
+ * Sketches are carried as {@link Payload}s, the same way as the states of distributed
+ * cardinality aggregations.
+ */
+@Data
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public class DistributedQuantileInstance extends BucketAggregationInstance<QuantileSketchBucket> {
+    public static final String NAME = "distributed-quantile";
+
+    private final double error;
+
+    @ConstructorProperties({"size", "extent", "error"})
+    public DistributedQuantileInstance(final long size, final long extent, final double error) {
+        super(size, extent, ImmutableSet.of(MetricType.POINT), MetricType.CARDINALITY);
+        this.error = error;
+    }
+
+    @Override
+    protected QuantileSketchBucket buildBucket(long timestamp) {
+        return new QuantileSketchBucket(timestamp, QuantileSketch.compression(error));
+    }
+
+    @Override
+    protected Metric build(QuantileSketchBucket bucket) {
+        final QuantileSketch sketch = bucket.sketch();
+
+        if (sketch.count() == 0) {
+            return Metric.invalid();
+        }
+
+        return new Payload(bucket.timestamp(), sketch.toBytes());
+    }
+}
@@ -32,19 +32,19 @@ import java.beans.ConstructorProperties;
 import java.util.List;
 
 @ToString(callSuper = true)
-public class GroupUniqueInstance extends BucketAggregationInstance<GroupUniqueBucket> {
+public class GroupUniqueInstance extends BucketAggregationInstance<StripedGroupUniqueBucket> {
     @ConstructorProperties({"size", "extent"})
     public GroupUniqueInstance(final long size, final long extent) {
         super(size, extent, BucketAggregationInstance.ALL_TYPES, MetricType.GROUP);
     }
 
     @Override
-    protected GroupUniqueBucket buildBucket(long timestamp) {
-        return new GroupUniqueBucket(timestamp);
+    protected StripedGroupUniqueBucket buildBucket(long timestamp) {
+        return new StripedGroupUniqueBucket(timestamp);
     }
 
     @Override
-    protected Metric build(final GroupUniqueBucket bucket) {
+    protected Metric build(final StripedGroupUniqueBucket bucket) {
         final List<MetricCollection> groups = bucket.groups();
 
         if (groups.isEmpty()) {
@@ -38,6 +38,7 @@
 package com.spotify.heroic.aggregation.simple;
 
 import com.spotify.heroic.aggregation.AbstractBucket;
+import com.spotify.heroic.aggregation.PointBatchBucket;
 import com.spotify.heroic.metric.Point;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
@@ -61,7 +62,7 @@ import java.util.Map;
  * Greenwald and Khanna, "Space-efficient online computation of quantile summaries" in SIGMOD 2001
  */
 @RequiredArgsConstructor
-public class QuantileBucket extends AbstractBucket {
+public class QuantileBucket extends AbstractBucket implements PointBatchBucket {
     private final long timestamp;
     private final double quantile;
     private final double error;
@@ -98,12 +99,37 @@ public class QuantileBucket extends AbstractBucket {
         }
     }
 
+    @Override
+    public synchronized void updatePoints(
+        Map<String, String> key, double[] values, int offset, int length
+    ) {
+        int i = offset;
+        final int end = offset + length;
+
+        while (i < end) {
+            final int n = Math.min(end - i, batch.length - index);
+            System.arraycopy(values, i, batch, index, n);
+            index += n;
+            i += n;
+
+            if (index == batch.length) {
+                compact();
+            }
+        }
+
+        count += length;
+    }
+
     @Override
     public long timestamp() {
         return timestamp;
     }
 
     public synchronized double value() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+
         if (index > 0) {
             compact();
         }
@@ -22,6 +22,7 @@
 package com.spotify.heroic.aggregation.simple;
 
 import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationInstance;
 import com.spotify.heroic.aggregation.BucketAggregationInstance;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricType;
@@ -35,7 +36,7 @@ import java.beans.ConstructorProperties;
 @Data
 @ToString(callSuper = true)
 @EqualsAndHashCode(callSuper = true)
-public class QuantileInstance extends BucketAggregationInstance<QuantileBucket> {
+public class QuantileInstance extends BucketAggregationInstance<StripedQuantileBucket> {
     private final double q;
     private final double error;
 
@@ -48,13 +49,27 @@ public class QuantileInstance extends BucketAggregationInstance<QuantileBucket>
         this.error = error;
     }
 
+    /**
+     * Data nodes build mergeable sketches, since the quantile of per-node quantiles is not the
+     * quantile of the whole.
+     */
     @Override
-    protected QuantileBucket buildBucket(long timestamp) {
-        return new QuantileBucket(timestamp, q, error);
+    public AggregationInstance distributed() {
+        return new DistributedQuantileInstance(size, extent, error);
     }
 
     @Override
-    protected Metric build(QuantileBucket bucket) {
+    public AggregationInstance reducer() {
+        return new ReduceQuantileInstance(size, extent, q, error);
+    }
+
+    @Override
+    protected StripedQuantileBucket buildBucket(long timestamp) {
+        return new StripedQuantileBucket(timestamp, q, error);
+    }
+
+    @Override
+    protected Metric build(StripedQuantileBucket bucket) {
         final double value = bucket.value();
 
         if (Double.isNaN(value)) {
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A mergeable quantile sketch, based on the merging t-digest by Dunning and Ertl.
+ * <p>
+ * Values are summarized as a sorted list of centroids, which are kept small near the tails so
+ * that high percentiles stay accurate. Unlike {@link QuantileBucket}, two sketches can be merged
+ * without losing accuracy, which allows quantiles to be computed as a distributed aggregation
+ * where every node sends its sketch instead of its raw points.
+ * <p>
+ * See: Dunning and Ertl, "Computing Extremely Accurate Quantiles Using t-Digests", 2019
+ */
+public class QuantileSketch {
+    static final byte VERSION = 1;
+
+    static final double MIN_COMPRESSION = 20D;
+    static final double MAX_COMPRESSION = 1000D;
+
+    /* number of buffered values, relative to the compression */
+    private static final int BUFFER_FACTOR = 5;
+
+    private final double compression;
+
+    /* centroids, sorted by mean */
+    private double[] means = new double[0];
+    private long[] weights = new long[0];
+    private int centroids = 0;
+
+    /* values which have not been merged into the centroids yet */
+    private final double[] buffer;
+    private int buffered = 0;
+
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch(final double compression) {
+        this.compression = Math.max(MIN_COMPRESSION, Math.min(MAX_COMPRESSION, compression));
+        this.buffer = new double[(int) Math.ceil(this.compression) * BUFFER_FACTOR];
+    }
+
+    /**
+     * Build a compression which approximately gives the given relative rank error.
+     */
+    public static double compression(final double error) {
+        return Math.ceil(1D / error);
+    }
+
+    public synchronized void add(final double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+
+        buffer[buffered++] = value;
+
+        if (buffered == buffer.length) {
+            compress();
+        }
+    }
+
+    public synchronized void add(final double[] values, final int offset, final int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (Double.isNaN(values[i])) {
+                continue;
+            }
+
+            buffer[buffered++] = values[i];
+
+            if (buffered == buffer.length) {
+                compress();
+            }
+        }
+    }
+
+    /**
+     * Merge the given sketch into this one.
+     */
+    public void merge(final QuantileSketch other) {
+        final double[] otherMeans;
+        final long[] otherWeights;
+        final int otherCentroids;
+        final double otherMin;
+        final double otherMax;
+
+        synchronized (other) {
+            other.compress();
+            otherMeans = other.means;
+            otherWeights = other.weights;
+            otherCentroids = other.centroids;
+            otherMin = other.min;
+            otherMax = other.max;
+        }
+
+        synchronized (this) {
+            compress();
+            combine(otherMeans, otherWeights, otherCentroids);
+            min = Math.min(min, otherMin);
+            max = Math.max(max, otherMax);
+        }
+    }
+
+    /**
+     * Total number of values that have been added to this sketch.
+     */
+    public synchronized long count() {
+        long count = buffered;
+
+        for (int i = 0; i < centroids; i++) {
+            count += weights[i];
+        }
+
+        return count;
+    }
+
+    public synchronized int getCentroids() {
+        compress();
+        return centroids;
+    }
+
+    /**
+     * Estimate the value at the given quantile.
+     *
+     * @param q Queried quantile, e.g. 0.50 or 0.99.
+     * @return Estimated value at that quantile, or {@code NaN} if the sketch is empty.
+     */
+    public synchronized double quantile(final double q) {
+        compress();
+
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+
+        if (centroids == 1) {
+            return means[0];
+        }
+
+        long total = 0;
+
+        for (int i = 0; i < centroids; i++) {
+            total += weights[i];
+        }
+
+        final double rank = Math.max(0D, Math.min(1D, q)) * total;
+
+        /* below the center of the first centroid, interpolate from the minimum */
+        double center = weights[0] / 2D;
+
+        if (rank < center) {
+            return min + (means[0] - min) * (rank / center);
+        }
+
+        for (int i = 1; i < centroids; i++) {
+            final double next = center + (weights[i - 1] + weights[i]) / 2D;
+
+            if (rank < next) {
+                final double fraction = (rank - center) / (next - center);
+                return means[i - 1] + (means[i] - means[i - 1]) * fraction;
+            }
+
+            center = next;
+        }
+
+        /* above the center of the last centroid, interpolate towards the maximum */
+        final double last = weights[centroids - 1] / 2D;
+        return means[centroids - 1] +
+            (max - means[centroids - 1]) * Math.min(1D, (rank - center) / last);
+    }
+
+    /**
+     * Serialize the state of this sketch.
+     */
+    public synchronized byte[] toBytes() {
+        compress();
+
+        final ByteBuffer out = ByteBuffer.allocate(1 + 8 * 3 + 4 + centroids * 16);
+        out.put(VERSION);
+        out.putDouble(compression);
+        out.putDouble(min);
+        out.putDouble(max);
+        out.putInt(centroids);
+
+        for (int i = 0; i < centroids; i++) {
+            out.putDouble(means[i]);
+            out.putLong(weights[i]);
+        }
+
+        return out.array();
+    }
+
+    /**
+     * Deserialize a sketch from state built with {@link #toBytes()}.
+     */
+    public static QuantileSketch fromBytes(final byte[] state) {
+        final ByteBuffer in = ByteBuffer.wrap(state);
+
+        final byte version = in.get();
+
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported sketch version: " + version);
+        }
+
+        final QuantileSketch sketch = new QuantileSketch(in.getDouble());
+        sketch.min = in.getDouble();
+        sketch.max = in.getDouble();
+
+        final int centroids = in.getInt();
+        sketch.means = new double[centroids];
+        sketch.weights = new long[centroids];
+        sketch.centroids = centroids;
+
+        for (int i = 0; i < centroids; i++) {
+            sketch.means[i] = in.getDouble();
+            sketch.weights[i] = in.getLong();
+        }
+
+        return sketch;
+    }
+
+    /**
+     * Merge buffered values into the centroids. Must be called while holding the lock.
+     */
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+
+        Arrays.sort(buffer, 0, buffered);
+        min = Math.min(min, buffer[0]);
+        max = Math.max(max, buffer[buffered - 1]);
+
+        combine(buffer, null, buffered);
+        buffered = 0;
+    }
+
+    /**
+     * Combine the current centroids with the given sorted run, where a {@code null} weights array
+     * means that every entry has a weight of one.
+     */
+    private void combine(final double[] otherMeans, final long[] otherWeights, final int count) {
+        if (count == 0) {
+            return;
+        }
+
+        final int size = centroids + count;
+        final double[] m = new double[size];
+        final long[] w = new long[size];
+
+        long total = 0;
+        int a = 0;
+        int b = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (b >= count || (a < centroids && means[a] <= otherMeans[b])) {
+                m[i] = means[a];
+                w[i] = weights[a++];
+            } else {
+                m[i] = otherMeans[b];
+                w[i] = otherWeights == null ? 1L : otherWeights[b];
+                b++;
+            }
+
+            total += w[i];
+        }
+
+        /* sweep over the sorted entries, merging neighbours as long as they fit in one unit of
+         * the scale function */
+        int out = 0;
+        double mean = m[0];
+        long weight = w[0];
+        long before = 0;
+
+        for (int i = 1; i < size; i++) {
+            final long proposed = weight + w[i];
+
+            final double k = scale((double) (before + proposed) / total);
+
+            if (k - scale((double) before / total) <= 1D) {
+                mean += (m[i] - mean) * w[i] / proposed;
+                weight = proposed;
+                continue;
+            }
+
+            m[out] = mean;
+            w[out++] = weight;
+            before += weight;
+            mean = m[i];
+            weight = w[i];
+        }
+
+        m[out] = mean;
+        w[out++] = weight;
+
+        this.means = m;
+        this.weights = w;
+        this.centroids = out;
+    }
+
+    /**
+     * The k1 scale function, which maps a quantile to the index of the centroid it belongs to.
+     */
+    private double scale(final double q) {
+        return compression / (2D * Math.PI) * Math.asin(2D * Math.min(1D, q) - 1D);
+    }
+}
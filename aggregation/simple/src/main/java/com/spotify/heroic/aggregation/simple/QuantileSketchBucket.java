@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple;
+
+import com.spotify.heroic.aggregation.AbstractBucket;
+import com.spotify.heroic.aggregation.PointBatchBucket;
+import com.spotify.heroic.metric.Point;
+
+import java.util.Map;
+
+/**
+ * Bucket that builds a mergeable {@link QuantileSketch} of all seen points.
+ * <p>
+ * Every updating thread feeds the sketch of its own stripe, the stripes are merged when the state
+ * of the bucket is requested.
+ */
+public class QuantileSketchBucket extends AbstractBucket implements PointBatchBucket {
+    private final long timestamp;
+    private final double compression;
+    private final Stripes<QuantileSketch> stripes;
+
+    public QuantileSketchBucket(final long timestamp, final double compression) {
+        this.timestamp = timestamp;
+        this.compression = compression;
+        this.stripes = new Stripes<>(() -> new QuantileSketch(compression));
+    }
+
+    @Override
+    public long timestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, Point d) {
+        stripes.get().add(d.getValue());
+    }
+
+    @Override
+    public void updatePoints(
+        Map<String, String> key, double[] values, int offset, int length
+    ) {
+        stripes.get().add(values, offset, length);
+    }
+
+    public QuantileSketch sketch() {
+        final QuantileSketch sketch = new QuantileSketch(compression);
+        stripes.forEach(sketch::merge);
+        return sketch;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple;
+
+import com.spotify.heroic.aggregation.AbstractBucket;
+import com.spotify.heroic.metric.Payload;
+
+import java.nio.BufferUnderflowException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Bucket that merges the quantile sketches built by {@link QuantileSketchBucket}.
+ */
+public class ReduceQuantileSketchBucket extends AbstractBucket {
+    private final long timestamp;
+    private final double quantile;
+    private final double compression;
+
+    private final ConcurrentLinkedQueue<QuantileSketch> states = new ConcurrentLinkedQueue<>();
+
+    public ReduceQuantileSketchBucket(
+        final long timestamp, final double quantile, final double compression
+    ) {
+        this.timestamp = timestamp;
+        this.quantile = quantile;
+        this.compression = compression;
+    }
+
+    @Override
+    public long timestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public void updatePayload(final Map<String, String> key, final Payload sample) {
+        try {
+            states.add(QuantileSketch.fromBytes(sample.getState()));
+        } catch (final IllegalArgumentException | BufferUnderflowException e) {
+            throw new RuntimeException("Failed to deserialize state", e);
+        }
+    }
+
+    public double value() {
+        final QuantileSketch merged = new QuantileSketch(compression);
+
+        for (final QuantileSketch sketch : states) {
+            merged.merge(sketch);
+        }
+
+        return merged.quantile(quantile);
+    }
+}
@@ -23,6 +23,7 @@ package com.spotify.heroic.aggregation.simple;
 
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.aggregation.DoubleBucket;
+import com.spotify.heroic.aggregation.PointBatchBucket;
 import com.spotify.heroic.metric.Point;
 import com.spotify.heroic.metric.Spread;
 import lombok.RequiredArgsConstructor;
@@ -37,7 +38,8 @@ import java.util.concurrent.atomic.LongAdder;
  * @author udoprog
  */
 @RequiredArgsConstructor
-public class StripedAverageBucket extends AbstractBucket implements DoubleBucket {
+public class StripedAverageBucket extends AbstractBucket
+    implements DoubleBucket, PointBatchBucket {
     private final long timestamp;
 
     private final DoubleAdder value = new DoubleAdder();
@@ -53,6 +55,20 @@ public class StripedAverageBucket extends AbstractBucket implements DoubleBucket
         count.increment();
     }
 
+    @Override
+    public void updatePoints(
+        Map<String, String> key, double[] values, int offset, int length
+    ) {
+        double sum = 0D;
+
+        for (int i = offset; i < offset + length; i++) {
+            sum += values[i];
+        }
+
+        value.add(sum);
+        count.add(length);
+    }
+
     @Override
     public void updateSpread(Map<String, String> key, Spread sample) {
         value.add(sample.getSum());
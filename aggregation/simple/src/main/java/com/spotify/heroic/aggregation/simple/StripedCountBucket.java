@@ -22,6 +22,7 @@
 package com.spotify.heroic.aggregation.simple;
 
 import com.spotify.heroic.aggregation.AnyBucket;
+import com.spotify.heroic.aggregation.PointBatchBucket;
 import com.spotify.heroic.metric.Metric;
 import lombok.RequiredArgsConstructor;
 
@@ -36,7 +37,7 @@ import java.util.concurrent.atomic.LongAdder;
  * @author udoprog
  */
 @RequiredArgsConstructor
-public class StripedCountBucket implements AnyBucket {
+public class StripedCountBucket implements AnyBucket, PointBatchBucket {
     private final long timestamp;
 
     private final LongAdder count = new LongAdder();
@@ -50,6 +51,13 @@ public class StripedCountBucket implements AnyBucket {
         count.increment();
     }
 
+    @Override
+    public void updatePoints(
+        Map<String, String> key, double[] values, int offset, int length
+    ) {
+        count.add(length);
+    }
+
     public long count() {
         return count.sum();
     }
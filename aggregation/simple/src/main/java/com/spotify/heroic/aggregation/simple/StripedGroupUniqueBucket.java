@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.spotify.heroic.aggregation.simple;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.aggregation.AbstractBucket;
+import com.spotify.heroic.aggregation.Bucket;
+import com.spotify.heroic.metric.Event;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricGroup;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.Spread;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * A bucket that keeps one sample for every distinct timestamp and type of metric.
+ * <p>
+ * Samples are kept in hash maps in stripes picked by the updating thread, which are only merged
+ * and sorted when the groups are built. Maps for a type are only created once a sample of that
+ * type has been seen.
+ */
+@RequiredArgsConstructor
+public class StripedGroupUniqueBucket extends AbstractBucket implements Bucket {
+    private final long timestamp;
+    private final Stripes<Stripe> stripes = new Stripes<>(Stripe::new);
+
+    public List<MetricCollection> groups() {
+        final List<Stripe> all = new ArrayList<>();
+        stripes.forEach(all::add);
+
+        final ImmutableList.Builder<MetricCollection> result = ImmutableList.builder();
+
+        final List<Point> points = merge(all, s -> s.points);
+
+        if (!points.isEmpty()) {
+            result.add(MetricCollection.points(points));
+        }
+
+        final List<Event> events = merge(all, s -> s.events);
+
+        if (!events.isEmpty()) {
+            result.add(MetricCollection.events(events));
+        }
+
+        final List<Spread> spreads = merge(all, s -> s.spreads);
+
+        if (!spreads.isEmpty()) {
+            result.add(MetricCollection.spreads(spreads));
+        }
+
+        final List<MetricGroup> groups = merge(all, s -> s.groups);
+
+        if (!groups.isEmpty()) {
+            result.add(MetricCollection.groups(groups));
+        }
+
+        return result.build();
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, Point sample) {
+        final Stripe stripe = stripes.get();
+
+        synchronized (stripe) {
+            stripe.points = put(stripe.points, sample);
+        }
+    }
+
+    @Override
+    public void updateEvent(Map<String, String> key, Event sample) {
+        final Stripe stripe = stripes.get();
+
+        synchronized (stripe) {
+            stripe.events = put(stripe.events, sample);
+        }
+    }
+
+    @Override
+    public void updateSpread(Map<String, String> key, Spread sample) {
+        final Stripe stripe = stripes.get();
+
+        synchronized (stripe) {
+            stripe.spreads = put(stripe.spreads, sample);
+        }
+    }
+
+    @Override
+    public void updateGroup(Map<String, String> key, MetricGroup sample) {
+        final Stripe stripe = stripes.get();
+
+        synchronized (stripe) {
+            stripe.groups = put(stripe.groups, sample);
+        }
+    }
+
+    @Override
+    public long timestamp() {
+        return timestamp;
+    }
+
+    private static <T extends Metric> Map<Long, T> put(final Map<Long, T> samples, final T sample) {
+        final Map<Long, T> target = samples == null ? new HashMap<>() : samples;
+        target.putIfAbsent(sample.getTimestamp(), sample);
+        return target;
+    }
+
+    private static <T extends Metric> List<T> merge(
+        final List<Stripe> stripes, final Function<Stripe, Map<Long, T>> samples
+    ) {
+        final SortedMap<Long, T> merged = new TreeMap<>();
+
+        for (final Stripe stripe : stripes) {
+            synchronized (stripe) {
+                final Map<Long, T> s = samples.apply(stripe);
+
+                if (s == null) {
+                    continue;
+                }
+
+                for (final Map.Entry<Long, T> e : s.entrySet()) {
+                    merged.putIfAbsent(e.getKey(), e.getValue());
+                }
+            }
+        }
+
+        return ImmutableList.copyOf(merged.values());
+    }
+
+    private static class Stripe {
+        private Map<Long, Point> points;
+        private Map<Long, Event> events;
+        private Map<Long, Spread> spreads;
+        private Map<Long, MetricGroup> groups;
+    }
+}
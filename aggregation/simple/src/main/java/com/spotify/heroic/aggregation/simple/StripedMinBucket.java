@@ -23,6 +23,7 @@ package com.spotify.heroic.aggregation.simple;
 
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.aggregation.DoubleBucket;
+import com.spotify.heroic.aggregation.PointBatchBucket;
 import com.spotify.heroic.metric.Point;
 import com.spotify.heroic.metric.Spread;
 import lombok.RequiredArgsConstructor;
@@ -39,7 +40,8 @@ import java.util.function.DoubleBinaryOperator;
  * @author udoprog
  */
 @RequiredArgsConstructor
-public class StripedMinBucket extends AbstractBucket implements DoubleBucket {
+public class StripedMinBucket extends AbstractBucket
+    implements DoubleBucket, PointBatchBucket {
     private static final DoubleBinaryOperator minFn = (left, right) -> Math.min(left, right);
 
     private final long timestamp;
@@ -60,6 +62,19 @@ public class StripedMinBucket extends AbstractBucket implements DoubleBucket {
         min.accumulate(d.getValue());
     }
 
+    @Override
+    public void updatePoints(
+        Map<String, String> key, double[] values, int offset, int length
+    ) {
+        double min = Double.POSITIVE_INFINITY;
+
+        for (int i = offset; i < offset + length; i++) {
+            min = Math.min(min, values[i]);
+        }
+
+        this.min.accumulate(min);
+    }
+
     @Override
     public double value() {
         final double result = min.doubleValue();
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.spotify.heroic.aggregation.simple;
+
+import com.spotify.heroic.aggregation.AbstractBucket;
+import com.spotify.heroic.aggregation.PointBatchBucket;
+import com.spotify.heroic.metric.Point;
+
+import java.util.Map;
+
+/**
+ * A quantile bucket which buffers values per stripe before handing them to a shared
+ * {@link QuantileBucket}.
+ * <p>
+ * Every updating thread appends to the buffer of its own stripe, and the lock of the shared
+ * estimator is only taken once for every {@link #BUFFER_SIZE} values, or when the value is
+ * read. The estimator sorts every batch before inserting it, so the order in which buffers are
+ * flushed doesn't affect its error bounds.
+ */
+public class StripedQuantileBucket extends AbstractBucket implements PointBatchBucket {
+    static final int BUFFER_SIZE = 64;
+
+    private final QuantileBucket estimator;
+    private final Stripes<Buffer> stripes = new Stripes<>(Buffer::new);
+
+    public StripedQuantileBucket(final long timestamp, final double quantile, final double error) {
+        this.estimator = new QuantileBucket(timestamp, quantile, error);
+    }
+
+    @Override
+    public long timestamp() {
+        return estimator.timestamp();
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, Point d) {
+        final Buffer buffer = stripes.get();
+
+        synchronized (buffer) {
+            buffer.values[buffer.size++] = d.getValue();
+
+            if (buffer.size == BUFFER_SIZE) {
+                buffer.flushTo(estimator);
+            }
+        }
+    }
+
+    @Override
+    public void updatePoints(
+        Map<String, String> key, double[] values, int offset, int length
+    ) {
+        /* large batches already amortize the lock of the estimator */
+        if (length >= BUFFER_SIZE) {
+            estimator.updatePoints(key, values, offset, length);
+            return;
+        }
+
+        final Buffer buffer = stripes.get();
+
+        synchronized (buffer) {
+            for (int i = offset; i < offset + length; i++) {
+                buffer.values[buffer.size++] = values[i];
+
+                if (buffer.size == BUFFER_SIZE) {
+                    buffer.flushTo(estimator);
+                }
+            }
+        }
+    }
+
+    public double value() {
+        stripes.forEach(buffer -> {
+            synchronized (buffer) {
+                buffer.flushTo(estimator);
+            }
+        });
+
+        return estimator.value();
+    }
+
+    public int getSampleSize() {
+        return estimator.getSampleSize();
+    }
+
+    private static class Buffer {
+        private final double[] values = new double[BUFFER_SIZE];
+        private int size = 0;
+
+        /**
+         * Must be called while holding the lock of the buffer.
+         */
+        void flushTo(final QuantileBucket estimator) {
+            if (size == 0) {
+                return;
+            }
+
+            estimator.updatePoints(null, values, 0, size);
+            size = 0;
+        }
+    }
+}
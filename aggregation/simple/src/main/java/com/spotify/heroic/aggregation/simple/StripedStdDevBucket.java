@@ -23,6 +23,7 @@ package com.spotify.heroic.aggregation.simple;
 
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.aggregation.DoubleBucket;
+import com.spotify.heroic.aggregation.PointBatchBucket;
 import com.spotify.heroic.metric.Point;
 import com.spotify.heroic.metric.Spread;
 import lombok.RequiredArgsConstructor;
@@ -39,7 +40,8 @@ import java.util.concurrent.atomic.LongAdder;
  * @author udoprog
  */
 @RequiredArgsConstructor
-public class StripedStdDevBucket extends AbstractBucket implements DoubleBucket {
+public class StripedStdDevBucket extends AbstractBucket
+    implements DoubleBucket, PointBatchBucket {
     private final DoubleAdder sum = new DoubleAdder();
     private final DoubleAdder sum2 = new DoubleAdder();
     private final LongAdder count = new LongAdder();
@@ -62,6 +64,24 @@ public class StripedStdDevBucket extends AbstractBucket implements DoubleBucket
         count.increment();
     }
 
+    @Override
+    public void updatePoints(
+        Map<String, String> key, double[] values, int offset, int length
+    ) {
+        double sum = 0D;
+        double sum2 = 0D;
+
+        for (int i = offset; i < offset + length; i++) {
+            final double v = values[i];
+            sum += v;
+            sum2 += v * v;
+        }
+
+        this.sum.add(sum);
+        this.sum2.add(sum2);
+        count.add(length);
+    }
+
     @Override
     public long timestamp() {
         return timestamp;
@@ -23,6 +23,7 @@ package com.spotify.heroic.aggregation.simple;
 
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.aggregation.DoubleBucket;
+import com.spotify.heroic.aggregation.PointBatchBucket;
 import com.spotify.heroic.metric.Point;
 import com.spotify.heroic.metric.Spread;
 import lombok.RequiredArgsConstructor;
@@ -38,7 +39,8 @@ import java.util.concurrent.atomic.DoubleAdder;
  * @author udoprog
  */
 @RequiredArgsConstructor
-public class StripedSumBucket extends AbstractBucket implements DoubleBucket {
+public class StripedSumBucket extends AbstractBucket
+    implements DoubleBucket, PointBatchBucket {
     private final long timestamp;
 
     /* the sum of all seen values */
@@ -56,6 +58,20 @@ public class StripedSumBucket extends AbstractBucket implements DoubleBucket {
         sum.add(d.getValue());
     }
 
+    @Override
+    public void updatePoints(
+        Map<String, String> key, double[] values, int offset, int length
+    ) {
+        double sum = 0D;
+
+        for (int i = offset; i < offset + length; i++) {
+            sum += values[i];
+        }
+
+        valid = true;
+        this.sum.add(sum);
+    }
+
     @Override
     public void updateSpread(Map<String, String> key, Spread d) {
         valid = true;
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.spotify.heroic.aggregation.simple;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A fixed number of lazily created stripes, where each thread is consistently mapped to one
+ * stripe.
+ * <p>
+ * Buckets use this to give concurrent feeders their own state to update, so that they rarely
+ * contend with each other. Stripes are only created once a thread maps to them, which keeps
+ * buckets that are only fed by a few threads small.
+ */
+@RequiredArgsConstructor
+class Stripes<T> {
+    static final int MAX_STRIPES = 16;
+    static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicReferenceArray<T> stripes = new AtomicReferenceArray<>(STRIPES);
+    private final Supplier<T> supplier;
+
+    /**
+     * Get the stripe of the current thread.
+     */
+    T get() {
+        final int index = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+
+        final T stripe = stripes.get(index);
+
+        if (stripe != null) {
+            return stripe;
+        }
+
+        final T created = supplier.get();
+
+        if (stripes.compareAndSet(index, null, created)) {
+            return created;
+        }
+
+        return stripes.get(index);
+    }
+
+    /**
+     * Apply the given consumer to every stripe that has been created.
+     */
+    void forEach(final Consumer<T> consumer) {
+        for (int i = 0; i < STRIPES; i++) {
+            final T stripe = stripes.get(i);
+
+            if (stripe != null) {
+                consumer.accept(stripe);
+            }
+        }
+    }
+
+    /**
+     * The smallest power of two which is at least the given number of processors, up to
+     * {@link #MAX_STRIPES}.
+     */
+    static int stripes(final int processors) {
+        int stripes = 1;
+
+        while (stripes < processors && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+
+        return stripes;
+    }
+}
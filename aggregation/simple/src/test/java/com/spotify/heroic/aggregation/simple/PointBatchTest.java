@@ -0,0 +1,126 @@
+package com.spotify.heroic.aggregation.simple;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.aggregation.Bucket;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongFunction;
+import java.util.function.ToDoubleFunction;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that the batched point path, used when size equals extent, gives the same result as
+ * feeding every point to its bucket one by one.
+ */
+public class PointBatchTest {
+    private static final long SIZE = 1000L;
+    private static final DateRange RANGE = new DateRange(1000L, 11000L);
+    private static final Map<String, String> KEY = ImmutableMap.of();
+    private static final Series SERIES = Series.of("foo");
+
+    private List<Point> points;
+
+    @Before
+    public void setup() {
+        final Random random = new Random(0x1234L);
+
+        points = new ArrayList<>();
+
+        for (int i = 0; i < 5000; i++) {
+            /* integer values keep sums exact, regardless of the order of addition */
+            points.add(new Point(random.nextInt(13000), random.nextInt(100)));
+        }
+
+        /* exactly on bucket boundaries, and outside of the range */
+        for (long ts = 0L; ts <= 13000L; ts += SIZE) {
+            points.add(new Point(ts, 42D));
+        }
+
+        points.add(new Point(5500L, Double.NaN));
+
+        Collections.sort(points, Metric.comparator());
+
+        /* out-of-order tail */
+        points.add(new Point(2500L, 7D));
+        points.add(new Point(1000L, 3D));
+    }
+
+    @Test
+    public void testSum() {
+        verify(new SumInstance(SIZE, SIZE), StripedSumBucket::new, StripedSumBucket::value);
+    }
+
+    @Test
+    public void testAverage() {
+        verify(new AverageInstance(SIZE, SIZE), StripedAverageBucket::new,
+            StripedAverageBucket::value);
+    }
+
+    @Test
+    public void testMin() {
+        verify(new MinInstance(SIZE, SIZE), StripedMinBucket::new, StripedMinBucket::value);
+    }
+
+    @Test
+    public void testMax() {
+        verify(new MaxInstance(SIZE, SIZE), StripedMaxBucket::new, StripedMaxBucket::value);
+    }
+
+    @Test
+    public void testStdDev() {
+        verify(new StdDevInstance(SIZE, SIZE), StripedStdDevBucket::new,
+            StripedStdDevBucket::value);
+    }
+
+    @Test
+    public void testCount() {
+        verify(new CountInstance(SIZE, SIZE), StripedCountBucket::new, StripedCountBucket::count);
+    }
+
+    private <B extends Bucket> void verify(
+        final AggregationInstance instance, final LongFunction<B> bucket,
+        final ToDoubleFunction<B> value
+    ) {
+        final AggregationSession session = instance.session(RANGE);
+
+        /* split into a couple of updates, like multiple series would */
+        session.updatePoints(KEY, ImmutableSet.of(SERIES), points.subList(0, 1000));
+        session.updatePoints(KEY, ImmutableSet.of(SERIES), points.subList(1000, points.size()));
+
+        final List<Point> expected = new ArrayList<>();
+
+        for (long ts = RANGE.start(); ts <= RANGE.end(); ts += SIZE) {
+            final B b = bucket.apply(ts);
+
+            for (final Point p : points) {
+                if (p.valid() && p.getTimestamp() > ts - SIZE && p.getTimestamp() <= ts) {
+                    b.updatePoint(KEY, p);
+                }
+            }
+
+            final double v = value.applyAsDouble(b);
+
+            if (!Double.isNaN(v)) {
+                expected.add(new Point(ts, v));
+            }
+        }
+
+        final List<Point> result =
+            session.result().getResult().get(0).getMetrics().getDataAs(Point.class);
+
+        assertEquals(expected, result);
+    }
+}
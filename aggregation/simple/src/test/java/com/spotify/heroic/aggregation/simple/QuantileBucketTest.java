@@ -19,6 +19,28 @@ public class QuantileBucketTest {
         Assert.assertEquals(1337.0, b.value(), 0.0);
     }
 
+    @Test
+    public void testEmpty() throws IOException {
+        final QuantileBucket b = new QuantileBucket(0, 0.5, ERROR);
+        Assert.assertTrue(Double.isNaN(b.value()));
+    }
+
+    @Test
+    public void testUpdatePoints() throws IOException {
+        final QuantileBucket b = new QuantileBucket(0, 0.5, ERROR);
+        final double[] values = new double[10000];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i + 1;
+        }
+
+        /* spans several internal batches */
+        b.updatePoints(TAGS, values, 0, 1234);
+        b.updatePoints(TAGS, values, 1234, values.length - 1234);
+
+        Assert.assertEquals(5000.0, b.value(), 10000 * ERROR);
+    }
+
     @Test
     public void testQuantiles() throws IOException {
         final QuantileBucket b = new QuantileBucket(0, 0.5, ERROR);
@@ -1,12 +1,59 @@
 package com.spotify.heroic.aggregation.simple;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.Payload;
+import com.spotify.heroic.metric.Point;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import static com.spotify.heroic.test.LombokDataTest.verifyClassBuilder;
+import static org.junit.Assert.assertEquals;
 
 public class QuantileInstanceTest {
+    private static final DateRange RANGE = new DateRange(0L, 1000L);
+    private static final Map<String, String> KEY = ImmutableMap.of();
+
     @Test
     public void lombokDataTest() {
         verifyClassBuilder(QuantileInstance.class).verify();
+        verifyClassBuilder(DistributedQuantileInstance.class).verify();
+        verifyClassBuilder(ReduceQuantileInstance.class).verify();
+    }
+
+    @Test
+    public void testDistributed() {
+        final AggregationInstance instance = new QuantileInstance(1000L, 1000L, 0.99, 0.01);
+        final AggregationSession reducer = instance.reducer().session(RANGE);
+
+        /* every node has a disjoint part of the values from 1 to 10000 */
+        for (int node = 0; node < 4; node++) {
+            final AggregationSession session = instance.distributed().session(RANGE);
+            final List<Point> points = new ArrayList<>();
+
+            for (int i = node + 1; i <= 10000; i += 4) {
+                points.add(new Point(500L, i));
+            }
+
+            session.updatePoints(KEY, ImmutableSet.of(Series.of("node" + node)), points);
+
+            final List<Payload> sketches =
+                session.result().getResult().get(0).getMetrics().getDataAs(Payload.class);
+            reducer.updatePayload(KEY, ImmutableSet.of(Series.of("node" + node)), sketches);
+        }
+
+        final List<Point> result =
+            reducer.result().getResult().get(0).getMetrics().getDataAs(Point.class);
+
+        assertEquals(1, result.size());
+        assertEquals(1000L, result.get(0).getTimestamp());
+        assertEquals(9900.0, result.get(0).getValue(), 10000 * 0.01);
     }
 }
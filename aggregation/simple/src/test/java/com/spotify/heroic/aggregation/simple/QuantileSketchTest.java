@@ -0,0 +1,94 @@
+package com.spotify.heroic.aggregation.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QuantileSketchTest {
+    private static final double ERROR = 0.01;
+    private static final int COUNT = 100000;
+
+    private double[] values;
+
+    @Before
+    public void setup() {
+        final Random random = new Random(0x4321L);
+
+        values = new double[COUNT];
+
+        for (int i = 0; i < COUNT; i++) {
+            /* long tailed, like latencies */
+            values[i] = Math.exp(random.nextGaussian());
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        final QuantileSketch sketch = new QuantileSketch(QuantileSketch.compression(ERROR));
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        assertEquals(0L, sketch.count());
+    }
+
+    @Test
+    public void testQuantiles() {
+        final QuantileSketch sketch = new QuantileSketch(QuantileSketch.compression(ERROR));
+        sketch.add(values, 0, values.length);
+
+        assertEquals(COUNT, sketch.count());
+        assertTrue(sketch.getCentroids() < COUNT / 100);
+        verifyQuantiles(sketch);
+    }
+
+    @Test
+    public void testMerge() {
+        final QuantileSketch merged = new QuantileSketch(QuantileSketch.compression(ERROR));
+
+        /* one sketch per shard, which are merged after being sent over the wire */
+        for (int shard = 0; shard < 10; shard++) {
+            final QuantileSketch sketch = new QuantileSketch(QuantileSketch.compression(ERROR));
+
+            for (int i = shard; i < COUNT; i += 10) {
+                sketch.add(values[i]);
+            }
+
+            merged.merge(QuantileSketch.fromBytes(sketch.toBytes()));
+        }
+
+        assertEquals(COUNT, merged.count());
+        verifyQuantiles(merged);
+    }
+
+    @Test
+    public void testSerialization() {
+        final QuantileSketch sketch = new QuantileSketch(QuantileSketch.compression(ERROR));
+        sketch.add(values, 0, 1000);
+
+        final QuantileSketch copy = QuantileSketch.fromBytes(sketch.toBytes());
+
+        assertEquals(sketch.count(), copy.count());
+        assertEquals(sketch.quantile(0.5), copy.quantile(0.5), 0D);
+        assertEquals(sketch.quantile(0.99), copy.quantile(0.99), 0D);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedVersion() {
+        QuantileSketch.fromBytes(new byte[]{0});
+    }
+
+    /**
+     * Verify that the rank of every estimated quantile is within the error of the sketch.
+     */
+    private void verifyQuantiles(final QuantileSketch sketch) {
+        final double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        for (final double q : new double[]{0.01, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999}) {
+            final int rank = Math.abs(Arrays.binarySearch(sorted, sketch.quantile(q)));
+            assertEquals("q = " + q, q, (double) rank / COUNT, ERROR);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.spotify.heroic.aggregation.simple;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+public class StripedGroupUniqueBucketTest {
+    private static final Map<String, String> TAGS = new HashMap<>();
+
+    @Test
+    public void testEmpty() {
+        assertEquals(ImmutableList.of(), new StripedGroupUniqueBucket(0L).groups());
+    }
+
+    @Test(timeout = 10000)
+    public void testUniqueTimestamps() throws Exception {
+        final StripedGroupUniqueBucket b = new StripedGroupUniqueBucket(0L);
+        final ExecutorService service = Executors.newFixedThreadPool(8);
+
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(service.submit(() -> {
+                    for (int i = 99; i >= 0; i--) {
+                        b.updatePoint(TAGS, new Point(i, 1D));
+                    }
+                }));
+            }
+
+            for (final Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            service.shutdownNow();
+        }
+
+        final List<Point> expected = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            expected.add(new Point(i, 1D));
+        }
+
+        assertEquals(ImmutableList.of(MetricCollection.points(expected)), b.groups());
+    }
+}
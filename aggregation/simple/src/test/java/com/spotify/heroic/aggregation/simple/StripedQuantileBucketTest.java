@@ -0,0 +1,84 @@
+package com.spotify.heroic.aggregation.simple;
+
+import com.spotify.heroic.metric.Point;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class StripedQuantileBucketTest {
+    private static final Map<String, String> TAGS = new HashMap<>();
+    private static final double ERROR = 0.01;
+
+    @Test
+    public void testEmpty() {
+        final StripedQuantileBucket b = new StripedQuantileBucket(0, 0.5, ERROR);
+        Assert.assertTrue(Double.isNaN(b.value()));
+    }
+
+    @Test
+    public void testQuantiles() {
+        final StripedQuantileBucket b = new StripedQuantileBucket(0, 0.5, ERROR);
+
+        for (int i = 1; i <= 10000; i++) {
+            b.updatePoint(TAGS, new Point(0, i));
+        }
+
+        Assert.assertEquals(5000.0, b.value(), 10000 * ERROR);
+    }
+
+    @Test
+    public void testBatches() {
+        final StripedQuantileBucket b = new StripedQuantileBucket(0, 0.9, ERROR);
+
+        final double[] small = new double[10];
+        final double[] large = new double[1000];
+
+        for (int i = 0; i < small.length; i++) {
+            small[i] = i + 1;
+        }
+
+        for (int i = 0; i < large.length; i++) {
+            large[i] = small.length + i + 1;
+        }
+
+        b.updatePoints(TAGS, small, 0, small.length);
+        b.updatePoints(TAGS, large, 0, large.length);
+
+        Assert.assertEquals(909.0, b.value(), 1010 * ERROR);
+    }
+
+    @Test(timeout = 10000)
+    public void testConcurrentFeeders() throws Exception {
+        final StripedQuantileBucket b = new StripedQuantileBucket(0, 0.99, ERROR);
+        final ExecutorService service = Executors.newFixedThreadPool(8);
+
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+
+            for (int thread = 0; thread < 8; thread++) {
+                final int offset = thread;
+
+                futures.add(service.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        b.updatePoint(TAGS, new Point(0, i * 8 + offset));
+                    }
+                }));
+            }
+
+            for (final Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            service.shutdownNow();
+        }
+
+        Assert.assertEquals(79200.0, b.value(), 80000 * ERROR);
+    }
+}
@@ -21,6 +21,7 @@
 
 package com.spotify.heroic.consumer.kafka;
 
+import com.spotify.heroic.consumer.ConsumerBatchException;
 import com.spotify.heroic.consumer.ConsumerSchema;
 import com.spotify.heroic.consumer.ConsumerSchemaValidationException;
 import com.spotify.heroic.statistics.ConsumerReporter;
@@ -29,6 +30,9 @@ import com.spotify.heroic.time.Clock;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import eu.toolchain.async.ResolvableFuture;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -66,6 +70,10 @@ public final class ConsumerThread extends Thread {
     private final AtomicLong outstandingConsumptionRequests = new AtomicLong(0);
 
     private final long periodicCommitInterval;
+    // Number of messages to consume in one batch, batching is disabled if this is 0
+    private final int batchSize;
+    // Maximum number of milliseconds to wait for a batch to fill up
+    private final long batchTime;
     // Timestamp specifying when the next consumer commit should happen
     private final AtomicLong nextOffsetsCommitTSGlobal;
     // Thread-local copy of the above timestamp
@@ -79,7 +87,8 @@ public final class ConsumerThread extends Thread {
         final ConsumerReporter reporter, final KafkaStream<byte[]> stream,
         final ConsumerSchema.Consumer schema, final AtomicInteger active, final AtomicLong errors,
         final LongAdder consumed, final boolean enablePeriodicCommit,
-        final long periodicCommitInterval, final AtomicLong nextOffsetsCommitTSGlobal
+        final long periodicCommitInterval, final AtomicLong nextOffsetsCommitTSGlobal,
+        final int batchSize, final long batchTime
     ) {
         super(String.format("%s: %s", ConsumerThread.class.getCanonicalName(), name));
 
@@ -97,6 +106,8 @@ public final class ConsumerThread extends Thread {
         this.periodicCommitInterval = periodicCommitInterval;
         this.nextOffsetsCommitTSGlobal = nextOffsetsCommitTSGlobal;
         this.nextOffsetsCommitTSThreadLocal = this.nextOffsetsCommitTSGlobal.get();
+        this.batchSize = batchSize;
+        this.batchTime = batchTime;
         this.coordinator = null;
 
         this.hasStopped = async.future();
@@ -174,6 +185,11 @@ public final class ConsumerThread extends Thread {
     }
 
     private void guardedRun() throws Exception {
+        if (batchSize > 0) {
+            guardedRunBatched();
+            return;
+        }
+
         for (final byte[] messageBody : stream.messageIterable()) {
             if (shouldStop.getCount() == 0 || messageBody == null) {
                 // Kafka will send a null message when connection is closing
@@ -189,6 +205,51 @@ public final class ConsumerThread extends Thread {
         }
     }
 
+    /**
+     * Drain messages into batches of up to batchSize messages, or whatever arrived within
+     * batchTime, and consume every batch at once.
+     */
+    private void guardedRunBatched() throws Exception {
+        final Iterator<byte[]> messages = stream.messageIterable().iterator();
+
+        List<byte[]> batch = new ArrayList<>(batchSize);
+        long deadline = 0;
+
+        while (shouldStop.getCount() > 0) {
+            if (stream.awaitMessage()) {
+                final byte[] messageBody = messages.hasNext() ? messages.next() : null;
+
+                if (messageBody == null) {
+                    // Kafka will send a null message when connection is closing
+                    break;
+                }
+
+                if (batch.isEmpty()) {
+                    deadline = clock.currentTimeMillis() + batchTime;
+                }
+
+                batch.add(messageBody);
+            }
+
+            /* flush before pausing, since offsets are committed while all threads are paused */
+            if (!batch.isEmpty() && (batch.size() >= batchSize ||
+                clock.currentTimeMillis() >= deadline || isPausing())) {
+                consumeBatchWithRetry(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+
+            if (batch.isEmpty()) {
+                maybePause();
+            }
+        }
+
+        /* messages which have been taken from the stream must not be dropped, since their offsets
+         * might be committed */
+        if (!batch.isEmpty()) {
+            consumeBatch(batch);
+        }
+    }
+
     private void maybePause() throws InterruptedException {
         CountDownLatch p = shouldPause.get();
 
@@ -267,6 +328,89 @@ public final class ConsumerThread extends Thread {
         }
     }
 
+    /**
+     * Consume a batch, retrying until it is consumed or the thread is stopped.
+     * <p>
+     * The batch is always attempted once, since its messages have already been taken from the
+     * stream. If it fails part way through, only the messages which were not consumed are retried.
+     */
+    private void consumeBatchWithRetry(final List<byte[]> batch) throws InterruptedException {
+        long sleep = RETRY_INITIAL_SLEEP;
+        List<byte[]> remaining = batch;
+
+        while (true) {
+            final int consumed = consumeBatch(remaining);
+
+            if (consumed >= remaining.size() || shouldStop.getCount() == 0) {
+                break;
+            }
+
+            remaining = remaining.subList(consumed, remaining.size());
+            handleRetry(sleep);
+            sleep = Math.min(sleep * 2, RETRY_MAX_SLEEP);
+        }
+    }
+
+    /**
+     * Consume a batch of messages, and track all of its writes as a single request.
+     *
+     * @return the number of messages at the start of the batch which were consumed
+     */
+    private int consumeBatch(final List<byte[]> batch) {
+        try {
+            maybePrepareToCommitConsumerOffsets();
+
+            final FutureReporter.Context consumptionContext = reporter.reportConsumption();
+
+            ConsumerSchema.Batch result;
+            int handled;
+
+            try {
+                result = schema.consumeBatch(batch);
+                handled = batch.size();
+            } catch (final ConsumerBatchException e) {
+                errors.incrementAndGet();
+                log.error("{}: Failed to consume batch, {} of {} message(s) consumed", name,
+                    e.getConsumed(), batch.size(), e);
+                reporter.reportMessageError();
+                result = e.getBatch();
+                handled = e.getConsumed();
+            }
+
+            final AsyncFuture<Void> future = async.collectAndDiscard(result.getWrites());
+
+            if (enablePeriodicCommit) {
+                outstandingConsumptionRequests.incrementAndGet();
+
+                future.onFinished(() -> {
+                    long value = outstandingConsumptionRequests.decrementAndGet();
+                    if (value == 0) {
+                        // If applicable, commit consumer offsets
+                        coordinator.commitConsumerOffsets();
+                    }
+                });
+            }
+
+            future.onDone(consumptionContext);
+
+            for (int i = 0; i < result.getInvalid(); i++) {
+                reporter.reportConsumerSchemaError();
+            }
+
+            for (final byte[] body : batch.subList(0, handled)) {
+                reporter.reportMessageSize(body.length);
+            }
+
+            consumed.add(handled - result.getInvalid());
+            return handled;
+        } catch (final Exception e) {
+            errors.incrementAndGet();
+            log.error("{}: Failed to consume batch", name, e);
+            reporter.reportMessageError();
+            return 0;
+        }
+    }
+
     /* There's a timestamp, nextOffsetsCommitTSGlobal, saying when we should commit consumer offsets
      * the next time. This method looks at a thread local cached copy of that timestamp, to make
      * this check as fast as possible. When the cached copy says that we should commit, we check the
@@ -74,6 +74,10 @@ public class KafkaConsumerModule implements ConsumerModule {
     public static final long DEFAULT_COMMIT_INTERVAL = TimeUnit.SECONDS.toMillis(30);
     private static final long COMMIT_INITIAL_DELAY = TimeUnit.SECONDS.toMillis(2);
     private static final String AUTO_COMMIT_ENABLE = "auto.commit.enable";
+    private static final String CONSUMER_TIMEOUT_MS = "consumer.timeout.ms";
+    /* batching is disabled by default */
+    public static final int DEFAULT_BATCH_SIZE = 0;
+    public static final long DEFAULT_BATCH_TIME = 100;
 
     private final Optional<String> id;
     private final List<String> topics;
@@ -83,6 +87,8 @@ public class KafkaConsumerModule implements ConsumerModule {
     private final Boolean transactional;
     private final long transactionCommitInterval;
     private final Optional<KafkaConnection> fakeKafkaConnection;
+    private final int batchSize;
+    private final long batchTime;
 
     @Override
     public Exposed module(
@@ -268,6 +274,12 @@ public class KafkaConsumerModule implements ConsumerModule {
                     final Properties properties = new Properties();
                     properties.putAll(config);
 
+                    /* batching threads need to wake up to flush partial batches when the
+                     * topic is idle */
+                    if (batchSize > 0 && !properties.containsKey(CONSUMER_TIMEOUT_MS)) {
+                        properties.setProperty(CONSUMER_TIMEOUT_MS, Long.toString(batchTime));
+                    }
+
                     if (transactional) {
                         final String autoCommitEnable = properties.getProperty(AUTO_COMMIT_ENABLE);
                         if (autoCommitEnable != null && autoCommitEnable.equals("true")) {
@@ -328,7 +340,7 @@ public class KafkaConsumerModule implements ConsumerModule {
                 threads.add(
                     new ConsumerThread(async, clock, name, reporter, stream, consumer, consuming,
                         errors, consumed, enablePeriodicCommit, periodicCommitInterval,
-                        nextOffsetsCommitTS));
+                        nextOffsetsCommitTS, batchSize, batchTime));
             }
         }
 
@@ -359,6 +371,8 @@ public class KafkaConsumerModule implements ConsumerModule {
         private Optional<Boolean> transactional = Optional.empty();
         private Optional<Long> transactionCommitInterval = Optional.empty();
         private Optional<KafkaConnection> fakeKafkaConnection = Optional.empty();
+        private Optional<Integer> batchSize = Optional.empty();
+        private Optional<Long> batchTime = Optional.empty();
 
         @JsonCreator
         public Builder(
@@ -368,7 +382,9 @@ public class KafkaConsumerModule implements ConsumerModule {
             @JsonProperty("threadsPerTopic") Optional<Integer> threads,
             @JsonProperty("config") Optional<Map<String, String>> config,
             @JsonProperty("transactional") Optional<Boolean> transactional,
-            @JsonProperty("transactionCommitInterval") Optional<Long> transactionCommitInterval
+            @JsonProperty("transactionCommitInterval") Optional<Long> transactionCommitInterval,
+            @JsonProperty("batchSize") Optional<Integer> batchSize,
+            @JsonProperty("batchTime") Optional<Long> batchTime
         ) {
             this.id = id;
             this.threads = threads;
@@ -377,6 +393,8 @@ public class KafkaConsumerModule implements ConsumerModule {
             this.schema = schema.map(s -> ReflectionUtils.buildInstance(s, ConsumerSchema.class));
             this.transactional = transactional;
             this.transactionCommitInterval = transactionCommitInterval;
+            this.batchSize = batchSize;
+            this.batchTime = batchTime;
         }
 
         public Builder id(String id) {
@@ -420,6 +438,22 @@ public class KafkaConsumerModule implements ConsumerModule {
             return this;
         }
 
+        /**
+         * Consume messages in batches of up to the given size, 0 disables batching.
+         */
+        public Builder batchSize(int batchSize) {
+            this.batchSize = Optional.of(batchSize);
+            return this;
+        }
+
+        /**
+         * Maximum number of milliseconds to wait for a batch to fill up.
+         */
+        public Builder batchTime(long ms) {
+            this.batchTime = Optional.of(ms);
+            return this;
+        }
+
         public Builder fakeKafkaConnection(KafkaConnection fakeKafkaConnection) {
             this.fakeKafkaConnection = Optional.of(fakeKafkaConnection);
             return this;
@@ -444,7 +478,9 @@ public class KafkaConsumerModule implements ConsumerModule {
                 schema.get(),
                 transactional.orElse(DEFAULT_TRANSACTIONAL),
                 transactionCommitInterval.orElse(DEFAULT_COMMIT_INTERVAL),
-                fakeKafkaConnection
+                fakeKafkaConnection,
+                batchSize.orElse(DEFAULT_BATCH_SIZE),
+                batchTime.orElse(DEFAULT_BATCH_TIME)
             );
             // @formatter:on
         }
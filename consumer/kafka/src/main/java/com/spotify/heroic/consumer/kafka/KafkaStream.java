@@ -23,4 +23,14 @@ package com.spotify.heroic.consumer.kafka;
 
 public interface KafkaStream<V> {
     Iterable<V> messageIterable();
+
+    /**
+     * Wait until the message iterable can make progress without blocking, for at most the
+     * consumer timeout if one is configured.
+     *
+     * @return {@code false} if the consumer timeout passed without any new messages
+     */
+    default boolean awaitMessage() {
+        return true;
+    }
 }
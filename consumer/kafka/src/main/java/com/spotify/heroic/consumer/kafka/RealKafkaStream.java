@@ -22,6 +22,7 @@
 package com.spotify.heroic.consumer.kafka;
 
 import java.util.Iterator;
+import kafka.consumer.ConsumerTimeoutException;
 
 public class RealKafkaStream<V> implements KafkaStream<V> {
     private final kafka.consumer.KafkaStream<byte[], V> stream;
@@ -39,6 +40,16 @@ public class RealKafkaStream<V> implements KafkaStream<V> {
         return kafkaIterable;
     }
 
+    @Override
+    public boolean awaitMessage() {
+        try {
+            stream.iterator().hasNext();
+            return true;
+        } catch (final ConsumerTimeoutException e) {
+            return false;
+        }
+    }
+
     class KafkaIterable implements Iterable<V> {
         @Override
         public Iterator<V> iterator() {
@@ -0,0 +1,232 @@
+package com.spotify.heroic.consumer.kafka;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.spotify.heroic.consumer.ConsumerSchema;
+import com.spotify.heroic.statistics.ConsumerReporter;
+import com.spotify.heroic.statistics.FutureReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConsumerThreadTest {
+    private static final int BATCH_SIZE = 3;
+    private static final long BATCH_TIME = 100;
+
+    private AsyncFramework async;
+    private ConsumerReporter reporter;
+    private ConsumerThreadCoordinator coordinator;
+    private long now;
+
+    private FakeStream stream;
+    private FakeSchema schema;
+
+    @Before
+    public void setup() {
+        async = TinyAsync.builder().executor(MoreExecutors.newDirectExecutorService()).build();
+        reporter = mock(ConsumerReporter.class);
+        coordinator = mock(ConsumerThreadCoordinator.class);
+        now = 0L;
+
+        doReturn(mock(FutureReporter.Context.class)).when(reporter).reportConsumption();
+
+        stream = new FakeStream();
+        schema = new FakeSchema();
+    }
+
+    @Test
+    public void testFullBatch() {
+        final ConsumerThread thread = thread(false);
+
+        stream.message("a").message("b").message("c").message("d");
+        thread.run();
+
+        assertEquals(ImmutableList.of(ImmutableList.of("a", "b", "c"), ImmutableList.of("d")),
+            schema.batches);
+    }
+
+    @Test
+    public void testDeadlineFlush() {
+        final ConsumerThread thread = thread(false);
+
+        /* b arrives after the deadline of the batch started by a */
+        stream.message("a").then(() -> now += BATCH_TIME).message("b").message("c");
+        thread.run();
+
+        assertEquals(ImmutableList.of(ImmutableList.of("a", "b"), ImmutableList.of("c")),
+            schema.batches);
+    }
+
+    @Test
+    public void testFlushBeforePause() {
+        final ConsumerThread thread = thread(false);
+
+        /* no message is available after pausing */
+        stream.message("a").then(thread::pauseConsumption).idle();
+
+        /* stop after the first batch, or the thread would stay paused */
+        schema.onBatch = thread::shutdown;
+        thread.run();
+
+        assertEquals(ImmutableList.of(ImmutableList.of("a")), schema.batches);
+        assertEquals(ImmutableList.of(true), schema.pausing);
+    }
+
+    @Test
+    public void testFlushOnShutdown() {
+        final ConsumerThread thread = thread(false);
+
+        stream.message("a").message("b");
+        thread.run();
+
+        /* the stream shuts the thread down once it runs out of messages */
+        assertEquals(ImmutableList.of(ImmutableList.of("a", "b")), schema.batches);
+        assertTrue(thread.hasStopped.isResolved());
+    }
+
+    @Test
+    public void testCommitAfterWrites() {
+        final ConsumerThread thread = thread(true);
+
+        stream.message("a").message("b").message("c");
+        thread.run();
+
+        assertEquals(1, schema.writes.size());
+        verify(coordinator).prepareToCommitConsumerOffsets();
+        verify(coordinator, never()).commitConsumerOffsets();
+        assertEquals(1, thread.getNumOutstandingRequests());
+
+        schema.writes.get(0).resolve(null);
+
+        verify(coordinator, times(1)).commitConsumerOffsets();
+        assertEquals(0, thread.getNumOutstandingRequests());
+    }
+
+    private ConsumerThread thread(final boolean enablePeriodicCommit) {
+        final ConsumerThread thread =
+            new ConsumerThread(async, () -> now, "test", reporter, stream, schema,
+                new AtomicInteger(), new AtomicLong(), new LongAdder(), enablePeriodicCommit,
+                1000L, new AtomicLong(), BATCH_SIZE, BATCH_TIME);
+
+        thread.setCoordinator(coordinator);
+        stream.thread = thread;
+        return thread;
+    }
+
+    private static byte[] bytes(final String message) {
+        return message.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A stream which plays back a script of messages and actions, and shuts down the thread when
+     * it runs out.
+     */
+    private static class FakeStream implements KafkaStream<byte[]> {
+        /* waiting for a message times out */
+        private static final Object IDLE = new Object();
+
+        private final Deque<Object> script = new ArrayDeque<>();
+        private ConsumerThread thread;
+
+        FakeStream message(final String message) {
+            script.add(bytes(message));
+            return this;
+        }
+
+        FakeStream then(final Runnable action) {
+            script.add(action);
+            return this;
+        }
+
+        FakeStream idle() {
+            script.add(IDLE);
+            return this;
+        }
+
+        @Override
+        public Iterable<byte[]> messageIterable() {
+            return () -> new Iterator<byte[]>() {
+                @Override
+                public boolean hasNext() {
+                    return script.peek() instanceof byte[];
+                }
+
+                @Override
+                public byte[] next() {
+                    return (byte[]) script.poll();
+                }
+            };
+        }
+
+        @Override
+        public boolean awaitMessage() {
+            while (script.peek() instanceof Runnable) {
+                ((Runnable) script.poll()).run();
+            }
+
+            if (script.peek() == IDLE) {
+                script.poll();
+                return false;
+            }
+
+            if (script.isEmpty()) {
+                thread.shutdown();
+                return false;
+            }
+
+            return true;
+        }
+    }
+
+    private class FakeSchema implements ConsumerSchema.Consumer {
+        private final List<List<String>> batches = new ArrayList<>();
+        /* if the thread was pausing when each batch was consumed */
+        private final List<Boolean> pausing = new ArrayList<>();
+        private final List<ResolvableFuture<Void>> writes = new ArrayList<>();
+        private Runnable onBatch = () -> {
+        };
+
+        @Override
+        public AsyncFuture<Void> consume(final byte[] message) {
+            throw new IllegalStateException("messages should be consumed in batches");
+        }
+
+        @Override
+        public ConsumerSchema.Batch consumeBatch(final List<byte[]> messages) {
+            final List<String> batch = new ArrayList<>();
+
+            for (final byte[] message : messages) {
+                batch.add(new String(message, StandardCharsets.UTF_8));
+            }
+
+            batches.add(batch);
+            pausing.add(stream.thread.isPausing());
+
+            final ResolvableFuture<Void> write = async.future();
+            writes.add(write);
+            onBatch.run();
+
+            return new ConsumerSchema.Batch(ImmutableList.of(write), 0);
+        }
+    }
+}
@@ -54,6 +54,7 @@ public class MemoryProfile extends HeroicProfileBase {
 
         final boolean elasticsearch = params.getBoolean("elasticsearch").orElse(false);
         final boolean synchronizedStorage = params.getBoolean("synchronizedStorage").orElse(false);
+        final boolean columnar = params.getBoolean("columnar").orElse(false);
 
         final ImmutableList.Builder<SuggestModule> suggest = ImmutableList.builder();
         final ImmutableList.Builder<MetadataModule> metadata = ImmutableList.builder();
@@ -78,8 +79,7 @@ public class MemoryProfile extends HeroicProfileBase {
                 .build());
         } else {
             suggest.add(MemorySuggestModule.builder().build());
-            metadata.add(
-                MemoryMetadataModule.builder().synchronizedStorage(synchronizedStorage).build());
+            metadata.add(MemoryMetadataModule.builder().build());
         }
 
         // @formatter:off
@@ -93,6 +93,7 @@ public class MemoryProfile extends HeroicProfileBase {
                     .backends(ImmutableList.<MetricModule>of(
                         MemoryMetricModule.builder()
                             .synchronizedStorage(synchronizedStorage)
+                            .columnar(columnar)
                             .build()
                     ))
             )
@@ -120,7 +121,8 @@ public class MemoryProfile extends HeroicProfileBase {
         return ImmutableList.of(
             parameter("elasticsearch", "If set, use real elasticsearch backends"),
             parameter("synchronized", "If set, synchronized storage for happens-before " +
-                    "behavior")
+                    "behavior"),
+            parameter("columnar", "If set, store points in columnar, primitive chunks")
         );
         // @formatter:on
     }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.AggregationResult;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.aggregation.simple.AverageInstance;
+import com.spotify.heroic.aggregation.simple.CountInstance;
+import com.spotify.heroic.aggregation.simple.MaxInstance;
+import com.spotify.heroic.aggregation.simple.MinInstance;
+import com.spotify.heroic.aggregation.simple.StdDevInstance;
+import com.spotify.heroic.aggregation.simple.SumInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Feeds points through a bucket aggregation session.
+ * <p>
+ * The {@code batched} path uses an extent equal to the size, which lets every point be mapped to
+ * its bucket arithmetically and folded in primitive batches. The {@code iterator} path uses an
+ * extent that is one millisecond short of the size. This still puts every point in at most one
+ * bucket, but forces the session through the generic per-point bucket iterator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BucketAggregationBenchmark {
+    public static final int POINTS = 1000000;
+    public static final long STEP = 10000L;
+    public static final long SIZE = 300000L;
+
+    private static final Map<String, String> KEY = ImmutableMap.of();
+    private static final Set<Series> SERIES = ImmutableSet.of(Series.of("benchmark"));
+
+    @Param({"sum", "average", "min", "max", "count", "stddev"})
+    public String aggregation;
+
+    @Param({"batched", "iterator"})
+    public String path;
+
+    private AggregationInstance instance;
+    private DateRange range;
+    private List<Point> points;
+
+    @Setup
+    public void setup() {
+        final long extent = "batched".equals(path) ? SIZE : SIZE - 1;
+
+        instance = buildInstance(aggregation, SIZE, extent);
+        range = new DateRange(0L, POINTS * STEP);
+
+        final Random random = new Random(0x4242L);
+        points = new ArrayList<>(POINTS);
+
+        for (int i = 1; i <= POINTS; i++) {
+            points.add(new Point(i * STEP, random.nextDouble() * 1000D));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public AggregationResult updatePoints() {
+        final AggregationSession session = instance.session(range);
+        session.updatePoints(KEY, SERIES, points);
+        return session.result();
+    }
+
+    static AggregationInstance buildInstance(
+        final String aggregation, final long size, final long extent
+    ) {
+        switch (aggregation) {
+            case "sum":
+                return new SumInstance(size, extent);
+            case "average":
+                return new AverageInstance(size, extent);
+            case "min":
+                return new MinInstance(size, extent);
+            case "max":
+                return new MaxInstance(size, extent);
+            case "count":
+                return new CountInstance(size, extent);
+            case "stddev":
+                return new StdDevInstance(size, extent);
+            default:
+                throw new IllegalArgumentException("Unsupported aggregation: " + aggregation);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.aggregation.Bucket;
+import com.spotify.heroic.aggregation.simple.AverageBucket;
+import com.spotify.heroic.aggregation.simple.CountBucket;
+import com.spotify.heroic.aggregation.simple.GroupUniqueBucket;
+import com.spotify.heroic.aggregation.simple.MaxBucket;
+import com.spotify.heroic.aggregation.simple.MinBucket;
+import com.spotify.heroic.aggregation.simple.QuantileBucket;
+import com.spotify.heroic.aggregation.simple.StdDevBucket;
+import com.spotify.heroic.aggregation.simple.StripedAverageBucket;
+import com.spotify.heroic.aggregation.simple.StripedCountBucket;
+import com.spotify.heroic.aggregation.simple.StripedGroupUniqueBucket;
+import com.spotify.heroic.aggregation.simple.StripedMaxBucket;
+import com.spotify.heroic.aggregation.simple.StripedMinBucket;
+import com.spotify.heroic.aggregation.simple.StripedQuantileBucket;
+import com.spotify.heroic.aggregation.simple.StripedStdDevBucket;
+import com.spotify.heroic.aggregation.simple.StripedSumBucket;
+import com.spotify.heroic.aggregation.simple.SumBucket;
+import com.spotify.heroic.metric.Point;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Contended point updates against a single bucket, comparing the striped buckets used by the
+ * simple aggregations with their atomic, non-striped counterparts.
+ * <p>
+ * All benchmark threads share the same bucket, which is the worst case for a bucket aggregation
+ * where many shards report into the same time slot. For {@code quantile} and {@code unique} the
+ * non-striped buckets are the lock-based and skip-list based implementations. Run with
+ * {@code -t 8}, {@code -t 16} or {@code -t 32} to compare them under as many concurrent feeders
+ * as a query has fetches in flight.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(4)
+public class BucketBenchmark {
+    public static final int POINTS = 1024;
+
+    private static final Map<String, String> KEY = ImmutableMap.of();
+
+    @Param({"sum", "average", "min", "max", "count", "stddev", "quantile", "unique"})
+    public String aggregation;
+
+    @Param({"striped", "atomic"})
+    public String bucket;
+
+    private Bucket target;
+    private Point[] points;
+
+    @Setup
+    public void setup() {
+        target = buildBucket(aggregation, "striped".equals(bucket));
+
+        final Random random = new Random(0x4242L);
+        points = new Point[POINTS];
+
+        for (int i = 0; i < POINTS; i++) {
+            points[i] = new Point(i, random.nextDouble() * 1000D);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public Bucket updatePoint() {
+        for (final Point p : points) {
+            target.updatePoint(KEY, p);
+        }
+
+        return target;
+    }
+
+    static Bucket buildBucket(final String aggregation, final boolean striped) {
+        switch (aggregation) {
+            case "sum":
+                return striped ? new StripedSumBucket(0L) : new SumBucket(0L);
+            case "average":
+                return striped ? new StripedAverageBucket(0L) : new AverageBucket(0L);
+            case "min":
+                return striped ? new StripedMinBucket(0L) : new MinBucket(0L);
+            case "max":
+                return striped ? new StripedMaxBucket(0L) : new MaxBucket(0L);
+            case "count":
+                return striped ? new StripedCountBucket(0L) : new CountBucket(0L);
+            case "stddev":
+                return striped ? new StripedStdDevBucket(0L) : new StdDevBucket(0L);
+            case "quantile":
+                return striped ? new StripedQuantileBucket(0L, 0.99, 0.01)
+                    : new QuantileBucket(0L, 0.99, 0.01);
+            case "unique":
+                return striped ? new StripedGroupUniqueBucket(0L) : new GroupUniqueBucket(0L);
+            default:
+                throw new IllegalArgumentException("Unsupported aggregation: " + aggregation);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.spotify.heroic.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.HeroicMappers;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.metric.CompactSeriesSet;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultGroup;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.rpc.grpc.GrpcCodec;
+import com.spotify.heroic.rpc.grpc.GrpcRpcProtocol;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sends the result of a {@code sum by role} over many series between nodes, with the series of
+ * every group either kept in full or compacted.
+ * <p>
+ * Run with {@code -prof gc} to compare the memory allocated when decoding the result, which
+ * approximates the heap that the result occupies on the receiving node. The encoded size is
+ * reported as a secondary result of {@link #encode(EncodedSize)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CompactSeriesSetBenchmark {
+    public static final int GROUPS = 10;
+    public static final int SERIES = 50000;
+    public static final int POINTS = 60;
+    public static final long STEP = 60000L;
+
+    @Param({"false", "true"})
+    public boolean compact;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private GrpcCodec<FullQuery> codec;
+    private FullQuery query;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        mapper.registerModule(HeroicMappers.jsonSerializers());
+        codec = GrpcRpcProtocol.METRICS_FULL_QUERY.binary().get().responseCodec();
+
+        final List<Point> points = new ArrayList<>(POINTS);
+
+        for (int i = 1; i <= POINTS; i++) {
+            points.add(new Point(i * STEP, i));
+        }
+
+        final List<ResultGroup> groups = new ArrayList<>(GROUPS);
+
+        for (int g = 0; g < GROUPS; g++) {
+            final ImmutableSet.Builder<Series> series = ImmutableSet.builder();
+
+            for (int i = 0; i < SERIES; i++) {
+                series.add(Series.of("benchmark",
+                    ImmutableMap.of("role", "role" + g, "host", "host" + i, "site",
+                        "site" + (i % 5))));
+            }
+
+            final Set<Series> s = compact ? CompactSeriesSet.of(series.build()) : series.build();
+
+            groups.add(new ResultGroup(ImmutableMap.of("role", "role" + g), s,
+                MetricCollection.points(points), STEP));
+        }
+
+        query = new FullQuery(QueryTrace.PASSIVE, ImmutableList.of(), groups, Statistics.empty(),
+            ResultLimits.of());
+        encoded = codec.encode(mapper, query);
+    }
+
+    @Benchmark
+    public byte[] encode(final EncodedSize size) throws IOException {
+        final byte[] bytes = codec.encode(mapper, query);
+        size.bytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public FullQuery decode() throws IOException {
+        return codec.decode(mapper, encoded);
+    }
+
+    /**
+     * Size of the encoded result in bytes.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class EncodedSize {
+        public long bytes;
+    }
+}
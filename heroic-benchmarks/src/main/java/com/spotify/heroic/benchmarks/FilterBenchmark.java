@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.AndFilter;
+import com.spotify.heroic.filter.FalseFilter;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.FilterCompiler;
+import com.spotify.heroic.filter.HasTagFilter;
+import com.spotify.heroic.filter.MatchKeyFilter;
+import com.spotify.heroic.filter.MatchTagFilter;
+import com.spotify.heroic.filter.NotFilter;
+import com.spotify.heroic.filter.OrFilter;
+import com.spotify.heroic.filter.RegexFilter;
+import com.spotify.heroic.filter.StartsWithFilter;
+import com.spotify.heroic.filter.TrueFilter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluates {@link Filter#apply(Series)} and the predicate compiled by {@link FilterCompiler} for
+ * every filter type against a fixed set of series, roughly half of which match.
+ * <p>
+ * The raw filter is left out since it can't be applied without being parsed first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FilterBenchmark {
+    public static final int SERIES = 10000;
+
+    @Param({
+        "true", "false", "key", "match", "has", "starts", "regex", "and", "or", "not",
+        "regexAndKey"
+    })
+    public String filter;
+
+    private Filter instance;
+    private Predicate<Series> compiled;
+    private List<Series> series;
+
+    @Setup
+    public void setup() {
+        instance = buildFilter(filter);
+        compiled = FilterCompiler.compile(instance);
+        series = new ArrayList<>(SERIES);
+
+        for (int i = 0; i < SERIES; i++) {
+            final ImmutableMap.Builder<String, String> tags = ImmutableMap.builder();
+            tags.put("host", "host" + i + ".example.com");
+            tags.put("site", i % 2 == 0 ? "lon" : "sto");
+            tags.put("role", "role" + (i % 20));
+
+            if (i % 2 == 0) {
+                tags.put("what", "cpu-idle");
+            }
+
+            series.add(Series.of(i % 2 == 0 ? "system" : "jvm", tags.build()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SERIES)
+    public int apply() {
+        int matches = 0;
+
+        for (final Series s : series) {
+            if (instance.apply(s)) {
+                matches++;
+            }
+        }
+
+        return matches;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SERIES)
+    public int compiled() {
+        int matches = 0;
+
+        for (final Series s : series) {
+            if (compiled.test(s)) {
+                matches++;
+            }
+        }
+
+        return matches;
+    }
+
+    static Filter buildFilter(final String filter) {
+        switch (filter) {
+            case "true":
+                return TrueFilter.get();
+            case "false":
+                return FalseFilter.get();
+            case "key":
+                return new MatchKeyFilter("system");
+            case "match":
+                return new MatchTagFilter("site", "lon");
+            case "has":
+                return new HasTagFilter("what");
+            case "starts":
+                return new StartsWithFilter("what", "cpu-");
+            case "regex":
+                return new RegexFilter("host", "host[0-9]*[02468]\\.example\\.com");
+            case "and":
+                return new AndFilter(ImmutableList.of(new MatchKeyFilter("system"),
+                    new MatchTagFilter("site", "lon"), new HasTagFilter("what")));
+            case "or":
+                return new OrFilter(ImmutableList.of(new MatchTagFilter("role", "role0"),
+                    new MatchTagFilter("role", "role2"), new MatchTagFilter("site", "lon")));
+            case "not":
+                return new NotFilter(new MatchTagFilter("site", "sto"));
+            case "regexAndKey":
+                /* the regex comes first, which the compiled predicate reorders */
+                return new AndFilter(ImmutableList.of(
+                    new RegexFilter("host", "host[0-9]*[02468]\\.example\\.com"),
+                    new MatchKeyFilter("jvm")));
+            default:
+                throw new IllegalArgumentException("Unsupported filter: " + filter);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.AggregationResult;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.aggregation.GroupInstance;
+import com.spotify.heroic.aggregation.simple.SumInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Feeds many small series through a grouping aggregation, which is dominated by computing the
+ * group key for every update and looking up the matching session.
+ * <p>
+ * {@code of} is the comma-separated list of tags to group by, {@code all} groups every series
+ * together and {@code none} keeps every series in its own group.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GroupingAggregationBenchmark {
+    public static final int SERIES = 10000;
+    public static final int POINTS = 10;
+    public static final long SIZE = 60000L;
+
+    @Param({"host", "site,role", "all", "none"})
+    public String of;
+
+    private AggregationInstance instance;
+    private DateRange range;
+    private List<Map<String, String>> groups;
+    private List<Set<Series>> series;
+    private List<Point> points;
+
+    @Setup
+    public void setup() {
+        instance = new GroupInstance(parseOf(of), new SumInstance(SIZE, SIZE));
+        range = new DateRange(0L, POINTS * SIZE);
+
+        groups = new ArrayList<>(SERIES);
+        series = new ArrayList<>(SERIES);
+
+        for (int i = 0; i < SERIES; i++) {
+            final Map<String, String> tags = ImmutableMap.of("host", "host" + (i % 1000), "site",
+                "site" + (i % 5), "role", "role" + (i % 20), "instance", "instance" + i);
+
+            groups.add(tags);
+            series.add(ImmutableSet.of(Series.of("benchmark", tags)));
+        }
+
+        points = new ArrayList<>(POINTS);
+
+        for (int i = 1; i <= POINTS; i++) {
+            points.add(new Point(i * SIZE, i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SERIES)
+    public AggregationResult updatePoints() {
+        final AggregationSession session = instance.session(range);
+
+        for (int i = 0; i < SERIES; i++) {
+            session.updatePoints(groups.get(i), series.get(i), points);
+        }
+
+        return session.result();
+    }
+
+    private static Optional<List<String>> parseOf(final String of) {
+        switch (of) {
+            case "all":
+                return Optional.of(ImmutableList.of());
+            case "none":
+                return Optional.empty();
+            default:
+                return Optional.of(ImmutableList.copyOf(of.split(",")));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.HeroicMappers;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultGroup;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.rpc.grpc.GrpcCodec;
+import com.spotify.heroic.rpc.grpc.GrpcRpcProtocol;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and decoding of full query responses between nodes, comparing the JSON codec with the
+ * binary codec of the gRPC protocol.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GrpcCodecBenchmark {
+    public static final int GROUPS = 100;
+    public static final int POINTS = 1000;
+    public static final long STEP = 10000L;
+
+    @Param({"json", "binary"})
+    public String codec;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private GrpcCodec<FullQuery> instance;
+    private FullQuery query;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        mapper.registerModule(HeroicMappers.jsonSerializers());
+
+        if ("binary".equals(codec)) {
+            instance = GrpcRpcProtocol.METRICS_FULL_QUERY.binary().get().responseCodec();
+        } else {
+            instance = GrpcRpcProtocol.METRICS_FULL_QUERY.responseCodec();
+        }
+
+        final Random random = new Random(0x4242L);
+        final List<ResultGroup> groups = new ArrayList<>(GROUPS);
+
+        for (int g = 0; g < GROUPS; g++) {
+            final List<Point> points = new ArrayList<>(POINTS);
+
+            for (int i = 1; i <= POINTS; i++) {
+                points.add(new Point(1483228800000L + i * STEP, random.nextDouble() * 1000D));
+            }
+
+            final Series series =
+                Series.of("benchmark", ImmutableMap.of("host", "host" + g, "role", "database"));
+
+            groups.add(new ResultGroup(ImmutableMap.of("host", "host" + g),
+                ImmutableSet.of(series), MetricCollection.points(points), STEP));
+        }
+
+        query = new FullQuery(QueryTrace.PASSIVE, ImmutableList.of(), groups, Statistics.empty(),
+            ResultLimits.of());
+        encoded = encode();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GROUPS * POINTS)
+    public byte[] encode() throws IOException {
+        return instance.encode(mapper, query);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GROUPS * POINTS)
+    public FullQuery decode() throws IOException {
+        return instance.decode(mapper, encoded);
+    }
+}
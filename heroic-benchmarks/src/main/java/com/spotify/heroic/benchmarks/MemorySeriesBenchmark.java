@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.spotify.heroic.benchmarks;
+
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.memory.ChunkedPointSeries;
+import com.spotify.heroic.metric.memory.MemoryMetricModule;
+import com.spotify.heroic.metric.memory.MemorySeries;
+import com.spotify.heroic.metric.memory.TreeMemorySeries;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the storage layouts of the memory metric backend for a single series of points: the
+ * boxed tree layout, and the columnar chunk layout with and without compression.
+ * <p>
+ * {@link #write()} builds a series from scratch in batches, like ingestion would, and
+ * {@link #fetch()} sums the values of a random day of the series, so that points which are
+ * materialized lazily are accounted for.
+ * <p>
+ * The heap retained by a series is reported as a secondary result of
+ * {@link #retained(RetainedHeap)}, as the growth of the used heap across building a series
+ * between full collections. Run it on its own, since other benchmarks in the same fork add noise.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MemorySeriesBenchmark {
+    public static final int POINTS = 1000000;
+    public static final int BATCH = 100;
+    public static final long STEP = 10000L;
+    /* a day of points */
+    public static final int WINDOW = 8640;
+
+    @Param({"tree", "columnar", "compressed"})
+    public String storage;
+
+    private List<List<Point>> batches;
+    private MemorySeries series;
+
+    @Setup
+    public void setup() {
+        batches = new ArrayList<>(POINTS / BATCH);
+
+        for (int b = 0; b < POINTS / BATCH; b++) {
+            final List<Point> batch = new ArrayList<>(BATCH);
+
+            for (int i = 0; i < BATCH; i++) {
+                final int n = b * BATCH + i + 1;
+                batch.add(new Point(n * STEP, n % 100));
+            }
+
+            batches.add(batch);
+        }
+
+        series = build();
+    }
+
+    @Benchmark
+    public MemorySeries write() {
+        return build();
+    }
+
+    @Benchmark
+    public double fetch() {
+        final long start = ThreadLocalRandom.current().nextInt(POINTS - WINDOW) * STEP;
+        double sum = 0D;
+
+        for (final Metric m : series.fetch(new DateRange(start, start + WINDOW * STEP))) {
+            sum += ((Point) m).getValue();
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MemorySeries retained(final RetainedHeap heap) {
+        final long before = usedHeap();
+        final MemorySeries built = build();
+        heap.bytes = usedHeap() - before;
+        return built;
+    }
+
+    private MemorySeries build() {
+        final MemorySeries s = newSeries();
+
+        for (final List<Point> batch : batches) {
+            s.write(batch);
+        }
+
+        return s;
+    }
+
+    private MemorySeries newSeries() {
+        switch (storage) {
+            case "tree":
+                return new TreeMemorySeries();
+            case "columnar":
+                return new ChunkedPointSeries(MemoryMetricModule.DEFAULT_CHUNK_SIZE, false);
+            case "compressed":
+                return new ChunkedPointSeries(MemoryMetricModule.DEFAULT_CHUNK_SIZE, true);
+            default:
+                throw new IllegalArgumentException("storage: " + storage);
+        }
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Heap retained by a series in bytes.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class RetainedHeap {
+        public long bytes;
+    }
+}
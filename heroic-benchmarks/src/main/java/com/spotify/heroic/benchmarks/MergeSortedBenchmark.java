@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmarks;
+
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Merging sorted results from several fetches of the same series into one collection, as done
+ * by the local metric manager when a series is read from more than one backend or row.
+ * <p>
+ * Inputs interleave, so every merged point comes from a different input than the previous one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MergeSortedBenchmark {
+    public static final int POINTS = 100000;
+
+    @Param({"1", "4", "32"})
+    public int inputs;
+
+    private List<List<? extends Metric>> values;
+
+    @Setup
+    public void setup() {
+        values = new ArrayList<>(inputs);
+
+        for (int i = 0; i < inputs; i++) {
+            final List<Point> points = new ArrayList<>(POINTS / inputs);
+
+            for (int j = i; j < POINTS; j += inputs) {
+                points.add(new Point(j * 1000L, j));
+            }
+
+            values.add(points);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public MetricCollection mergeSorted() {
+        return MetricCollection.mergeSorted(MetricType.POINT, values);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmarks;
+
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.bigtable.MetricsRowKeySerializer;
+import com.spotify.heroic.metric.bigtable.RowKey;
+import eu.toolchain.serializer.BytesSerialWriter;
+import eu.toolchain.serializer.SerialReader;
+import eu.toolchain.serializer.Serializer;
+import eu.toolchain.serializer.SerializerFramework;
+import eu.toolchain.serializer.TinySerializer;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and decoding of bigtable row keys, which happens once for every row that is read or
+ * written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RowKeySerializerBenchmark {
+    @Param({"0", "4", "16"})
+    public int tags;
+
+    private final SerializerFramework framework = TinySerializer.builder().build();
+    private final Serializer<RowKey> serializer = new MetricsRowKeySerializer();
+
+    private RowKey rowKey;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        final Map<String, String> t = new HashMap<>();
+
+        for (int i = 0; i < tags; i++) {
+            t.put("tag" + i, "value" + i);
+        }
+
+        rowKey = new RowKey(Series.of("benchmark", t), 1483228800000L);
+        encoded = serialize();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        try (final BytesSerialWriter writer = framework.writeBytes()) {
+            serializer.serialize(writer, rowKey);
+            return writer.toByteArray();
+        }
+    }
+
+    @Benchmark
+    public RowKey deserialize() throws IOException {
+        try (final SerialReader reader = framework.readByteArray(encoded)) {
+            return serializer.deserialize(reader);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmarks;
+
+import com.spotify.heroic.common.Series;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction of {@link Series}, which sorts the tags and computes the hash eagerly, and the
+ * cost of using series as hash keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SeriesBenchmark {
+    public static final int SERIES = 10000;
+
+    @Param({"0", "4", "16"})
+    public int tags;
+
+    private List<Map<String, String>> input;
+    private List<Series> series;
+
+    @Setup
+    public void setup() {
+        input = new ArrayList<>(SERIES);
+        series = new ArrayList<>(SERIES);
+
+        for (int i = 0; i < SERIES; i++) {
+            final Map<String, String> t = new HashMap<>();
+
+            for (int j = 0; j < tags; j++) {
+                t.put("tag" + j, "value" + j + "-" + i);
+            }
+
+            input.add(t);
+            series.add(Series.of("benchmark", t));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SERIES)
+    public List<Series> construct() {
+        final List<Series> result = new ArrayList<>(SERIES);
+
+        for (final Map<String, String> t : input) {
+            result.add(Series.of("benchmark", t));
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SERIES)
+    public Map<Series, Integer> hashKey() {
+        final Map<Series, Integer> result = new HashMap<>(SERIES * 2);
+
+        for (int i = 0; i < SERIES; i++) {
+            result.put(series.get(i), i);
+        }
+
+        return result;
+    }
+}
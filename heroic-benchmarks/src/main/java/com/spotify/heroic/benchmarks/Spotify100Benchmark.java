@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.consumer.ConsumerSchemaValidationException;
+import com.spotify.heroic.consumer.schemas.Spotify100;
+import com.spotify.heroic.consumer.schemas.Spotify100Decoder;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding of a single spotify 1.0.0 consumer message.
+ * <p>
+ * {@link #decodeSeries()} is the data binding path which {@link Spotify100.Consumer} used to take,
+ * {@link #streaming()} is the {@link Spotify100Decoder} with a warm series cache, and
+ * {@link #streamingUncached()} the same decoder when every message is a new series.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class Spotify100Benchmark {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Spotify100Decoder decoder = new Spotify100Decoder();
+    private final Spotify100Decoder uncached = new Spotify100Decoder(0);
+
+    @Param({"0", "4", "16"})
+    public int attributes;
+
+    private byte[] message;
+
+    @Setup
+    public void setup() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("{\"version\": \"1.0.0\", \"key\": \"benchmark\", ");
+        builder.append("\"host\": \"host1.example.com\", \"time\": 1483228800000, ");
+        builder.append("\"value\": 42.5, \"attributes\": {");
+
+        for (int i = 0; i < attributes; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+
+            builder.append("\"attr").append(i).append("\": \"value").append(i).append("\"");
+        }
+
+        builder.append("}}");
+        message = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Spotify100.JsonMetric decode() throws IOException {
+        return mapper.readValue(message, Spotify100.JsonMetric.class);
+    }
+
+    @Benchmark
+    public Series decodeSeries() throws IOException {
+        final Spotify100.JsonMetric metric = mapper.readValue(message, Spotify100.JsonMetric.class);
+        final Map<String, String> tags = new HashMap<>(metric.getAttributes());
+        tags.put("host", metric.getHost());
+        return Series.of(metric.getKey(), tags);
+    }
+
+    @Benchmark
+    public Spotify100Decoder.Decoded streaming() throws ConsumerSchemaValidationException {
+        return decoder.decode(message);
+    }
+
+    @Benchmark
+    public Spotify100Decoder.Decoded streamingUncached() throws ConsumerSchemaValidationException {
+        return uncached.decode(message);
+    }
+}
@@ -71,13 +71,21 @@ public class QueryOptions {
      */
     private final Optional<Boolean> failOnLimits;
 
+    /**
+     * Summarize the series of every result group instead of returning all of them.
+     *
+     * @see com.spotify.heroic.metric.CompactSeriesSet
+     */
+    private final Optional<Boolean> compactSeries;
+
     public Tracing tracing() {
         return tracing.orElse(Tracing.DEFAULT);
     }
 
     public static QueryOptions defaults() {
         return new QueryOptions(Optional.empty(), Optional.empty(), OptionalLimit.empty(),
-            OptionalLimit.empty(), OptionalLimit.empty(), OptionalLimit.empty(), Optional.empty());
+            OptionalLimit.empty(), OptionalLimit.empty(), OptionalLimit.empty(), Optional.empty(),
+            Optional.empty());
     }
 
     public static Builder builder() {
@@ -92,6 +100,7 @@ public class QueryOptions {
         private OptionalLimit groupLimit = OptionalLimit.empty();
         private OptionalLimit seriesLimit = OptionalLimit.empty();
         private Optional<Boolean> failOnLimits = Optional.empty();
+        private Optional<Boolean> compactSeries = Optional.empty();
 
         public Builder tracing(Tracing tracing) {
             this.tracing = Optional.of(tracing);
@@ -129,9 +138,14 @@ public class QueryOptions {
             return this;
         }
 
+        public Builder compactSeries(boolean compactSeries) {
+            this.compactSeries = Optional.of(compactSeries);
+            return this;
+        }
+
         public QueryOptions build() {
             return new QueryOptions(tracing, fetchSize, dataLimit, aggregationLimit, groupLimit,
-                seriesLimit, failOnLimits);
+                seriesLimit, failOnLimits, compactSeries);
         }
     }
 }
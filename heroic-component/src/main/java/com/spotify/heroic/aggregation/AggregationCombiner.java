@@ -25,10 +25,42 @@ import com.google.common.collect.ImmutableList;
 import com.spotify.heroic.metric.ShardedResultGroup;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public interface AggregationCombiner {
     List<ShardedResultGroup> combine(List<List<ShardedResultGroup>> all);
 
+    /**
+     * Start combining groups incrementally as they are received.
+     * <p>
+     * By default groups are kept until the result is built, combiners which can fold groups as
+     * they arrive should override this.
+     */
+    default Session newSession() {
+        final ConcurrentLinkedQueue<List<ShardedResultGroup>> all = new ConcurrentLinkedQueue<>();
+
+        return new Session() {
+            @Override
+            public void update(final List<ShardedResultGroup> groups) {
+                all.add(groups);
+            }
+
+            @Override
+            public List<ShardedResultGroup> result() {
+                return combine(ImmutableList.copyOf(all));
+            }
+        };
+    }
+
+    interface Session {
+        /**
+         * Add a chunk of groups to the session, must be thread safe.
+         */
+        void update(List<ShardedResultGroup> groups);
+
+        List<ShardedResultGroup> result();
+    }
+
     AggregationCombiner DEFAULT = new AggregationCombiner() {
         @Override
         public List<ShardedResultGroup> combine(
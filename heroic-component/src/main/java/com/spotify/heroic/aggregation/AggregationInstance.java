@@ -118,4 +118,16 @@ public interface AggregationInstance {
     default boolean distributable() {
         return true;
     }
+
+    /**
+     * Indicates if evaluating this aggregation over a range gives the same result as evaluating it
+     * over consecutive sub-ranges that are aligned to its cadence, and concatenating the results.
+     * <p>
+     * This holds when every output sample only depends on input that falls within a single
+     * cadence. Aggregations that are splittable must also serialize to JSON completely and
+     * stably, since the serialized form is used to identify cached segments.
+     */
+    default boolean splittable() {
+        return false;
+    }
 }
@@ -24,10 +24,10 @@ package com.spotify.heroic.aggregation;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
 import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.metric.CompactSeriesSet;
 import com.spotify.heroic.metric.Payload;
 import com.spotify.heroic.metric.Event;
 import com.spotify.heroic.metric.Metric;
@@ -65,6 +65,7 @@ import java.util.concurrent.atomic.LongAdder;
 public abstract class BucketAggregationInstance<B extends Bucket> implements AggregationInstance {
     public static final Map<String, String> EMPTY_KEY = ImmutableMap.of();
     public static final long MAX_BUCKET_COUNT = 100000L;
+    public static final int POINT_BATCH_SIZE = 1024;
 
     private static final Map<String, String> EMPTY = ImmutableMap.of();
 
@@ -88,12 +89,20 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
 
         private final List<B> buckets;
         private final long offset;
+        /* if every point maps to exactly one bucket, which supports batched updates */
+        private final boolean batchPoints;
 
         @Override
         public void updatePoints(
             Map<String, String> key, Set<Series> s, List<Point> values
         ) {
             series.add(s);
+
+            if (batchPoints) {
+                feedPointBatches(key, values);
+                return;
+            }
+
             feed(MetricType.POINT, values, (bucket, m) -> bucket.updatePoint(key, m));
         }
 
@@ -155,6 +164,69 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
             this.sampleSize.add(sampleSize);
         }
 
+        /**
+         * Fast path for when size equals extent, in which case the bucket of a point can be
+         * calculated directly. Consecutive values which belong to the same bucket are collected in
+         * a primitive batch, and the bucket is updated once per batch.
+         */
+        private void feedPointBatches(final Map<String, String> key, final List<Point> values) {
+            final double[] batch = new double[Math.min(values.size(), POINT_BATCH_SIZE)];
+
+            int length = 0;
+            int current = -1;
+            int sampleSize = 0;
+
+            for (final Point p : values) {
+                if (!p.valid()) {
+                    continue;
+                }
+
+                sampleSize += 1;
+
+                final int index = index(p.getTimestamp());
+
+                if (index != current || length == batch.length) {
+                    flush(key, current, batch, length);
+                    current = index;
+                    length = 0;
+                }
+
+                if (index >= 0) {
+                    batch[length++] = p.getValue();
+                }
+            }
+
+            flush(key, current, batch, length);
+            this.sampleSize.add(sampleSize);
+        }
+
+        private void flush(
+            final Map<String, String> key, final int index, final double[] batch, final int length
+        ) {
+            if (index < 0 || length == 0) {
+                return;
+            }
+
+            ((PointBatchBucket) buckets.get(index)).updatePoints(key, batch, 0, length);
+        }
+
+        /**
+         * Index of the only bucket that the given timestamp belongs to when size equals extent, or
+         * {@code -1} if it doesn't belong to any bucket.
+         * <p>
+         * The bucket at index {@code i} contains the range {@code (offset + size * (i - 1), offset
+         * + size * i]}.
+         */
+        private int index(final long timestamp) {
+            final long index = Math.floorDiv(timestamp - offset - 1, size) + 1;
+
+            if (index < 0 || index >= buckets.size()) {
+                return -1;
+            }
+
+            return (int) index;
+        }
+
         private Iterator<B> matching(final Metric m) {
             final long ts = m.getTimestamp() - offset - 1;
             final long te = ts + extent;
@@ -201,7 +273,7 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
                 result.add(d);
             }
 
-            final Set<Series> series = ImmutableSet.copyOf(Iterables.concat(this.series));
+            final Set<Series> series = CompactSeriesSet.concat(this.series);
             final MetricCollection metrics = MetricCollection.build(out, result);
 
             final Statistics statistics =
@@ -225,7 +297,11 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
     public AggregationSession session(DateRange range, RetainQuotaWatcher quotaWatcher) {
         final List<B> buckets = buildBuckets(range, size);
         quotaWatcher.retainData(buckets.size());
-        return new Session(buckets, range.start());
+
+        final boolean batchPoints = size == extent && input.contains(MetricType.POINT) &&
+            buckets.get(0) instanceof PointBatchBucket;
+
+        return new Session(buckets, range.start(), batchPoints);
     }
 
     @Override
@@ -238,6 +314,14 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
         return size;
     }
 
+    /**
+     * Buckets which do not overlap only depend on samples within their own cadence.
+     */
+    @Override
+    public boolean splittable() {
+        return size > 0 && extent <= size;
+    }
+
     @Override
     public String toString() {
         return String.format("%s(size=%d, extent=%d)", getClass().getSimpleName(), size, extent);
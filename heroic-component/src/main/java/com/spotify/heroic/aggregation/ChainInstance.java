@@ -72,6 +72,27 @@ public class ChainInstance implements AggregationInstance {
             .orElse(-1L);
     }
 
+    /**
+     * A chain can be split if every step can, and the cadence of the last step is a multiple of
+     * all prior cadences so that every step sees aligned sub-ranges.
+     */
+    @Override
+    public boolean splittable() {
+        final long cadence = cadence();
+
+        if (cadence <= 0) {
+            return false;
+        }
+
+        for (final AggregationInstance a : chain) {
+            if (!a.splittable() || cadence % a.cadence() != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     @Override
     public AggregationInstance distributed() {
         final Iterator<AggregationInstance> it = chain.iterator();
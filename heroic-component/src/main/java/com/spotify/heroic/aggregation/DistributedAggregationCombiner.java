@@ -54,25 +54,46 @@ public class DistributedAggregationCombiner implements AggregationCombiner {
     public List<ShardedResultGroup> combine(
         final List<List<ShardedResultGroup>> all
     ) {
+        final Session session = newSession();
+
+        for (final List<ShardedResultGroup> groups : all) {
+            session.update(groups);
+        }
+
+        return session.result();
+    }
+
+    /**
+     * Feed groups into a reducer session as they arrive, so that they don't have to be kept
+     * around until all of them have been received.
+     */
+    @Override
+    public Session newSession() {
         final AggregationSession session = reducer.session(range);
 
-            /* iterate through all groups and setup, and feed a reducer session for every group */
-        for (List<ShardedResultGroup> groups : all) {
-            for (final ShardedResultGroup g : groups) {
-                g.getMetrics().updateAggregation(session, g.getKey(), g.getSeries());
+        return new Session() {
+            @Override
+            public void update(final List<ShardedResultGroup> groups) {
+                for (final ShardedResultGroup g : groups) {
+                    g.getMetrics().updateAggregation(session, g.getKey(), g.getSeries());
+                }
             }
-        }
 
-            /* build results from every reducer group into a final result */
-        final ImmutableList.Builder<ShardedResultGroup> groups = ImmutableList.builder();
+            @Override
+            public List<ShardedResultGroup> result() {
+                /* build results from every reducer group into a final result */
+                final ImmutableList.Builder<ShardedResultGroup> groups = ImmutableList.builder();
 
-        final AggregationResult result = session.result();
+                final AggregationResult result = session.result();
 
-        for (final AggregationOutput out : result.getResult()) {
-            groups.add(new ShardedResultGroup(ImmutableMap.of(), out.getKey(), out.getSeries(),
-                out.getMetrics(), cadence));
-        }
+                for (final AggregationOutput out : result.getResult()) {
+                    groups.add(
+                        new ShardedResultGroup(ImmutableMap.of(), out.getKey(), out.getSeries(),
+                            out.getMetrics(), cadence));
+                }
 
-        return groups.build();
+                return groups.build();
+            }
+        };
     }
 }
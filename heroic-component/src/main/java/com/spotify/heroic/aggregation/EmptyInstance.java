@@ -23,13 +23,12 @@ package com.spotify.heroic.aggregation;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
 import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.metric.CompactSeriesSet;
 import com.spotify.heroic.metric.Event;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricCollection;
@@ -184,7 +183,7 @@ public class EmptyInstance implements AggregationInstance {
                 iterables.add(d);
             }
 
-            final Set<Series> series = ImmutableSet.copyOf(Iterables.concat(collected.series));
+            final Set<Series> series = CompactSeriesSet.concat(collected.series);
 
             /* no need to merge, single results are already sorted */
             if (collected.data.size() == 1) {
@@ -92,6 +92,11 @@ public abstract class GroupingAggregation implements AggregationInstance {
         return each.cadence();
     }
 
+    @Override
+    public boolean splittable() {
+        return each.splittable();
+    }
+
     @Override
     public AggregationInstance distributed() {
         return newInstance(of, each.distributed());
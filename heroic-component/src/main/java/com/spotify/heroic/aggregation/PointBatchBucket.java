@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation;
+
+import java.util.Map;
+
+/**
+ * A bucket that can be updated with a batch of point values at once.
+ * <p>
+ * Used by {@link BucketAggregationInstance} when every point maps to exactly one bucket, which
+ * allows consecutive points in the same bucket to be folded without any per-point dispatch.
+ */
+public interface PointBatchBucket extends Bucket {
+    /**
+     * Update the bucket with a batch of point values.
+     *
+     * @param key The key of the group that the points belong to.
+     * @param values Array containing the values.
+     * @param offset Offset of the first value in the array.
+     * @param length Number of values to update the bucket with.
+     */
+    void updatePoints(Map<String, String> key, double[] values, int offset, int length);
+}
@@ -74,5 +74,10 @@ public interface ClusterManager extends UsableGroupManager<List<ClusterShard>> {
 
     Statistics getStatistics();
 
+    /**
+     * Get the current replica selection score of the given node.
+     */
+    ClusterNodeScore getScore(ClusterNode node);
+
     Set<RpcProtocol> protocols();
 }
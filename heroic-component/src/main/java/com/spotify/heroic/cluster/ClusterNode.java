@@ -21,6 +21,7 @@
 
 package com.spotify.heroic.cluster;
 
+import com.google.common.collect.ImmutableList;
 import com.spotify.heroic.common.UsableGroupManager;
 import com.spotify.heroic.metadata.CountSeries;
 import com.spotify.heroic.metadata.DeleteSeries;
@@ -29,6 +30,7 @@ import com.spotify.heroic.metadata.FindSeries;
 import com.spotify.heroic.metadata.FindTags;
 import com.spotify.heroic.metadata.WriteMetadata;
 import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.ResultGroup;
 import com.spotify.heroic.metric.WriteMetric;
 import com.spotify.heroic.suggest.KeySuggest;
 import com.spotify.heroic.suggest.TagKeyCount;
@@ -37,6 +39,9 @@ import com.spotify.heroic.suggest.TagValueSuggest;
 import com.spotify.heroic.suggest.TagValuesSuggest;
 import eu.toolchain.async.AsyncFuture;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 public interface ClusterNode extends UsableGroupManager<ClusterNode.Group> {
     NodeMetadata metadata();
 
@@ -58,6 +63,24 @@ public interface ClusterNode extends UsableGroupManager<ClusterNode.Group> {
 
         AsyncFuture<FullQuery> query(FullQuery.Request request);
 
+        /**
+         * Run a query, handing result groups to the given consumer in chunks as they are received
+         * instead of including them in the result.
+         * <p>
+         * The consumer is never called concurrently for the same query, and every chunk is handed
+         * over before the returned future is completed.
+         *
+         * @return the result of the query, without any groups
+         */
+        default AsyncFuture<FullQuery> queryStream(
+            FullQuery.Request request, Consumer<List<ResultGroup>> consumer
+        ) {
+            return query(request).directTransform(result -> {
+                consumer.accept(result.getGroups());
+                return result.withGroups(ImmutableList.of());
+            });
+        }
+
         AsyncFuture<FindTags> findTags(FindTags.Request request);
 
         AsyncFuture<FindKeys> findKeys(FindKeys.Request request);
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cluster;
+
+import lombok.Data;
+
+/**
+ * How a node is currently performing, as seen by the replica selection of this node.
+ */
+@Data
+public class ClusterNodeScore {
+    /**
+     * Mean latency of requests over the last minute, in milliseconds.
+     */
+    private final double latency;
+    /**
+     * Number of requests currently in flight.
+     */
+    private final int outstanding;
+    /**
+     * Fraction of requests that failed over the last minute.
+     */
+    private final double errorRate;
+    /**
+     * Requests per second over the last minute.
+     */
+    private final double requestRate;
+    /**
+     * Expected cost of sending another request to the node, lower is better.
+     */
+    private final double score;
+}
@@ -25,16 +25,22 @@ import com.spotify.heroic.metric.QueryTrace;
 import com.spotify.heroic.metric.RuntimeNodeException;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
 import eu.toolchain.async.RetryException;
 import eu.toolchain.async.RetryPolicy;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import lombok.Data;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -51,6 +57,38 @@ public class ClusterShard {
     public <T> AsyncFuture<T> apply(
         Function<ClusterNode.Group, AsyncFuture<T>> function,
         BiFunction<T, List<QueryTrace>, T> handleRetryTraceFn
+    ) {
+        return apply(function, handleRetryTraceFn, () -> true);
+    }
+
+    /**
+     * Apply the given function to the first group that succeeds.
+     *
+     * @param retryable Checked after every failure, if {@code false} the failure is not retried
+     * on the next group. Used by streaming requests which have already handed over parts of the
+     * result.
+     */
+    public <T> AsyncFuture<T> apply(
+        Function<ClusterNode.Group, AsyncFuture<T>> function,
+        BiFunction<T, List<QueryTrace>, T> handleRetryTraceFn, BooleanSupplier retryable
+    ) {
+        return apply(function, handleRetryTraceFn, retryable, ShardHedging.disabled());
+    }
+
+    /**
+     * Apply the given function to the first group that succeeds, hedging slow requests.
+     * <p>
+     * If hedging is enabled and a group doesn't respond within the hedge delay, the function is
+     * also applied to the next group. The first of them to succeed is used, and the other is
+     * cancelled.
+     *
+     * @param retryable Checked after every failure and before hedging, if {@code false} the
+     * request is not retried or hedged on the next group.
+     */
+    public <T> AsyncFuture<T> apply(
+        Function<ClusterNode.Group, AsyncFuture<T>> function,
+        BiFunction<T, List<QueryTrace>, T> handleRetryTraceFn, BooleanSupplier retryable,
+        ShardHedging hedging
     ) {
         final Iterator<ClusterNode.Group> it = groups.iterator();
 
@@ -65,7 +103,7 @@ public class ClusterShard {
             final RetryPolicy.Instance p = parent.apply(clockSource);
 
             return () -> {
-                if (it.hasNext()) {
+                if (retryable.getAsBoolean() && it.hasNext()) {
                     return p.next();
                 }
 
@@ -73,18 +111,177 @@ public class ClusterShard {
             };
         };
 
+        /* traces of hedged requests, in the order that they completed */
+        final List<QueryTrace> hedgeTraces = Collections.synchronizedList(new ArrayList<>());
+
         return async
             .retryUntilResolved(() -> {
                 final ClusterNode.Group next = it.next();
-                return function.apply(next).catchFailed(throwable -> {
-                    /* Actually never return;s, instead throws a new exception with added info.
-                     * The point is to get Node identifying information into the exception */
-                    throw new RuntimeNodeException(next.toString(), throwable.getMessage(),
-                        throwable);
-                });
+
+                if (!hedging.isEnabled()) {
+                    return attempt(function, next);
+                }
+
+                return new Hedge<>(function, it, retryable, hedging, hedgeTraces).start(next);
             }, iteratorPolicy)
-            .directTransform(retryResult -> handleRetryTraceFn.apply(retryResult.getResult(),
-                queryTracesFromRetries(retryResult.getErrors(), retryResult.getBackoffTimings())));
+            .directTransform(retryResult -> {
+                final List<QueryTrace> traces = queryTracesFromRetries(retryResult.getErrors(),
+                    retryResult.getBackoffTimings());
+                traces.addAll(hedgeTraces);
+                return handleRetryTraceFn.apply(retryResult.getResult(), traces);
+            });
+    }
+
+    private <T> AsyncFuture<T> attempt(
+        final Function<ClusterNode.Group, AsyncFuture<T>> function, final ClusterNode.Group group
+    ) {
+        return function.apply(group).catchFailed(throwable -> {
+            /* Actually never return;s, instead throws a new exception with added info.
+             * The point is to get Node identifying information into the exception */
+            throw new RuntimeNodeException(group.toString(), throwable.getMessage(), throwable);
+        });
+    }
+
+    /**
+     * A single request to the shard, which races a hedged request to the next group against the
+     * first one if it is too slow.
+     */
+    @RequiredArgsConstructor
+    private class Hedge<T> {
+        private final Function<ClusterNode.Group, AsyncFuture<T>> function;
+        private final Iterator<ClusterNode.Group> it;
+        private final BooleanSupplier retryable;
+        private final ShardHedging hedging;
+        private final List<QueryTrace> traces;
+
+        private final Object lock = new Object();
+        private final long start = System.nanoTime();
+
+        /* all guarded by lock */
+        private final List<AsyncFuture<T>> attempts = new ArrayList<>();
+        private int pending = 0;
+        private boolean done = false;
+        private long hedgeStart = 0L;
+
+        private ResolvableFuture<T> result;
+
+        AsyncFuture<T> start(final ClusterNode.Group first) {
+            result = async.future();
+            hedging.deposit();
+
+            synchronized (lock) {
+                launch(first, false);
+            }
+
+            final long delay = hedging.delay();
+
+            if (delay >= 0) {
+                hedging.schedule(delay, this::hedge);
+            }
+
+            result.onCancelled(() -> {
+                final List<AsyncFuture<T>> cancel;
+
+                synchronized (lock) {
+                    done = true;
+                    cancel = new ArrayList<>(attempts);
+                }
+
+                cancel.forEach(AsyncFuture::cancel);
+            });
+
+            return result;
+        }
+
+        private void hedge() {
+            synchronized (lock) {
+                if (done || !retryable.getAsBoolean() || !it.hasNext() || !hedging.tryAcquire()) {
+                    return;
+                }
+
+                hedgeStart = System.nanoTime();
+                hedging.reportHedge();
+                launch(it.next(), true);
+            }
+        }
+
+        /**
+         * Must be called while holding the lock.
+         */
+        private void launch(final ClusterNode.Group group, final boolean hedged) {
+            final AsyncFuture<T> future = attempt(function, group);
+            attempts.add(future);
+            pending++;
+
+            future.onDone(new FutureDone<T>() {
+                @Override
+                public void failed(final Throwable cause) {
+                    complete(cause);
+                }
+
+                @Override
+                public void resolved(final T value) {
+                    win(group, hedged, value);
+                }
+
+                @Override
+                public void cancelled() {
+                    complete(new CancellationException("Request cancelled"));
+                }
+            });
+        }
+
+        private void win(final ClusterNode.Group group, final boolean hedged, final T value) {
+            final List<AsyncFuture<T>> losers = new ArrayList<>();
+            final boolean raced;
+
+            synchronized (lock) {
+                if (done) {
+                    return;
+                }
+
+                done = true;
+                raced = hedgeStart != 0L;
+
+                for (final AsyncFuture<T> attempt : attempts) {
+                    if (!attempt.isDone()) {
+                        losers.add(attempt);
+                    }
+                }
+            }
+
+            final long now = System.nanoTime();
+
+            /* a hedged request only wins if the first one would have taken at least as long */
+            hedging.record(TimeUnit.NANOSECONDS.toMillis(now - start));
+
+            if (raced) {
+                final String outcome = hedged ? "won" : "lost";
+
+                if (hedged) {
+                    hedging.reportHedgeWin();
+                }
+
+                traces.add(QueryTrace.of(new QueryTrace.Identifier(group + " hedge=" + outcome),
+                    TimeUnit.NANOSECONDS.toMicros(now - hedgeStart)));
+            }
+
+            losers.forEach(AsyncFuture::cancel);
+            result.resolve(value);
+        }
+
+        private void complete(final Throwable cause) {
+            synchronized (lock) {
+                if (--pending > 0 || done) {
+                    return;
+                }
+
+                done = true;
+            }
+
+            /* the last failure is the one reported, the others are lost */
+            result.fail(cause);
+        }
     }
 
     private List<QueryTrace> queryTracesFromRetries(
@@ -22,11 +22,15 @@
 package com.spotify.heroic.cluster;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableSet;
 import com.spotify.heroic.common.ServiceInfo;
 import lombok.Data;
 
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Data
@@ -35,16 +39,35 @@ public class NodeMetadata {
     private final UUID id;
     private final Map<String, String> tags;
     private final ServiceInfo service;
+    /**
+     * Payload codecs and transfer encodings that the node supports in addition to JSON.
+     * <p>
+     * Omitted when empty, since older nodes fail to parse metadata with unknown fields.
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final Set<String> codecs;
+
+    public NodeMetadata(
+        Integer version, UUID id, Map<String, String> tags, ServiceInfo service
+    ) {
+        this(version, id, tags, service, ImmutableSet.of());
+    }
 
     @JsonCreator
     public NodeMetadata(
         @JsonProperty("version") Integer version, @JsonProperty("id") UUID id,
-        @JsonProperty("tags") Map<String, String> tags, @JsonProperty("service") ServiceInfo service
+        @JsonProperty("tags") Map<String, String> tags,
+        @JsonProperty("service") ServiceInfo service, @JsonProperty("codecs") Set<String> codecs
     ) {
         this.version = version;
         this.id = id;
         this.tags = tags;
         this.service = service;
+        this.codecs = Optional.ofNullable(codecs).orElseGet(ImmutableSet::of);
+    }
+
+    public NodeMetadata withCodecs(final Set<String> codecs) {
+        return new NodeMetadata(version, id, tags, service, codecs);
     }
 
     /**
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cluster;
+
+import com.spotify.heroic.scheduler.Scheduler;
+import com.spotify.heroic.statistics.ApiReporter;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Decides if and when a read request to a shard should be hedged, by sending the same request to
+ * another node of the shard.
+ * <p>
+ * A request is hedged if it hasn't completed within a given quantile of the latency of recent
+ * requests. The number of hedged requests is bounded by a budget, which is a fraction of all
+ * requests, so that hedging can't amplify the load on a cluster which is slow across the board.
+ * <p>
+ * Requests to different endpoints have very different latencies, so every endpoint keeps its own
+ * window of latencies and hedge delay, see {@link #endpoint(String)}. The budget is shared by all
+ * endpoints.
+ */
+public class ShardHedging {
+    /* number of recent latencies that the hedge delay is based on */
+    static final int WINDOW = 1024;
+    /* how often the hedge delay is recalculated, in number of recorded latencies */
+    static final int RECALCULATE = 64;
+    /* maximum number of hedged requests that can be saved up */
+    static final long MAX_TOKENS = 10L;
+
+    private static final long TOKEN = 1000L;
+
+    private static final ShardHedging DISABLED = new ShardHedging(null, null, 0D, 0D);
+
+    private final Scheduler scheduler;
+    private final ApiReporter reporter;
+    private final double quantile;
+    /* tokens deposited for every request, in thousandths of a token */
+    private final long deposit;
+    /* shared by all endpoints */
+    private final AtomicLong tokens;
+    private final ConcurrentMap<String, ShardHedging> endpoints;
+
+    private final AtomicLongArray latencies = new AtomicLongArray(WINDOW);
+    private final AtomicLong recorded = new AtomicLong();
+
+    /* current hedge delay in milliseconds, negative if not yet known */
+    private volatile long delay = -1L;
+
+    /**
+     * Create a new hedging policy.
+     *
+     * @param quantile Quantile of recent latencies after which a request is hedged.
+     * @param budget Fraction of requests which are allowed to be hedged.
+     */
+    public ShardHedging(
+        final Scheduler scheduler, final ApiReporter reporter, final double quantile,
+        final double budget
+    ) {
+        this(scheduler, reporter, quantile, (long) (budget * TOKEN), new AtomicLong(),
+            new ConcurrentHashMap<>());
+    }
+
+    private ShardHedging(
+        final Scheduler scheduler, final ApiReporter reporter, final double quantile,
+        final long deposit, final AtomicLong tokens,
+        final ConcurrentMap<String, ShardHedging> endpoints
+    ) {
+        this.scheduler = scheduler;
+        this.reporter = reporter;
+        this.quantile = quantile;
+        this.deposit = deposit;
+        this.tokens = tokens;
+        this.endpoints = endpoints;
+    }
+
+    public static ShardHedging disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Hedging for requests to the given endpoint, with a hedge delay based on the latencies of
+     * that endpoint only.
+     */
+    public ShardHedging endpoint(final String name) {
+        if (!isEnabled()) {
+            return this;
+        }
+
+        return endpoints.computeIfAbsent(name,
+            n -> new ShardHedging(scheduler, reporter, quantile, deposit, tokens, endpoints));
+    }
+
+    public boolean isEnabled() {
+        return deposit > 0;
+    }
+
+    /**
+     * Current hedge delay in milliseconds, or a negative value if too few requests have been
+     * recorded to tell.
+     */
+    public long delay() {
+        return delay;
+    }
+
+    /**
+     * Record that a request was sent, which adds to the hedging budget.
+     */
+    public void deposit() {
+        final long max = MAX_TOKENS * TOKEN;
+
+        while (true) {
+            final long current = tokens.get();
+
+            if (current >= max) {
+                return;
+            }
+
+            if (tokens.compareAndSet(current, Math.min(max, current + deposit))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Try to take one hedged request from the budget.
+     *
+     * @return {@code true} if a hedged request can be sent.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            final long current = tokens.get();
+
+            if (current < TOKEN) {
+                return false;
+            }
+
+            if (tokens.compareAndSet(current, current - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Record the latency of a completed request.
+     */
+    public void record(final long millis) {
+        final long n = recorded.getAndIncrement();
+        latencies.set((int) (n % WINDOW), millis);
+
+        if ((n + 1) % RECALCULATE == 0) {
+            final int size = (int) Math.min(n + 1, WINDOW);
+            final long[] sorted = new long[size];
+
+            for (int i = 0; i < size; i++) {
+                sorted[i] = latencies.get(i);
+            }
+
+            Arrays.sort(sorted);
+            delay = Math.max(1L, sorted[(int) Math.min(size - 1, Math.floor(quantile * size))]);
+        }
+    }
+
+    void schedule(final long millis, final Runnable task) {
+        scheduler.schedule("shard-hedge", millis, TimeUnit.MILLISECONDS, task::run);
+    }
+
+    void reportHedge() {
+        reporter.reportHedge();
+    }
+
+    void reportHedgeWin() {
+        reporter.reportHedgeWin();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.consumer;
+
+/**
+ * Thrown when consuming a batch failed part way through, after some of its messages had already
+ * been consumed.
+ * <p>
+ * Only the messages after the consumed ones should be retried, retrying the whole batch would
+ * write the consumed messages again.
+ */
+public class ConsumerBatchException extends ConsumerSchemaException {
+    private static final long serialVersionUID = -2811587412398571720L;
+
+    private final int consumed;
+    private final transient ConsumerSchema.Batch batch;
+
+    /**
+     * @param consumed Number of messages at the start of the batch which were consumed.
+     * @param batch The result of consuming those messages.
+     */
+    public ConsumerBatchException(
+        String message, Throwable cause, int consumed, ConsumerSchema.Batch batch
+    ) {
+        super(message, cause);
+        this.consumed = consumed;
+        this.batch = batch;
+    }
+
+    public int getConsumed() {
+        return consumed;
+    }
+
+    public ConsumerSchema.Batch getBatch() {
+        return batch;
+    }
+}
@@ -28,6 +28,9 @@ import dagger.Component;
 import dagger.Module;
 import dagger.Provides;
 import eu.toolchain.async.AsyncFuture;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
 
 public interface ConsumerSchema {
@@ -35,6 +38,53 @@ public interface ConsumerSchema {
 
     interface Consumer {
         AsyncFuture<Void> consume(byte[] message) throws ConsumerSchemaException;
+
+        /**
+         * Consume a batch of messages.
+         * <p>
+         * Messages which fail validation are skipped and counted, without affecting the rest of
+         * the batch. Schemas should override this to write the whole batch in as few requests as
+         * possible, the default consumes every message individually.
+         *
+         * @throws ConsumerBatchException if the batch failed after some of its messages were
+         * consumed, so that only the remaining messages are retried.
+         */
+        default Batch consumeBatch(final List<byte[]> messages) throws ConsumerSchemaException {
+            final List<AsyncFuture<Void>> writes = new ArrayList<>(messages.size());
+            int invalid = 0;
+
+            for (int i = 0; i < messages.size(); i++) {
+                try {
+                    writes.add(consume(messages.get(i)));
+                } catch (final ConsumerSchemaValidationException e) {
+                    invalid++;
+                } catch (final Exception e) {
+                    if (i == 0) {
+                        throw e;
+                    }
+
+                    throw new ConsumerBatchException("Failed to consume message " + i + " of batch",
+                        e, i, new Batch(writes, invalid));
+                }
+            }
+
+            return new Batch(writes, invalid);
+        }
+    }
+
+    /**
+     * The result of consuming a batch of messages.
+     */
+    @Data
+    class Batch {
+        /**
+         * Writes which were issued for the batch.
+         */
+        private final List<AsyncFuture<Void>> writes;
+        /**
+         * Number of messages which were skipped since they failed validation.
+         */
+        private final int invalid;
     }
 
     @ConsumerSchemaScope
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.filter;
+
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.common.Series;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles filters into predicates which are cheap to evaluate repeatedly.
+ * <p>
+ * Use this instead of {@link Filter#apply(Series)} when the same filter is applied to many series.
+ * The filter is optimized, nested and/or statements are flattened, regular expressions are only
+ * compiled once, and the children of and/or statements are evaluated in order of cost so that the
+ * cheap checks, like matching the key, short-circuit the expensive ones.
+ * <p>
+ * Compiled predicates are immutable and thread safe.
+ */
+public final class FilterCompiler {
+    /* relative costs of evaluating a filter, only used for ordering */
+    static final int CONSTANT_COST = 0;
+    static final int KEY_COST = 1;
+    static final int TAG_COST = 2;
+    static final int STARTS_WITH_COST = 3;
+    static final int REGEX_COST = 20;
+
+    private FilterCompiler() {
+    }
+
+    public static Predicate<Series> compile(final Filter filter) {
+        return filter.optimize().visit(new Compiler()).predicate;
+    }
+
+    @RequiredArgsConstructor
+    private static final class Compiled {
+        private final Predicate<Series> predicate;
+        private final int cost;
+    }
+
+    private static final Compiled TRUE = new Compiled(s -> true, CONSTANT_COST);
+    private static final Compiled FALSE = new Compiled(s -> false, CONSTANT_COST);
+
+    private static final class Compiler implements Filter.Visitor<Compiled> {
+        @Override
+        public Compiled visitTrue(final TrueFilter t) {
+            return TRUE;
+        }
+
+        @Override
+        public Compiled visitFalse(final FalseFilter f) {
+            return FALSE;
+        }
+
+        @Override
+        public Compiled visitMatchKey(final MatchKeyFilter matchKey) {
+            final String value = matchKey.getValue();
+            return new Compiled(s -> value.equals(s.getKey()), KEY_COST);
+        }
+
+        @Override
+        public Compiled visitHasTag(final HasTagFilter hasTag) {
+            final String tag = hasTag.getTag();
+            return new Compiled(s -> s.getTags().containsKey(tag), TAG_COST);
+        }
+
+        @Override
+        public Compiled visitMatchTag(final MatchTagFilter matchTag) {
+            final String tag = matchTag.getTag();
+            final String value = matchTag.getValue();
+            return new Compiled(s -> value.equals(s.getTags().get(tag)), TAG_COST);
+        }
+
+        @Override
+        public Compiled visitStartsWith(final StartsWithFilter startsWith) {
+            final String tag = startsWith.getTag();
+            final String value = startsWith.getValue();
+
+            return new Compiled(s -> {
+                final String v = s.getTags().get(tag);
+                return v != null && v.startsWith(value);
+            }, STARTS_WITH_COST);
+        }
+
+        @Override
+        public Compiled visitRegex(final RegexFilter regex) {
+            final String tag = regex.getTag();
+            final Pattern pattern = Pattern.compile(regex.getValue());
+
+            return new Compiled(s -> {
+                final String v = s.getTags().get(tag);
+                return v != null && pattern.matcher(v).matches();
+            }, REGEX_COST);
+        }
+
+        @Override
+        public Compiled visitNot(final NotFilter not) {
+            final Compiled inner = not.getFilter().visit(this);
+            return new Compiled(inner.predicate.negate(), inner.cost);
+        }
+
+        @Override
+        public Compiled visitAnd(final AndFilter and) {
+            final List<Compiled> children = new ArrayList<>();
+            flattenAnd(and, children);
+
+            final Predicate<Series>[] predicates = sorted(children);
+            final int cost = cost(children);
+
+            return new Compiled(s -> {
+                for (final Predicate<Series> p : predicates) {
+                    if (!p.test(s)) {
+                        return false;
+                    }
+                }
+
+                return true;
+            }, cost);
+        }
+
+        @Override
+        public Compiled visitOr(final OrFilter or) {
+            final List<Compiled> children = new ArrayList<>();
+            final ImmutableSet.Builder<String> keys = ImmutableSet.builder();
+            flattenOr(or, children, keys);
+
+            /* any number of key matches are checked with a single lookup */
+            final Set<String> keySet = keys.build();
+
+            if (!keySet.isEmpty()) {
+                children.add(new Compiled(s -> keySet.contains(s.getKey()), KEY_COST));
+            }
+
+            final Predicate<Series>[] predicates = sorted(children);
+            final int cost = cost(children);
+
+            return new Compiled(s -> {
+                for (final Predicate<Series> p : predicates) {
+                    if (p.test(s)) {
+                        return true;
+                    }
+                }
+
+                return false;
+            }, cost);
+        }
+
+        /**
+         * Filters without a compiled form, like raw filters, fall back to applying the filter.
+         */
+        @Override
+        public Compiled defaultAction(final Filter filter) {
+            return new Compiled(filter::apply, REGEX_COST);
+        }
+
+        private void flattenAnd(final AndFilter and, final List<Compiled> children) {
+            for (final Filter f : and.getStatements()) {
+                if (f instanceof AndFilter) {
+                    flattenAnd((AndFilter) f, children);
+                    continue;
+                }
+
+                children.add(f.visit(this));
+            }
+        }
+
+        private void flattenOr(
+            final OrFilter or, final List<Compiled> children,
+            final ImmutableSet.Builder<String> keys
+        ) {
+            for (final Filter f : or.getStatements()) {
+                if (f instanceof OrFilter) {
+                    flattenOr((OrFilter) f, children, keys);
+                    continue;
+                }
+
+                if (f instanceof MatchKeyFilter) {
+                    keys.add(((MatchKeyFilter) f).getValue());
+                    continue;
+                }
+
+                children.add(f.visit(this));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Predicate<Series>[] sorted(final List<Compiled> children) {
+            return children
+                .stream()
+                .sorted(Comparator.comparingInt(c -> c.cost))
+                .map(c -> c.predicate)
+                .toArray(Predicate[]::new);
+        }
+
+        private int cost(final List<Compiled> children) {
+            int cost = 0;
+
+            for (final Compiled c : children) {
+                cost += c.cost;
+            }
+
+            return cost;
+        }
+    }
+}
@@ -23,8 +23,11 @@ package com.spotify.heroic.filter;
 
 import com.spotify.heroic.common.Series;
 import com.spotify.heroic.grammar.DSL;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.util.regex.Pattern;
 
@@ -36,11 +39,26 @@ public class RegexFilter implements Filter {
     private final String tag;
     private final String value;
 
+    /* lazily compiled, since not every backend evaluates regular expressions with java */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile Pattern pattern;
+
     @Override
     public boolean apply(Series series) {
         final String value;
-        return (value = series.getTags().get(tag)) != null &&
-            Pattern.compile(this.value).matcher(value).matches();
+        return (value = series.getTags().get(tag)) != null && pattern().matcher(value).matches();
+    }
+
+    private Pattern pattern() {
+        Pattern p = pattern;
+
+        if (p == null) {
+            p = Pattern.compile(value);
+            pattern = p;
+        }
+
+        return p;
     }
 
     @Override
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.spotify.heroic.metric;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * Indicates that a query was shed by admission control before it was sent to any shard.
+ */
+@Data
+public class AdmissionError implements RequestError {
+    private final String error;
+    /**
+     * The client that the query was accounted to.
+     */
+    private final String client;
+    /**
+     * The estimated cost of the query.
+     */
+    private final long cost;
+    /**
+     * The budget of the client that the query was accounted to.
+     */
+    private final long budget;
+
+    @JsonCreator
+    public static AdmissionError create(
+        @JsonProperty("error") String error, @JsonProperty("client") String client,
+        @JsonProperty("cost") long cost, @JsonProperty("budget") long budget
+    ) {
+        return new AdmissionError(error, client, cost, budget);
+    }
+}
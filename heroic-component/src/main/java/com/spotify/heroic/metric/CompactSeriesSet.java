@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.spotify.heroic.metric;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.spotify.heroic.common.Series;
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import lombok.Data;
+import lombok.Getter;
+
+/**
+ * A compact stand-in for a large set of series in query results.
+ * <p>
+ * Instead of every series, it keeps the number of series, the distinct keys, the distinct values
+ * of every tag, and a bounded sample of the series themselves. At most {@link #MAX_VALUES}
+ * distinct values are retained for the keys and for every tag, beyond that only their number is
+ * kept.
+ * <p>
+ * As a {@link Set} it only contains the sample, and like any other set it is equal to every set
+ * with the same elements. Use {@link #getCount()} for the number of series that it stands in for.
+ */
+@JsonSerialize(using = CompactSeriesSet.Serializer.class)
+public final class CompactSeriesSet extends AbstractSet<Series> {
+    public static final int DEFAULT_SAMPLE_SIZE = 10;
+    public static final int MAX_VALUES = 100;
+
+    private static final Comparator<String> VALUE_ORDER =
+        Comparator.nullsFirst(Comparator.naturalOrder());
+
+    /* sample the series with the lowest hashes, which is stable across merges */
+    private static final Comparator<Series> SAMPLE_ORDER = Comparator
+        .comparingLong((Series s) -> s.getHashCode().asLong())
+        .thenComparing(Series::toString);
+
+    @Getter
+    private final long count;
+    @Getter
+    private final Values keys;
+    @Getter
+    private final SortedMap<String, Values> tags;
+    @Getter
+    private final Set<Series> sample;
+
+    public CompactSeriesSet(
+        final long count, final Values keys, final SortedMap<String, Values> tags,
+        final Set<Series> sample
+    ) {
+        this.count = count;
+        this.keys = checkNotNull(keys, "keys");
+        this.tags = checkNotNull(tags, "tags");
+        this.sample = checkNotNull(sample, "sample");
+    }
+
+    @Override
+    public Iterator<Series> iterator() {
+        return Iterators.unmodifiableIterator(sample.iterator());
+    }
+
+    @Override
+    public int size() {
+        return sample.size();
+    }
+
+    @Override
+    public String toString() {
+        return "CompactSeriesSet(count=" + count + ", keys=" + keys + ", tags=" + tags +
+            ", sample=" + sample + ")";
+    }
+
+    /**
+     * Summarize the given set of series, keeping a sample of the default size.
+     */
+    public static CompactSeriesSet of(final Set<Series> series) {
+        return of(series, DEFAULT_SAMPLE_SIZE);
+    }
+
+    /**
+     * Summarize the given set of series.
+     *
+     * @param sampleSize the maximum number of series to keep as a sample
+     */
+    public static CompactSeriesSet of(final Set<Series> series, final int sampleSize) {
+        if (series instanceof CompactSeriesSet) {
+            return (CompactSeriesSet) series;
+        }
+
+        final Builder builder = new Builder(sampleSize);
+
+        for (final Series s : series) {
+            builder.add(s);
+        }
+
+        return builder.build(series.size());
+    }
+
+    /**
+     * Union of sets which are known not to share any series, like the series of different shards
+     * or the inputs of an aggregation.
+     * <p>
+     * If none of the sets are compact, this is the plain union of the sets. Otherwise the result
+     * is compact, and the number of series is the sum of the number of series in every set.
+     */
+    public static Set<Series> concat(final Collection<? extends Set<Series>> sets) {
+        return combine(sets, true);
+    }
+
+    /**
+     * Union of sets which might share series, like the series of the same group in consecutive
+     * time ranges.
+     * <p>
+     * If none of the sets are compact, this is the plain union of the sets. Otherwise the result
+     * is compact, and since shared series can't be told apart from the summaries, the number of
+     * series is the largest number of series in any one set.
+     */
+    public static Set<Series> union(final Collection<? extends Set<Series>> sets) {
+        return combine(sets, false);
+    }
+
+    private static Set<Series> combine(
+        final Collection<? extends Set<Series>> sets, final boolean disjoint
+    ) {
+        if (!Iterables.any(sets, s -> s instanceof CompactSeriesSet)) {
+            return ImmutableSet.copyOf(Iterables.concat(sets));
+        }
+
+        int sampleSize = DEFAULT_SAMPLE_SIZE;
+
+        for (final Set<Series> s : sets) {
+            if (s instanceof CompactSeriesSet) {
+                sampleSize = Math.max(sampleSize, s.size());
+            }
+        }
+
+        final Builder builder = new Builder(sampleSize);
+        long count = 0;
+
+        for (final Set<Series> s : sets) {
+            final CompactSeriesSet compact = of(s, builder.sampleSize);
+            builder.add(compact);
+            count = disjoint ? count + compact.count : Math.max(count, compact.count);
+        }
+
+        return builder.build(count);
+    }
+
+    /**
+     * The distinct values of the keys or of a tag.
+     */
+    @Data
+    public static class Values {
+        /**
+         * The retained values, at most {@link #MAX_VALUES} of them.
+         */
+        private final SortedSet<String> values;
+        /**
+         * The number of distinct values. This is exact if all values are retained, otherwise it
+         * is a lower bound.
+         */
+        private final long count;
+
+        @JsonCreator
+        public static Values create(
+            @JsonProperty("values") final List<String> values,
+            @JsonProperty("count") final long count
+        ) {
+            final SortedSet<String> sorted = new TreeSet<>(VALUE_ORDER);
+            sorted.addAll(checkNotNull(values, "values"));
+            return new Values(sorted, count);
+        }
+
+        /**
+         * If all distinct values are retained.
+         */
+        @JsonIgnore
+        public boolean isComplete() {
+            return values.size() >= count;
+        }
+    }
+
+    private static class Builder {
+        private final int sampleSize;
+
+        private final ValuesBuilder keys = new ValuesBuilder();
+        private final Map<String, ValuesBuilder> tags = new HashMap<>();
+        private final TreeSet<Series> sample = new TreeSet<>(SAMPLE_ORDER);
+
+        Builder(final int sampleSize) {
+            this.sampleSize = sampleSize;
+        }
+
+        void add(final Series series) {
+            keys.add(series.getKey());
+
+            for (final Map.Entry<String, String> e : series.getTags().entrySet()) {
+                tags.computeIfAbsent(e.getKey(), k -> new ValuesBuilder()).add(e.getValue());
+            }
+
+            addSample(series);
+        }
+
+        void add(final CompactSeriesSet compact) {
+            keys.add(compact.keys);
+
+            for (final Map.Entry<String, Values> e : compact.tags.entrySet()) {
+                tags.computeIfAbsent(e.getKey(), k -> new ValuesBuilder()).add(e.getValue());
+            }
+
+            for (final Series s : compact.sample) {
+                addSample(s);
+            }
+        }
+
+        private void addSample(final Series series) {
+            sample.add(series);
+
+            if (sample.size() > sampleSize) {
+                sample.pollLast();
+            }
+        }
+
+        CompactSeriesSet build(final long count) {
+            final SortedMap<String, Values> tags = new TreeMap<>();
+
+            for (final Map.Entry<String, ValuesBuilder> e : this.tags.entrySet()) {
+                tags.put(e.getKey(), e.getValue().build());
+            }
+
+            return new CompactSeriesSet(count, keys.build(), tags, ImmutableSet.copyOf(sample));
+        }
+    }
+
+    private static class ValuesBuilder {
+        /* every distinct value seen, only kept while building */
+        private final Set<String> values = new HashSet<>();
+        private long lowerBound = 0;
+        private boolean complete = true;
+
+        void add(final String value) {
+            values.add(value);
+        }
+
+        void add(final Values other) {
+            values.addAll(other.values);
+            lowerBound = Math.max(lowerBound, other.count);
+            complete = complete && other.isComplete();
+        }
+
+        Values build() {
+            final long count = complete ? values.size() : Math.max(lowerBound, values.size());
+
+            final SortedSet<String> retained = values
+                .stream()
+                .sorted(VALUE_ORDER)
+                .limit(MAX_VALUES)
+                .collect(Collectors.toCollection(() -> new TreeSet<>(VALUE_ORDER)));
+
+            return new Values(retained, count);
+        }
+    }
+
+    public static class Serializer extends JsonSerializer<CompactSeriesSet> {
+        @Override
+        public void serialize(
+            final CompactSeriesSet value, final JsonGenerator g, final SerializerProvider provider
+        ) throws IOException {
+            g.writeStartObject();
+            g.writeNumberField("count", value.count);
+            g.writeObjectField("keys", value.keys);
+            g.writeObjectField("tags", value.tags);
+            g.writeObjectField("sample", value.sample);
+            g.writeEndObject();
+        }
+    }
+
+    /**
+     * Deserialize a set of series, which is either a plain array of series or a compact set.
+     */
+    public static class SeriesSetDeserializer extends JsonDeserializer<Set<Series>> {
+        private static final TypeReference<List<Series>> SERIES =
+            new TypeReference<List<Series>>() {
+            };
+
+        private static final TypeReference<Map<String, Values>> TAGS =
+            new TypeReference<Map<String, Values>>() {
+            };
+
+        @Override
+        public Set<Series> deserialize(final JsonParser p, final DeserializationContext ctxt)
+            throws IOException {
+            final ObjectCodec codec = p.getCodec();
+            final JsonNode node = codec.readTree(p);
+
+            if (node.isArray()) {
+                return ImmutableSet.copyOf(codec.<List<Series>>readValue(codec.treeAsTokens(node),
+                    SERIES));
+            }
+
+            if (!node.isObject()) {
+                throw ctxt.mappingException("Expected array or object of series");
+            }
+
+            final Values keys = codec.treeToValue(node.path("keys"), Values.class);
+            final Map<String, Values> tags =
+                codec.readValue(codec.treeAsTokens(node.path("tags")), TAGS);
+            final List<Series> sample =
+                codec.readValue(codec.treeAsTokens(node.path("sample")), SERIES);
+
+            return new CompactSeriesSet(node.path("count").asLong(), checkNotNull(keys, "keys"),
+                new TreeMap<>(checkNotNull(tags, "tags")), ImmutableSet.copyOf(sample));
+        }
+    }
+}
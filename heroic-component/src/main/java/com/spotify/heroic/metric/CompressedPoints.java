@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * An immutable, compressed block of points.
+ * <p>
+ * Timestamps are encoded using delta-of-delta encoding, and values are encoded by XOR:ing them
+ * with the previous value, as described in the Facebook Gorilla paper. Regular-interval series
+ * with slowly changing values typically compress to one or two bytes per point.
+ * <p>
+ * Points must be added in strictly increasing timestamp order.
+ * <p>
+ * Points are decoded in a streaming fashion through {@link #iterator()}, or in bulk into
+ * primitive arrays through {@link #decode(long[], double[], int)}.
+ *
+ * @see <a href="http://www.vldb.org/pvldb/vol8/p1816-teller.pdf">Gorilla: A Fast, Scalable,
+ * In-Memory Time Series Database</a>
+ */
+public final class CompressedPoints implements Iterable<Point> {
+    private static final long[] EMPTY = new long[0];
+
+    private final long[] data;
+    private final int size;
+    private final long first;
+    private final long last;
+
+    private CompressedPoints(final long[] data, final int size, final long first, final long last) {
+        this.data = data;
+        this.size = size;
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Number of points in this block.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Timestamp of the first point in this block.
+     */
+    public long first() {
+        if (size == 0) {
+            throw new IllegalStateException("empty block has no first timestamp");
+        }
+
+        return first;
+    }
+
+    /**
+     * Timestamp of the last point in this block.
+     */
+    public long last() {
+        if (size == 0) {
+            throw new IllegalStateException("empty block has no last timestamp");
+        }
+
+        return last;
+    }
+
+    /**
+     * Size of the encoded data in bytes.
+     */
+    public int sizeInBytes() {
+        return data.length * Long.BYTES;
+    }
+
+    /**
+     * Build a streaming decoder for this block.
+     */
+    @Override
+    public Iterator<Point> iterator() {
+        return new Decoder();
+    }
+
+    /**
+     * Decode all points into the given arrays.
+     *
+     * @param timestamps Array to decode timestamps into.
+     * @param values Array to decode values into.
+     * @param offset Offset in the arrays to decode the first point to.
+     */
+    public void decode(final long[] timestamps, final double[] values, final int offset) {
+        final Decoder decoder = new Decoder();
+
+        for (int i = 0; i < size; i++) {
+            decoder.advance();
+            timestamps[offset + i] = decoder.timestamp;
+            values[offset + i] = Double.longBitsToDouble(decoder.valueBits);
+        }
+    }
+
+    /**
+     * Access this block as a list.
+     * <p>
+     * Iterating over the list decodes points as they are visited, random access decodes the whole
+     * block once.
+     */
+    public List<Point> asList() {
+        return new PointList();
+    }
+
+    public static CompressedPoints encode(final List<Point> points) {
+        final Encoder encoder = new Encoder();
+
+        for (final Point p : points) {
+            encoder.add(p.getTimestamp(), p.getValue());
+        }
+
+        return encoder.build();
+    }
+
+    public static CompressedPoints encode(
+        final long[] timestamps, final double[] values, final int offset, final int length
+    ) {
+        final Encoder encoder = new Encoder();
+
+        for (int i = offset; i < offset + length; i++) {
+            encoder.add(timestamps[i], values[i]);
+        }
+
+        return encoder.build();
+    }
+
+    public static Encoder encoder() {
+        return new Encoder();
+    }
+
+    /**
+     * Incremental encoder for a block of points.
+     */
+    public static final class Encoder {
+        private final BitWriter writer = new BitWriter();
+
+        private int size = 0;
+        private long first;
+        private long timestamp;
+        private long delta;
+        private long valueBits;
+        private int leading = -1;
+        private int trailing;
+
+        private Encoder() {
+        }
+
+        public Encoder add(final long timestamp, final double value) {
+            final long bits = Double.doubleToRawLongBits(value);
+
+            if (size == 0) {
+                writer.write(timestamp, 64);
+                writer.write(bits, 64);
+                this.first = timestamp;
+                this.timestamp = timestamp;
+                this.delta = 0;
+                this.valueBits = bits;
+                size++;
+                return this;
+            }
+
+            if (timestamp <= this.timestamp) {
+                throw new IllegalArgumentException(
+                    "timestamps must be strictly increasing, but got " + timestamp + " after " +
+                        this.timestamp);
+            }
+
+            writeTimestamp(timestamp);
+            writeValue(bits);
+            size++;
+            return this;
+        }
+
+        public CompressedPoints build() {
+            if (size == 0) {
+                return new CompressedPoints(EMPTY, 0, 0L, 0L);
+            }
+
+            return new CompressedPoints(writer.toArray(), size, first, timestamp);
+        }
+
+        private void writeTimestamp(final long timestamp) {
+            final long newDelta = timestamp - this.timestamp;
+            final long deltaOfDelta = newDelta - delta;
+
+            if (deltaOfDelta == 0) {
+                writer.write(0b0, 1);
+            } else if (fits(deltaOfDelta, 7)) {
+                writer.write(0b10, 2);
+                writer.write(deltaOfDelta, 7);
+            } else if (fits(deltaOfDelta, 9)) {
+                writer.write(0b110, 3);
+                writer.write(deltaOfDelta, 9);
+            } else if (fits(deltaOfDelta, 12)) {
+                writer.write(0b1110, 4);
+                writer.write(deltaOfDelta, 12);
+            } else {
+                writer.write(0b1111, 4);
+                writer.write(deltaOfDelta, 64);
+            }
+
+            this.delta = newDelta;
+            this.timestamp = timestamp;
+        }
+
+        private void writeValue(final long bits) {
+            final long xor = bits ^ valueBits;
+            valueBits = bits;
+
+            if (xor == 0) {
+                writer.write(0b0, 1);
+                return;
+            }
+
+            writer.write(0b1, 1);
+
+            final int newLeading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            final int newTrailing = Long.numberOfTrailingZeros(xor);
+
+            /* meaningful bits fit in the previous window */
+            if (leading >= 0 && newLeading >= leading && newTrailing >= trailing) {
+                writer.write(0b0, 1);
+                writer.write(xor >>> trailing, 64 - leading - trailing);
+                return;
+            }
+
+            final int meaningful = 64 - newLeading - newTrailing;
+
+            writer.write(0b1, 1);
+            writer.write(newLeading, 5);
+            writer.write(meaningful - 1, 6);
+            writer.write(xor >>> newTrailing, meaningful);
+
+            leading = newLeading;
+            trailing = newTrailing;
+        }
+
+        private static boolean fits(final long value, final int bits) {
+            final long limit = 1L << (bits - 1);
+            return value >= -limit && value < limit;
+        }
+    }
+
+    private final class Decoder implements Iterator<Point> {
+        private final BitReader reader = new BitReader(data);
+
+        private int index = 0;
+        private long timestamp;
+        private long delta = 0;
+        private long valueBits;
+        private int leading = 0;
+        private int trailing = 0;
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public Point next() {
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
+
+            advance();
+            return new Point(timestamp, Double.longBitsToDouble(valueBits));
+        }
+
+        void advance() {
+            if (index++ == 0) {
+                timestamp = reader.read(64);
+                valueBits = reader.read(64);
+                return;
+            }
+
+            readTimestamp();
+            readValue();
+        }
+
+        private void readTimestamp() {
+            final long deltaOfDelta;
+
+            if (reader.read(1) == 0) {
+                deltaOfDelta = 0;
+            } else if (reader.read(1) == 0) {
+                deltaOfDelta = signed(reader.read(7), 7);
+            } else if (reader.read(1) == 0) {
+                deltaOfDelta = signed(reader.read(9), 9);
+            } else if (reader.read(1) == 0) {
+                deltaOfDelta = signed(reader.read(12), 12);
+            } else {
+                deltaOfDelta = reader.read(64);
+            }
+
+            delta += deltaOfDelta;
+            timestamp += delta;
+        }
+
+        private void readValue() {
+            if (reader.read(1) == 0) {
+                return;
+            }
+
+            if (reader.read(1) != 0) {
+                leading = (int) reader.read(5);
+                trailing = 64 - leading - ((int) reader.read(6) + 1);
+            }
+
+            final long xor = reader.read(64 - leading - trailing) << trailing;
+            valueBits ^= xor;
+        }
+
+        private long signed(final long value, final int bits) {
+            final int shift = 64 - bits;
+            return (value << shift) >> shift;
+        }
+    }
+
+    private final class PointList extends AbstractList<Point> implements RandomAccess {
+        private volatile List<Point> decoded;
+
+        @Override
+        public Iterator<Point> iterator() {
+            return new Decoder();
+        }
+
+        @Override
+        public Point get(final int index) {
+            List<Point> d = decoded;
+
+            if (d == null) {
+                final long[] timestamps = new long[size];
+                final double[] values = new double[size];
+                CompressedPoints.this.decode(timestamps, values, 0);
+
+                final Point[] points = new Point[size];
+
+                for (int i = 0; i < size; i++) {
+                    points[i] = new Point(timestamps[i], values[i]);
+                }
+
+                d = Arrays.asList(points);
+                decoded = d;
+            }
+
+            return d.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Writes bits, most significant first, into a growing array of words.
+     */
+    static final class BitWriter {
+        private long[] words = new long[4];
+        private int position = 0;
+
+        /**
+         * Write the given number of least significant bits from value.
+         */
+        void write(final long value, final int bits) {
+            if (bits == 0) {
+                return;
+            }
+
+            final int index = position >>> 6;
+
+            if (index + 1 >= words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+
+            final long v = value & mask(bits);
+            final int free = 64 - (position & 63);
+
+            if (bits <= free) {
+                words[index] |= v << (free - bits);
+            } else {
+                final int rest = bits - free;
+                words[index] |= v >>> rest;
+                words[index + 1] |= v << (64 - rest);
+            }
+
+            position += bits;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(words, (position + 63) >>> 6);
+        }
+    }
+
+    /**
+     * Reads bits written by {@link BitWriter}.
+     */
+    static final class BitReader {
+        private final long[] words;
+        private int position = 0;
+
+        BitReader(final long[] words) {
+            this.words = words;
+        }
+
+        long read(final int bits) {
+            if (bits == 0) {
+                return 0L;
+            }
+
+            final int index = position >>> 6;
+            final int free = 64 - (position & 63);
+            final long result;
+
+            if (bits <= free) {
+                result = (words[index] >>> (free - bits)) & mask(bits);
+            } else {
+                final int rest = bits - free;
+                result = ((words[index] & mask(free)) << rest) | (words[index + 1] >>> (64 - rest));
+            }
+
+            position += bits;
+            return result;
+        }
+    }
+
+    static long mask(final int bits) {
+        return bits == 64 ? -1L : (1L << bits) - 1;
+    }
+}
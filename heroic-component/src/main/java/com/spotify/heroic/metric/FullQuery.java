@@ -95,6 +95,10 @@ public final class FullQuery {
         return new FullQuery(newTrace, errors, groups, statistics, limits);
     }
 
+    public FullQuery withGroups(List<ResultGroup> newGroups) {
+        return new FullQuery(trace, errors, newGroups, statistics, limits);
+    }
+
     public Summary summarize() {
         return new Summary(trace, errors, ResultGroup.summarize(groups), statistics, limits);
     }
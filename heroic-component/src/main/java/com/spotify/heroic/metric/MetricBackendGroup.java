@@ -21,7 +21,10 @@
 
 package com.spotify.heroic.metric;
 
+import com.google.common.collect.ImmutableList;
 import eu.toolchain.async.AsyncFuture;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface MetricBackendGroup extends MetricBackend {
     /**
@@ -29,4 +32,21 @@ public interface MetricBackendGroup extends MetricBackend {
      */
     AsyncFuture<FullQuery> query(FullQuery.Request request);
 
+    /**
+     * Perform a local query for metrics, handing result groups to the given consumer as soon as
+     * they are complete instead of including them in the result.
+     * <p>
+     * The consumer is never called concurrently for the same query, and every group is handed
+     * over before the returned future is completed.
+     *
+     * @return the result of the query, without any groups
+     */
+    default AsyncFuture<FullQuery> queryStream(
+        FullQuery.Request request, Consumer<List<ResultGroup>> consumer
+    ) {
+        return query(request).directTransform(result -> {
+            consumer.accept(result.getGroups());
+            return result.withGroups(ImmutableList.of());
+        });
+    }
 }
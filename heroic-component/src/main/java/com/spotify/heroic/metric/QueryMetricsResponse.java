@@ -26,6 +26,7 @@ import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Series;
 import com.spotify.heroic.common.Statistics;
 import java.io.IOException;
 import java.util.HashMap;
@@ -129,7 +130,7 @@ public class QueryMetricsResponse {
 
             for (final ShardedResultGroup r : result) {
                 final Set<Map.Entry<String, SortedSet<String>>> entries =
-                    SeriesValues.fromSeries(r.getSeries().iterator()).getTags().entrySet();
+                    SeriesValues.fromSeriesSet(r.getSeries()).getTags().entrySet();
 
                 for (final Map.Entry<String, SortedSet<String>> e : entries) {
                     if (blacklist.contains(e.getKey())) {
@@ -165,7 +166,7 @@ public class QueryMetricsResponse {
                 g.writeStartObject();
 
                 final MetricCollection collection = group.getMetrics();
-                final SeriesValues series = SeriesValues.fromSeries(group.getSeries().iterator());
+                final SeriesValues series = SeriesValues.fromSeriesSet(group.getSeries());
 
                 g.writeStringField("type", collection.getType().identifier());
                 g.writeStringField("hash", Integer.toHexString(group.hashGroup()));
@@ -175,7 +176,7 @@ public class QueryMetricsResponse {
 
                 writeKey(g, series.getKeys());
                 writeTags(g, common, series.getTags());
-                writeTagCounts(g, series.getTags());
+                writeTagCounts(g, tagCounts(group.getSeries(), series.getTags()));
 
                 g.writeEndObject();
             }
@@ -219,24 +220,44 @@ public class QueryMetricsResponse {
             g.writeEndObject();
         }
 
-        void writeTagCounts(JsonGenerator g, final Map<String, SortedSet<String>> tags)
+        void writeTagCounts(JsonGenerator g, final Map<String, Long> tagCounts)
             throws IOException {
             g.writeFieldName("tagCounts");
 
             g.writeStartObject();
 
-            for (final Map.Entry<String, SortedSet<String>> pair : tags.entrySet()) {
-                final SortedSet<String> values = pair.getValue();
-
-                if (values.size() <= 1) {
+            for (final Map.Entry<String, Long> pair : tagCounts.entrySet()) {
+                if (pair.getValue() <= 1) {
                     continue;
                 }
 
-                g.writeNumberField(pair.getKey(), values.size());
+                g.writeNumberField(pair.getKey(), pair.getValue());
             }
 
             g.writeEndObject();
         }
+
+        /**
+         * Count distinct values of every tag, compact sets keep track of counts beyond the values
+         * that they retain.
+         */
+        Map<String, Long> tagCounts(
+            final Set<Series> series, final Map<String, SortedSet<String>> tags
+        ) {
+            final Map<String, Long> counts = new HashMap<>();
+
+            if (series instanceof CompactSeriesSet) {
+                final CompactSeriesSet compact = (CompactSeriesSet) series;
+                compact.getTags().forEach((tag, values) -> counts.put(tag, values.getCount()));
+                return counts;
+            }
+
+            for (final Map.Entry<String, SortedSet<String>> e : tags.entrySet()) {
+                counts.put(e.getKey(), (long) e.getValue().size());
+            }
+
+            return counts;
+        }
     }
 
     public Summary summarize() {
@@ -69,11 +69,24 @@ public class QueryResult {
     public static Collector<QueryResultPart, QueryResult> collectParts(
         final QueryTrace.Identifier what, final DateRange range, final AggregationCombiner combiner,
         final OptionalLimit groupLimit
+    ) {
+        return collectParts(what, range, combiner.newSession(), groupLimit);
+    }
+
+    /**
+     * Collect result parts into a complete result, using a session that might already have been
+     * updated with groups which were streamed before the parts completed.
+     *
+     * @param range The range which the result represents.
+     * @return A complete QueryResult.
+     */
+    public static Collector<QueryResultPart, QueryResult> collectParts(
+        final QueryTrace.Identifier what, final DateRange range,
+        final AggregationCombiner.Session session, final OptionalLimit groupLimit
     ) {
         final QueryTrace.NamedWatch w = QueryTrace.watch(what);
 
         return parts -> {
-            final List<List<ShardedResultGroup>> all = new ArrayList<>();
             final List<RequestError> errors = new ArrayList<>();
             final ImmutableList.Builder<QueryTrace> queryTraces = ImmutableList.builder();
             final ImmutableSet.Builder<ResultLimit> limits = ImmutableSet.builder();
@@ -89,10 +102,10 @@ public class QueryResult {
                     continue;
                 }
 
-                all.add(part.getGroups());
+                session.update(part.getGroups());
             }
 
-            final List<ShardedResultGroup> groups = combiner.combine(all);
+            final List<ShardedResultGroup> groups = session.result();
             final QueryTrace trace = w.end(queryTraces.build());
 
             if (groupLimit.isGreaterOrEqual(groups.size())) {
@@ -105,8 +118,11 @@ public class QueryResult {
     }
 
     public static QueryResult error(DateRange range, String errorMessage, QueryTrace trace) {
-        return new QueryResult(range, Collections.emptyList(),
-            Collections.singletonList(QueryError.fromMessage(errorMessage)), trace,
-            ResultLimits.of(), 0);
+        return error(range, QueryError.fromMessage(errorMessage), trace);
+    }
+
+    public static QueryResult error(DateRange range, RequestError error, QueryTrace trace) {
+        return new QueryResult(range, Collections.emptyList(), Collections.singletonList(error),
+            trace, ResultLimits.of(), 0);
     }
 }
@@ -27,6 +27,7 @@ import com.spotify.heroic.cluster.ClusterShard;
 import eu.toolchain.async.Transform;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.LongSupplier;
 import lombok.Data;
 
 @Data
@@ -80,6 +81,27 @@ public class QueryResultPart {
         };
     }
 
+    /**
+     * Build a part from a result whose groups have already been streamed, and are therefore not
+     * part of the result.
+     *
+     * @param streamedSampleSize Number of samples in the streamed groups, used if the result
+     * doesn't carry a sample size statistic.
+     */
+    public static Transform<FullQuery, QueryResultPart> fromStreamedResult(
+        final LongSupplier streamedSampleSize
+    ) {
+        return result -> {
+            final long preAggregationSampleSize = result
+                .getStatistics()
+                .getCounterValue(AggregationInstance.SAMPLE_SIZE)
+                .orElseGet(streamedSampleSize::getAsLong);
+
+            return new QueryResultPart(ImmutableList.of(), result.getErrors(), result.getTrace(),
+                result.getLimits(), preAggregationSampleSize);
+        };
+    }
+
     public boolean isEmpty() {
         return groups.stream().allMatch(ShardedResultGroup::isEmpty);
     }
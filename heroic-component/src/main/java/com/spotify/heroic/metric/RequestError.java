@@ -29,7 +29,8 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
     @JsonSubTypes.Type(
         value = NodeError.class, name = "node"), @JsonSubTypes.Type(
     value = ShardError.class, name = "shard"), @JsonSubTypes.Type(
-    value = QueryError.class, name = "query")
+    value = QueryError.class, name = "query"), @JsonSubTypes.Type(
+    value = AdmissionError.class, name = "admission")
 })
 public interface RequestError {
 }
@@ -25,6 +25,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.spotify.heroic.cluster.ClusterShard;
 import com.spotify.heroic.common.Histogram;
 import com.spotify.heroic.common.Series;
@@ -38,6 +39,9 @@ import lombok.Data;
 @Data
 public class ResultGroup {
     final Map<String, String> key;
+    /**
+     * The series of the group, which is a {@link CompactSeriesSet} if compaction was requested.
+     */
     final Set<Series> series;
     final MetricCollection group;
     /**
@@ -48,7 +52,9 @@ public class ResultGroup {
 
     @JsonCreator
     public ResultGroup(
-        @JsonProperty("key") Map<String, String> key, @JsonProperty("series") Set<Series> series,
+        @JsonProperty("key") Map<String, String> key,
+        @JsonProperty("series")
+        @JsonDeserialize(using = CompactSeriesSet.SeriesSetDeserializer.class) Set<Series> series,
         @JsonProperty("group") MetricCollection group, @JsonProperty("cadence") Long cadence
     ) {
         this.key = checkNotNull(key, "key");
@@ -38,6 +38,11 @@ public class SeriesSetsSummarizer {
     private final Histogram.Builder seriesSize = Histogram.builder();
 
     public void add(Set<Series> series) {
+        if (series instanceof CompactSeriesSet) {
+            addCompact((CompactSeriesSet) series);
+            return;
+        }
+
         this.seriesSize.add(series.size());
 
         for (final Series s : series) {
@@ -49,6 +54,19 @@ public class SeriesSetsSummarizer {
         }
     }
 
+    /**
+     * Compact sets only contribute their retained keys and tag values, which might be fewer than
+     * the distinct values in the series they stand in for.
+     */
+    private void addCompact(final CompactSeriesSet series) {
+        this.seriesSize.add(series.getCount());
+        uniqueKeys.addAll(series.getKeys().getValues());
+
+        for (final Map.Entry<String, CompactSeriesSet.Values> e : series.getTags().entrySet()) {
+            tags.putAll(e.getKey(), e.getValue().getValues());
+        }
+    }
+
     public Summary end() {
         final Histogram.Builder tagsSize = Histogram.builder();
 
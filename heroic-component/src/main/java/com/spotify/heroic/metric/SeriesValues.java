@@ -84,6 +84,24 @@ public class SeriesValues {
         return builder.build();
     }
 
+    /**
+     * Build values from a set of series, which only includes the retained values of compact sets.
+     */
+    public static SeriesValues fromSeriesSet(final Set<Series> series) {
+        if (!(series instanceof CompactSeriesSet)) {
+            return fromSeries(series.iterator());
+        }
+
+        final CompactSeriesSet compact = (CompactSeriesSet) series;
+        final Map<String, SortedSet<String>> tags = new HashMap<>();
+
+        for (final Map.Entry<String, CompactSeriesSet.Values> e : compact.getTags().entrySet()) {
+            tags.put(e.getKey(), e.getValue().getValues());
+        }
+
+        return new SeriesValues(compact.getKeys().getValues(), tags);
+    }
+
     public static SeriesValues of(final String k, final String v) {
         return new SeriesValues(ImmutableSortedSet.of(), ImmutableMap.of());
     }
@@ -34,7 +34,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
 /**
- * A meter metric which measures mean five-minute exponentially-weighted moving average
+ * A meter metric which measures mean one- and five-minute exponentially-weighted moving average
  * throughputs.
  *
  * @see EWMA
@@ -43,6 +43,7 @@ public class Meter {
     private static final long TICK_INTERVAL = TimeUnit.SECONDS.toNanos(5);
 
     private final LongAdder count = new LongAdder();
+    private final EWMA m1Rate = EWMA.oneMinuteEWMA();
     private final EWMA m5Rate = EWMA.fiveMinuteEWMA();
 
     private final long startTime;
@@ -82,6 +83,7 @@ public class Meter {
     public void mark(long n) {
         tickIfNecessary();
         count.add(n);
+        m1Rate.update(n);
         m5Rate.update(n);
     }
 
@@ -96,6 +98,7 @@ public class Meter {
             if (lastTick.compareAndSet(oldTick, newIntervalStartTick)) {
                 final long requiredTicks = age / TICK_INTERVAL;
                 for (long i = 0; i < requiredTicks; i++) {
+                    m1Rate.tick();
                     m5Rate.tick();
                 }
             }
@@ -106,6 +109,11 @@ public class Meter {
         return count.sum();
     }
 
+    public double getOneMinuteRate() {
+        tickIfNecessary();
+        return m1Rate.getRate(TimeUnit.SECONDS);
+    }
+
     public double getFiveMinuteRate() {
         tickIfNecessary();
         return m5Rate.getRate(TimeUnit.SECONDS);
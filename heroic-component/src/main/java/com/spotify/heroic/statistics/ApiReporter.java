@@ -35,4 +35,25 @@ public interface ApiReporter {
      * @param duration Duration of query, in ms
      */
     void reportSmallQueryLatency(long duration);
+
+    /**
+     * Report that a hedged request was sent to another node of a shard, since the first node
+     * didn't respond in time.
+     */
+    void reportHedge();
+
+    /**
+     * Report that a hedged request responded before the request it was hedging.
+     */
+    void reportHedgeWin();
+
+    /**
+     * Report that a query was queued, since its estimated cost didn't fit the admission budget.
+     */
+    void reportQueryQueued();
+
+    /**
+     * Report that a query was rejected by admission control.
+     */
+    void reportQueryRejected();
 }
@@ -29,4 +29,21 @@ public interface IngestionManagerReporter {
     void incrementConcurrentWrites();
 
     void decrementConcurrentWrites();
+
+    /**
+     * Points which have been accepted by the batching stage, but not yet written.
+     */
+    void incrementPendingPoints(int points);
+
+    void decrementPendingPoints(int points);
+
+    /**
+     * Report the number of points in a batch that is about to be written.
+     */
+    void reportBatchSize(int points);
+
+    /**
+     * Report a write which was rejected since too many points were pending.
+     */
+    void reportRejectedWrite();
 }
@@ -42,5 +42,17 @@ public interface MetadataBackendReporter {
 
     void reportWriteBatchDuration(long millis);
 
+    /**
+     * Report a series lookup which was served from the series cache.
+     *
+     * @param savedNanos how long the lookup which populated the cache entry took
+     */
+    void reportFindSeriesCacheHit(long savedNanos);
+
+    /**
+     * Report a series lookup which missed the series cache.
+     */
+    void reportFindSeriesCacheMiss();
+
     MetadataBackend decorate(MetadataBackend backend);
 }
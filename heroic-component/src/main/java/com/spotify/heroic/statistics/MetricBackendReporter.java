@@ -31,4 +31,32 @@ public interface MetricBackendReporter {
     FutureReporter.Context reportFindSeries();
 
     FutureReporter.Context reportQueryMetrics();
+
+    /**
+     * Bytes of writes which have been accepted by a backend, but not yet acknowledged by the
+     * underlying store.
+     */
+    void incrementInFlightWriteBytes(long bytes);
+
+    void decrementInFlightWriteBytes(long bytes);
+
+    /**
+     * Report the time it took to flush a batch of coalesced writes.
+     */
+    void reportWriteFlushLatency(long nanos);
+
+    /**
+     * Report the number of rows requested in a single read.
+     */
+    void reportRowsPerRead(int rows);
+
+    /**
+     * Report the time a fetch was queued before it was dispatched.
+     */
+    void reportFetchQueueWait(long nanos);
+
+    /**
+     * Report the time from dispatching a fetch until it completed.
+     */
+    void reportFetchLatency(long nanos);
 }
@@ -39,4 +39,20 @@ public class NoopApiReporter implements ApiReporter {
     @Override
     public void reportSmallQueryLatency(final long duration) {
     }
+
+    @Override
+    public void reportHedge() {
+    }
+
+    @Override
+    public void reportHedgeWin() {
+    }
+
+    @Override
+    public void reportQueryQueued() {
+    }
+
+    @Override
+    public void reportQueryRejected() {
+    }
 }
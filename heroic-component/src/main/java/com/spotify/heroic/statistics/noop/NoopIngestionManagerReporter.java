@@ -47,6 +47,22 @@ public class NoopIngestionManagerReporter implements IngestionManagerReporter {
 
     }
 
+    @Override
+    public void incrementPendingPoints(final int points) {
+    }
+
+    @Override
+    public void decrementPendingPoints(final int points) {
+    }
+
+    @Override
+    public void reportBatchSize(final int points) {
+    }
+
+    @Override
+    public void reportRejectedWrite() {
+    }
+
     private static final NoopIngestionManagerReporter instance = new NoopIngestionManagerReporter();
 
     public static NoopIngestionManagerReporter get() {
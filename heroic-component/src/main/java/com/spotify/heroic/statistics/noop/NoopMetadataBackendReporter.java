@@ -40,6 +40,14 @@ public class NoopMetadataBackendReporter implements MetadataBackendReporter {
     public void reportWriteBatchDuration(long millis) {
     }
 
+    @Override
+    public void reportFindSeriesCacheHit(long savedNanos) {
+    }
+
+    @Override
+    public void reportFindSeriesCacheMiss() {
+    }
+
     @Override
     public MetadataBackend decorate(
         final MetadataBackend backend
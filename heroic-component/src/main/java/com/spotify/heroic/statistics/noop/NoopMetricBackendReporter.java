@@ -68,6 +68,30 @@ public class NoopMetricBackendReporter implements MetricBackendReporter {
         return NoopFutureReporterContext.get();
     }
 
+    @Override
+    public void incrementInFlightWriteBytes(final long bytes) {
+    }
+
+    @Override
+    public void decrementInFlightWriteBytes(final long bytes) {
+    }
+
+    @Override
+    public void reportWriteFlushLatency(final long nanos) {
+    }
+
+    @Override
+    public void reportRowsPerRead(final int rows) {
+    }
+
+    @Override
+    public void reportFetchQueueWait(final long nanos) {
+    }
+
+    @Override
+    public void reportFetchLatency(final long nanos) {
+    }
+
     private static final NoopMetricBackendReporter instance = new NoopMetricBackendReporter();
 
     public static NoopMetricBackendReporter get() {
@@ -0,0 +1,108 @@
+package com.spotify.heroic.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.spotify.heroic.scheduler.Scheduler;
+import com.spotify.heroic.statistics.ApiReporter;
+import org.junit.Test;
+
+public class ShardHedgingTest {
+    private final Scheduler scheduler = mock(Scheduler.class);
+    private final ApiReporter reporter = mock(ApiReporter.class);
+
+    @Test
+    public void testDisabled() {
+        assertFalse(ShardHedging.disabled().isEnabled());
+        assertTrue(new ShardHedging(scheduler, reporter, 0.95D, 0.1D).isEnabled());
+    }
+
+    @Test
+    public void testDelay() {
+        final ShardHedging hedging = new ShardHedging(scheduler, reporter, 0.9D, 0.1D);
+
+        for (int i = 0; i < ShardHedging.RECALCULATE - 1; i++) {
+            hedging.record(i);
+        }
+
+        /* not enough latencies recorded yet */
+        assertEquals(-1L, hedging.delay());
+
+        hedging.record(ShardHedging.RECALCULATE - 1);
+        assertEquals(57L, hedging.delay());
+    }
+
+    @Test
+    public void testDelayWindow() {
+        final ShardHedging hedging = new ShardHedging(scheduler, reporter, 0.5D, 0.1D);
+
+        for (int i = 0; i < ShardHedging.WINDOW; i++) {
+            hedging.record(1000L);
+        }
+
+        /* old latencies are replaced by new ones */
+        for (int i = 0; i < ShardHedging.WINDOW; i++) {
+            hedging.record(10L);
+        }
+
+        assertEquals(10L, hedging.delay());
+    }
+
+    @Test
+    public void testEndpoints() {
+        final ShardHedging hedging = new ShardHedging(scheduler, reporter, 0.5D, 0.5D);
+        final ShardHedging fast = hedging.endpoint("fast");
+        final ShardHedging slow = hedging.endpoint("slow");
+
+        assertSame(fast, hedging.endpoint("fast"));
+        assertSame(ShardHedging.disabled(), ShardHedging.disabled().endpoint("fast"));
+
+        for (int i = 0; i < ShardHedging.RECALCULATE; i++) {
+            fast.record(10L);
+            slow.record(1000L);
+        }
+
+        /* every endpoint has its own delay */
+        assertEquals(10L, fast.delay());
+        assertEquals(1000L, slow.delay());
+        assertEquals(-1L, hedging.delay());
+
+        /* but the budget is shared */
+        fast.deposit();
+        slow.deposit();
+        assertTrue(hedging.tryAcquire());
+        assertFalse(fast.tryAcquire());
+    }
+
+    @Test
+    public void testBudget() {
+        final ShardHedging hedging = new ShardHedging(scheduler, reporter, 0.95D, 0.5D);
+
+        assertFalse(hedging.tryAcquire());
+
+        hedging.deposit();
+        assertFalse(hedging.tryAcquire());
+
+        hedging.deposit();
+        assertTrue(hedging.tryAcquire());
+        assertFalse(hedging.tryAcquire());
+    }
+
+    @Test
+    public void testBudgetIsCapped() {
+        final ShardHedging hedging = new ShardHedging(scheduler, reporter, 0.95D, 1D);
+
+        for (int i = 0; i < ShardHedging.MAX_TOKENS * 2; i++) {
+            hedging.deposit();
+        }
+
+        for (int i = 0; i < ShardHedging.MAX_TOKENS; i++) {
+            assertTrue(hedging.tryAcquire());
+        }
+
+        assertFalse(hedging.tryAcquire());
+    }
+}
@@ -0,0 +1,69 @@
+package com.spotify.heroic.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.collect.ImmutableList;
+import eu.toolchain.async.AsyncFuture;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.Test;
+
+public class ConsumerSchemaTest {
+    private final ConsumerSchema.Consumer consumer = message -> {
+        switch (new String(message, StandardCharsets.UTF_8)) {
+            case "invalid":
+                throw new ConsumerSchemaValidationException("invalid message");
+            case "fail":
+                throw new ConsumerSchemaException("failed to consume");
+            default:
+                @SuppressWarnings("unchecked")
+                final AsyncFuture<Void> write = mock(AsyncFuture.class);
+                return write;
+        }
+    };
+
+    @Test
+    public void testConsumeBatch() throws Exception {
+        final ConsumerSchema.Batch batch = consumer.consumeBatch(messages("a", "invalid", "b"));
+
+        assertEquals(2, batch.getWrites().size());
+        assertEquals(1, batch.getInvalid());
+    }
+
+    @Test
+    public void testPartialFailure() throws Exception {
+        try {
+            consumer.consumeBatch(messages("a", "invalid", "fail", "b"));
+            fail("expected the batch to fail");
+        } catch (final ConsumerBatchException e) {
+            /* only the messages from the failed one onwards need to be retried */
+            assertEquals(2, e.getConsumed());
+            assertEquals(1, e.getBatch().getWrites().size());
+            assertEquals(1, e.getBatch().getInvalid());
+        }
+    }
+
+    @Test
+    public void testFailureOfFirstMessage() throws Exception {
+        try {
+            consumer.consumeBatch(messages("fail", "a"));
+            fail("expected the batch to fail");
+        } catch (final ConsumerSchemaException e) {
+            /* nothing was consumed, so the whole batch is retried */
+            assertFalse(e instanceof ConsumerBatchException);
+        }
+    }
+
+    private List<byte[]> messages(final String... messages) {
+        final ImmutableList.Builder<byte[]> bytes = ImmutableList.builder();
+
+        for (final String message : messages) {
+            bytes.add(message.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return bytes.build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.spotify.heroic.filter;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import static com.spotify.heroic.filter.Filter.and;
+import static com.spotify.heroic.filter.Filter.hasTag;
+import static com.spotify.heroic.filter.Filter.matchKey;
+import static com.spotify.heroic.filter.Filter.matchTag;
+import static com.spotify.heroic.filter.Filter.not;
+import static com.spotify.heroic.filter.Filter.or;
+import static com.spotify.heroic.filter.Filter.regex;
+import static com.spotify.heroic.filter.Filter.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FilterCompilerTest {
+    private final List<Series> series = ImmutableList.of(Series.of("a"),
+        Series.of("a", ImmutableMap.of("role", "web", "host", "web1")),
+        Series.of("b", ImmutableMap.of("role", "db", "host", "db12")),
+        Series.of("c", ImmutableMap.of("host", "web2")));
+
+    private final List<Filter> filters =
+        ImmutableList.of(TrueFilter.get(), FalseFilter.get(), matchKey("a"), hasTag("role"),
+            matchTag("role", "web"), startsWith("host", "web"), regex("host", "[a-z]+[0-9]"),
+            not(hasTag("role")), and(regex("host", "db.*"), matchKey("b")),
+            and(matchKey("a"), and(hasTag("host"), not(matchTag("role", "db")))),
+            or(matchKey("a"), matchKey("c"), matchTag("role", "db")),
+            or(or(matchKey("b"), startsWith("host", "web")), and(matchKey("a"), hasTag("role"))),
+            not(or(matchKey("a"), matchKey("b"))));
+
+    @Test
+    public void testSameAsApply() {
+        for (final Filter f : filters) {
+            final Predicate<Series> compiled = FilterCompiler.compile(f);
+
+            for (final Series s : series) {
+                assertEquals(f + " on " + s, f.apply(s), compiled.test(s));
+            }
+        }
+    }
+
+    @Test
+    public void testCheapChecksShortCircuit() {
+        /* the raw filter can't be applied, so it must never be reached */
+        final Predicate<Series> and =
+            FilterCompiler.compile(and(new RawFilter("unparsed"), matchKey("a")));
+        final Predicate<Series> or =
+            FilterCompiler.compile(or(new RawFilter("unparsed"), matchKey("a")));
+
+        assertFalse(and.test(Series.of("b")));
+        assertTrue(or.test(Series.of("a")));
+    }
+}
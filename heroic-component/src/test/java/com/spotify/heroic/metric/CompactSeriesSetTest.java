@@ -0,0 +1,161 @@
+package com.spotify.heroic.metric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.common.Series;
+import java.util.Set;
+import lombok.Data;
+import org.junit.Test;
+
+public class CompactSeriesSetTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final Series a = Series.of("a", ImmutableMap.of("host", "foo", "role", "db"));
+    private final Series b = Series.of("a", ImmutableMap.of("host", "bar", "role", "db"));
+    private final Series c = Series.of("b", ImmutableMap.of("host", "baz"));
+
+    @Test
+    public void testOf() {
+        final CompactSeriesSet compact = CompactSeriesSet.of(ImmutableSet.of(a, b, c), 2);
+
+        assertEquals(3, compact.getCount());
+        assertEquals(2, compact.size());
+        assertEquals(ImmutableSet.of("a", "b"), compact.getKeys().getValues());
+        assertEquals(3, compact.getTags().get("host").getCount());
+        assertEquals(ImmutableSet.of("db"), compact.getTags().get("role").getValues());
+        assertTrue(compact.getTags().get("host").isComplete());
+
+        assertSame(compact, CompactSeriesSet.of(compact));
+    }
+
+    @Test
+    public void testTruncatedValues() {
+        final CompactSeriesSet compact = CompactSeriesSet.of(hosts(0, 1000));
+        final CompactSeriesSet.Values hosts = compact.getTags().get("host");
+
+        assertEquals(1000, compact.getCount());
+        assertEquals(CompactSeriesSet.DEFAULT_SAMPLE_SIZE, compact.size());
+        assertEquals(CompactSeriesSet.MAX_VALUES, hosts.getValues().size());
+        assertEquals(1000, hosts.getCount());
+        assertFalse(hosts.isComplete());
+    }
+
+    @Test
+    public void testConcat() {
+        final Set<Series> plain = CompactSeriesSet.concat(
+            ImmutableList.of(ImmutableSet.of(a), ImmutableSet.of(b)));
+
+        assertFalse(plain instanceof CompactSeriesSet);
+        assertEquals(ImmutableSet.of(a, b), plain);
+
+        final Set<Series> merged = CompactSeriesSet.concat(
+            ImmutableList.of(CompactSeriesSet.of(hosts(0, 500)), CompactSeriesSet.of(hosts(500,
+                1000)), ImmutableSet.of(c)));
+
+        assertTrue(merged instanceof CompactSeriesSet);
+
+        final CompactSeriesSet compact = (CompactSeriesSet) merged;
+        assertEquals(1001, compact.getCount());
+        assertEquals(ImmutableSet.of("a", "b"), compact.getKeys().getValues());
+        /* truncated values only give a lower bound on the number of distinct values */
+        assertEquals(500, compact.getTags().get("host").getCount());
+        assertEquals(CompactSeriesSet.DEFAULT_SAMPLE_SIZE, compact.size());
+
+        /* the sample is stable regardless of how sets were merged */
+        assertEquals(CompactSeriesSet.of(hosts(0, 1000)).getSample(),
+            CompactSeriesSet.of(CompactSeriesSet.concat(
+                ImmutableList.of(CompactSeriesSet.of(hosts(0, 500)),
+                    CompactSeriesSet.of(hosts(500, 1000))))).getSample());
+    }
+
+    @Test
+    public void testUnion() {
+        final CompactSeriesSet compact = (CompactSeriesSet) CompactSeriesSet.union(
+            ImmutableList.of(CompactSeriesSet.of(ImmutableSet.of(a, b)),
+                CompactSeriesSet.of(ImmutableSet.of(a, b, c))));
+
+        assertEquals(3, compact.getCount());
+        assertEquals(3, compact.getTags().get("host").getCount());
+        assertEquals(ImmutableSet.of(a, b, c), compact);
+    }
+
+    @Test
+    public void testJson() throws Exception {
+        final Set<Series> plain = ImmutableSet.of(a, b, c);
+        final CompactSeriesSet compact = CompactSeriesSet.of(plain);
+
+        assertEquals(plain, roundTrip(plain));
+
+        final CompactSeriesSet result = (CompactSeriesSet) roundTrip(compact);
+        assertEquals(compact, result);
+        assertEquals(compact.getCount(), result.getCount());
+        assertEquals(compact.getKeys(), result.getKeys());
+        assertEquals(compact.getTags(), result.getTags());
+    }
+
+    @Test
+    public void testSetContract() {
+        final CompactSeriesSet compact = CompactSeriesSet.of(ImmutableSet.of(a, b, c), 2);
+        final Set<Series> sample = ImmutableSet.copyOf(compact);
+
+        assertEquals(2, sample.size());
+        assertEquals(sample, compact);
+        assertEquals(compact, sample);
+        assertEquals(sample.hashCode(), compact.hashCode());
+    }
+
+    /**
+     * A group of a {@code sum by role} which covers 100k series.
+     */
+    @Test
+    public void testSerializedSize() throws Exception {
+        final Set<Series> plain = hosts(0, 100000);
+        final CompactSeriesSet compact = CompactSeriesSet.of(plain);
+
+        final int plainSize = mapper.writeValueAsBytes(new Holder(plain)).length;
+        final int compactSize = mapper.writeValueAsBytes(new Holder(compact)).length;
+
+        /* ~5.5MB for the plain set, and ~3kB compact */
+        assertTrue(plainSize > 1000 * compactSize);
+    }
+
+    private Set<Series> roundTrip(final Set<Series> series) throws Exception {
+        return mapper.readValue(mapper.writeValueAsBytes(new Holder(series)), Holder.class)
+            .getSeries();
+    }
+
+    private Set<Series> hosts(final int start, final int end) {
+        final ImmutableSet.Builder<Series> series = ImmutableSet.builder();
+
+        for (int i = start; i < end; i++) {
+            series.add(Series.of(i % 2 == 0 ? "a" : "b",
+                ImmutableMap.of("host", String.format("host%06d", i), "role", "db")));
+        }
+
+        return series.build();
+    }
+
+    @Data
+    static class Holder {
+        private final Set<Series> series;
+
+        @JsonCreator
+        Holder(
+            @JsonProperty("series")
+            @JsonDeserialize(using = CompactSeriesSet.SeriesSetDeserializer.class)
+                Set<Series> series
+        ) {
+            this.series = series;
+        }
+    }
+}
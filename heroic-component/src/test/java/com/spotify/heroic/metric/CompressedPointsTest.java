@@ -0,0 +1,77 @@
+package com.spotify.heroic.metric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class CompressedPointsTest {
+    @Test
+    public void testRoundTrip() {
+        final Random random = new Random(0x1234L);
+        final List<Point> points = new ArrayList<>();
+
+        long timestamp = 1400000000000L;
+        double value = 42D;
+
+        for (int i = 0; i < 2000; i++) {
+            switch (i % 5) {
+                case 0:
+                    timestamp += 10000L;
+                    break;
+                case 1:
+                    timestamp += 1L + random.nextInt(1000);
+                    break;
+                case 2:
+                    timestamp += 1L + (long) (random.nextDouble() * 1e12);
+                    break;
+                default:
+                    timestamp += 10000L + random.nextInt(100);
+                    value = random.nextGaussian() * 1e6;
+                    break;
+            }
+
+            points.add(new Point(timestamp, i % 7 == 0 ? Double.NaN : value));
+        }
+
+        final CompressedPoints compressed = CompressedPoints.encode(points);
+
+        assertEquals(points.size(), compressed.size());
+        assertEquals(points.get(0).getTimestamp(), compressed.first());
+        assertEquals(points.get(points.size() - 1).getTimestamp(), compressed.last());
+        assertEquals(points, ImmutableList.copyOf(compressed));
+        assertEquals(points, compressed.asList());
+        assertEquals(points.get(1234), compressed.asList().get(1234));
+    }
+
+    @Test
+    public void testRegularIntervalSize() {
+        final List<Point> points = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            points.add(new Point(1400000000000L + i * 10000L, i / 10));
+        }
+
+        final CompressedPoints compressed = CompressedPoints.encode(points);
+
+        assertEquals(points, compressed.asList());
+        assertTrue(compressed.sizeInBytes() < points.size() * 2);
+    }
+
+    @Test
+    public void testEmpty() {
+        final CompressedPoints compressed = CompressedPoints.encode(ImmutableList.of());
+
+        assertTrue(compressed.isEmpty());
+        assertEquals(ImmutableList.of(), compressed.asList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnordered() {
+        CompressedPoints.encoder().add(10L, 1D).add(10L, 2D);
+    }
+}
@@ -22,6 +22,7 @@
 package com.spotify.heroic;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedSet;
 import com.spotify.heroic.aggregation.Aggregation;
 import com.spotify.heroic.aggregation.AggregationCombiner;
@@ -31,9 +32,11 @@ import com.spotify.heroic.aggregation.AggregationInstance;
 import com.spotify.heroic.aggregation.DistributedAggregationCombiner;
 import com.spotify.heroic.aggregation.Empty;
 import com.spotify.heroic.cache.QueryCache;
+import com.spotify.heroic.cache.QuerySegmentCache;
 import com.spotify.heroic.cluster.ClusterManager;
 import com.spotify.heroic.cluster.ClusterNode;
 import com.spotify.heroic.cluster.ClusterShard;
+import com.spotify.heroic.cluster.ShardHedging;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Duration;
 import com.spotify.heroic.common.Feature;
@@ -61,6 +64,8 @@ import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.QueryResult;
 import com.spotify.heroic.metric.QueryResultPart;
 import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultGroup;
+import com.spotify.heroic.metric.ShardedResultGroup;
 import com.spotify.heroic.metric.Tracing;
 import com.spotify.heroic.metric.WriteMetric;
 import com.spotify.heroic.querylogging.QueryContext;
@@ -80,11 +85,15 @@ import eu.toolchain.async.FutureDone;
 import eu.toolchain.async.Transform;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.SortedSet;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import javax.inject.Inject;
 import javax.inject.Named;
 import lombok.RequiredArgsConstructor;
@@ -104,10 +113,13 @@ public class CoreQueryManager implements QueryManager {
     private final ClusterManager cluster;
     private final QueryParser parser;
     private final QueryCache queryCache;
+    private final QuerySegmentCache segmentCache;
     private final AggregationFactory aggregations;
     private final OptionalLimit groupLimit;
     private final ApiReporter reporter;
     private final QueryLogger queryLogger;
+    private final ShardHedging hedging;
+    private final QueryAdmission admission;
 
     private final long smallQueryThreshold;
 
@@ -115,9 +127,11 @@ public class CoreQueryManager implements QueryManager {
     public CoreQueryManager(
         @Named("features") final Features features, final AsyncFramework async, final Clock clock,
         final ClusterManager cluster, final QueryParser parser, final QueryCache queryCache,
-        final AggregationFactory aggregations, @Named("groupLimit") final OptionalLimit groupLimit,
+        final QuerySegmentCache segmentCache, final AggregationFactory aggregations,
+        @Named("groupLimit") final OptionalLimit groupLimit,
         @Named("smallQueryThreshold") final long smallQueryThreshold, final ApiReporter reporter,
-        final QueryLoggerFactory queryLoggerFactory
+        final QueryLoggerFactory queryLoggerFactory, final ShardHedging hedging,
+        final QueryAdmission admission
     ) {
         this.features = features;
         this.async = async;
@@ -125,11 +139,14 @@ public class CoreQueryManager implements QueryManager {
         this.cluster = cluster;
         this.parser = parser;
         this.queryCache = queryCache;
+        this.segmentCache = segmentCache;
         this.aggregations = aggregations;
         this.groupLimit = groupLimit;
         this.reporter = reporter;
         this.smallQueryThreshold = smallQueryThreshold;
         this.queryLogger = queryLoggerFactory.create("CoreQueryManager");
+        this.hedging = hedging;
+        this.admission = admission;
     }
 
     @Override
@@ -205,8 +222,6 @@ public class CoreQueryManager implements QueryManager {
 
             queryLogger.logQuery(queryContext, q);
 
-            final List<AsyncFuture<QueryResultPart>> futures = new ArrayList<>();
-
             final MetricType source = q.getSource().orElse(MetricType.POINT);
 
             final Aggregation aggregation = q.getAggregation().orElse(Empty.INSTANCE);
@@ -242,46 +257,149 @@ public class CoreQueryManager implements QueryManager {
                     shardWatch.end()));
             }
 
-            final AggregationCombiner combiner;
-
-            if (isDistributed) {
-                combiner = DistributedAggregationCombiner.create(root, range);
-            } else {
-                combiner = AggregationCombiner.DEFAULT;
-            }
-
             final FullQuery.Request request =
                 new FullQuery.Request(source, filter, range, aggregationInstance, options,
                     queryContext, features);
 
             queryLogger.logOutgoingRequestToShards(queryContext, request);
 
-            return queryCache.load(request, () -> {
-                for (final ClusterShard shard : shards) {
-                    final QueryTrace.NamedWatch shardLocalWatch =
-                        shardWatch.extendIdentifier(shard.getShard().toString());
-                    final AsyncFuture<QueryResultPart> queryPart = shard
-                        .apply(g -> g.query(request), getStoreTracesTransform(shardLocalWatch))
-                        .catchFailed(FullQuery.shardError(shardLocalWatch, shard))
-                        .directTransform(fullQuery -> {
-                            queryLogger.logIncomingResponseFromShard(queryContext, fullQuery);
-                            return fullQuery;
-                        })
-                        .directTransform(QueryResultPart.fromResultGroup(shard));
-
-                    futures.add(queryPart);
+            final OptionalLimit limit = options.getGroupLimit().orElse(groupLimit);
+
+            final Function<DateRange, AsyncFuture<QueryResult>> loader = r -> {
+                final AggregationCombiner combiner;
+
+                if (isDistributed) {
+                    combiner = DistributedAggregationCombiner.create(root, r);
+                } else {
+                    combiner = AggregationCombiner.DEFAULT;
+                }
+
+                final FullQuery.Request part =
+                    new FullQuery.Request(source, filter, r, aggregationInstance, options,
+                        queryContext, features);
+
+                return queryCache.load(part,
+                    () -> queryShards(part, combiner, limit, shardWatch, queryContext));
+            };
+
+            final Supplier<AsyncFuture<QueryResult>> execute = () -> {
+                if (root.splittable() && aggregationInstance.splittable()) {
+                    final List<Map<String, String>> shardKeys = ImmutableList.copyOf(
+                        shards.stream().map(ClusterShard::getShard).iterator());
+
+                    return segmentCache.load(shardKeys, request, limit, now, loader);
                 }
 
-                final OptionalLimit limit = options.getGroupLimit().orElse(groupLimit);
+                return loader.apply(range);
+            };
+
+            final AsyncFuture<QueryResult> result;
+
+            if (admission.isEnabled()) {
+                result = admission
+                    .admit(queryContext, filter, range, aggregationInstance, this::countSeries)
+                    .lazyTransform(ticket -> {
+                        if (ticket.getRejection().isPresent()) {
+                            return async.resolved(
+                                QueryResult.error(range, ticket.getRejection().get(),
+                                    shardWatch.end()));
+                        }
+
+                        final AsyncFuture<QueryResult> admitted;
+
+                        try {
+                            admitted = execute.get();
+                        } catch (final Exception e) {
+                            ticket.release();
+                            throw e;
+                        }
 
-                return async
-                    .collect(futures, QueryResult.collectParts(QUERY, range, combiner, limit))
-                    .directTransform(result -> {
-                        reportCompletedQuery(result, fullQueryWatch);
-                        return result;
+                        return admitted.onFinished(ticket::release);
+                    });
+            } else {
+                result = execute.get();
+            }
+
+            return result.directTransform(r -> {
+                reportCompletedQuery(r, fullQueryWatch);
+                return r;
+            }).onDone(onDoneQueryReporter);
+        }
+
+        private AsyncFuture<QueryResult> queryShards(
+            final FullQuery.Request request, final AggregationCombiner combiner,
+            final OptionalLimit limit, final QueryTrace.NamedWatch shardWatch,
+            final QueryContext queryContext
+        ) {
+            final List<AsyncFuture<QueryResultPart>> futures = new ArrayList<>();
+
+            /* groups are combined as they are streamed from the shards */
+            final AggregationCombiner.Session session = combiner.newSession();
+
+            for (final ClusterShard shard : shards) {
+                final QueryTrace.NamedWatch shardLocalWatch =
+                    shardWatch.extendIdentifier(shard.getShard().toString());
+
+                /* the request to a node which first streams a chunk owns the shard, once a chunk
+                 * has been combined the shard can't be retried or hedged on another node */
+                final AtomicReference<Object> streaming = new AtomicReference<>();
+                final LongAdder streamedSampleSize = new LongAdder();
+
+                final AsyncFuture<QueryResultPart> queryPart = shard
+                    .apply(g -> {
+                        final Object attempt = new Object();
+
+                        return g.queryStream(request, groups -> {
+                            final List<ShardedResultGroup> sharded = ImmutableList.copyOf(groups
+                                .stream()
+                                .map(ResultGroup.toShardedResultGroup(shard))
+                                .iterator());
+
+                            if (sharded.stream().allMatch(ShardedResultGroup::isEmpty)) {
+                                return;
+                            }
+
+                            if (!streaming.compareAndSet(null, attempt) &&
+                                streaming.get() != attempt) {
+                                return;
+                            }
+
+                            for (final ShardedResultGroup s : sharded) {
+                                streamedSampleSize.add(s.getMetrics().getData().size());
+                            }
+
+                            session.update(sharded);
+                        }).directTransform(result -> {
+                            final Object owner = streaming.get();
+
+                            if (owner != null && owner != attempt) {
+                                throw new IllegalStateException(
+                                    "Another node is streaming the result of this shard");
+                            }
+
+                            return result;
+                        });
+                    }, getStoreTracesTransform(shardLocalWatch), () -> streaming.get() == null,
+                        hedging.endpoint("query"))
+                    .catchFailed(e -> {
+                        /* groups which were streamed before the failure are already combined, so
+                         * the error has to tell that the result of this shard is partial */
+                        final Throwable cause = streaming.get() == null ? e
+                            : new RuntimeException("Shard failed after streaming partial data", e);
+
+                        return FullQuery.shardError(shardLocalWatch, shard).transform(cause);
+                    })
+                    .directTransform(fullQuery -> {
+                        queryLogger.logIncomingResponseFromShard(queryContext, fullQuery);
+                        return fullQuery;
                     })
-                    .onDone(onDoneQueryReporter);
-            });
+                    .directTransform(QueryResultPart.fromStreamedResult(streamedSampleSize::sum));
+
+                futures.add(queryPart);
+            }
+
+            return async.collect(futures,
+                QueryResult.collectParts(QUERY, request.getRange(), session, limit));
         }
 
         private void reportCompletedQuery(
@@ -297,17 +415,19 @@ public class CoreQueryManager implements QueryManager {
 
         @Override
         public AsyncFuture<FindTags> findTags(final FindTags.Request request) {
-            return run(g -> g.findTags(request), FindTags::shardError, FindTags.reduce());
+            return read("findTags", g -> g.findTags(request), FindTags::shardError,
+                FindTags.reduce());
         }
 
         @Override
         public AsyncFuture<FindKeys> findKeys(final FindKeys.Request request) {
-            return run(g -> g.findKeys(request), FindKeys::shardError, FindKeys.reduce());
+            return read("findKeys", g -> g.findKeys(request), FindKeys::shardError,
+                FindKeys.reduce());
         }
 
         @Override
         public AsyncFuture<FindSeries> findSeries(final FindSeries.Request request) {
-            return run(g -> g.findSeries(request), FindSeries::shardError,
+            return read("findSeries", g -> g.findSeries(request), FindSeries::shardError,
                 FindSeries.reduce(request.getLimit()));
         }
 
@@ -319,24 +439,25 @@ public class CoreQueryManager implements QueryManager {
 
         @Override
         public AsyncFuture<CountSeries> countSeries(final CountSeries.Request request) {
-            return run(g -> g.countSeries(request), CountSeries::shardError, CountSeries.reduce());
+            return read("countSeries", g -> g.countSeries(request), CountSeries::shardError,
+                CountSeries.reduce());
         }
 
         @Override
         public AsyncFuture<TagKeyCount> tagKeyCount(final TagKeyCount.Request request) {
-            return run(g -> g.tagKeyCount(request), TagKeyCount::shardError,
+            return read("tagKeyCount", g -> g.tagKeyCount(request), TagKeyCount::shardError,
                 TagKeyCount.reduce(request.getLimit(), request.getExactLimit()));
         }
 
         @Override
         public AsyncFuture<TagSuggest> tagSuggest(final TagSuggest.Request request) {
-            return run(g -> g.tagSuggest(request), TagSuggest::shardError,
+            return read("tagSuggest", g -> g.tagSuggest(request), TagSuggest::shardError,
                 TagSuggest.reduce(request.getLimit()));
         }
 
         @Override
         public AsyncFuture<KeySuggest> keySuggest(final KeySuggest.Request request) {
-            return run(g -> g.keySuggest(request), KeySuggest::shardError,
+            return read("keySuggest", g -> g.keySuggest(request), KeySuggest::shardError,
                 KeySuggest.reduce(request.getLimit()));
         }
 
@@ -344,14 +465,15 @@ public class CoreQueryManager implements QueryManager {
         public AsyncFuture<TagValuesSuggest> tagValuesSuggest(
             final TagValuesSuggest.Request request
         ) {
-            return run(g -> g.tagValuesSuggest(request), TagValuesSuggest::shardError,
+            return read("tagValuesSuggest", g -> g.tagValuesSuggest(request),
+                TagValuesSuggest::shardError,
                 TagValuesSuggest.reduce(request.getLimit(), request.getGroupLimit()));
         }
 
         @Override
         public AsyncFuture<TagValueSuggest> tagValueSuggest(final TagValueSuggest.Request request) {
-            return run(g -> g.tagValueSuggest(request), TagValueSuggest::shardError,
-                TagValueSuggest.reduce(request.getLimit()));
+            return read("tagValueSuggest", g -> g.tagValueSuggest(request),
+                TagValueSuggest::shardError, TagValueSuggest.reduce(request.getLimit()));
         }
 
         @Override
@@ -370,16 +492,38 @@ public class CoreQueryManager implements QueryManager {
             return shards;
         }
 
+        /**
+         * Run a read request on all shards, which is hedged if hedging is enabled.
+         *
+         * @param endpoint Name of the endpoint, which the hedge delay is based on.
+         */
+        private <T> AsyncFuture<T> read(
+            final String endpoint, final Function<ClusterNode.Group, AsyncFuture<T>> function,
+            final Function<ClusterShard, Transform<Throwable, T>> catcher,
+            final Collector<T, T> collector
+        ) {
+            return run(function, catcher, collector, hedging.endpoint(endpoint));
+        }
+
         private <T> AsyncFuture<T> run(
             final Function<ClusterNode.Group, AsyncFuture<T>> function,
             final Function<ClusterShard, Transform<Throwable, T>> catcher,
             final Collector<T, T> collector
+        ) {
+            return run(function, catcher, collector, ShardHedging.disabled());
+        }
+
+        private <T> AsyncFuture<T> run(
+            final Function<ClusterNode.Group, AsyncFuture<T>> function,
+            final Function<ClusterShard, Transform<Throwable, T>> catcher,
+            final Collector<T, T> collector, final ShardHedging hedging
         ) {
             final List<AsyncFuture<T>> futures = new ArrayList<>(shards.size());
 
             for (final ClusterShard shard : shards) {
                 futures.add(shard
-                    .apply(function::apply, CoreQueryManager::retryTraceHandlerNoop)
+                    .apply(function::apply, CoreQueryManager::retryTraceHandlerNoop, () -> true,
+                        hedging)
                     .catchFailed(catcher.apply(shard)));
             }
 
@@ -473,7 +473,13 @@ public class HeroicCore implements HeroicConfiguration {
         final QueryComponent query = DaggerCoreQueryComponent
             .builder()
             .queryModule(new QueryModule(config.getMetric().getGroupLimit(),
-                config.getMetric().getSmallQueryThreshold()))
+                config.getMetric().getSmallQueryThreshold(),
+                config.getMetric().getSegmentCacheSize(),
+                config.getMetric().getSegmentCacheWidth(),
+                config.getMetric().getSegmentCacheExpire(), config.getMetric().getHedgeQuantile(),
+                config.getMetric().getHedgeBudget(), config.getMetric().getAdmissionBudget(),
+                config.getMetric().getAdmissionClientBudget(),
+                config.getMetric().getAdmissionQueueSize()))
             .corePrimaryComponent(primary)
             .clusterComponent(cluster)
             .cacheComponent(cache)
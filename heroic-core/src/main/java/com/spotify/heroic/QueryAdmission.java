@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.spotify.heroic;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.metadata.CountSeries;
+import com.spotify.heroic.metric.AdmissionError;
+import com.spotify.heroic.querylogging.QueryContext;
+import com.spotify.heroic.statistics.ApiReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admission control for queries, applied before a query is sent to any shard.
+ * <p>
+ * The cost of a query is estimated up front as the number of series matching its filter times
+ * the number of minutes in its range, plus the number of metrics its aggregation estimates that it
+ * must retain. Series counts are cached per filter and coarse range bucket for a short while, so
+ * that repeated queries don't have to count their series every time. Counting stops at the number
+ * of series which can't fit the budget of a client, such counts are cached as lower bounds. If the
+ * series can't be counted, the query is charged the whole budget of its client.
+ * <p>
+ * A query is admitted if its cost fits in what is left of both the total budget and the budget of
+ * the client it is accounted to, otherwise it is queued until enough admitted queries have
+ * completed. Queued queries are admitted in order, except that a client which has used up its own
+ * budget doesn't hold up queries from other clients. A query which could never fit the budget of
+ * its client, or which arrives when the queue is full, is rejected.
+ */
+@Slf4j
+public class QueryAdmission {
+    public static final long COST_RESOLUTION = TimeUnit.MILLISECONDS.convert(1, TimeUnit.MINUTES);
+    public static final long SERIES_COUNT_EXPIRE =
+        TimeUnit.MILLISECONDS.convert(1, TimeUnit.MINUTES);
+    public static final long SERIES_COUNT_CACHE_SIZE = 10000;
+    public static final long SERIES_COUNT_BUCKET = TimeUnit.MILLISECONDS.convert(1, TimeUnit.HOURS);
+
+    /**
+     * Client that queries are accounted to when they don't come in through HTTP.
+     */
+    public static final String INTERNAL_CLIENT = "internal";
+
+    private static final QueryAdmission DISABLED = new QueryAdmission(null, null, 0, 0, 0);
+
+    private final AsyncFramework async;
+    private final ApiReporter reporter;
+    private final long budget;
+    private final long clientBudget;
+    private final int queueSize;
+    private final Cache<SeriesCountKey, SeriesCount> seriesCounts;
+
+    private final Object lock = new Object();
+
+    /* guarded by lock */
+    private long running = 0;
+    /* guarded by lock */
+    private final Map<String, Long> runningByClient = new HashMap<>();
+    /* guarded by lock */
+    private final Queue<Pending> queue = new ArrayDeque<>();
+
+    /**
+     * @param async Async framework to use.
+     * @param reporter Reporter to use.
+     * @param budget Total cost of queries that may be running at the same time, {@code 0} disables
+     * admission control.
+     * @param clientBudget Total cost of queries from a single client that may be running at the
+     * same time, {@code 0} uses the total budget.
+     * @param queueSize Maximum number of queries waiting to be admitted.
+     */
+    public QueryAdmission(
+        final AsyncFramework async, final ApiReporter reporter, final long budget,
+        final long clientBudget, final int queueSize
+    ) {
+        this.async = async;
+        this.reporter = reporter;
+        this.budget = budget;
+        this.clientBudget = clientBudget > 0 ? Math.min(clientBudget, budget) : budget;
+        this.queueSize = queueSize;
+        this.seriesCounts = CacheBuilder
+            .newBuilder()
+            .maximumSize(SERIES_COUNT_CACHE_SIZE)
+            .expireAfterWrite(SERIES_COUNT_EXPIRE, TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    public static QueryAdmission disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return budget > 0;
+    }
+
+    /**
+     * Estimate the cost of a query and wait for it to be admitted.
+     *
+     * @param context Context of the query, used to determine which client it is accounted to.
+     * @param filter Filter of the query.
+     * @param range Range of the query.
+     * @param aggregation Aggregation of the query.
+     * @param countSeries Function used to count the series matching the filter.
+     * @return A future resolved to a ticket once the query is either admitted or rejected.
+     */
+    public AsyncFuture<Ticket> admit(
+        final QueryContext context, final Filter filter, final DateRange range,
+        final AggregationInstance aggregation,
+        final Function<CountSeries.Request, AsyncFuture<CountSeries>> countSeries
+    ) {
+        final String client = client(context);
+        final long minutes = Math.max(1L, range.diff() / COST_RESOLUTION);
+        final long retained = Math.max(0L, aggregation.estimate(range));
+
+        return seriesCount(filter, range, minutes, countSeries).lazyTransform(
+            series -> acquire(client,
+                series.map(s -> cost(s, minutes, retained)).orElse(clientBudget)));
+    }
+
+    /**
+     * Total cost of the queries that are currently admitted.
+     */
+    long running() {
+        synchronized (lock) {
+            return running;
+        }
+    }
+
+    /**
+     * Number of queries waiting to be admitted.
+     */
+    int queued() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * Count the series matching the given filter.
+     *
+     * @return A future resolved to the number of series, or empty if they couldn't be counted.
+     */
+    private AsyncFuture<Optional<Long>> seriesCount(
+        final Filter filter, final DateRange range, final long minutes,
+        final Function<CountSeries.Request, AsyncFuture<CountSeries>> countSeries
+    ) {
+        final SeriesCountKey key = new SeriesCountKey(filter, range.start() / SERIES_COUNT_BUCKET,
+            range.end() / SERIES_COUNT_BUCKET);
+
+        /* a query matching more series than this can never fit, so there's no need to count
+         * any further */
+        final long limit = clientBudget / minutes + 1;
+
+        final SeriesCount cached = seriesCounts.getIfPresent(key);
+
+        /* a limited count is only known to be a lower bound, which is enough if it's over the
+         * limit of this query */
+        if (cached != null && (!cached.isLimited() || cached.getCount() >= limit)) {
+            return async.resolved(Optional.of(cached.getCount()));
+        }
+
+        return countSeries
+            .apply(new CountSeries.Request(filter, range, OptionalLimit.of(limit)))
+            .directTransform(result -> {
+                if (result.getErrors().isEmpty()) {
+                    seriesCounts.put(key, new SeriesCount(result.getCount(), result.isLimited()));
+                }
+
+                return Optional.of(result.getCount());
+            })
+            .catchFailed(e -> {
+                log.warn("Failed to count series for admission of query", e);
+                return Optional.empty();
+            });
+    }
+
+    private AsyncFuture<Ticket> acquire(final String client, final long cost) {
+        if (cost > clientBudget) {
+            return reject(client, cost, "Estimated cost of query exceeds budget");
+        }
+
+        final Pending pending = new Pending(client, cost, async.future());
+
+        final boolean queued;
+
+        synchronized (lock) {
+            queued = queue.size() < queueSize && queue.add(pending);
+        }
+
+        if (!queued) {
+            return reject(client, cost, "Too many queries waiting to be admitted");
+        }
+
+        drain();
+
+        if (!pending.future.isDone()) {
+            reporter.reportQueryQueued();
+
+            pending.future.onCancelled(() -> {
+                synchronized (lock) {
+                    queue.remove(pending);
+                }
+
+                drain();
+            });
+        }
+
+        return pending.future;
+    }
+
+    private AsyncFuture<Ticket> reject(final String client, final long cost, final String error) {
+        reporter.reportQueryRejected();
+        final AdmissionError rejection = new AdmissionError(error, client, cost, clientBudget);
+        return async.resolved(new Ticket(client, cost, Optional.of(rejection)));
+    }
+
+    /**
+     * Admit as many queued queries as currently fit.
+     */
+    private void drain() {
+        final List<Pending> admitted = new ArrayList<>();
+
+        synchronized (lock) {
+            final Iterator<Pending> it = queue.iterator();
+
+            while (it.hasNext()) {
+                final Pending p = it.next();
+
+                /* queries are admitted in order as far as the total budget is concerned */
+                if (running + p.cost > budget) {
+                    break;
+                }
+
+                if (runningByClient.getOrDefault(p.client, 0L) + p.cost > clientBudget) {
+                    continue;
+                }
+
+                it.remove();
+                running += p.cost;
+                runningByClient.merge(p.client, p.cost, Long::sum);
+                admitted.add(p);
+            }
+        }
+
+        for (final Pending p : admitted) {
+            final Ticket ticket = new Ticket(p.client, p.cost, Optional.empty());
+
+            /* the query was cancelled while it was being admitted */
+            if (!p.future.resolve(ticket)) {
+                ticket.release();
+            }
+        }
+    }
+
+    static long cost(final long series, final long minutes, final long retained) {
+        try {
+            return Math.addExact(Math.multiplyExact(series, minutes), retained);
+        } catch (final ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    static String client(final QueryContext context) {
+        return context
+            .getHttpContext()
+            .map(http -> http.getClientId().orElseGet(http::getClientAddress))
+            .orElse(INTERNAL_CLIENT);
+    }
+
+    /**
+     * The outcome of admission for a single query.
+     * <p>
+     * An admitted query must release its ticket when it has completed.
+     */
+    @RequiredArgsConstructor
+    public class Ticket {
+        @Getter
+        private final String client;
+        @Getter
+        private final long cost;
+        /**
+         * Present if the query was rejected.
+         */
+        @Getter
+        private final Optional<AdmissionError> rejection;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public void release() {
+            if (rejection.isPresent() || !released.compareAndSet(false, true)) {
+                return;
+            }
+
+            synchronized (lock) {
+                running -= cost;
+                runningByClient.computeIfPresent(client, (c, v) -> v == cost ? null : v - cost);
+            }
+
+            drain();
+        }
+    }
+
+    @Data
+    static class SeriesCountKey {
+        private final Filter filter;
+        private final long startBucket;
+        private final long endBucket;
+    }
+
+    @Data
+    static class SeriesCount {
+        private final long count;
+        /* if counting stopped at the limit, the count is a lower bound */
+        private final boolean limited;
+    }
+
+    @RequiredArgsConstructor
+    private static class Pending {
+        private final String client;
+        private final long cost;
+        private final ResolvableFuture<Ticket> future;
+    }
+}
@@ -21,11 +21,17 @@
 
 package com.spotify.heroic;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spotify.heroic.cache.QuerySegmentCache;
+import com.spotify.heroic.cluster.ShardHedging;
+import com.spotify.heroic.common.Duration;
 import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.scheduler.Scheduler;
 import com.spotify.heroic.statistics.ApiReporter;
 import com.spotify.heroic.statistics.HeroicReporter;
 import dagger.Module;
 import dagger.Provides;
+import eu.toolchain.async.AsyncFramework;
 import javax.inject.Named;
 import lombok.Data;
 
@@ -34,6 +40,14 @@ import lombok.Data;
 public class QueryModule {
     private final OptionalLimit groupLimit;
     private final long smallQueryThreshold;
+    private final long segmentCacheSize;
+    private final long segmentCacheWidth;
+    private final Duration segmentCacheExpire;
+    private final double hedgeQuantile;
+    private final double hedgeBudget;
+    private final long admissionBudget;
+    private final long admissionClientBudget;
+    private final int admissionQueueSize;
 
     @Provides
     @QueryScope
@@ -49,6 +63,36 @@ public class QueryModule {
         return smallQueryThreshold;
     }
 
+    @Provides
+    @QueryScope
+    public QuerySegmentCache segmentCache(
+        AsyncFramework async, @Named("application/json+internal") ObjectMapper mapper
+    ) {
+        return new QuerySegmentCache(async, mapper, segmentCacheSize, segmentCacheWidth,
+            CoreQueryManager.SHIFT_TOLERANCE, segmentCacheExpire.toMilliseconds());
+    }
+
+    @Provides
+    @QueryScope
+    public ShardHedging hedging(Scheduler scheduler, ApiReporter reporter) {
+        if (hedgeBudget <= 0D) {
+            return ShardHedging.disabled();
+        }
+
+        return new ShardHedging(scheduler, reporter, hedgeQuantile, hedgeBudget);
+    }
+
+    @Provides
+    @QueryScope
+    public QueryAdmission admission(AsyncFramework async, ApiReporter reporter) {
+        if (admissionBudget <= 0) {
+            return QueryAdmission.disabled();
+        }
+
+        return new QueryAdmission(async, reporter, admissionBudget, admissionClientBudget,
+            admissionQueueSize);
+    }
+
     @Provides
     @QueryScope
     public ApiReporter apiReporter(HeroicReporter heroicReporter) {
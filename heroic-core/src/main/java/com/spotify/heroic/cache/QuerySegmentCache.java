@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Features;
+import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.metric.CompactSeriesSet;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.RequestError;
+import com.spotify.heroic.metric.ResultLimit;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caches the result groups of closed, cadence-aligned segments of a query.
+ * <p>
+ * The range of a query is divided on multiples of {@code width * cadence}. A segment which is
+ * fully covered by the range and which ended more than {@code tolerance} milliseconds ago will
+ * not receive any more data and its result groups are kept. On subsequent queries only the
+ * segments that are not cached are fetched, in as few contiguous ranges as possible, and the
+ * result is spliced together with the cached segments.
+ * <p>
+ * The segment containing the start of the range is always fetched, since it is responsible for
+ * the bucket at the very start of the range.
+ */
+@Slf4j
+public class QuerySegmentCache {
+    public static final QueryTrace.Identifier SEGMENTS =
+        QueryTrace.identifier(QuerySegmentCache.class, "segments");
+
+    private final AsyncFramework async;
+    private final ObjectMapper mapper;
+    private final long width;
+    private final long tolerance;
+    private final Optional<Cache<Key, List<ShardedResultGroup>>> segments;
+
+    /**
+     * @param async Async framework to use.
+     * @param mapper Mapper used to serialize the aggregation of a request as part of its identity.
+     * @param maxSegments The maximum number of segments to keep, {@code 0} disables the cache.
+     * @param width The width of a segment, in number of cadences.
+     * @param tolerance How long after its end a segment is considered to be closed.
+     * @param expireAfterWrite How long a segment is kept after it was cached, in milliseconds.
+     */
+    public QuerySegmentCache(
+        final AsyncFramework async, final ObjectMapper mapper, final long maxSegments,
+        final long width, final long tolerance, final long expireAfterWrite
+    ) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("width must be positive");
+        }
+
+        this.async = async;
+        this.mapper = mapper;
+        this.width = width;
+        this.tolerance = tolerance;
+
+        if (maxSegments > 0) {
+            final Cache<Key, List<ShardedResultGroup>> segments = CacheBuilder
+                .newBuilder()
+                .maximumSize(maxSegments)
+                .expireAfterWrite(expireAfterWrite, TimeUnit.MILLISECONDS)
+                .build();
+            this.segments = Optional.of(segments);
+        } else {
+            this.segments = Optional.empty();
+        }
+    }
+
+    /**
+     * Load the result of the given request, only using the loader for the parts of the range
+     * that are not cached.
+     *
+     * @param shards The shards that the request is issued against.
+     * @param request The request to load.
+     * @param groupLimit Limit to apply to the number of spliced groups.
+     * @param now The current time.
+     * @param loader Loader to use for a sub-range of the request.
+     * @return A future resolved to the complete result.
+     */
+    public AsyncFuture<QueryResult> load(
+        final List<Map<String, String>> shards, final FullQuery.Request request,
+        final OptionalLimit groupLimit, final long now,
+        final Function<DateRange, AsyncFuture<QueryResult>> loader
+    ) {
+        final DateRange range = request.getRange();
+        final long cadence = request.getAggregation().cadence();
+
+        if (!segments.isPresent() || cadence <= 0 || !range.equals(range.rounded(cadence))) {
+            return loader.apply(range);
+        }
+
+        final Cache<Key, List<ShardedResultGroup>> segments = this.segments.get();
+
+        final String aggregation;
+
+        try {
+            aggregation = mapper.writeValueAsString(request.getAggregation());
+        } catch (final JsonProcessingException e) {
+            log.warn("Failed to serialize aggregation, bypassing segment cache", e);
+            return loader.apply(range);
+        }
+
+        final Prefix prefix =
+            new Prefix(shards, request.getSource(), request.getFilter(), aggregation,
+                request.getOptions(), request.getFeatures());
+
+        final List<Piece> pieces = plan(prefix, range, cadence * width, now - tolerance);
+
+        /* nothing is, or will be, cached */
+        if (pieces.size() == 1 && pieces.get(0).closed.isEmpty()) {
+            return loader.apply(range);
+        }
+
+        final List<AsyncFuture<QueryResult>> fetches = new ArrayList<>();
+
+        for (final Piece piece : pieces) {
+            fetches.add(piece.cached == null ? loader.apply(piece.range) : null);
+        }
+
+        final QueryTrace.NamedWatch w = QueryTrace.watch(SEGMENTS);
+
+        final List<AsyncFuture<QueryResult>> pending = new ArrayList<>(fetches);
+        pending.removeIf(f -> f == null);
+
+        return async.collectAndDiscard(pending).directTransform(ignore -> {
+            final Splicer splicer = new Splicer();
+            final List<QueryTrace> traces = new ArrayList<>();
+            final List<RequestError> errors = new ArrayList<>();
+            ResultLimits limits = ResultLimits.of();
+            long sampleSize = 0;
+
+            for (int i = 0; i < pieces.size(); i++) {
+                final Piece piece = pieces.get(i);
+
+                if (piece.cached != null) {
+                    splicer.add(piece.cached, piece.range.start());
+                    continue;
+                }
+
+                final QueryResult result = fetches.get(i).getNow();
+
+                traces.add(result.getTrace());
+                errors.addAll(result.getErrors());
+                limits = limits.join(result.getLimits());
+                sampleSize += result.getPreAggregationSampleSize();
+
+                /* the bucket at the start of the range is only owned by the first piece */
+                final long start =
+                    piece.range.start() == range.start() ? range.start() - 1 : piece.range.start();
+
+                splicer.add(result.getGroups(), start);
+
+                /* partial results can't be cached, since they'd stick around */
+                if (!result.getErrors().isEmpty() || !result.getLimits().getLimits().isEmpty()) {
+                    continue;
+                }
+
+                for (final Key key : piece.closed) {
+                    segments.put(key, slice(result.getGroups(), key.getStart(), key.getEnd()));
+                }
+            }
+
+            final List<ShardedResultGroup> groups = splicer.build();
+
+            if (groupLimit.isGreaterOrEqual(groups.size())) {
+                limits = limits.add(ResultLimit.GROUP);
+            }
+
+            return new QueryResult(range, groupLimit.limitList(groups), errors, w.end(traces),
+                limits, sampleSize);
+        });
+    }
+
+    /**
+     * Divide the range into pieces, where each piece is either a single cached segment, or a
+     * range that has to be fetched.
+     */
+    private List<Piece> plan(
+        final Prefix prefix, final DateRange range, final long segment, final long closedBefore
+    ) {
+        final Cache<Key, List<ShardedResultGroup>> segments = this.segments.get();
+        final List<Piece> pieces = new ArrayList<>();
+
+        long fetchStart = range.start();
+        final List<Key> closed = new ArrayList<>();
+
+        long start = range.start();
+
+        while (start < range.end()) {
+            final long end = Math.min(range.end(), (start / segment + 1) * segment);
+
+            if (start != range.start() && end - start == segment && end <= closedBefore) {
+                final Key key = prefix.key(start, end);
+                final List<ShardedResultGroup> cached = segments.getIfPresent(key);
+
+                if (cached != null) {
+                    if (fetchStart < start) {
+                        pieces.add(new Piece(DateRange.create(fetchStart, start), null,
+                            ImmutableList.copyOf(closed)));
+                    }
+
+                    pieces.add(
+                        new Piece(DateRange.create(start, end), cached, ImmutableList.of()));
+                    closed.clear();
+                    fetchStart = end;
+                } else {
+                    closed.add(key);
+                }
+            }
+
+            start = end;
+        }
+
+        if (fetchStart < range.end()) {
+            pieces.add(
+                new Piece(DateRange.create(fetchStart, range.end()), null,
+                    ImmutableList.copyOf(closed)));
+        }
+
+        return pieces;
+    }
+
+    /**
+     * Slice out the metrics of all groups which falls within the given range, exclusive start and
+     * inclusive end.
+     */
+    static List<ShardedResultGroup> slice(
+        final List<ShardedResultGroup> groups, final long start, final long end
+    ) {
+        final ImmutableList.Builder<ShardedResultGroup> result = ImmutableList.builder();
+
+        for (final ShardedResultGroup g : groups) {
+            final List<Metric> data = new ArrayList<>();
+
+            for (final Metric m : g.getMetrics().getData()) {
+                if (m.getTimestamp() > start && m.getTimestamp() <= end) {
+                    data.add(m);
+                }
+            }
+
+            result.add(new ShardedResultGroup(g.getShard(), g.getKey(), g.getSeries(),
+                MetricCollection.build(g.getMetrics().getType(), data), g.getCadence()));
+        }
+
+        return result.build();
+    }
+
+    @RequiredArgsConstructor
+    private static class Piece {
+        private final DateRange range;
+        /* cached result groups, or null if the piece has to be fetched */
+        private final List<ShardedResultGroup> cached;
+        /* closed segments which can be cached once the piece has been fetched */
+        private final List<Key> closed;
+    }
+
+    /**
+     * Concatenates the metrics of groups with the same shard and key, in the order that they
+     * were added.
+     */
+    private static class Splicer {
+        private final Map<GroupKey, Builder> groups = new LinkedHashMap<>();
+
+        public void add(final List<ShardedResultGroup> part, final long start) {
+            for (final ShardedResultGroup g : part) {
+                final GroupKey key = new GroupKey(g.getShard(), g.getKey());
+
+                Builder builder = groups.get(key);
+
+                if (builder == null) {
+                    builder = new Builder(g.getShard(), g.getKey(), g.getCadence());
+                    groups.put(key, builder);
+                }
+
+                builder.add(g, start);
+            }
+        }
+
+        public List<ShardedResultGroup> build() {
+            final List<ShardedResultGroup> result = new ArrayList<>(groups.size());
+
+            for (final Builder b : groups.values()) {
+                result.add(b.build());
+            }
+
+            return result;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Builder {
+        private final Map<String, String> shard;
+        private final Map<String, String> key;
+        private final long cadence;
+
+        private final List<Set<Series>> series = new ArrayList<>();
+        private final List<Metric> data = new ArrayList<>();
+        private MetricType type = null;
+
+        public void add(final ShardedResultGroup g, final long start) {
+            series.add(g.getSeries());
+
+            final MetricCollection metrics = g.getMetrics();
+
+            if (metrics.isEmpty()) {
+                return;
+            }
+
+            type = metrics.getType();
+
+            for (final Metric m : metrics.getData()) {
+                if (m.getTimestamp() > start) {
+                    data.add(m);
+                }
+            }
+        }
+
+        public ShardedResultGroup build() {
+            final MetricCollection metrics =
+                type == null ? MetricCollection.empty() : MetricCollection.build(type, data);
+            /* consecutive pieces of the same group share their series */
+            return new ShardedResultGroup(shard, key, CompactSeriesSet.union(series), metrics,
+                cadence);
+        }
+    }
+
+    @Data
+    private static class GroupKey {
+        private final Map<String, String> shard;
+        private final Map<String, String> key;
+    }
+
+    /**
+     * The parts of a request which identify its segments, everything except the range and the
+     * context of the query.
+     * <p>
+     * The aggregation is identified by its JSON serialization, since bucket aggregations of
+     * different kinds with the same size and extent are considered equal, while their serialized
+     * forms include their type.
+     */
+    @Data
+    static class Prefix {
+        private final List<Map<String, String>> shards;
+        private final MetricType source;
+        private final Filter filter;
+        private final String aggregation;
+        private final QueryOptions options;
+        private final Features features;
+
+        public Key key(final long start, final long end) {
+            return new Key(this, start, end);
+        }
+    }
+
+    @Data
+    static class Key {
+        private final Prefix prefix;
+        private final long start;
+        private final long end;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cache.memcached;
+
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import lombok.Data;
+
+import javax.inject.Inject;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An in-memory memcached connection, useful for testing.
+ */
+public class FakeMemcachedConnection implements MemcachedConnection {
+    private final AsyncFramework async;
+
+    private final ConcurrentMap<String, Entry> storage = new ConcurrentHashMap<>();
+
+    @Inject
+    public FakeMemcachedConnection(final AsyncFramework async) {
+        this.async = async;
+    }
+
+    @Override
+    public AsyncFuture<Optional<byte[]>> get(final String key) {
+        final Entry entry = storage.get(key);
+
+        if (entry == null) {
+            return async.resolved(Optional.empty());
+        }
+
+        if (entry.isExpired(System.nanoTime())) {
+            storage.remove(key, entry);
+            return async.resolved(Optional.empty());
+        }
+
+        return async.resolved(Optional.of(entry.getValue()));
+    }
+
+    @Override
+    public AsyncFuture<Void> set(final String key, final byte[] value, final int ttl) {
+        storage.put(key, newEntry(value, ttl));
+        return async.resolved();
+    }
+
+    @Override
+    public AsyncFuture<Boolean> add(final String key, final byte[] value, final int ttl) {
+        final Entry entry = newEntry(value, ttl);
+
+        while (true) {
+            final Entry existing = storage.putIfAbsent(key, entry);
+
+            if (existing == null) {
+                return async.resolved(true);
+            }
+
+            if (!existing.isExpired(System.nanoTime())) {
+                return async.resolved(false);
+            }
+
+            storage.remove(key, existing);
+        }
+    }
+
+    @Override
+    public AsyncFuture<Void> delete(final String key) {
+        storage.remove(key);
+        return async.resolved();
+    }
+
+    @Override
+    public AsyncFuture<Void> close() {
+        return async.resolved();
+    }
+
+    private Entry newEntry(final byte[] value, final int ttl) {
+        return new Entry(value, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttl));
+    }
+
+    @Data
+    private static class Entry {
+        private final byte[] value;
+        private final long expires;
+
+        boolean isExpired(final long now) {
+            return now - expires >= 0;
+        }
+    }
+}
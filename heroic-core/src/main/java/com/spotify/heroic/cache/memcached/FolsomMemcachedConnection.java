@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cache.memcached;
+
+import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.spotify.folsom.ConnectFuture;
+import com.spotify.folsom.MemcacheClient;
+import com.spotify.folsom.MemcacheClientBuilder;
+import com.spotify.folsom.MemcacheStatus;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A memcached connection backed by the folsom client.
+ */
+@ToString(of = {"addresses"})
+public class FolsomMemcachedConnection implements MemcachedConnection {
+    private final AsyncFramework async;
+    private final List<HostAndPort> addresses;
+    private final MemcacheClient<byte[]> client;
+
+    private FolsomMemcachedConnection(
+        final AsyncFramework async, final List<HostAndPort> addresses,
+        final MemcacheClient<byte[]> client
+    ) {
+        this.async = async;
+        this.addresses = addresses;
+        this.client = client;
+    }
+
+    @Override
+    public AsyncFuture<Optional<byte[]>> get(final String key) {
+        return bind(client.get(key)).directTransform(Optional::ofNullable);
+    }
+
+    @Override
+    public AsyncFuture<Void> set(final String key, final byte[] value, final int ttl) {
+        return bind(client.set(key, value, ttl)).directTransform(status -> null);
+    }
+
+    @Override
+    public AsyncFuture<Boolean> add(final String key, final byte[] value, final int ttl) {
+        return bind(client.add(key, value, ttl)).directTransform(
+            status -> status == MemcacheStatus.OK);
+    }
+
+    @Override
+    public AsyncFuture<Void> delete(final String key) {
+        return bind(client.delete(key)).directTransform(status -> null);
+    }
+
+    @Override
+    public AsyncFuture<Void> close() {
+        return async.call(() -> {
+            client.shutdown();
+            return null;
+        });
+    }
+
+    /**
+     * Connect to the given memcached servers.
+     */
+    public static AsyncFuture<MemcachedConnection> connect(
+        final AsyncFramework async, final List<HostAndPort> addresses,
+        final long requestTimeoutMillis
+    ) {
+        final MemcacheClient<byte[]> client = MemcacheClientBuilder
+            .newByteArrayClient()
+            .withAddresses(addresses)
+            .withRequestTimeoutMillis(requestTimeoutMillis)
+            .connectBinary();
+
+        final FolsomMemcachedConnection connection =
+            new FolsomMemcachedConnection(async, addresses, client);
+
+        return connection
+            .bind(ConnectFuture.connectFuture(client))
+            .directTransform(ignore -> connection);
+    }
+
+    private <T> AsyncFuture<T> bind(final ListenableFuture<T> source) {
+        final ResolvableFuture<T> target = async.future();
+
+        Futures.addCallback(source, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(final T result) {
+                target.resolve(result);
+            }
+
+            @Override
+            public void onFailure(final Throwable t) {
+                target.fail(t);
+            }
+        });
+
+        target.onCancelled(() -> {
+            source.cancel(false);
+        });
+
+        return target;
+    }
+}
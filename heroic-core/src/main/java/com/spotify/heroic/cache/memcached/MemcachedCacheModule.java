@@ -21,34 +21,224 @@
 
 package com.spotify.heroic.cache.memcached;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.HostAndPort;
 import com.spotify.heroic.cache.CacheComponent;
 import com.spotify.heroic.cache.CacheModule;
 import com.spotify.heroic.cache.CacheScope;
-import com.spotify.heroic.cache.memory.MemoryQueryCache;
+import com.spotify.heroic.common.Duration;
 import com.spotify.heroic.dagger.PrimaryComponent;
+import com.spotify.heroic.lifecycle.LifeCycle;
+import com.spotify.heroic.lifecycle.LifeCycleManager;
 import dagger.Component;
+import dagger.Lazy;
+import dagger.Module;
+import dagger.Provides;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.Managed;
+import eu.toolchain.async.ManagedSetup;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+import javax.inject.Named;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Data
 public class MemcachedCacheModule implements CacheModule {
+    public static final String DEFAULT_ADDRESS = "localhost:11211";
+    public static final int DEFAULT_PORT = 11211;
+    public static final String DEFAULT_KEY_PREFIX = "heroic:query:";
+    public static final Duration DEFAULT_LOCK_TTL = Duration.of(30, TimeUnit.SECONDS);
+    public static final Duration DEFAULT_MAX_TTL = Duration.of(1, TimeUnit.HOURS);
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.of(1, TimeUnit.SECONDS);
+    public static final int DEFAULT_MAX_ITEM_SIZE = 1024 * 1024;
+
+    private final List<String> addresses;
+    private final String keyPrefix;
+    private final Duration lockTtl;
+    private final Duration maxTtl;
+    private final Duration requestTimeout;
+    private final int maxItemSize;
+    private final boolean fake;
+
     @Override
     public CacheComponent module(PrimaryComponent primary) {
-        return DaggerMemcachedCacheModule_C.builder().primaryComponent(primary).build();
+        return DaggerMemcachedCacheModule_C
+            .builder()
+            .primaryComponent(primary)
+            .m(new M())
+            .build();
     }
 
     @CacheScope
-    @Component(dependencies = PrimaryComponent.class)
+    @Component(modules = M.class, dependencies = PrimaryComponent.class)
     interface C extends CacheComponent {
         @Override
-        MemoryQueryCache queryCache();
+        MemcachedQueryCache queryCache();
+
+        @Override
+        @Named("cache")
+        LifeCycle cacheLife();
+    }
+
+    @Module
+    class M {
+        @Provides
+        @CacheScope
+        Managed<MemcachedConnection> connection(
+            final AsyncFramework async, final Lazy<FakeMemcachedConnection> fakeConnection
+        ) {
+            final List<HostAndPort> hosts = addresses
+                .stream()
+                .map(address -> HostAndPort.fromString(address).withDefaultPort(DEFAULT_PORT))
+                .collect(Collectors.toList());
+
+            return async.managed(new ManagedSetup<MemcachedConnection>() {
+                @Override
+                public AsyncFuture<MemcachedConnection> construct() {
+                    if (fake) {
+                        log.warn("Using fake memcached connection");
+                        return async.resolved(fakeConnection.get());
+                    }
+
+                    log.info("Connecting to memcached: {}", hosts);
+                    return FolsomMemcachedConnection.connect(async, hosts,
+                        requestTimeout.toMilliseconds());
+                }
+
+                @Override
+                public AsyncFuture<Void> destruct(final MemcachedConnection value) {
+                    return value.close();
+                }
+            });
+        }
+
+        @Provides
+        @CacheScope
+        @Named("keyPrefix")
+        String keyPrefix() {
+            return keyPrefix;
+        }
+
+        @Provides
+        @CacheScope
+        @Named("lockTtl")
+        Duration lockTtl() {
+            return lockTtl;
+        }
+
+        @Provides
+        @CacheScope
+        @Named("maxTtl")
+        Duration maxTtl() {
+            return maxTtl;
+        }
+
+        @Provides
+        @CacheScope
+        @Named("maxItemSize")
+        int maxItemSize() {
+            return maxItemSize;
+        }
+
+        @Provides
+        @CacheScope
+        @Named("cache")
+        LifeCycle cacheLife(final LifeCycleManager manager, final MemcachedQueryCache cache) {
+            return manager.build(cache);
+        }
     }
 
     public static Builder builder() {
         return new Builder();
     }
 
+    @NoArgsConstructor(access = AccessLevel.PRIVATE)
     public static class Builder implements CacheModule.Builder {
+        private Optional<List<String>> addresses = Optional.empty();
+        private Optional<String> keyPrefix = Optional.empty();
+        private Optional<Duration> lockTtl = Optional.empty();
+        private Optional<Duration> maxTtl = Optional.empty();
+        private Optional<Duration> requestTimeout = Optional.empty();
+        private Optional<Integer> maxItemSize = Optional.empty();
+        private Optional<Boolean> fake = Optional.empty();
+
+        @JsonCreator
+        public Builder(
+            @JsonProperty("addresses") Optional<List<String>> addresses,
+            @JsonProperty("keyPrefix") Optional<String> keyPrefix,
+            @JsonProperty("lockTtl") Optional<Duration> lockTtl,
+            @JsonProperty("maxTtl") Optional<Duration> maxTtl,
+            @JsonProperty("requestTimeout") Optional<Duration> requestTimeout,
+            @JsonProperty("maxItemSize") Optional<Integer> maxItemSize,
+            @JsonProperty("fake") Optional<Boolean> fake
+        ) {
+            this.addresses = addresses;
+            this.keyPrefix = keyPrefix;
+            this.lockTtl = lockTtl;
+            this.maxTtl = maxTtl;
+            this.requestTimeout = requestTimeout;
+            this.maxItemSize = maxItemSize;
+            this.fake = fake;
+        }
+
+        public Builder addresses(final List<String> addresses) {
+            this.addresses = Optional.of(addresses);
+            return this;
+        }
+
+        public Builder keyPrefix(final String keyPrefix) {
+            this.keyPrefix = Optional.of(keyPrefix);
+            return this;
+        }
+
+        public Builder lockTtl(final Duration lockTtl) {
+            this.lockTtl = Optional.of(lockTtl);
+            return this;
+        }
+
+        public Builder maxTtl(final Duration maxTtl) {
+            this.maxTtl = Optional.of(maxTtl);
+            return this;
+        }
+
+        public Builder requestTimeout(final Duration requestTimeout) {
+            this.requestTimeout = Optional.of(requestTimeout);
+            return this;
+        }
+
+        public Builder maxItemSize(final int maxItemSize) {
+            this.maxItemSize = Optional.of(maxItemSize);
+            return this;
+        }
+
+        public Builder fake(final boolean fake) {
+            this.fake = Optional.of(fake);
+            return this;
+        }
+
         @Override
         public CacheModule build() {
-            return new MemcachedCacheModule();
+            // @formatter:off
+            return new MemcachedCacheModule(
+                addresses.orElseGet(() -> ImmutableList.of(DEFAULT_ADDRESS)),
+                keyPrefix.orElse(DEFAULT_KEY_PREFIX),
+                lockTtl.orElse(DEFAULT_LOCK_TTL),
+                maxTtl.orElse(DEFAULT_MAX_TTL),
+                requestTimeout.orElse(DEFAULT_REQUEST_TIMEOUT),
+                maxItemSize.orElse(DEFAULT_MAX_ITEM_SIZE),
+                fake.orElse(false)
+            );
+            // @formatter:on
         }
     }
 }
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cache.memcached;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.cache.CacheScope;
+import com.spotify.heroic.cache.QueryCache;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Duration;
+import com.spotify.heroic.common.Feature;
+import com.spotify.heroic.lifecycle.LifeCycleRegistry;
+import com.spotify.heroic.lifecycle.LifeCycles;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.Managed;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.RetryPolicy;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A query cache which is shared between API nodes through memcached.
+ * <p>
+ * Results are stored under a hash of the parts of the request which affect the result, and live
+ * for one cadence of the requested aggregation.
+ * <p>
+ * To protect the backends from stampedes, only one API node at a time loads a given result. This
+ * is coordinated through a short-lived lock key; other nodes poll for the result while the lock is
+ * held, and fall back to loading it themselves if it never shows up.
+ */
+@Slf4j
+@CacheScope
+@ToString(of = {"keyPrefix", "lockTtl", "maxTtl", "maxItemSize"})
+public class MemcachedQueryCache implements QueryCache, LifeCycles {
+    public static final QueryTrace.Identifier CACHE_HIT =
+        QueryTrace.identifier(MemcachedQueryCache.class, "hit");
+
+    /* tied to the serialized format, so entries written in an older format are never read */
+    static final int KEY_VERSION = QueryResultSerializer.VERSION;
+    static final String LOCK_SUFFIX = ":lock";
+
+    private static final byte[] LOCK_VALUE = new byte[]{1};
+
+    private final AsyncFramework async;
+    private final Managed<MemcachedConnection> connection;
+    private final ObjectMapper mapper;
+    private final QueryResultSerializer serializer;
+    private final String keyPrefix;
+    private final Duration lockTtl;
+    private final Duration maxTtl;
+    private final int maxItemSize;
+
+    /* loads that are in progress on this node */
+    private final ConcurrentMap<String, AsyncFuture<QueryResult>> pending =
+        new ConcurrentHashMap<>();
+
+    @Inject
+    public MemcachedQueryCache(
+        final AsyncFramework async, final Managed<MemcachedConnection> connection,
+        @Named("application/json+internal") final ObjectMapper mapper,
+        @Named("keyPrefix") final String keyPrefix, @Named("lockTtl") final Duration lockTtl,
+        @Named("maxTtl") final Duration maxTtl, @Named("maxItemSize") final int maxItemSize
+    ) {
+        this.async = async;
+        this.connection = connection;
+        this.mapper = mapper;
+        this.serializer = new QueryResultSerializer(mapper);
+        this.keyPrefix = keyPrefix;
+        this.lockTtl = lockTtl;
+        this.maxTtl = maxTtl;
+        this.maxItemSize = maxItemSize;
+    }
+
+    @Override
+    public void register(final LifeCycleRegistry registry) {
+        registry.start(connection::start);
+        registry.stop(connection::stop);
+    }
+
+    @Override
+    public AsyncFuture<QueryResult> load(
+        final FullQuery.Request request, final Supplier<AsyncFuture<QueryResult>> loader
+    ) {
+        final AggregationInstance aggregation = request.getAggregation();
+        final long cadence = aggregation.cadence();
+
+        /* can't be cached :( */
+        if (cadence <= 0) {
+            return loader.get();
+        }
+
+        /* only cadence-aligned ranges are shared between queries */
+        if (!request.getRange().equals(request.getRange().rounded(cadence))) {
+            return loader.get();
+        }
+
+        final String key;
+
+        try {
+            key = buildKey(request);
+        } catch (final IOException e) {
+            log.warn("Failed to build cache key, bypassing cache", e);
+            return loader.get();
+        }
+
+        final ResolvableFuture<QueryResult> future = async.future();
+        final AsyncFuture<QueryResult> existing = pending.putIfAbsent(key, future);
+
+        /* an identical query is already being loaded on this node */
+        if (existing != null) {
+            return follow(existing);
+        }
+
+        future.onFinished(() -> pending.remove(key, future));
+
+        final QueryTrace.NamedWatch watch = request.getOptions().tracing().watch(CACHE_HIT);
+        final int ttl = ttlSeconds(cadence);
+
+        connection
+            .doto(c -> c.get(key).lazyTransform(cached -> {
+                if (cached.isPresent()) {
+                    return async.resolved(serializer.deserialize(cached.get(), watch.end()));
+                }
+
+                return c
+                    .add(key + LOCK_SUFFIX, LOCK_VALUE, lockTtlSeconds())
+                    .lazyTransform(acquired -> {
+                        if (acquired) {
+                            return loadAndStore(c, key, ttl, loader);
+                        }
+
+                        return awaitOther(c, key, watch).lazyCatchFailed(
+                            e -> loader.get());
+                    });
+            }))
+            .lazyCatchFailed(e -> {
+                log.warn("Failed to access cache, loading directly", e);
+                return loader.get();
+            })
+            .onDone(new FutureDone<QueryResult>() {
+                @Override
+                public void failed(final Throwable cause) throws Exception {
+                    future.fail(cause);
+                }
+
+                @Override
+                public void resolved(final QueryResult result) throws Exception {
+                    future.resolve(result);
+                }
+
+                @Override
+                public void cancelled() throws Exception {
+                    future.cancel();
+                }
+            });
+
+        return follow(future);
+    }
+
+    /**
+     * Give a caller its own view of a shared load.
+     * <p>
+     * Cancelling the returned future only detaches that caller, the shared load keeps running for
+     * everyone else waiting on it.
+     */
+    private AsyncFuture<QueryResult> follow(final AsyncFuture<QueryResult> shared) {
+        final ResolvableFuture<QueryResult> future = async.future();
+
+        shared.onDone(new FutureDone<QueryResult>() {
+            @Override
+            public void failed(final Throwable cause) throws Exception {
+                future.fail(cause);
+            }
+
+            @Override
+            public void resolved(final QueryResult result) throws Exception {
+                future.resolve(result);
+            }
+
+            @Override
+            public void cancelled() throws Exception {
+                future.cancel();
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Load the result from the backends, and store it in the cache if it is complete.
+     * <p>
+     * Results which carry errors or hit a limit are partial, and are never stored.
+     */
+    private AsyncFuture<QueryResult> loadAndStore(
+        final MemcachedConnection c, final String key, final int ttl,
+        final Supplier<AsyncFuture<QueryResult>> loader
+    ) {
+        return loader.get().lazyTransform(result -> {
+            if (!result.getErrors().isEmpty() || !result.getLimits().getLimits().isEmpty()) {
+                return c.delete(key + LOCK_SUFFIX).directTransform(ignore -> result);
+            }
+
+            final byte[] bytes = serializer.serialize(result);
+
+            if (bytes.length > maxItemSize) {
+                log.debug("Not caching result of {} bytes (max {})", bytes.length, maxItemSize);
+                return c.delete(key + LOCK_SUFFIX).directTransform(ignore -> result);
+            }
+
+            return c
+                .set(key, bytes, ttl)
+                .lazyTransform(ignore -> c.delete(key + LOCK_SUFFIX))
+                .directTransform(ignore -> result);
+        });
+    }
+
+    /**
+     * Wait for another node, holding the lock, to store the result.
+     */
+    private AsyncFuture<QueryResult> awaitOther(
+        final MemcachedConnection c, final String key, final QueryTrace.NamedWatch watch
+    ) {
+        final RetryPolicy policy =
+            RetryPolicy.timed(lockTtl.toMilliseconds(), RetryPolicy.exponential(10, 500));
+
+        return async
+            .retryUntilResolved(() -> c.get(key).directTransform(cached -> {
+                if (!cached.isPresent()) {
+                    throw new IllegalStateException("result not available yet");
+                }
+
+                return serializer.deserialize(cached.get(), watch.end());
+            }), policy)
+            .directTransform(retry -> retry.getResult());
+    }
+
+    /**
+     * Build a stable key from all parts of the request which affect the result.
+     */
+    String buildKey(final FullQuery.Request request) throws IOException {
+        final DateRange range = request.getRange();
+        final Hasher hasher = Hashing.sha256().newHasher();
+
+        hasher.putInt(KEY_VERSION);
+        putString(hasher, request.getSource().identifier());
+        putString(hasher, request.getFilter().optimize().toDSL());
+        hasher.putLong(range.getStart());
+        hasher.putLong(range.getEnd());
+        putBytes(hasher, mapper.writeValueAsBytes(request.getAggregation()));
+        putBytes(hasher, mapper.writeValueAsBytes(request.getOptions()));
+
+        final SortedSet<String> features = new TreeSet<>();
+
+        for (final Feature feature : request.getFeatures().getFeatures()) {
+            features.add(feature.id());
+        }
+
+        hasher.putInt(features.size());
+
+        for (final String feature : features) {
+            putString(hasher, feature);
+        }
+
+        return keyPrefix + hasher.hash().toString();
+    }
+
+    private int ttlSeconds(final long cadence) {
+        final long ttl = Math.min(cadence, maxTtl.toMilliseconds());
+        return (int) Math.max(1L, TimeUnit.SECONDS.convert(ttl, TimeUnit.MILLISECONDS));
+    }
+
+    private int lockTtlSeconds() {
+        return (int) Math.max(1L, lockTtl.convert(TimeUnit.SECONDS));
+    }
+
+    private static void putString(final Hasher hasher, final String value) {
+        putBytes(hasher, value.getBytes(Charsets.UTF_8));
+    }
+
+    private static void putBytes(final Hasher hasher, final byte[] bytes) {
+        hasher.putInt(bytes.length);
+        hasher.putBytes(bytes);
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cache.memcached;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.CompactSeriesSet;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultLimit;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import lombok.RequiredArgsConstructor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary serialization of cached query results.
+ * <p>
+ * Point collections, which make up the bulk of most results, are written with delta-encoded
+ * timestamps and raw doubles. Other metric types fall back to their JSON representation. The whole
+ * payload is deflated.
+ * <p>
+ * Errors and query traces are not part of the cached representation, results with errors should
+ * never be cached.
+ */
+@RequiredArgsConstructor
+class QueryResultSerializer {
+    static final int VERSION = 2;
+
+    private static final int SERIES_SET = 0;
+    private static final int COMPACT_SERIES_SET = 1;
+
+    private final ObjectMapper mapper;
+
+    byte[] serialize(final QueryResult result) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try (final DataOutputStream out =
+                 new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            out.writeByte(VERSION);
+            out.writeLong(result.getRange().getStart());
+            out.writeLong(result.getRange().getEnd());
+            out.writeLong(result.getPreAggregationSampleSize());
+
+            out.writeInt(result.getLimits().getLimits().size());
+
+            for (final ResultLimit limit : result.getLimits().getLimits()) {
+                writeString(out, limit.name());
+            }
+
+            out.writeInt(result.getGroups().size());
+
+            for (final ShardedResultGroup group : result.getGroups()) {
+                writeGroup(out, group);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        return bytes.toByteArray();
+    }
+
+    QueryResult deserialize(final byte[] data, final QueryTrace trace) throws IOException {
+        try (final DataInputStream in = new DataInputStream(
+            new InflaterInputStream(new ByteArrayInputStream(data)))) {
+            final int version = in.readUnsignedByte();
+
+            if (version != VERSION) {
+                throw new IOException("Unsupported version: " + version);
+            }
+
+            final DateRange range = new DateRange(in.readLong(), in.readLong());
+            final long preAggregationSampleSize = in.readLong();
+
+            final int limitCount = in.readInt();
+            final ImmutableSet.Builder<ResultLimit> limits = ImmutableSet.builder();
+
+            for (int i = 0; i < limitCount; i++) {
+                limits.add(ResultLimit.valueOf(readString(in)));
+            }
+
+            final int groupCount = in.readInt();
+            final List<ShardedResultGroup> groups = new ArrayList<>(groupCount);
+
+            for (int i = 0; i < groupCount; i++) {
+                groups.add(readGroup(in));
+            }
+
+            return new QueryResult(range, groups, ImmutableList.of(), trace,
+                new ResultLimits(limits.build()), preAggregationSampleSize);
+        }
+    }
+
+    private void writeGroup(final DataOutput out, final ShardedResultGroup group)
+        throws IOException {
+        writeMap(out, group.getShard());
+        writeMap(out, group.getKey());
+        writeResultSeries(out, group.getSeries());
+        out.writeLong(group.getCadence());
+        writeMetrics(out, group.getMetrics());
+    }
+
+    private ShardedResultGroup readGroup(final DataInput in) throws IOException {
+        final Map<String, String> shard = readMap(in);
+        final Map<String, String> key = readMap(in);
+        final Set<Series> series = readResultSeries(in);
+        final long cadence = in.readLong();
+        final MetricCollection metrics = readMetrics(in);
+        return new ShardedResultGroup(shard, key, series, metrics, cadence);
+    }
+
+    private static void writeResultSeries(final DataOutput out, final Set<Series> series)
+        throws IOException {
+        if (!(series instanceof CompactSeriesSet)) {
+            out.writeByte(SERIES_SET);
+            writeSeriesSet(out, series);
+            return;
+        }
+
+        final CompactSeriesSet compact = (CompactSeriesSet) series;
+
+        out.writeByte(COMPACT_SERIES_SET);
+        out.writeLong(compact.getCount());
+        writeValues(out, compact.getKeys());
+        out.writeInt(compact.getTags().size());
+
+        for (final Map.Entry<String, CompactSeriesSet.Values> e : compact.getTags().entrySet()) {
+            writeString(out, e.getKey());
+            writeValues(out, e.getValue());
+        }
+
+        writeSeriesSet(out, compact.getSample());
+    }
+
+    private static Set<Series> readResultSeries(final DataInput in) throws IOException {
+        final int encoding = in.readUnsignedByte();
+
+        switch (encoding) {
+            case SERIES_SET:
+                return readSeriesSet(in);
+            case COMPACT_SERIES_SET:
+                break;
+            default:
+                throw new IOException("Unsupported series encoding: " + encoding);
+        }
+
+        final long count = in.readLong();
+        final CompactSeriesSet.Values keys = readValues(in);
+
+        final int size = in.readInt();
+        final SortedMap<String, CompactSeriesSet.Values> tags = new TreeMap<>();
+
+        for (int i = 0; i < size; i++) {
+            tags.put(readString(in), readValues(in));
+        }
+
+        return new CompactSeriesSet(count, keys, tags, readSeriesSet(in));
+    }
+
+    private static void writeSeriesSet(final DataOutput out, final Set<Series> series)
+        throws IOException {
+        out.writeInt(series.size());
+
+        for (final Series s : series) {
+            writeNullableString(out, s.getKey());
+            writeMap(out, s.getTags());
+        }
+    }
+
+    private static Set<Series> readSeriesSet(final DataInput in) throws IOException {
+        final int size = in.readInt();
+        final ImmutableSet.Builder<Series> series = ImmutableSet.builder();
+
+        for (int i = 0; i < size; i++) {
+            final String key = readNullableString(in);
+            series.add(Series.of(key, readMap(in)));
+        }
+
+        return series.build();
+    }
+
+    private static void writeValues(final DataOutput out, final CompactSeriesSet.Values values)
+        throws IOException {
+        out.writeLong(values.getCount());
+        out.writeInt(values.getValues().size());
+
+        for (final String value : values.getValues()) {
+            writeNullableString(out, value);
+        }
+    }
+
+    private static CompactSeriesSet.Values readValues(final DataInput in) throws IOException {
+        final long count = in.readLong();
+        final int size = in.readInt();
+        final List<String> values = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            values.add(readNullableString(in));
+        }
+
+        return CompactSeriesSet.Values.create(values, count);
+    }
+
+    private void writeMetrics(final DataOutput out, final MetricCollection metrics)
+        throws IOException {
+        writeString(out, metrics.getType().identifier());
+
+        if (metrics.getType() != MetricType.POINT) {
+            final byte[] json = mapper.writeValueAsBytes(metrics);
+            out.writeInt(json.length);
+            out.write(json);
+            return;
+        }
+
+        final List<Point> points = metrics.getDataAs(Point.class);
+        out.writeInt(points.size());
+
+        long previous = 0L;
+
+        for (final Point p : points) {
+            writeVarLong(out, p.getTimestamp() - previous);
+            out.writeDouble(p.getValue());
+            previous = p.getTimestamp();
+        }
+    }
+
+    private MetricCollection readMetrics(final DataInput in) throws IOException {
+        final String identifier = readString(in);
+
+        final MetricType type = MetricType
+            .fromIdentifier(identifier)
+            .orElseThrow(() -> new IOException("Unknown metric type: " + identifier));
+
+        if (type != MetricType.POINT) {
+            final byte[] json = new byte[in.readInt()];
+            in.readFully(json);
+            return mapper.readValue(json, MetricCollection.class);
+        }
+
+        final int size = in.readInt();
+        final List<Point> points = new ArrayList<>(size);
+
+        long timestamp = 0L;
+
+        for (int i = 0; i < size; i++) {
+            timestamp += readVarLong(in);
+            points.add(new Point(timestamp, in.readDouble()));
+        }
+
+        return MetricCollection.points(points);
+    }
+
+    private static void writeMap(final DataOutput out, final Map<String, String> map)
+        throws IOException {
+        out.writeInt(map.size());
+
+        for (final Map.Entry<String, String> e : map.entrySet()) {
+            writeString(out, e.getKey());
+            writeNullableString(out, e.getValue());
+        }
+    }
+
+    private static Map<String, String> readMap(final DataInput in) throws IOException {
+        final int size = in.readInt();
+        final Map<String, String> map = new LinkedHashMap<>(size);
+
+        for (int i = 0; i < size; i++) {
+            final String key = readString(in);
+            map.put(key, readNullableString(in));
+        }
+
+        return map;
+    }
+
+    private static void writeNullableString(final DataOutput out, final String value)
+        throws IOException {
+        out.writeBoolean(value != null);
+
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readNullableString(final DataInput in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    private static void writeString(final DataOutput out, final String value)
+        throws IOException {
+        final byte[] bytes = value.getBytes(Charsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInput in) throws IOException {
+        final byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return new String(bytes, Charsets.UTF_8);
+    }
+
+    /**
+     * Write a zig-zag encoded variable-length long.
+     */
+    static void writeVarLong(final DataOutput out, final long value) throws IOException {
+        long v = (value << 1) ^ (value >> 63);
+
+        while ((v & ~0x7fL) != 0) {
+            out.writeByte((int) ((v & 0x7f) | 0x80));
+            v >>>= 7;
+        }
+
+        out.writeByte((int) v);
+    }
+
+    static long readVarLong(final DataInput in) throws IOException {
+        long v = 0L;
+        int shift = 0;
+
+        while (true) {
+            final int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0) {
+                break;
+            }
+
+            shift += 7;
+        }
+
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
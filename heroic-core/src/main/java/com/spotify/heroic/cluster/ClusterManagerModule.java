@@ -132,6 +132,12 @@ public class ClusterManagerModule {
         return protocolComponents.build();
     }
 
+    @Provides
+    @ClusterScope
+    public ReplicaSelector replicaSelector() {
+        return new ReplicaSelector();
+    }
+
     @Provides
     @ClusterScope
     public Map<String, RpcProtocol> protocols(
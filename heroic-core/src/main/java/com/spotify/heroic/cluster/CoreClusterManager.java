@@ -81,6 +81,7 @@ public class CoreClusterManager implements ClusterManager, LifeCycles {
     private final HeroicConfiguration options;
     private final LocalClusterNode local;
     private final HeroicContext context;
+    private final ReplicaSelector selector;
 
     final AtomicReference<Set<URI>> staticNodes = new AtomicReference<>(new HashSet<>());
     final AtomicReference<NodeRegistry> registry = new AtomicReference<>();
@@ -93,7 +94,7 @@ public class CoreClusterManager implements ClusterManager, LifeCycles {
         AsyncFramework async, ClusterDiscovery discovery, NodeMetadata localMetadata,
         Map<String, RpcProtocol> protocols, Scheduler scheduler,
         @Named("useLocal") Boolean useLocal, HeroicConfiguration options, LocalClusterNode local,
-        HeroicContext context
+        HeroicContext context, ReplicaSelector selector
     ) {
         this.async = async;
         this.discovery = discovery;
@@ -104,6 +105,7 @@ public class CoreClusterManager implements ClusterManager, LifeCycles {
         this.options = options;
         this.local = local;
         this.context = context;
+        this.selector = selector;
     }
 
     @Override
@@ -217,13 +219,21 @@ public class CoreClusterManager implements ClusterManager, LifeCycles {
         return new ClusterManager.Statistics(registry.getOnlineNodes(), registry.getOfflineNodes());
     }
 
+    @Override
+    public ClusterNodeScore getScore(final ClusterNode node) {
+        return selector.snapshot(node);
+    }
+
     @Override
     public List<ClusterShard> useOptionalGroup(final Optional<String> group) {
         final ImmutableList.Builder<ClusterShard> shards = ImmutableList.builder();
 
         for (final Pair<Map<String, String>, List<ClusterNode>> e : findFromAllShards()) {
-            shards.add(new ClusterShard(async, e.getKey(), ImmutableList.copyOf(
-                e.getValue().stream().map(c -> c.useOptionalGroup(group)).iterator())));
+            shards.add(new ClusterShard(async, e.getKey(), ImmutableList.copyOf(e
+                .getValue()
+                .stream()
+                .map(c -> selector.track(c, c.useOptionalGroup(group)))
+                .iterator())));
         }
 
         return shards.build();
@@ -468,7 +478,8 @@ public class CoreClusterManager implements ClusterManager, LifeCycles {
         return v -> {
             if (this.clients.compareAndSet(oldClients, newClients)) {
                 registry.getAndSet(
-                    new NodeRegistry(async, new ArrayList<>(entries), entries.size()));
+                    new NodeRegistry(async, new ArrayList<>(entries), entries.size(), selector));
+                selector.retain(entries);
                 return async.resolved();
             }
 
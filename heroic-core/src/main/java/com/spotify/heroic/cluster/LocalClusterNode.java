@@ -32,6 +32,7 @@ import com.spotify.heroic.metadata.WriteMetadata;
 import com.spotify.heroic.metric.FullQuery;
 import com.spotify.heroic.metric.MetricBackendGroup;
 import com.spotify.heroic.metric.MetricManager;
+import com.spotify.heroic.metric.ResultGroup;
 import com.spotify.heroic.metric.WriteMetric;
 import com.spotify.heroic.suggest.KeySuggest;
 import com.spotify.heroic.suggest.SuggestBackend;
@@ -46,7 +47,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 
 import javax.inject.Inject;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @ClusterScope
 @ToString(exclude = {"async", "metrics", "metadata", "suggest"})
@@ -103,6 +106,13 @@ public class LocalClusterNode implements ClusterNode {
             return metrics().query(request);
         }
 
+        @Override
+        public AsyncFuture<FullQuery> queryStream(
+            final FullQuery.Request request, final Consumer<List<ResultGroup>> consumer
+        ) {
+            return metrics().queryStream(request, consumer);
+        }
+
         @Override
         public AsyncFuture<FindTags> findTags(final FindTags.Request request) {
             return metadata().findTags(request);
@@ -28,11 +28,9 @@ import com.google.common.collect.Multimap;
 import com.spotify.heroic.common.OptionalLimit;
 import eu.toolchain.async.AsyncFramework;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.Data;
@@ -40,11 +38,10 @@ import org.apache.commons.lang3.tuple.Pair;
 
 @Data
 public class NodeRegistry {
-    private static final Random random = new Random();
-
     private final AsyncFramework async;
     private final List<ClusterNode> entries;
     private final int totalNodes;
+    private final ReplicaSelector selector;
 
     private Multimap<Map<String, String>, ClusterNode> buildShards(
         List<ClusterNode> entries
@@ -94,26 +91,7 @@ public class NodeRegistry {
     }
 
     private ClusterNode pickOne(Collection<ClusterNode> options) {
-        if (options.isEmpty()) {
-            return null;
-        }
-
-        final int selection = random.nextInt(options.size());
-
-        if (options instanceof List) {
-            final List<ClusterNode> list = (List<ClusterNode>) options;
-            return list.get(selection);
-        }
-
-        int i = 0;
-
-        for (final ClusterNode e : options) {
-            if (i++ == selection) {
-                return e;
-            }
-        }
-
-        return null;
+        return selector.pickOne(options).orElse(null);
     }
 
     private List<ClusterNode> pickN(final Collection<ClusterNode> options, OptionalLimit n) {
@@ -124,8 +102,6 @@ public class NodeRegistry {
         final List<ClusterNode> entries =
             options.stream().filter(ClusterNode::isAlive).collect(Collectors.toList());
 
-        Collections.shuffle(entries, random);
-
-        return n.limitList(entries);
+        return n.limitList(selector.order(entries));
     }
 }
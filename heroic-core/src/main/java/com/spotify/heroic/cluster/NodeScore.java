@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cluster;
+
+import com.spotify.heroic.metadata.CountSeries;
+import com.spotify.heroic.metadata.DeleteSeries;
+import com.spotify.heroic.metadata.FindKeys;
+import com.spotify.heroic.metadata.FindSeries;
+import com.spotify.heroic.metadata.FindTags;
+import com.spotify.heroic.metadata.WriteMetadata;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.ResultGroup;
+import com.spotify.heroic.metric.WriteMetric;
+import com.spotify.heroic.metrics.Clock;
+import com.spotify.heroic.metrics.Meter;
+import com.spotify.heroic.suggest.KeySuggest;
+import com.spotify.heroic.suggest.TagKeyCount;
+import com.spotify.heroic.suggest.TagSuggest;
+import com.spotify.heroic.suggest.TagValueSuggest;
+import com.spotify.heroic.suggest.TagValuesSuggest;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps track of how a single node performs for read requests.
+ * <p>
+ * Latencies and error rates are one-minute moving averages. Writes are not tracked, since they are
+ * sent to every node regardless and their latency says little about how fast a node can read.
+ */
+class NodeScore {
+    /* lowest success rate that a node is scored with, to keep the score finite */
+    private static final double MIN_SUCCESS_RATE = 0.01D;
+
+    private final Clock clock;
+    private final Meter requests;
+    private final Meter errors;
+    /* marked with the latency of every request in microseconds */
+    private final Meter latency;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    NodeScore(final Clock clock) {
+        this.clock = clock;
+        this.requests = new Meter(clock);
+        this.errors = new Meter(clock);
+        this.latency = new Meter(clock);
+    }
+
+    /**
+     * Decorate the given group so that its read requests are tracked by this score.
+     */
+    ClusterNode.Group track(final ClusterNode.Group group) {
+        return new Group(group);
+    }
+
+    /**
+     * Expected cost of sending another request to the node, lower is better.
+     * <p>
+     * This is the mean latency, scaled by the number of requests already in flight to the node and
+     * by its error rate. A node without recent requests is scored on its in-flight requests alone.
+     */
+    double score() {
+        final double requestRate = requests.getOneMinuteRate();
+        return score(requestRate, outstanding.get());
+    }
+
+    ClusterNodeScore snapshot() {
+        final double requestRate = requests.getOneMinuteRate();
+        final int outstanding = this.outstanding.get();
+
+        return new ClusterNodeScore(meanLatency(requestRate) / 1000D, outstanding,
+            errorRate(requestRate), requestRate, score(requestRate, outstanding));
+    }
+
+    <T> AsyncFuture<T> request(final Supplier<AsyncFuture<T>> request) {
+        final long start = clock.getTick();
+        outstanding.incrementAndGet();
+
+        final AsyncFuture<T> future;
+
+        try {
+            future = request.get();
+        } catch (final RuntimeException e) {
+            complete(start, true);
+            throw e;
+        }
+
+        future.onDone(new FutureDone<T>() {
+            @Override
+            public void failed(final Throwable cause) {
+                complete(start, true);
+            }
+
+            @Override
+            public void resolved(final T result) {
+                complete(start, false);
+            }
+
+            /* usually a hedge that lost, its time so far is a lower bound of its latency */
+            @Override
+            public void cancelled() {
+                complete(start, false);
+            }
+        });
+
+        return future;
+    }
+
+    private void complete(final long start, final boolean failed) {
+        outstanding.decrementAndGet();
+        requests.mark();
+        latency.mark(TimeUnit.NANOSECONDS.toMicros(clock.getTick() - start));
+
+        if (failed) {
+            errors.mark();
+        }
+    }
+
+    private double score(final double requestRate, final int outstanding) {
+        return (meanLatency(requestRate) + 1D) * (outstanding + 1) /
+            Math.max(MIN_SUCCESS_RATE, 1D - errorRate(requestRate));
+    }
+
+    /**
+     * Mean latency in microseconds.
+     */
+    private double meanLatency(final double requestRate) {
+        if (requestRate <= 0D) {
+            return 0D;
+        }
+
+        return latency.getOneMinuteRate() / requestRate;
+    }
+
+    private double errorRate(final double requestRate) {
+        if (requestRate <= 0D) {
+            return 0D;
+        }
+
+        return Math.min(1D, errors.getOneMinuteRate() / requestRate);
+    }
+
+    @RequiredArgsConstructor
+    class Group implements ClusterNode.Group {
+        private final ClusterNode.Group delegateGroup;
+
+        @Override
+        public ClusterNode node() {
+            return delegateGroup.node();
+        }
+
+        @Override
+        public AsyncFuture<FullQuery> query(FullQuery.Request request) {
+            return request(() -> delegateGroup.query(request));
+        }
+
+        @Override
+        public AsyncFuture<FullQuery> queryStream(
+            FullQuery.Request request, Consumer<List<ResultGroup>> consumer
+        ) {
+            return request(() -> delegateGroup.queryStream(request, consumer));
+        }
+
+        @Override
+        public AsyncFuture<FindTags> findTags(FindTags.Request request) {
+            return request(() -> delegateGroup.findTags(request));
+        }
+
+        @Override
+        public AsyncFuture<FindKeys> findKeys(FindKeys.Request request) {
+            return request(() -> delegateGroup.findKeys(request));
+        }
+
+        @Override
+        public AsyncFuture<FindSeries> findSeries(FindSeries.Request request) {
+            return request(() -> delegateGroup.findSeries(request));
+        }
+
+        @Override
+        public AsyncFuture<DeleteSeries> deleteSeries(DeleteSeries.Request request) {
+            return delegateGroup.deleteSeries(request);
+        }
+
+        @Override
+        public AsyncFuture<CountSeries> countSeries(CountSeries.Request request) {
+            return request(() -> delegateGroup.countSeries(request));
+        }
+
+        @Override
+        public AsyncFuture<TagKeyCount> tagKeyCount(TagKeyCount.Request request) {
+            return request(() -> delegateGroup.tagKeyCount(request));
+        }
+
+        @Override
+        public AsyncFuture<TagSuggest> tagSuggest(TagSuggest.Request request) {
+            return request(() -> delegateGroup.tagSuggest(request));
+        }
+
+        @Override
+        public AsyncFuture<KeySuggest> keySuggest(KeySuggest.Request request) {
+            return request(() -> delegateGroup.keySuggest(request));
+        }
+
+        @Override
+        public AsyncFuture<TagValuesSuggest> tagValuesSuggest(TagValuesSuggest.Request request) {
+            return request(() -> delegateGroup.tagValuesSuggest(request));
+        }
+
+        @Override
+        public AsyncFuture<TagValueSuggest> tagValueSuggest(TagValueSuggest.Request request) {
+            return request(() -> delegateGroup.tagValueSuggest(request));
+        }
+
+        @Override
+        public AsyncFuture<WriteMetadata> writeSeries(final WriteMetadata.Request request) {
+            return delegateGroup.writeSeries(request);
+        }
+
+        @Override
+        public AsyncFuture<WriteMetric> writeMetric(final WriteMetric.Request request) {
+            return delegateGroup.writeMetric(request);
+        }
+
+        public String toString() {
+            return delegateGroup.toString();
+        }
+    }
+}
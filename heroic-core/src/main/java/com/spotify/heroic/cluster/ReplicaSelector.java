@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cluster;
+
+import com.spotify.heroic.metrics.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Selects which replicas of a shard to send requests to, based on how they have been performing.
+ * <p>
+ * Every pick is a power-of-two-choices between two random replicas, where the one with the lowest
+ * {@link NodeScore#score()} wins. This avoids replicas that are slow, overloaded or failing, while
+ * not sending every request to the single best replica. A small fraction of picks are made at
+ * random, so that replicas which are avoided get a chance to show that they have recovered.
+ */
+public class ReplicaSelector {
+    static final double EXPLORE_PROBABILITY = 0.05D;
+
+    private final Clock clock;
+    private final Random random;
+
+    private final ConcurrentMap<ClusterNode, NodeScore> scores = new ConcurrentHashMap<>();
+
+    public ReplicaSelector() {
+        this(Clock.systemClock(), new Random());
+    }
+
+    ReplicaSelector(final Clock clock, final Random random) {
+        this.clock = clock;
+        this.random = random;
+    }
+
+    /**
+     * Decorate a group of the given node, so that requests through it are scored.
+     */
+    public ClusterNode.Group track(final ClusterNode node, final ClusterNode.Group group) {
+        return score(node).track(group);
+    }
+
+    /**
+     * Pick the replica to send a request to.
+     */
+    public Optional<ClusterNode> pickOne(final Collection<ClusterNode> replicas) {
+        if (replicas.isEmpty()) {
+            return Optional.empty();
+        }
+
+        final List<ClusterNode> options = new ArrayList<>(replicas);
+        return Optional.of(options.get(pick(options)));
+    }
+
+    /**
+     * Order replicas in the order that they should be tried.
+     */
+    public List<ClusterNode> order(final Collection<ClusterNode> replicas) {
+        final List<ClusterNode> remaining = new ArrayList<>(replicas);
+        final List<ClusterNode> ordered = new ArrayList<>(remaining.size());
+
+        while (!remaining.isEmpty()) {
+            ordered.add(remaining.remove(pick(remaining)));
+        }
+
+        return ordered;
+    }
+
+    public ClusterNodeScore snapshot(final ClusterNode node) {
+        return score(node).snapshot();
+    }
+
+    /**
+     * Forget the scores of all nodes that are not among the given nodes.
+     */
+    public void retain(final Collection<ClusterNode> nodes) {
+        scores.keySet().retainAll(nodes);
+    }
+
+    private int pick(final List<ClusterNode> options) {
+        final int size = options.size();
+
+        if (size == 1) {
+            return 0;
+        }
+
+        final int a = random.nextInt(size);
+
+        if (random.nextDouble() < EXPLORE_PROBABILITY) {
+            return a;
+        }
+
+        /* pick a second, distinct option */
+        final int b = (a + 1 + random.nextInt(size - 1)) % size;
+
+        if (score(options.get(b)).score() < score(options.get(a)).score()) {
+            return b;
+        }
+
+        return a;
+    }
+
+    private NodeScore score(final ClusterNode node) {
+        return scores.computeIfAbsent(node, n -> new NodeScore(clock));
+    }
+}
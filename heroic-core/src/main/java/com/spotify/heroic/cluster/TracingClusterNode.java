@@ -29,6 +29,7 @@ import com.spotify.heroic.metadata.FindTags;
 import com.spotify.heroic.metadata.WriteMetadata;
 import com.spotify.heroic.metric.FullQuery;
 import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultGroup;
 import com.spotify.heroic.metric.WriteMetric;
 import com.spotify.heroic.suggest.KeySuggest;
 import com.spotify.heroic.suggest.TagKeyCount;
@@ -36,7 +37,9 @@ import com.spotify.heroic.suggest.TagSuggest;
 import com.spotify.heroic.suggest.TagValueSuggest;
 import com.spotify.heroic.suggest.TagValuesSuggest;
 import eu.toolchain.async.AsyncFuture;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import lombok.RequiredArgsConstructor;
 
 public class TracingClusterNode implements ClusterNode {
@@ -82,6 +85,15 @@ public class TracingClusterNode implements ClusterNode {
             return delegateGroup.query(request).directTransform(FullQuery.trace(queryIdentifier));
         }
 
+        @Override
+        public AsyncFuture<FullQuery> queryStream(
+            FullQuery.Request request, Consumer<List<ResultGroup>> consumer
+        ) {
+            return delegateGroup
+                .queryStream(request, consumer)
+                .directTransform(FullQuery.trace(queryIdentifier));
+        }
+
         @Override
         public AsyncFuture<FindTags> findTags(FindTags.Request request) {
             return delegateGroup.findTags(request);
@@ -29,7 +29,6 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -47,7 +46,8 @@ import com.spotify.heroic.time.Clock;
 import dagger.Component;
 import eu.toolchain.async.AsyncFuture;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.inject.Inject;
@@ -56,12 +56,6 @@ import lombok.ToString;
 
 @ToString
 public class Spotify100 implements ConsumerSchema {
-    private static final String HOST = "host";
-    private static final String KEY = "key";
-    private static final String TIME = "time";
-
-    private static final ObjectMapper mapper = new ObjectMapper();
-
     public static final String SCHEMA_VERSION = "1.0.0";
 
     @Data
@@ -125,6 +119,7 @@ public class Spotify100 implements ConsumerSchema {
         private final Clock clock;
         private final IngestionGroup ingestion;
         private final ConsumerReporter reporter;
+        private final Spotify100Decoder decoder = new Spotify100Decoder();
 
         @Inject
         public Consumer(Clock clock, IngestionGroup ingestion, ConsumerReporter reporter) {
@@ -135,49 +130,58 @@ public class Spotify100 implements ConsumerSchema {
 
         @Override
         public AsyncFuture<Void> consume(final byte[] message) throws ConsumerSchemaException {
-            final JsonMetric metric;
+            final Spotify100Decoder.Decoded decoded = decoder.decode(message);
 
-            try {
-                metric = mapper.readValue(message, JsonMetric.class);
-            } catch (final Exception e) {
-                throw new ConsumerSchemaValidationException("Received invalid metric", e);
-            }
+            final Point p = decoded.getPoint();
+            final List<Point> points = ImmutableList.of(p);
 
-            if (metric.getValue() == null) {
-                throw new ConsumerSchemaValidationException(
-                    "Metric must have a value but this metric has a null value: " + metric);
-            }
+            reporter.reportMessageDrift(clock.currentTimeMillis() - p.getTimestamp());
+            AsyncFuture<Ingestion> ingestionFuture = ingestion.write(
+                new Ingestion.Request(decoded.getSeries(), MetricCollection.points(points)));
 
-            if (metric.getVersion() == null || !SCHEMA_VERSION.equals(metric.getVersion())) {
-                throw new ConsumerSchemaValidationException(
-                    String.format("Invalid version %s, expected %s", metric.getVersion(),
-                        SCHEMA_VERSION));
-            }
+            // Return Void future, to not leak unnecessary information from the backend but just
+            // allow monitoring of when the consumption is done.
+            return ingestionFuture.directTransform(future -> (Void) null);
+        }
 
-            if (metric.getTime() == null) {
-                throw new ConsumerSchemaValidationException(
-                    "'" + TIME + "' field must be defined: " + message);
-            }
+        /**
+         * Points for the same series are grouped, so that every series in the batch results in a
+         * single write.
+         */
+        @Override
+        public ConsumerSchema.Batch consumeBatch(final List<byte[]> messages)
+            throws ConsumerSchemaException {
+            final Map<Series, List<Point>> groups = new LinkedHashMap<>();
+            final long now = clock.currentTimeMillis();
+            int invalid = 0;
+
+            for (final byte[] message : messages) {
+                final Spotify100Decoder.Decoded decoded;
+
+                try {
+                    decoded = decoder.decode(message);
+                } catch (final ConsumerSchemaValidationException e) {
+                    invalid++;
+                    continue;
+                }
 
-            if (metric.getKey() == null) {
-                throw new ConsumerSchemaValidationException(
-                    "'" + KEY + "' field must be defined: " + message);
+                final Point p = decoded.getPoint();
+                reporter.reportMessageDrift(now - p.getTimestamp());
+
+                groups.computeIfAbsent(decoded.getSeries(), s -> new ArrayList<>()).add(p);
             }
 
-            final Map<String, String> tags = new HashMap<String, String>(metric.getAttributes());
-            tags.put(HOST, metric.getHost());
+            final List<AsyncFuture<Void>> writes = new ArrayList<>(groups.size());
 
-            final Series series = Series.of(metric.getKey(), tags);
-            final Point p = new Point(metric.getTime(), metric.getValue());
-            final List<Point> points = ImmutableList.of(p);
+            for (final Map.Entry<Series, List<Point>> e : groups.entrySet()) {
+                final MetricCollection points = MetricCollection.points(e.getValue());
 
-            reporter.reportMessageDrift(clock.currentTimeMillis() - p.getTimestamp());
-            AsyncFuture<Ingestion> ingestionFuture =
-                ingestion.write(new Ingestion.Request(series, MetricCollection.points(points)));
+                writes.add(ingestion
+                    .write(new Ingestion.Request(e.getKey(), points))
+                    .directTransform(future -> (Void) null));
+            }
 
-            // Return Void future, to not leak unnecessary information from the backend but just
-            // allow monitoring of when the consumption is done.
-            return ingestionFuture.directTransform(future -> (Void) null);
+            return new ConsumerSchema.Batch(writes, invalid);
         }
     }
 
@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.consumer.schemas;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.consumer.ConsumerSchemaValidationException;
+import com.spotify.heroic.metric.Point;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import lombok.Data;
+
+/**
+ * Decodes spotify 1.0.0 messages directly from the JSON token stream.
+ * <p>
+ * Instead of binding every message to a {@link Spotify100.JsonMetric}, the attributes object is
+ * skipped over and the series is looked up in a cache of recently seen series, keyed by the raw
+ * key, host and attributes of the message. Only when the series is not cached are the attributes
+ * parsed, with tag keys and values interned, and a new series built.
+ * <p>
+ * Decoders are thread safe.
+ */
+public class Spotify100Decoder {
+    public static final long DEFAULT_SERIES_CACHE_SIZE = 100000;
+
+    private static final String VERSION = "version";
+    private static final String KEY = "key";
+    private static final String HOST = "host";
+    private static final String TIME = "time";
+    private static final String ATTRIBUTES = "attributes";
+    private static final String VALUE = "value";
+
+    private static final JsonFactory factory = new JsonFactory();
+    private static final Interner<String> interner = Interners.newWeakInterner();
+
+    private final Cache<SeriesKey, Series> series;
+
+    public Spotify100Decoder() {
+        this(DEFAULT_SERIES_CACHE_SIZE);
+    }
+
+    public Spotify100Decoder(final long seriesCacheSize) {
+        this.series = CacheBuilder.newBuilder().maximumSize(seriesCacheSize).build();
+    }
+
+    public Decoded decode(final byte[] message) throws ConsumerSchemaValidationException {
+        String version = null;
+        String key = null;
+        String host = null;
+        Long time = null;
+        Double value = null;
+
+        int attributesStart = -1;
+        int attributesEnd = -1;
+
+        try (final JsonParser p = factory.createParser(message)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new ConsumerSchemaValidationException("Received invalid metric");
+            }
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = p.getCurrentName();
+                final JsonToken token = p.nextToken();
+
+                switch (field) {
+                    case VERSION:
+                        version = text(p, token);
+                        break;
+                    case KEY:
+                        key = text(p, token);
+                        break;
+                    case HOST:
+                        host = text(p, token);
+                        break;
+                    case TIME:
+                        time = longValue(p, token);
+                        break;
+                    case VALUE:
+                        value = doubleValue(p, token);
+                        break;
+                    case ATTRIBUTES:
+                        if (token == JsonToken.VALUE_NULL) {
+                            attributesStart = -1;
+                            break;
+                        }
+
+                        if (token != JsonToken.START_OBJECT) {
+                            throw new ConsumerSchemaValidationException(
+                                "'" + ATTRIBUTES + "' field must be an object");
+                        }
+
+                        attributesStart = (int) p.getTokenLocation().getByteOffset();
+                        p.skipChildren();
+                        attributesEnd = (int) p.getCurrentLocation().getByteOffset();
+                        break;
+                    default:
+                        p.skipChildren();
+                        break;
+                }
+            }
+        } catch (final IOException e) {
+            throw new ConsumerSchemaValidationException("Received invalid metric", e);
+        }
+
+        if (value == null) {
+            throw new ConsumerSchemaValidationException(
+                "Metric must have a value but this metric has a null value");
+        }
+
+        if (version == null || !Spotify100.SCHEMA_VERSION.equals(version)) {
+            throw new ConsumerSchemaValidationException(
+                String.format("Invalid version %s, expected %s", version,
+                    Spotify100.SCHEMA_VERSION));
+        }
+
+        if (time == null) {
+            throw new ConsumerSchemaValidationException("'" + TIME + "' field must be defined");
+        }
+
+        if (key == null) {
+            throw new ConsumerSchemaValidationException("'" + KEY + "' field must be defined");
+        }
+
+        final Series s = series(message, key, host, attributesStart, attributesEnd);
+        return new Decoded(s, new Point(time, value));
+    }
+
+    /**
+     * Number of series currently cached.
+     */
+    public long cachedSeries() {
+        return series.size();
+    }
+
+    private Series series(
+        final byte[] message, final String key, final String host, final int start, final int end
+    ) throws ConsumerSchemaValidationException {
+        final int offset = Math.max(start, 0);
+        final int length = start < 0 ? 0 : end - start;
+
+        final SeriesKey lookup = new SeriesKey(key, host, message, offset, length);
+        final Series cached = series.getIfPresent(lookup);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        final Map<String, String> tags = new HashMap<>();
+
+        if (start >= 0) {
+            parseAttributes(message, start, tags);
+        }
+
+        tags.put(HOST, host == null ? null : interner.intern(host));
+
+        final Series s = Series.of(interner.intern(key), tags);
+        series.put(lookup.compact(), s);
+        return s;
+    }
+
+    /**
+     * Parse the attributes object, skipping attributes which don't have a text value.
+     */
+    private void parseAttributes(
+        final byte[] message, final int start, final Map<String, String> tags
+    ) throws ConsumerSchemaValidationException {
+        try (final JsonParser p = factory.createParser(message, start, message.length - start)) {
+            p.nextToken();
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                final String tag = p.getCurrentName();
+                final JsonToken token = p.nextToken();
+
+                if (token == JsonToken.VALUE_STRING) {
+                    tags.put(interner.intern(tag), interner.intern(p.getText()));
+                    continue;
+                }
+
+                if (token.isStructStart()) {
+                    throw new ConsumerSchemaValidationException(
+                        "Attribute '" + tag + "' must have a text value");
+                }
+            }
+        } catch (final IOException e) {
+            throw new ConsumerSchemaValidationException("Received invalid attributes", e);
+        }
+    }
+
+    private static String text(final JsonParser p, final JsonToken token)
+        throws IOException, ConsumerSchemaValidationException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        if (!token.isScalarValue()) {
+            throw new ConsumerSchemaValidationException(
+                "'" + p.getCurrentName() + "' field must be a text value");
+        }
+
+        return p.getText();
+    }
+
+    private static Long longValue(final JsonParser p, final JsonToken token)
+        throws IOException, ConsumerSchemaValidationException {
+        switch (token) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return p.getLongValue();
+            case VALUE_STRING:
+                try {
+                    return Long.parseLong(p.getText().trim());
+                } catch (final NumberFormatException e) {
+                    throw new ConsumerSchemaValidationException(
+                        "'" + p.getCurrentName() + "' field must be a number", e);
+                }
+            default:
+                throw new ConsumerSchemaValidationException(
+                    "'" + p.getCurrentName() + "' field must be a number");
+        }
+    }
+
+    private static Double doubleValue(final JsonParser p, final JsonToken token)
+        throws IOException, ConsumerSchemaValidationException {
+        switch (token) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return p.getDoubleValue();
+            case VALUE_STRING:
+                try {
+                    return Double.parseDouble(p.getText().trim());
+                } catch (final NumberFormatException e) {
+                    throw new ConsumerSchemaValidationException(
+                        "'" + p.getCurrentName() + "' field must be a number", e);
+                }
+            default:
+                throw new ConsumerSchemaValidationException(
+                    "'" + p.getCurrentName() + "' field must be a number");
+        }
+    }
+
+    @Data
+    public static class Decoded {
+        private final Series series;
+        private final Point point;
+    }
+
+    /**
+     * Identifies a series by the raw attributes of a message.
+     * <p>
+     * Lookups refer to a range of the message to avoid copying it, only keys which are stored in
+     * the cache are compacted into a copy of the range.
+     */
+    static class SeriesKey {
+        private final String key;
+        private final String host;
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+        private final int hashCode;
+
+        SeriesKey(
+            final String key, final String host, final byte[] bytes, final int offset,
+            final int length
+        ) {
+            this.key = key;
+            this.host = host;
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+            this.hashCode = hash();
+        }
+
+        SeriesKey compact() {
+            return new SeriesKey(key, host, Arrays.copyOfRange(bytes, offset, offset + length), 0,
+                length);
+        }
+
+        private int hash() {
+            int result = key.hashCode();
+            result = 31 * result + Objects.hashCode(host);
+
+            for (int i = offset; i < offset + length; i++) {
+                result = 31 * result + bytes[i];
+            }
+
+            return result;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof SeriesKey)) {
+                return false;
+            }
+
+            final SeriesKey o = (SeriesKey) obj;
+
+            if (hashCode != o.hashCode || length != o.length) {
+                return false;
+            }
+
+            if (!key.equals(o.key) || !Objects.equals(host, o.host)) {
+                return false;
+            }
+
+            for (int i = 0; i < length; i++) {
+                if (bytes[offset + i] != o.bytes[o.offset + i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -21,6 +21,7 @@
 
 package com.spotify.heroic.http.cluster;
 
+import com.spotify.heroic.cluster.ClusterNodeScore;
 import lombok.Data;
 
 import java.util.Map;
@@ -32,4 +33,5 @@ public class ClusterNodeStatus {
     private final UUID id;
     private final int version;
     private final Map<String, String> tags;
+    private final ClusterNodeScore score;
 }
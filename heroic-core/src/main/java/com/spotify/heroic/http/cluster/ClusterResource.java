@@ -74,7 +74,8 @@ public class ClusterResource {
     private ClusterNodeStatus convert(ClusterNode node) {
         final NodeMetadata m = node.metadata();
 
-        return new ClusterNodeStatus(node.toString(), m.getId(), m.getVersion(), m.getTags());
+        return new ClusterNodeStatus(node.toString(), m.getId(), m.getVersion(), m.getTags(),
+            cluster.getScore(node));
     }
 
     private static final Resume<Void, DataResponse<Boolean>> OK =
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.ingestion;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.common.Groups;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.scheduler.Scheduler;
+import com.spotify.heroic.statistics.IngestionManagerReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * An ingestion group which coalesces writes into batches before writing them.
+ * <p>
+ * A batch is written when it reaches the batch size, or when the batch delay has passed since its
+ * first write. Writes for the same series within a batch are merged, so that every series in a
+ * batch results in a single metric write, and a single metadata and suggest write. Every caller
+ * receives the result of the writes for its own series.
+ * <p>
+ * Instead of blocking the caller when the backends can't keep up, writes are rejected when too many
+ * points are pending.
+ */
+@RequiredArgsConstructor
+public class BatchingIngestionGroup implements IngestionGroup {
+    private final AsyncFramework async;
+    private final Scheduler scheduler;
+    private final Supplier<Predicate<Series>> filter;
+    private final IngestionManagerReporter reporter;
+    private final LongAdder ingested;
+    private final CoreIngestionGroup delegate;
+
+    private final int batchSize;
+    private final long batchDelay;
+    private final long maxPendingPoints;
+
+    private final Object lock = new Object();
+    /* points which have been accepted, but whose batch has not finished writing */
+    private final AtomicLong pending = new AtomicLong();
+
+    /* guarded by lock */
+    private Batch current = null;
+
+    @Override
+    public Groups groups() {
+        return delegate.groups();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public AsyncFuture<Ingestion> write(final Ingestion.Request request) {
+        ingested.increment();
+
+        if (!filter.get().test(request.getSeries())) {
+            reporter.reportDroppedByFilter();
+            return async.resolved(Ingestion.of(ImmutableList.of()));
+        }
+
+        final int points = request.getData().size();
+
+        if (pending.addAndGet(points) > maxPendingPoints) {
+            pending.addAndGet(-points);
+            reporter.reportRejectedWrite();
+            return async.failed(new RejectedExecutionException(
+                "Too many pending points (" + maxPendingPoints + ")"));
+        }
+
+        reporter.incrementPendingPoints(points);
+
+        final ResolvableFuture<Ingestion> future = async.future();
+
+        final Batch created;
+        final Batch full;
+
+        synchronized (lock) {
+            if (current == null) {
+                current = new Batch();
+                created = current;
+            } else {
+                created = null;
+            }
+
+            current.add(request, future);
+
+            if (current.points >= batchSize) {
+                full = current;
+                current = null;
+            } else {
+                full = null;
+            }
+        }
+
+        if (created != null && full == null) {
+            scheduler.schedule("ingestion-batch", batchDelay, TimeUnit.MILLISECONDS,
+                () -> expire(created));
+        }
+
+        if (full != null) {
+            flush(full);
+        }
+
+        return future;
+    }
+
+    /**
+     * Flush the given batch if it's still the one being filled.
+     */
+    void expire(final Batch batch) {
+        synchronized (lock) {
+            if (current != batch) {
+                return;
+            }
+
+            current = null;
+        }
+
+        flush(batch);
+    }
+
+    private void flush(final Batch batch) {
+        reporter.reportBatchSize(batch.points);
+        reporter.incrementConcurrentWrites();
+
+        final AtomicInteger remaining = new AtomicInteger(batch.series.size());
+
+        for (final Map.Entry<Series, SeriesBatch> e : batch.series.entrySet()) {
+            e.getValue().write(e.getKey()).onDone(e.getValue()).onFinished(() -> {
+                if (remaining.decrementAndGet() == 0) {
+                    pending.addAndGet(-batch.points);
+                    reporter.decrementPendingPoints(batch.points);
+                    reporter.decrementConcurrentWrites();
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes which are written together.
+     */
+    class Batch {
+        private final Map<Series, SeriesBatch> series = new LinkedHashMap<>();
+        private int points = 0;
+
+        void add(final Ingestion.Request request, final ResolvableFuture<Ingestion> future) {
+            series
+                .computeIfAbsent(request.getSeries(), s -> new SeriesBatch())
+                .add(request, future);
+            points += request.getData().size();
+        }
+    }
+
+    /**
+     * Writes for a single series in a batch, every caller receives the result of the writes for
+     * the series.
+     */
+    class SeriesBatch implements FutureDone<Ingestion> {
+        private final Map<MetricType, List<Metric>> data = new EnumMap<>(MetricType.class);
+        private final List<ResolvableFuture<Ingestion>> futures = new ArrayList<>();
+
+        void add(final Ingestion.Request request, final ResolvableFuture<Ingestion> future) {
+            final MetricCollection collection = request.getData();
+
+            data
+                .computeIfAbsent(collection.getType(), t -> new ArrayList<>())
+                .addAll(collection.getData());
+
+            futures.add(future);
+        }
+
+        AsyncFuture<Ingestion> write(final Series s) {
+            final List<AsyncFuture<Ingestion>> writes = new ArrayList<>();
+
+            try {
+                for (final Map.Entry<MetricType, List<Metric>> e : data.entrySet()) {
+                    final MetricCollection collection =
+                        MetricCollection.build(e.getKey(), e.getValue());
+
+                    writes.add(delegate.doWrite(new Ingestion.Request(s, collection)));
+                }
+            } catch (final Exception e) {
+                writes.add(async.failed(e));
+            }
+
+            return async.collect(writes, Ingestion.reduce());
+        }
+
+        @Override
+        public void failed(final Throwable cause) {
+            for (final ResolvableFuture<Ingestion> f : futures) {
+                f.fail(cause);
+            }
+        }
+
+        @Override
+        public void resolved(final Ingestion result) {
+            for (final ResolvableFuture<Ingestion> f : futures) {
+                f.resolve(result);
+            }
+        }
+
+        @Override
+        public void cancelled() {
+            for (final ResolvableFuture<Ingestion> f : futures) {
+                f.cancel();
+            }
+        }
+    }
+}
@@ -26,7 +26,7 @@ import com.spotify.heroic.common.Collected;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Grouped;
 import com.spotify.heroic.common.Groups;
-import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.common.Series;
 import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metadata.WriteMetadata;
 import com.spotify.heroic.metric.Metric;
@@ -43,13 +43,14 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
 
 @RequiredArgsConstructor
 public class CoreIngestionGroup implements IngestionGroup {
     private final AsyncFramework async;
-    private final Supplier<Filter> filter;
+    private final Supplier<Predicate<Series>> filter;
     private final Semaphore writePermits;
     private final IngestionManagerReporter reporter;
     private final LongAdder ingested;
@@ -79,7 +80,7 @@ public class CoreIngestionGroup implements IngestionGroup {
     }
 
     protected AsyncFuture<Ingestion> syncWrite(final Ingestion.Request request) {
-        if (!filter.get().apply(request.getSeries())) {
+        if (!filter.get().test(request.getSeries())) {
             reporter.reportDroppedByFilter();
             return async.resolved(Ingestion.of(ImmutableList.of()));
         }
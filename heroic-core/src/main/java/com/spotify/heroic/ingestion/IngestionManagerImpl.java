@@ -21,12 +21,15 @@
 
 package com.spotify.heroic.ingestion;
 
+import com.spotify.heroic.common.Series;
 import com.spotify.heroic.common.Statistics;
 import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.FilterCompiler;
 import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metadata.MetadataManager;
 import com.spotify.heroic.metric.MetricBackend;
 import com.spotify.heroic.metric.MetricManager;
+import com.spotify.heroic.scheduler.Scheduler;
 import com.spotify.heroic.statistics.IngestionManagerReporter;
 import com.spotify.heroic.suggest.SuggestBackend;
 import com.spotify.heroic.suggest.SuggestManager;
@@ -36,9 +39,12 @@ import eu.toolchain.async.AsyncFuture;
 import javax.inject.Inject;
 import javax.inject.Named;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -49,15 +55,25 @@ public class IngestionManagerImpl implements IngestionManager {
     final MetricManager metric;
     final SuggestManager suggest;
     final IngestionManagerReporter reporter;
+    final Scheduler scheduler;
 
     private final boolean updateMetrics;
     private final boolean updateMetadata;
     private final boolean updateSuggestions;
 
     private volatile Filter filter;
+    /* compiled from the filter, and evaluated for every ingested write */
+    private volatile Predicate<Series> compiledFilter;
 
     private final Semaphore writePermits;
 
+    private final int batchSize;
+    private final long batchDelay;
+    private final long maxPendingPoints;
+    /* batching groups are kept since they hold the batch currently being filled */
+    private final ConcurrentMap<Optional<String>, BatchingIngestionGroup> batching =
+        new ConcurrentHashMap<>();
+
     private final LongAdder ingested = new LongAdder();
 
     /**
@@ -65,39 +81,58 @@ public class IngestionManagerImpl implements IngestionManager {
      * @param updateMetadata Ingested metrics will update metadata backends.
      * @param updateSuggestions Ingested metrics will update suggest backends.
      * @param maxConcurrentWrites Limit the number of concurrent writes, 0 means no limit at all
+     * @param batchSize Coalesce writes into batches of this many points, 0 disables batching.
+     * @param batchDelay Maximum number of milliseconds a write waits for its batch to fill up.
+     * @param maxPendingPoints Reject batched writes when this many points are pending.
      */
     @Inject
     public IngestionManagerImpl(
         final AsyncFramework async, final MetadataManager metadata, final MetricManager metric,
         final SuggestManager suggest, final IngestionManagerReporter reporter,
-        @Named("updateMetrics") final boolean updateMetrics,
+        final Scheduler scheduler, @Named("updateMetrics") final boolean updateMetrics,
         @Named("updateMetadata") final boolean updateMetadata,
         @Named("updateSuggestions") final boolean updateSuggestions,
-        @Named("maxConcurrentWrites") final int maxConcurrentWrites, final Filter filter
+        @Named("maxConcurrentWrites") final int maxConcurrentWrites,
+        @Named("batchSize") final int batchSize, @Named("batchDelay") final long batchDelay,
+        @Named("maxPendingPoints") final long maxPendingPoints, final Filter filter
     ) {
         this.async = async;
         this.metadata = metadata;
         this.metric = metric;
         this.suggest = suggest;
         this.reporter = reporter;
+        this.scheduler = scheduler;
 
         this.updateMetrics = updateMetrics;
         this.updateMetadata = updateMetadata;
         this.updateSuggestions = updateSuggestions;
         this.filter = filter;
+        this.compiledFilter = FilterCompiler.compile(filter);
 
         this.writePermits = new Semaphore(maxConcurrentWrites);
+
+        this.batchSize = batchSize;
+        this.batchDelay = batchDelay;
+        this.maxPendingPoints = maxPendingPoints;
     }
 
     @Override
     public IngestionGroup useOptionalGroup(final Optional<String> group) {
+        if (batchSize > 0) {
+            return batching.computeIfAbsent(group,
+                g -> new BatchingIngestionGroup(async, scheduler, () -> compiledFilter, reporter,
+                    ingested, buildGroup(g, metric::useOptionalGroup, metadata::useOptionalGroup,
+                    suggest::useOptionalGroup), batchSize, batchDelay, maxPendingPoints));
+        }
+
         return buildGroup(group, metric::useOptionalGroup, metadata::useOptionalGroup,
             suggest::useOptionalGroup);
     }
 
     @Override
     public AsyncFuture<Void> setFilter(Filter filter) {
-        this.filter = checkNotNull(filter, "filter");
+        this.compiledFilter = FilterCompiler.compile(checkNotNull(filter, "filter"));
+        this.filter = filter;
         return async.resolved();
     }
 
@@ -112,14 +147,14 @@ public class IngestionManagerImpl implements IngestionManager {
             writePermits.availablePermits());
     }
 
-    private <I> IngestionGroup buildGroup(
+    private <I> CoreIngestionGroup buildGroup(
         final I input, Function<I, MetricBackend> metric, Function<I, MetadataBackend> metadata,
         Function<I, SuggestBackend> suggest
     ) {
         // @formatter:off
         return new CoreIngestionGroup(
             async,
-            () -> filter,
+            () -> compiledFilter,
             writePermits,
             reporter,
             ingested,
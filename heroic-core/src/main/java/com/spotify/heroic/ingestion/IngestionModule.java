@@ -55,12 +55,19 @@ public class IngestionModule {
     public static final boolean DEFAULT_UPDATE_METADATA = true;
     public static final boolean DEFAULT_UPDATE_SUGGESTIONS = true;
     public static final int DEFAULT_MAX_CONCURRENT_WRITES = 50000;
+    /* batching is disabled by default */
+    public static final int DEFAULT_BATCH_SIZE = 0;
+    public static final long DEFAULT_BATCH_DELAY = 50;
+    public static final long DEFAULT_MAX_PENDING_POINTS = 1000000;
 
     private final boolean updateMetrics;
     private final boolean updateMetadata;
     private final boolean updateSuggestions;
     private final int maxConcurrentWrites;
     private final Optional<String> filter;
+    private final int batchSize;
+    private final long batchDelay;
+    private final long maxPendingPoints;
 
     public IngestionComponent module(
         PrimaryComponent primary, SuggestComponent suggest, MetadataComponent metadata,
@@ -123,6 +130,27 @@ public class IngestionModule {
             return maxConcurrentWrites;
         }
 
+        @Provides
+        @Named("batchSize")
+        @IngestionScope
+        public int batchSize() {
+            return batchSize;
+        }
+
+        @Provides
+        @Named("batchDelay")
+        @IngestionScope
+        public long batchDelay() {
+            return batchDelay;
+        }
+
+        @Provides
+        @Named("maxPendingPoints")
+        @IngestionScope
+        public long maxPendingPoints() {
+            return maxPendingPoints;
+        }
+
         @Provides
         @IngestionScope
         public Filter filter(
@@ -147,6 +175,9 @@ public class IngestionModule {
         private Optional<Boolean> updateSuggestions = empty();
         private Optional<Integer> maxConcurrentWrites = empty();
         private Optional<String> filter = empty();
+        private Optional<Integer> batchSize = empty();
+        private Optional<Long> batchDelay = empty();
+        private Optional<Long> maxPendingPoints = empty();
 
         public Builder updateAll() {
             this.updateMetrics = of(true);
@@ -175,6 +206,30 @@ public class IngestionModule {
             return this;
         }
 
+        /**
+         * Coalesce writes into batches of up to the given number of points, 0 disables batching.
+         */
+        public Builder batchSize(int batchSize) {
+            this.batchSize = of(batchSize);
+            return this;
+        }
+
+        /**
+         * Maximum time in milliseconds that a write waits for its batch to fill up.
+         */
+        public Builder batchDelay(long batchDelay) {
+            this.batchDelay = of(batchDelay);
+            return this;
+        }
+
+        /**
+         * Maximum number of batched points that are not yet written before writes are rejected.
+         */
+        public Builder maxPendingPoints(long maxPendingPoints) {
+            this.maxPendingPoints = of(maxPendingPoints);
+            return this;
+        }
+
         public Builder merge(final Builder o) {
             // @formatter:off
             return new Builder(
@@ -182,7 +237,10 @@ public class IngestionModule {
                 pickOptional(updateMetadata, o.updateMetadata),
                 pickOptional(updateSuggestions, o.updateSuggestions),
                 pickOptional(maxConcurrentWrites, o.maxConcurrentWrites),
-                pickOptional(filter, o.filter)
+                pickOptional(filter, o.filter),
+                pickOptional(batchSize, o.batchSize),
+                pickOptional(batchDelay, o.batchDelay),
+                pickOptional(maxPendingPoints, o.maxPendingPoints)
             );
             // @formatter:on
         }
@@ -194,7 +252,10 @@ public class IngestionModule {
                 updateMetadata.orElse(DEFAULT_UPDATE_METADATA),
                 updateSuggestions.orElse(DEFAULT_UPDATE_SUGGESTIONS),
                 maxConcurrentWrites.orElse(DEFAULT_MAX_CONCURRENT_WRITES),
-                filter
+                filter,
+                batchSize.orElse(DEFAULT_BATCH_SIZE),
+                batchDelay.orElse(DEFAULT_BATCH_DELAY),
+                maxPendingPoints.orElse(DEFAULT_MAX_PENDING_POINTS)
             );
             // @formatter:on
         }
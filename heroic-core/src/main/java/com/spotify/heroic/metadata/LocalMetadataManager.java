@@ -32,18 +32,21 @@ import java.util.Optional;
 public class LocalMetadataManager implements MetadataManager {
     private final AsyncFramework async;
     private final GroupSet<MetadataBackend> groupSet;
+    private final SeriesResolutionCache seriesCache;
 
     @Inject
     public LocalMetadataManager(
-        final AsyncFramework async, @Named("groupSet") final GroupSet<MetadataBackend> groupSet
+        final AsyncFramework async, @Named("groupSet") final GroupSet<MetadataBackend> groupSet,
+        final SeriesResolutionCache seriesCache
     ) {
         this.async = async;
         this.groupSet = groupSet;
+        this.seriesCache = seriesCache;
     }
 
     @Override
     public MetadataBackend useOptionalGroup(Optional<String> group) {
-        return new MetadataBackendGroup(groupSet.useOptionalGroup(group), async);
+        return new MetadataBackendGroup(groupSet.useOptionalGroup(group), async, seriesCache);
     }
 
     @Override
@@ -38,6 +38,7 @@ import java.util.List;
 public class MetadataBackendGroup implements MetadataBackend {
     private final SelectedGroup<MetadataBackend> backends;
     private final AsyncFramework async;
+    private final SeriesResolutionCache seriesCache;
 
     @Override
     public AsyncFuture<Void> configure() {
@@ -56,8 +57,8 @@ public class MetadataBackendGroup implements MetadataBackend {
 
     @Override
     public AsyncFuture<FindSeries> findSeries(final FindSeries.Request request) {
-        return async.collect(run(v -> v.findSeries(request)),
-            FindSeries.reduce(request.getLimit()));
+        return seriesCache.findSeries(backends.getMembers(), request,
+            r -> async.collect(run(v -> v.findSeries(r)), FindSeries.reduce(r.getLimit())));
     }
 
     @Override
@@ -80,7 +81,9 @@ public class MetadataBackendGroup implements MetadataBackend {
 
     @Override
     public AsyncFuture<DeleteSeries> deleteSeries(final DeleteSeries.Request request) {
-        return async.collect(run(b -> b.deleteSeries(request)), DeleteSeries.reduce());
+        return async
+            .collect(run(b -> b.deleteSeries(request)), DeleteSeries.reduce())
+            .onFinished(seriesCache::invalidateAll);
     }
 
     @Override
@@ -90,7 +93,9 @@ public class MetadataBackendGroup implements MetadataBackend {
 
     @Override
     public AsyncFuture<WriteMetadata> write(final WriteMetadata.Request request) {
-        return async.collect(run(b -> b.write(request)), WriteMetadata.reduce());
+        return async
+            .collect(run(b -> b.write(request)), WriteMetadata.reduce())
+            .onResolved(r -> seriesCache.written(request.getSeries(), request.getRange()));
     }
 
     @Override
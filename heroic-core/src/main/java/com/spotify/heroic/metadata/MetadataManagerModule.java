@@ -30,8 +30,10 @@ import com.spotify.heroic.lifecycle.LifeCycle;
 import com.spotify.heroic.metadata.MetadataModule.Exposed;
 import com.spotify.heroic.statistics.HeroicReporter;
 import com.spotify.heroic.statistics.MetadataBackendReporter;
+import com.spotify.heroic.time.Clock;
 import dagger.Module;
 import dagger.Provides;
+import eu.toolchain.async.AsyncFramework;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
@@ -42,17 +44,40 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static com.spotify.heroic.common.Optionals.mergeOptionalList;
+import static com.spotify.heroic.common.Optionals.pickOptional;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
 
 @RequiredArgsConstructor
 @Module
 public class MetadataManagerModule {
+    public static final long DEFAULT_SERIES_CACHE_SIZE = 0;
+    public static final long DEFAULT_SERIES_CACHE_BUCKET =
+        TimeUnit.MILLISECONDS.convert(1, TimeUnit.HOURS);
+    public static final long DEFAULT_SERIES_CACHE_REFRESH =
+        TimeUnit.MILLISECONDS.convert(1, TimeUnit.MINUTES);
+
     private final List<MetadataModule> backends;
     private final Optional<List<String>> defaultBackends;
 
+    /**
+     * Maximum number of resolved series to cache, {@code 0} disables the series cache.
+     */
+    private final long seriesCacheSize;
+
+    /**
+     * Width in milliseconds that the ranges of cached series resolutions are widened to.
+     */
+    private final long seriesCacheBucket;
+
+    /**
+     * How long in milliseconds a cached series resolution is served before it is refreshed.
+     */
+    private final long seriesCacheRefresh;
+
     @Provides
     @MetadataScope
     public MetadataBackendReporter localReporter(HeroicReporter reporter) {
@@ -86,6 +111,15 @@ public class MetadataManagerModule {
             components.stream().map(Exposed::backend).map(reporter::decorate).iterator());
     }
 
+    @Provides
+    @MetadataScope
+    public SeriesResolutionCache seriesCache(
+        final AsyncFramework async, final MetadataBackendReporter reporter, final Clock clock
+    ) {
+        return new SeriesResolutionCache(async, reporter, clock, seriesCacheSize,
+            seriesCacheBucket, seriesCacheRefresh);
+    }
+
     @Provides
     @Named("groupSet")
     @MetadataScope
@@ -109,6 +143,9 @@ public class MetadataManagerModule {
     public static class Builder {
         private Optional<List<MetadataModule>> backends = empty();
         private Optional<List<String>> defaultBackends = empty();
+        private Optional<Long> seriesCacheSize = empty();
+        private Optional<Long> seriesCacheBucket = empty();
+        private Optional<Long> seriesCacheRefresh = empty();
 
         public Builder backends(List<MetadataModule> backends) {
             this.backends = of(backends);
@@ -120,11 +157,29 @@ public class MetadataManagerModule {
             return this;
         }
 
+        public Builder seriesCacheSize(long seriesCacheSize) {
+            this.seriesCacheSize = of(seriesCacheSize);
+            return this;
+        }
+
+        public Builder seriesCacheBucket(long seriesCacheBucket) {
+            this.seriesCacheBucket = of(seriesCacheBucket);
+            return this;
+        }
+
+        public Builder seriesCacheRefresh(long seriesCacheRefresh) {
+            this.seriesCacheRefresh = of(seriesCacheRefresh);
+            return this;
+        }
+
         public Builder merge(final Builder o) {
             // @formatter:off
             return new Builder(
                 mergeOptionalList(o.backends, backends),
-                mergeOptionalList(o.defaultBackends, defaultBackends)
+                mergeOptionalList(o.defaultBackends, defaultBackends),
+                pickOptional(seriesCacheSize, o.seriesCacheSize),
+                pickOptional(seriesCacheBucket, o.seriesCacheBucket),
+                pickOptional(seriesCacheRefresh, o.seriesCacheRefresh)
             );
             // @formatter:on
         }
@@ -133,7 +188,10 @@ public class MetadataManagerModule {
             // @formatter:off
             return new MetadataManagerModule(
                 backends.orElseGet(ImmutableList::of),
-                defaultBackends
+                defaultBackends,
+                seriesCacheSize.orElse(DEFAULT_SERIES_CACHE_SIZE),
+                seriesCacheBucket.orElse(DEFAULT_SERIES_CACHE_BUCKET),
+                seriesCacheRefresh.orElse(DEFAULT_SERIES_CACHE_REFRESH)
             );
             // @formatter:on
         }
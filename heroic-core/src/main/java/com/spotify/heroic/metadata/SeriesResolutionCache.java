@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metadata;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.FilterCompiler;
+import com.spotify.heroic.statistics.MetadataBackendReporter;
+import com.spotify.heroic.time.Clock;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import lombok.Data;
+
+/**
+ * Caches the series that filters resolve to, so that queries which are repeated, like dashboards
+ * being refreshed, don't have to look them up in the metadata backends every time.
+ * <p>
+ * Entries are keyed by the selected backends, the optimized filter, the limit, and the range
+ * widened to multiples of {@code bucket}. The widened range is also used for the lookup, so that
+ * every request which maps to an entry sees the same result. The total number of cached series is
+ * bounded, and concurrent lookups of the same entry are coalesced.
+ * <p>
+ * An entry which was loaded more than {@code refreshAfter} milliseconds ago is still served, but
+ * triggers an asynchronous refresh. Writes of new series invalidate the entries, and discard the
+ * loads in flight, whose filter they match and whose range they overlap. Series which have been
+ * written or resolved recently are known to exist, writing them again leaves all entries alone.
+ * Only writes going through this node are seen, writes through other nodes are picked up by the
+ * next refresh.
+ */
+public class SeriesResolutionCache {
+    /* how many refresh intervals an entry is kept for without being refreshed */
+    public static final long EXPIRE_AFTER_REFRESHES = 10;
+
+    /* number of recently written or resolved series to remember, so that repeated writes are
+     * cheap */
+    public static final long KNOWN_SIZE = 100000;
+
+    private final AsyncFramework async;
+    private final MetadataBackendReporter reporter;
+    private final Clock clock;
+    private final long bucket;
+    private final long refreshAfter;
+
+    private final Optional<Cache<Key, Entry>> entries;
+    private final Optional<Cache<Series, Boolean>> known;
+    private final ConcurrentMap<Key, Load> loading = new ConcurrentHashMap<>();
+
+    /**
+     * @param async Async framework to use.
+     * @param reporter Reporter for hits and misses.
+     * @param clock Clock to use.
+     * @param maxSeries The maximum number of series to cache, {@code 0} disables the cache.
+     * @param bucket The width in milliseconds that ranges are widened to.
+     * @param refreshAfter How long in milliseconds an entry is served before it is refreshed.
+     */
+    public SeriesResolutionCache(
+        final AsyncFramework async, final MetadataBackendReporter reporter, final Clock clock,
+        final long maxSeries, final long bucket, final long refreshAfter
+    ) {
+        if (bucket <= 0) {
+            throw new IllegalArgumentException("bucket must be positive");
+        }
+
+        this.async = async;
+        this.reporter = reporter;
+        this.clock = clock;
+        this.bucket = bucket;
+        this.refreshAfter = refreshAfter;
+
+        if (maxSeries > 0) {
+            final Cache<Key, Entry> entries = CacheBuilder
+                .newBuilder()
+                .maximumWeight(maxSeries)
+                .weigher((Key k, Entry e) -> e.weight())
+                .expireAfterWrite(refreshAfter * EXPIRE_AFTER_REFRESHES, TimeUnit.MILLISECONDS)
+                .build();
+
+            final Cache<Series, Boolean> known = CacheBuilder
+                .newBuilder()
+                .maximumSize(KNOWN_SIZE)
+                .expireAfterWrite(refreshAfter, TimeUnit.MILLISECONDS)
+                .build();
+
+            this.entries = Optional.of(entries);
+            this.known = Optional.of(known);
+        } else {
+            this.entries = Optional.empty();
+            this.known = Optional.empty();
+        }
+    }
+
+    /**
+     * Find the series matching the given request, using the loader if they are not cached.
+     *
+     * @param backends The backends that the request is issued against.
+     * @param request The request to find series for.
+     * @param loader Loader to use when the series are not cached, or are being refreshed.
+     * @return A future resolved to the found series.
+     */
+    public AsyncFuture<FindSeries> findSeries(
+        final Set<?> backends, final FindSeries.Request request,
+        final Function<FindSeries.Request, AsyncFuture<FindSeries>> loader
+    ) {
+        if (!entries.isPresent()) {
+            return loader.apply(request);
+        }
+
+        final Filter filter = request.getFilter().optimize();
+        final DateRange range = widen(request.getRange());
+        final Key key = new Key(backends, filter.toDSL(), request.getLimit(), range);
+        final FindSeries.Request widened =
+            new FindSeries.Request(filter, range, request.getLimit());
+
+        final Entry entry = entries.get().getIfPresent(key);
+
+        if (entry == null) {
+            reporter.reportFindSeriesCacheMiss();
+            return load(key, filter, widened, loader);
+        }
+
+        reporter.reportFindSeriesCacheHit(entry.getLoadNanos());
+
+        if (clock.currentTimeMillis() - entry.getLoadedAt() >= refreshAfter &&
+            entry.getRefreshing().compareAndSet(false, true)) {
+            load(key, filter, widened, loader)
+                .onFinished(() -> entry.getRefreshing().set(false));
+        }
+
+        return async.resolved(entry.getResult());
+    }
+
+    /**
+     * Invalidate all entries which match the given series in the given range, but don't contain
+     * it.
+     *
+     * @param series The series that was written.
+     * @param range The range that the series was written for.
+     */
+    public void written(final Series series, final DateRange range) {
+        if (!known.isPresent() || known.get().getIfPresent(series) != null) {
+            return;
+        }
+
+        known.get().put(series, true);
+
+        /* loads in flight might have missed the series, loads are marked before entries are
+         * checked since a load might be putting its entry in between */
+        for (final Load load : loading.values()) {
+            if (load.getRange().overlap(range) && load.getMatcher().test(series)) {
+                load.getStale().set(true);
+            }
+        }
+
+        /* new series are rare, so it's fine to check them against every entry */
+        for (final Entry entry : entries.get().asMap().values()) {
+            final Set<Series> resolved = entry.getResult().getSeries();
+
+            if (entry.getKey().getRange().overlap(range) && !resolved.contains(series) &&
+                entry.getMatcher().test(series)) {
+                entries.get().invalidate(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Invalidate all entries, for when series have been deleted.
+     */
+    public void invalidateAll() {
+        if (!entries.isPresent()) {
+            return;
+        }
+
+        for (final Load load : loading.values()) {
+            load.getStale().set(true);
+        }
+
+        entries.get().invalidateAll();
+    }
+
+    private DateRange widen(final DateRange range) {
+        final long start = range.start() - range.start() % bucket;
+        final long end = range.end() % bucket == 0 ? range.end() :
+            range.end() - range.end() % bucket + bucket;
+        return new DateRange(start, end);
+    }
+
+    private AsyncFuture<FindSeries> load(
+        final Key key, final Filter filter, final FindSeries.Request request,
+        final Function<FindSeries.Request, AsyncFuture<FindSeries>> loader
+    ) {
+        final ResolvableFuture<FindSeries> future = async.future();
+        final Predicate<Series> matcher = FilterCompiler.compile(filter);
+        final Load load = new Load(future, matcher, request.getRange());
+        final Load existing = loading.putIfAbsent(key, load);
+
+        if (existing != null) {
+            return existing.getFuture();
+        }
+
+        final long start = System.nanoTime();
+
+        final AsyncFuture<FindSeries> result;
+
+        try {
+            result = loader.apply(request);
+        } catch (final Exception e) {
+            loading.remove(key, load);
+            future.fail(e);
+            return future;
+        }
+
+        result.onDone(new FutureDone<FindSeries>() {
+            @Override
+            public void failed(final Throwable cause) {
+                loading.remove(key, load);
+                future.fail(cause);
+            }
+
+            @Override
+            public void resolved(final FindSeries r) {
+                /* partial results would stick around, and might be invalidated already */
+                if (r.getErrors().isEmpty() && !load.getStale().get()) {
+                    for (final Series s : r.getSeries()) {
+                        known.get().put(s, true);
+                    }
+
+                    entries
+                        .get()
+                        .put(key, new Entry(key, r, matcher, clock.currentTimeMillis(),
+                            System.nanoTime() - start));
+
+                    /* a write might have marked the load while the entry was being put */
+                    if (load.getStale().get()) {
+                        entries.get().invalidate(key);
+                    }
+                }
+
+                loading.remove(key, load);
+                future.resolve(r);
+            }
+
+            @Override
+            public void cancelled() {
+                loading.remove(key, load);
+                future.cancel();
+            }
+        });
+
+        return future;
+    }
+
+    @Data
+    static class Key {
+        private final Set<?> backends;
+        private final String filter;
+        private final OptionalLimit limit;
+        private final DateRange range;
+    }
+
+    @Data
+    static class Load {
+        private final ResolvableFuture<FindSeries> future;
+        private final Predicate<Series> matcher;
+        private final DateRange range;
+        /* set if a write or delete might have been missed by the load */
+        private final AtomicBoolean stale = new AtomicBoolean();
+    }
+
+    @Data
+    static class Entry {
+        private final Key key;
+        private final FindSeries result;
+        private final Predicate<Series> matcher;
+        private final long loadedAt;
+        private final long loadNanos;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        int weight() {
+            return result.getSeries().size() + 1;
+        }
+    }
+}
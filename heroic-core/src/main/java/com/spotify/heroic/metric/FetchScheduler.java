@@ -0,0 +1,386 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.spotify.heroic.metric;
+
+import com.spotify.heroic.statistics.MetricBackendReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.StreamCollector;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import javax.inject.Inject;
+import javax.inject.Named;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Schedules the fetches of all queries on a node.
+ * <p>
+ * The number of fetches in flight is bounded across all queries. Every query gets a fair share of
+ * the in-flight fetches, which is never more than the per-query parallelism, and queries with
+ * queued fetches take turns to dispatch them.
+ * <p>
+ * Queries which have read at most {@code smallQueryThreshold} samples are dispatched from a fast
+ * lane, which is preferred over the normal lane without starving it. A query which reads more
+ * than that is moved to the normal lane for its remaining fetches, so a heavy query can't hold up
+ * the small queries behind it.
+ */
+@Slf4j
+@MetricScope
+@ToString(of = {"maxInFlight", "queryParallelism", "smallQueryThreshold"})
+public class FetchScheduler {
+    /* the fast lane dispatches this many fetches for every fetch of the normal lane */
+    private static final int FAST_LANE_WEIGHT = 4;
+
+    private final AsyncFramework async;
+    private final MetricBackendReporter reporter;
+    private final int maxInFlight;
+    private final int queryParallelism;
+    private final long smallQueryThreshold;
+
+    private final Object lock = new Object();
+
+    /* queries with queued fetches which are below their share, guarded by lock */
+    private final Queue<Query<?, ?>> fast = new ArrayDeque<>();
+    private final Queue<Query<?, ?>> normal = new ArrayDeque<>();
+    /* guarded by lock */
+    private int inFlight = 0;
+    private int activeQueries = 0;
+    private int fastDispatches = 0;
+
+    /* requested dispatch passes, only the thread which raises this from zero dispatches */
+    private final AtomicInteger dispatching = new AtomicInteger();
+
+    /**
+     * @param maxInFlight How many fetches may be in flight in total.
+     * @param queryParallelism How many fetches a single query may have in flight.
+     * @param smallQueryThreshold How many samples a query may read while being dispatched from
+     * the fast lane.
+     */
+    @Inject
+    public FetchScheduler(
+        final AsyncFramework async, final MetricBackendReporter reporter,
+        @Named("maxInFlightFetches") final int maxInFlight,
+        @Named("fetchParallelism") final int queryParallelism,
+        @Named("smallQueryThreshold") final long smallQueryThreshold
+    ) {
+        this.async = async;
+        this.reporter = reporter;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.queryParallelism = Math.max(1, queryParallelism);
+        this.smallQueryThreshold = smallQueryThreshold;
+    }
+
+    /**
+     * Schedule the fetches of a single query.
+     *
+     * @param fetches Fetches to run.
+     * @param collector Collector which is given the result of every fetch.
+     * @param samplesRead Number of samples the query has read so far, used to pick its lane.
+     * @return A future which is resolved with the result of the collector when all fetches are
+     * done. Cancelling it drops fetches which are still queued.
+     */
+    public <T, R> AsyncFuture<R> schedule(
+        final List<Callable<AsyncFuture<T>>> fetches, final StreamCollector<T, R> collector,
+        final LongSupplier samplesRead
+    ) {
+        if (fetches.isEmpty()) {
+            return async.call(() -> collector.end(0, 0, 0));
+        }
+
+        final Query<T, R> query = new Query<>(collector, samplesRead, async.future());
+        final long now = System.nanoTime();
+
+        for (final Callable<AsyncFuture<T>> fetch : fetches) {
+            query.pending.add(new Fetch<>(fetch, now));
+        }
+
+        query.future.onCancelled(() -> {
+            synchronized (lock) {
+                query.pending.clear();
+
+                if (query.inFlight == 0 && !query.finished) {
+                    query.finished = true;
+                    activeQueries--;
+                }
+            }
+        });
+
+        synchronized (lock) {
+            activeQueries++;
+            enqueue(query);
+        }
+
+        dispatch();
+        return query.future;
+    }
+
+    /**
+     * Number of fetches which are currently in flight.
+     */
+    public int inFlight() {
+        synchronized (lock) {
+            return inFlight;
+        }
+    }
+
+    /**
+     * Put a query at the back of its lane, must be called while holding the lock.
+     */
+    private void enqueue(final Query<?, ?> query) {
+        if (query.queued || query.pending.isEmpty()) {
+            return;
+        }
+
+        query.queued = true;
+
+        if (query.samplesRead.getAsLong() <= smallQueryThreshold) {
+            fast.add(query);
+        } else {
+            normal.add(query);
+        }
+    }
+
+    /**
+     * Dispatch queued fetches.
+     * <p>
+     * Fetches which complete synchronously request another pass from within a pass, these are run
+     * in a loop by the thread already dispatching instead of recursing.
+     */
+    private void dispatch() {
+        if (dispatching.getAndIncrement() != 0) {
+            return;
+        }
+
+        int passes = 1;
+
+        do {
+            dispatchPass();
+            passes = dispatching.addAndGet(-passes);
+        } while (passes != 0);
+    }
+
+    private void dispatchPass() {
+        final List<Runnable> dispatched = new ArrayList<>();
+
+        synchronized (lock) {
+            final int share =
+                Math.min(queryParallelism, Math.max(1, maxInFlight / Math.max(1, activeQueries)));
+
+            while (inFlight < maxInFlight) {
+                final Query<?, ?> query = nextQuery();
+
+                if (query == null) {
+                    break;
+                }
+
+                query.queued = false;
+
+                if (query.pending.isEmpty() || query.inFlight >= share) {
+                    /* re-queued when one of its fetches completes */
+                    continue;
+                }
+
+                inFlight++;
+                query.inFlight++;
+                dispatched.add(query.take());
+
+                if (query.inFlight < share) {
+                    enqueue(query);
+                }
+            }
+        }
+
+        dispatched.forEach(Runnable::run);
+    }
+
+    /**
+     * Pick the next query to dispatch from, must be called while holding the lock.
+     */
+    private Query<?, ?> nextQuery() {
+        if (fast.isEmpty() || (!normal.isEmpty() && fastDispatches >= FAST_LANE_WEIGHT)) {
+            fastDispatches = 0;
+            return normal.poll();
+        }
+
+        fastDispatches++;
+        return fast.poll();
+    }
+
+    /**
+     * Release the in-flight slot of a fetch.
+     *
+     * @return {@code true} if this was the last fetch of the query
+     */
+    private boolean complete(final Query<?, ?> query) {
+        synchronized (lock) {
+            inFlight--;
+            query.inFlight--;
+
+            if (query.inFlight == 0 && query.pending.isEmpty() && !query.finished) {
+                query.finished = true;
+                activeQueries--;
+                return true;
+            }
+
+            enqueue(query);
+            return false;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Fetch<T> {
+        private final Callable<AsyncFuture<T>> callable;
+        private final long queued;
+    }
+
+    @RequiredArgsConstructor
+    private class Query<T, R> {
+        private final StreamCollector<T, R> collector;
+        private final LongSupplier samplesRead;
+        private final ResolvableFuture<R> future;
+
+        /* guarded by lock */
+        private final Queue<Fetch<T>> pending = new ArrayDeque<>();
+        private int inFlight = 0;
+        private boolean queued = false;
+        private boolean finished = false;
+
+        /* guarded by this query, which also serializes calls to the collector */
+        private int resolved = 0;
+        private int failed = 0;
+        private int cancelled = 0;
+
+        /**
+         * Take the next fetch, must be called while holding the lock.
+         */
+        Runnable take() {
+            final Fetch<T> fetch = pending.poll();
+            return () -> run(fetch);
+        }
+
+        private void run(final Fetch<T> fetch) {
+            final long start = System.nanoTime();
+            reporter.reportFetchQueueWait(start - fetch.queued);
+
+            AsyncFuture<T> result;
+
+            try {
+                result = fetch.callable.call();
+            } catch (final Exception e) {
+                result = async.failed(e);
+            }
+
+            result.onDone(new FutureDone<T>() {
+                @Override
+                public void failed(final Throwable cause) throws Exception {
+                    try {
+                        synchronized (Query.this) {
+                            Query.this.failed++;
+                            collector.failed(cause);
+                        }
+                    } catch (final Exception e) {
+                        abort(e);
+                    } finally {
+                        done(start);
+                    }
+                }
+
+                @Override
+                public void resolved(final T value) throws Exception {
+                    try {
+                        synchronized (Query.this) {
+                            Query.this.resolved++;
+                            collector.resolved(value);
+                        }
+                    } catch (final Exception e) {
+                        abort(e);
+                    } finally {
+                        done(start);
+                    }
+                }
+
+                @Override
+                public void cancelled() throws Exception {
+                    try {
+                        synchronized (Query.this) {
+                            Query.this.cancelled++;
+                            collector.cancelled();
+                        }
+                    } catch (final Exception e) {
+                        abort(e);
+                    } finally {
+                        done(start);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Fail the query because the collector threw, fetches which are still queued are dropped.
+         */
+        private void abort(final Exception e) {
+            synchronized (lock) {
+                pending.clear();
+            }
+
+            future.fail(e);
+        }
+
+        private void done(final long start) {
+            reporter.reportFetchLatency(System.nanoTime() - start);
+
+            if (complete(this)) {
+                end();
+            }
+
+            dispatch();
+        }
+
+        private void end() {
+            if (future.isDone()) {
+                return;
+            }
+
+            try {
+                final R result;
+
+                synchronized (this) {
+                    result = collector.end(resolved, failed, cancelled);
+                }
+
+                future.resolve(result);
+            } catch (final Exception e) {
+                future.fail(e);
+            }
+        }
+    }
+}
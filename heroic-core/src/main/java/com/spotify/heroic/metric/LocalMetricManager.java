@@ -29,6 +29,7 @@ import com.spotify.heroic.aggregation.AggregationInstance;
 import com.spotify.heroic.aggregation.AggregationOutput;
 import com.spotify.heroic.aggregation.AggregationResult;
 import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.aggregation.EmptyInstance;
 import com.spotify.heroic.aggregation.RetainQuotaWatcher;
 import com.spotify.heroic.async.AsyncObservable;
 import com.spotify.heroic.common.DateRange;
@@ -54,10 +55,14 @@ import eu.toolchain.async.AsyncFuture;
 import eu.toolchain.async.LazyTransform;
 import eu.toolchain.async.StreamCollector;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -81,13 +86,13 @@ public class LocalMetricManager implements MetricManager {
     private final OptionalLimit seriesLimit;
     private final OptionalLimit aggregationLimit;
     private final OptionalLimit dataLimit;
-    private final int fetchParallelism;
     private final boolean failOnLimits;
 
     private final AsyncFramework async;
     private final GroupSet<MetricBackend> groupSet;
     private final MetadataManager metadata;
     private final MetricBackendReporter reporter;
+    private final FetchScheduler fetchScheduler;
     private final QueryLogger queryLogger;
 
     /**
@@ -96,7 +101,7 @@ public class LocalMetricManager implements MetricManager {
      * @param aggregationLimit The maximum number of (estimated) data points a single aggregation
      * may produce.
      * @param dataLimit The maximum number of samples a single query is allowed to fetch.
-     * @param fetchParallelism How many fetches that are allowed to be performed in parallel.
+     * @param fetchScheduler Scheduler which runs the fetches of all queries.
      */
     @Inject
     public LocalMetricManager(
@@ -104,21 +109,21 @@ public class LocalMetricManager implements MetricManager {
         @Named("seriesLimit") final OptionalLimit seriesLimit,
         @Named("aggregationLimit") final OptionalLimit aggregationLimit,
         @Named("dataLimit") final OptionalLimit dataLimit,
-        @Named("fetchParallelism") final int fetchParallelism,
         @Named("failOnLimits") final boolean failOnLimits, final AsyncFramework async,
         final GroupSet<MetricBackend> groupSet, final MetadataManager metadata,
-        final MetricBackendReporter reporter, final QueryLoggerFactory queryLoggerFactory
+        final MetricBackendReporter reporter, final FetchScheduler fetchScheduler,
+        final QueryLoggerFactory queryLoggerFactory
     ) {
         this.groupLimit = groupLimit;
         this.seriesLimit = seriesLimit;
         this.aggregationLimit = aggregationLimit;
         this.dataLimit = dataLimit;
-        this.fetchParallelism = fetchParallelism;
         this.failOnLimits = failOnLimits;
         this.async = async;
         this.groupSet = groupSet;
         this.metadata = metadata;
         this.reporter = reporter;
+        this.fetchScheduler = fetchScheduler;
         this.queryLogger = queryLoggerFactory.create("LocalMetricManager");
     }
 
@@ -155,6 +160,23 @@ public class LocalMetricManager implements MetricManager {
 
         @Override
         public AsyncFuture<FullQuery> query(final FullQuery.Request request) {
+            return run(request, Optional.empty());
+        }
+
+        @Override
+        public AsyncFuture<FullQuery> queryStream(
+            final FullQuery.Request request, final Consumer<List<ResultGroup>> consumer
+        ) {
+            return run(request, Optional.of(consumer));
+        }
+
+        /**
+         * Run a query, if a stream is given result groups are handed to it as soon as they are
+         * complete instead of being included in the result.
+         */
+        private AsyncFuture<FullQuery> run(
+            final FullQuery.Request request, final Optional<Consumer<List<ResultGroup>>> stream
+        ) {
             final QueryTrace.NamedWatch w = QueryTrace.watch(QUERY);
 
             final Filter filter = request.getFilter();
@@ -182,6 +204,8 @@ public class LocalMetricManager implements MetricManager {
             final boolean failOnLimits =
                 options.getFailOnLimits().orElse(LocalMetricManager.this.failOnLimits);
 
+            final boolean compactSeries = options.getCompactSeries().orElse(false);
+
             // Transform that takes the result from ES metadata lookup to fetch from backend
             final LazyTransform<FindSeries, FullQuery> transform = (final FindSeries result) -> {
                 final ResultLimits limits;
@@ -226,7 +250,8 @@ public class LocalMetricManager implements MetricManager {
                     // tracing enabled, keeps track of each individual FetchData trace.
                     collector =
                         new ResultCollector(watcher, dataInMemoryReporter, aggregation, session,
-                            limits, options.getGroupLimit().orElse(groupLimit), failOnLimits) {
+                            limits, options.getGroupLimit().orElse(groupLimit), failOnLimits,
+                            compactSeries, stream) {
                             final ConcurrentLinkedQueue<QueryTrace> traces =
                                 new ConcurrentLinkedQueue<>();
 
@@ -245,7 +270,8 @@ public class LocalMetricManager implements MetricManager {
                     // very limited tracing, does not collected each individual FetchData trace.
                     collector =
                         new ResultCollector(watcher, dataInMemoryReporter, aggregation, session,
-                            limits, options.getGroupLimit().orElse(groupLimit), failOnLimits) {
+                            limits, options.getGroupLimit().orElse(groupLimit), failOnLimits,
+                            compactSeries, stream) {
                             @Override
                             public QueryTrace buildTrace() {
                                 return w.end();
@@ -253,29 +279,51 @@ public class LocalMetricManager implements MetricManager {
                         };
                 }
 
+                final List<MetricBackend> selected = new ArrayList<>();
+                accept(selected::add);
+
+                /* when streaming without aggregation, a series which is the only one with its
+                 * tags makes up a group on its own, which is sent as soon as it is fetched */
+                final Map<Series, StreamedSeries> streamed = new HashMap<>();
+
+                if (stream.isPresent() && aggregation instanceof EmptyInstance) {
+                    for (final Series s : uniqueTags(result.getSeries())) {
+                        streamed.put(s, new StreamedSeries(aggregation.session(range, watcher),
+                            new AtomicInteger(selected.size())));
+                    }
+                }
+
                 final List<Callable<AsyncFuture<FetchData.Result>>> fetches = new ArrayList<>();
 
                 /* setup fetches */
-                accept(b -> {
+                for (final MetricBackend b : selected) {
                     for (final Series s : result.getSeries()) {
+                        final StreamedSeries own = streamed.get(s);
+                        final AggregationSession target = own != null ? own.session : session;
+
                         if (slicedFetch) {
-                            fetches.add(
-                                () -> b.fetch(new FetchData.Request(source, s, range, options),
-                                    watcher, mc -> collector.acceptMetricsCollection(s, mc)));
+                            fetches.add(() -> b
+                                .fetch(new FetchData.Request(source, s, range, options), watcher,
+                                    mc -> collector.acceptMetricsCollection(target, s, mc))
+                                .directTransform(r -> {
+                                    collector.fetched(own);
+                                    return r;
+                                }));
                         } else {
                             fetches.add(() -> b
                                 .fetch(new FetchData.Request(source, s, range, options), watcher)
                                 .directTransform(d -> {
                                     d.getGroups().forEach(group -> {
-                                        collector.acceptMetricsCollection(s, group);
+                                        collector.acceptMetricsCollection(target, s, group);
                                     });
+                                    collector.fetched(own);
                                     return d.getResult();
                                 }));
                         }
                     }
-                });
+                }
 
-                return async.eventuallyCollect(fetches, collector, fetchParallelism);
+                return fetchScheduler.schedule(fetches, collector, watcher::getReadData);
             };
 
             return metadata
@@ -407,6 +455,27 @@ public class LocalMetricManager implements MetricManager {
             backends.stream().forEach(op::accept);
         }
 
+        /**
+         * Series which don't share their tags with any other series.
+         */
+        private List<Series> uniqueTags(final Set<Series> series) {
+            final Map<Map<String, String>, Integer> counts = new HashMap<>();
+
+            for (final Series s : series) {
+                counts.merge(s.getTags(), 1, Integer::sum);
+            }
+
+            final List<Series> unique = new ArrayList<>();
+
+            for (final Series s : series) {
+                if (counts.get(s.getTags()) == 1) {
+                    unique.add(s);
+                }
+            }
+
+            return unique;
+        }
+
         private <T> List<T> map(final Function<MetricBackend, T> op) {
             return ImmutableList.copyOf(backends.stream().map(op).iterator());
         }
@@ -425,17 +494,66 @@ public class LocalMetricManager implements MetricManager {
         final ResultLimits limits;
         final OptionalLimit groupLimit;
         final boolean failOnLimits;
+        final boolean compactSeries;
+        final Optional<Consumer<List<ResultGroup>>> stream;
+
+        /* number of groups handed to the stream, guarded by this */
+        int streamed = 0;
+        /* if groups were dropped from the stream because of the group limit, guarded by this */
+        boolean streamLimited = false;
 
         @Override
         public void resolved(final FetchData.Result result) throws Exception {
             requestErrors.addAll(result.getErrors());
         }
 
-        void acceptMetricsCollection(final Series series, MetricCollection g) {
+        void acceptMetricsCollection(
+            final AggregationSession session, final Series series, MetricCollection g
+        ) {
             g.updateAggregation(session, series.getTags(), ImmutableSet.of(series));
             dataInMemoryReporter.reportDataNoLongerNeeded(g.size());
         }
 
+        /**
+         * Called when a fetch of the given series has completed, once all fetches of a series
+         * which is streamed on its own have completed the series is sent.
+         */
+        void fetched(final StreamedSeries own) {
+            if (own != null && own.remaining.decrementAndGet() == 0) {
+                emit(own.session.result().getResult());
+            }
+        }
+
+        /**
+         * Hand the given outputs to the stream as result groups, as long as the group limit
+         * allows.
+         */
+        synchronized void emit(final List<AggregationOutput> outputs) {
+            final List<ResultGroup> groups = new ArrayList<>();
+
+            for (final AggregationOutput output : outputs) {
+                if (groupLimit.isGreaterOrEqual(streamed)) {
+                    streamLimited = true;
+                    break;
+                }
+
+                groups.add(resultGroup(output));
+                streamed++;
+            }
+
+            if (!groups.isEmpty()) {
+                stream.get().accept(groups);
+            }
+        }
+
+        ResultGroup resultGroup(final AggregationOutput group) {
+            final Set<Series> series =
+                compactSeries ? CompactSeriesSet.of(group.getSeries()) : group.getSeries();
+
+            return new ResultGroup(group.getKey(), series, group.getMetrics(),
+                aggregation.cadence());
+        }
+
         @Override
         public void failed(final Throwable cause) throws Exception {
             errors.add(cause);
@@ -485,6 +603,27 @@ public class LocalMetricManager implements MetricManager {
 
             final AggregationResult result = session.result();
 
+            if (stream.isPresent()) {
+                for (final AggregationOutput group : result.getResult()) {
+                    emit(ImmutableList.of(group));
+                }
+
+                synchronized (this) {
+                    if (streamLimited) {
+                        if (failOnLimits) {
+                            errorsBuilder.add(QueryError.fromMessage(
+                                "The number of result groups is more than the allowed limit of " +
+                                    groupLimit));
+                        }
+
+                        limitsBuilder.add(ResultLimit.GROUP);
+                    }
+                }
+
+                return new FullQuery(trace, errorsBuilder.build(), ImmutableList.of(),
+                    result.getStatistics(), new ResultLimits(limitsBuilder.build()));
+            }
+
             final List<ResultGroup> groups = new ArrayList<>();
 
             for (final AggregationOutput group : result.getResult()) {
@@ -502,8 +641,7 @@ public class LocalMetricManager implements MetricManager {
                     break;
                 }
 
-                groups.add(new ResultGroup(group.getKey(), group.getSeries(), group.getMetrics(),
-                    aggregation.cadence()));
+                groups.add(resultGroup(group));
             }
 
             return new FullQuery(trace, errorsBuilder.build(), groups, result.getStatistics(),
@@ -520,6 +658,16 @@ public class LocalMetricManager implements MetricManager {
         }
     }
 
+    /**
+     * A series which is aggregated in a session of its own, and streamed once all of its fetches
+     * have completed.
+     */
+    @RequiredArgsConstructor
+    private static class StreamedSeries {
+        private final AggregationSession session;
+        private final AtomicInteger remaining;
+    }
+
     @RequiredArgsConstructor
     private static class QuotaWatcher implements FetchQuotaWatcher, RetainQuotaWatcher {
         private final long dataLimit;
@@ -553,6 +701,10 @@ public class LocalMetricManager implements MetricManager {
             return mayReadData();
         }
 
+        long getReadData() {
+            return read.get();
+        }
+
         @Override
         public int getReadDataQuota() {
             return getLeft(dataLimit, read.get());
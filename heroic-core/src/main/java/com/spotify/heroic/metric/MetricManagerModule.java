@@ -29,6 +29,7 @@ import static java.util.Optional.of;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.spotify.heroic.analytics.MetricAnalytics;
+import com.spotify.heroic.common.Duration;
 import com.spotify.heroic.common.GroupSet;
 import com.spotify.heroic.common.ModuleIdBuilder;
 import com.spotify.heroic.common.OptionalLimit;
@@ -42,6 +43,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Named;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -52,8 +54,17 @@ import lombok.NoArgsConstructor;
 @Module
 public class MetricManagerModule {
     public static final int DEFAULT_FETCH_PARALLELISM = 100;
+    public static final int DEFAULT_MAX_IN_FLIGHT_FETCHES = 1000;
     public static final boolean DEFAULT_FAIL_ON_LIMITS = false;
     public static final long DEFAULT_SMALL_QUERY_THRESHOLD = 200000;
+    public static final long DEFAULT_SEGMENT_CACHE_SIZE = 0;
+    public static final long DEFAULT_SEGMENT_CACHE_WIDTH = 60;
+    public static final Duration DEFAULT_SEGMENT_CACHE_EXPIRE = Duration.of(1, TimeUnit.HOURS);
+    public static final double DEFAULT_HEDGE_QUANTILE = 0.95;
+    public static final double DEFAULT_HEDGE_BUDGET = 0;
+    public static final long DEFAULT_ADMISSION_BUDGET = 0;
+    public static final long DEFAULT_ADMISSION_CLIENT_BUDGET = 0;
+    public static final int DEFAULT_ADMISSION_QUEUE_SIZE = 100;
 
     private final List<MetricModule> backends;
     private final Optional<List<String>> defaultBackends;
@@ -79,10 +90,15 @@ public class MetricManagerModule {
     private final OptionalLimit dataLimit;
 
     /**
-     * How many data fetches are performed in parallel.
+     * How many data fetches are performed in parallel for a single query.
      */
     private final int fetchParallelism;
 
+    /**
+     * How many data fetches are performed in parallel across all queries.
+     */
+    private final int maxInFlightFetches;
+
     /**
      * If {@code true}, will cause any limits applied to be reported as a failure.
      */
@@ -93,6 +109,48 @@ public class MetricManagerModule {
      */
     private final long smallQueryThreshold;
 
+    /**
+     * Maximum number of closed query segments to cache, {@code 0} disables the segment cache.
+     */
+    private final long segmentCacheSize;
+
+    /**
+     * Width of a cached query segment, in number of cadences.
+     */
+    private final long segmentCacheWidth;
+
+    /**
+     * How long a closed query segment is kept after it was cached.
+     */
+    private final Duration segmentCacheExpire;
+
+    /**
+     * Quantile of recent shard latencies after which a read request is hedged on another node.
+     */
+    private final double hedgeQuantile;
+
+    /**
+     * Fraction of shard read requests that may be hedged, {@code 0} disables hedging.
+     */
+    private final double hedgeBudget;
+
+    /**
+     * Total estimated cost of queries that may be running at the same time, {@code 0} disables
+     * admission control.
+     */
+    private final long admissionBudget;
+
+    /**
+     * Total estimated cost of queries from a single client that may be running at the same time,
+     * {@code 0} uses the admission budget.
+     */
+    private final long admissionClientBudget;
+
+    /**
+     * Maximum number of queries waiting to be admitted.
+     */
+    private final int admissionQueueSize;
+
     @Provides
     @MetricScope
     public MetricBackendReporter reporter(HeroicReporter reporter) {
@@ -182,6 +240,13 @@ public class MetricManagerModule {
         return fetchParallelism;
     }
 
+    @Provides
+    @MetricScope
+    @Named("maxInFlightFetches")
+    public int maxInFlightFetches() {
+        return maxInFlightFetches;
+    }
+
     @Provides
     @MetricScope
     @Named("failOnLimits")
@@ -210,8 +275,17 @@ public class MetricManagerModule {
         private OptionalLimit aggregationLimit = OptionalLimit.empty();
         private OptionalLimit dataLimit = OptionalLimit.empty();
         private Optional<Integer> fetchParallelism = empty();
+        private Optional<Integer> maxInFlightFetches = empty();
         private Optional<Boolean> failOnLimits = empty();
         private Optional<Long> smallQueryThreshold = empty();
+        private Optional<Long> segmentCacheSize = empty();
+        private Optional<Long> segmentCacheWidth = empty();
+        private Optional<Duration> segmentCacheExpire = empty();
+        private Optional<Double> hedgeQuantile = empty();
+        private Optional<Double> hedgeBudget = empty();
+        private Optional<Long> admissionBudget = empty();
+        private Optional<Long> admissionClientBudget = empty();
+        private Optional<Integer> admissionQueueSize = empty();
 
         public Builder backends(List<MetricModule> backends) {
             this.backends = of(backends);
@@ -248,6 +322,11 @@ public class MetricManagerModule {
             return this;
         }
 
+        public Builder maxInFlightFetches(Integer maxInFlightFetches) {
+            this.maxInFlightFetches = of(maxInFlightFetches);
+            return this;
+        }
+
         public Builder failOnLimits(boolean failOnLimits) {
             this.failOnLimits = of(failOnLimits);
             return this;
@@ -258,6 +337,46 @@ public class MetricManagerModule {
             return this;
         }
 
+        public Builder segmentCacheSize(long segmentCacheSize) {
+            this.segmentCacheSize = of(segmentCacheSize);
+            return this;
+        }
+
+        public Builder segmentCacheWidth(long segmentCacheWidth) {
+            this.segmentCacheWidth = of(segmentCacheWidth);
+            return this;
+        }
+
+        public Builder segmentCacheExpire(Duration segmentCacheExpire) {
+            this.segmentCacheExpire = of(segmentCacheExpire);
+            return this;
+        }
+
+        public Builder hedgeQuantile(double hedgeQuantile) {
+            this.hedgeQuantile = of(hedgeQuantile);
+            return this;
+        }
+
+        public Builder hedgeBudget(double hedgeBudget) {
+            this.hedgeBudget = of(hedgeBudget);
+            return this;
+        }
+
+        public Builder admissionBudget(long admissionBudget) {
+            this.admissionBudget = of(admissionBudget);
+            return this;
+        }
+
+        public Builder admissionClientBudget(long admissionClientBudget) {
+            this.admissionClientBudget = of(admissionClientBudget);
+            return this;
+        }
+
+        public Builder admissionQueueSize(int admissionQueueSize) {
+            this.admissionQueueSize = of(admissionQueueSize);
+            return this;
+        }
+
         public Builder merge(final Builder o) {
             // @formatter:off
             return new Builder(
@@ -268,8 +387,17 @@ public class MetricManagerModule {
                 aggregationLimit.orElse(o.aggregationLimit),
                 dataLimit.orElse(o.dataLimit),
                 pickOptional(fetchParallelism, o.fetchParallelism),
+                pickOptional(maxInFlightFetches, o.maxInFlightFetches),
                 pickOptional(failOnLimits, o.failOnLimits),
-                pickOptional(smallQueryThreshold, o.smallQueryThreshold)
+                pickOptional(smallQueryThreshold, o.smallQueryThreshold),
+                pickOptional(segmentCacheSize, o.segmentCacheSize),
+                pickOptional(segmentCacheWidth, o.segmentCacheWidth),
+                pickOptional(segmentCacheExpire, o.segmentCacheExpire),
+                pickOptional(hedgeQuantile, o.hedgeQuantile),
+                pickOptional(hedgeBudget, o.hedgeBudget),
+                pickOptional(admissionBudget, o.admissionBudget),
+                pickOptional(admissionClientBudget, o.admissionClientBudget),
+                pickOptional(admissionQueueSize, o.admissionQueueSize)
             );
             // @formatter:on
         }
@@ -284,8 +412,17 @@ public class MetricManagerModule {
                 aggregationLimit,
                 dataLimit,
                 fetchParallelism.orElse(DEFAULT_FETCH_PARALLELISM),
+                maxInFlightFetches.orElse(DEFAULT_MAX_IN_FLIGHT_FETCHES),
                 failOnLimits.orElse(DEFAULT_FAIL_ON_LIMITS),
-                smallQueryThreshold.orElse(DEFAULT_SMALL_QUERY_THRESHOLD)
+                smallQueryThreshold.orElse(DEFAULT_SMALL_QUERY_THRESHOLD),
+                segmentCacheSize.orElse(DEFAULT_SEGMENT_CACHE_SIZE),
+                segmentCacheWidth.orElse(DEFAULT_SEGMENT_CACHE_WIDTH),
+                segmentCacheExpire.orElse(DEFAULT_SEGMENT_CACHE_EXPIRE),
+                hedgeQuantile.orElse(DEFAULT_HEDGE_QUANTILE),
+                hedgeBudget.orElse(DEFAULT_HEDGE_BUDGET),
+                admissionBudget.orElse(DEFAULT_ADMISSION_BUDGET),
+                admissionClientBudget.orElse(DEFAULT_ADMISSION_CLIENT_BUDGET),
+                admissionQueueSize.orElse(DEFAULT_ADMISSION_QUEUE_SIZE)
             );
             // @formatter:on
         }
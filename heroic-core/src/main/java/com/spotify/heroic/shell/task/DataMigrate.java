@@ -27,7 +27,9 @@ import com.spotify.heroic.QueryOptions;
 import com.spotify.heroic.async.AsyncObservable;
 import com.spotify.heroic.async.AsyncObserver;
 import com.spotify.heroic.dagger.CoreComponent;
+import com.spotify.heroic.common.Series;
 import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.FilterCompiler;
 import com.spotify.heroic.grammar.QueryParser;
 import com.spotify.heroic.metric.BackendKey;
 import com.spotify.heroic.metric.BackendKeyFilter;
@@ -58,6 +60,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import javax.inject.Inject;
@@ -120,7 +123,8 @@ public class DataMigrate implements ShellTask {
             observable = from.streamKeys(keyFilter, options.build());
         }
 
-        observable.observe(new KeyObserver(io, params, filter, from, to, future, errors));
+        observable.observe(
+            new KeyObserver(io, params, FilterCompiler.compile(filter), from, to, future, errors));
 
         return future.directTransform(v -> {
             io.out().println();
@@ -143,7 +147,7 @@ public class DataMigrate implements ShellTask {
     class KeyObserver implements AsyncObserver<BackendKeySet> {
         final ShellIO io;
         final Parameters params;
-        final Filter filter;
+        final Predicate<Series> filter;
         final MetricBackend from;
         final MetricBackend to;
         final ResolvableFuture<Void> future;
@@ -225,7 +229,7 @@ public class DataMigrate implements ShellTask {
         }
 
         void streamOne(final BackendKey key) {
-            if (!filter.apply(key.getSeries())) {
+            if (!filter.test(key.getSeries())) {
                 endOne(key);
                 return;
             }
@@ -88,6 +88,10 @@ public class Query implements ShellTask {
         params.groupLimit.ifPresent(optionsBuilder::groupLimit);
         params.seriesLimit.ifPresent(optionsBuilder::seriesLimit);
 
+        if (params.compactSeries) {
+            optionsBuilder.compactSeries(true);
+        }
+
         final Optional<QueryOptions> options = Optional.of(optionsBuilder.build());
 
         final Optional<QueryDateRange> range =
@@ -151,6 +155,9 @@ public class Query implements ShellTask {
 
         @Option(name = "--series-limit", usage = "Enable number of series used")
         private Optional<Long> seriesLimit = Optional.empty();
+
+        @Option(name = "--compact-series", usage = "Summarize the series of every result group")
+        private boolean compactSeries = false;
     }
 
     public static Query setup(final CoreComponent core) {
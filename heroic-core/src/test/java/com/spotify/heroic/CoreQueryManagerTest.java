@@ -7,7 +7,9 @@ import static org.mockito.Mockito.when;
 
 import com.spotify.heroic.aggregation.AggregationFactory;
 import com.spotify.heroic.cache.QueryCache;
+import com.spotify.heroic.cache.QuerySegmentCache;
 import com.spotify.heroic.cluster.ClusterManager;
+import com.spotify.heroic.cluster.ShardHedging;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Features;
 import com.spotify.heroic.common.OptionalLimit;
@@ -39,6 +41,9 @@ public class CoreQueryManagerTest {
     @Mock
     private QueryCache queryCache;
 
+    @Mock
+    private QuerySegmentCache segmentCache;
+
     @Mock
     private AggregationFactory aggregations;
 
@@ -52,8 +57,8 @@ public class CoreQueryManagerTest {
         when(queryLoggerFactory.create(any())).thenReturn(queryLogger);
 
         manager = new CoreQueryManager(Features.empty(), async, Clock.system(), cluster, parser,
-            queryCache, aggregations, OptionalLimit.empty(), smallQueryThreshold, apiReporter,
-            queryLoggerFactory);
+            queryCache, segmentCache, aggregations, OptionalLimit.empty(), smallQueryThreshold,
+            apiReporter, queryLoggerFactory, ShardHedging.disabled(), QueryAdmission.disabled());
     }
 
     @Test
@@ -0,0 +1,242 @@
+package com.spotify.heroic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.MatchKeyFilter;
+import com.spotify.heroic.metadata.CountSeries;
+import com.spotify.heroic.metric.AdmissionError;
+import com.spotify.heroic.querylogging.HttpContext;
+import com.spotify.heroic.querylogging.QueryContext;
+import com.spotify.heroic.statistics.ApiReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.TinyAsync;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QueryAdmissionTest {
+    /* ten minutes, so that a single series costs 10 */
+    private final DateRange range =
+        new DateRange(0, TimeUnit.MILLISECONDS.convert(10, TimeUnit.MINUTES));
+
+    @Mock
+    private ApiReporter reporter;
+    @Mock
+    private AggregationInstance aggregation;
+
+    private AsyncFramework async;
+
+    /* requests to count series, in order */
+    private List<CountSeries.Request> counted;
+    private long series;
+
+    private QueryAdmission admission;
+
+    @Before
+    public void setup() {
+        async = TinyAsync.builder().executor(MoreExecutors.newDirectExecutorService()).build();
+        counted = new ArrayList<>();
+        series = 1;
+        doReturn(0L).when(aggregation).estimate(any(DateRange.class));
+        admission = new QueryAdmission(async, reporter, 30, 20, 2);
+    }
+
+    @Test
+    public void testCost() throws Exception {
+        doReturn(5L).when(aggregation).estimate(range);
+
+        final QueryAdmission.Ticket ticket = admit("a", filter("a")).get();
+
+        assertFalse(ticket.getRejection().isPresent());
+        assertEquals(15L, ticket.getCost());
+        assertEquals(15L, admission.running());
+
+        ticket.release();
+        ticket.release();
+        assertEquals(0L, admission.running());
+    }
+
+    @Test
+    public void testCachedSeriesCount() throws Exception {
+        admit("a", filter("a")).get().release();
+        admit("a", filter("a")).get().release();
+        admit("a", filter("b")).get().release();
+
+        assertEquals(2, counted.size());
+
+        /* counts are cached per range bucket */
+        final DateRange later = range.shift(QueryAdmission.SERIES_COUNT_BUCKET);
+        admission.admit(context("a"), filter("a"), later, aggregation, count()).get().release();
+        admission.admit(context("a"), filter("a"), later, aggregation, count()).get().release();
+
+        assertEquals(3, counted.size());
+    }
+
+    @Test
+    public void testCachedLimitedSeriesCount() throws Exception {
+        series = 100;
+
+        assertTrue(admit("a", filter("a")).get().getRejection().isPresent());
+        assertTrue(admit("a", filter("a")).get().getRejection().isPresent());
+
+        assertEquals(1, counted.size());
+
+        /* a shorter query has a higher limit than what was counted */
+        final DateRange shorter =
+            new DateRange(0, TimeUnit.MILLISECONDS.convert(1, TimeUnit.MINUTES));
+        admission.admit(context("a"), filter("a"), shorter, aggregation, count()).get();
+
+        assertEquals(2, counted.size());
+    }
+
+    @Test
+    public void testFailedSeriesCount() throws Exception {
+        final QueryAdmission.Ticket ticket = admission
+            .admit(context("a"), filter("a"), range, aggregation,
+                request -> async.failed(new RuntimeException("failed")))
+            .get();
+
+        /* the query is charged the whole budget of its client */
+        assertFalse(ticket.getRejection().isPresent());
+        assertEquals(20L, ticket.getCost());
+    }
+
+    @Test
+    public void testQueueUntilReleased() throws Exception {
+        series = 2;
+
+        final QueryAdmission.Ticket a = admit("a", filter("a")).get();
+        final AsyncFuture<QueryAdmission.Ticket> b = admit("b", filter("a"));
+
+        assertFalse(b.isDone());
+        assertEquals(1, admission.queued());
+        verify(reporter).reportQueryQueued();
+
+        a.release();
+        assertTrue(b.isResolved());
+        assertEquals(20L, admission.running());
+
+        b.get().release();
+        assertEquals(0L, admission.running());
+    }
+
+    @Test
+    public void testClientBudget() throws Exception {
+        admit("a", filter("a")).get();
+        admit("a", filter("a")).get();
+
+        /* the client has used up its budget, but doesn't hold up other clients */
+        final AsyncFuture<QueryAdmission.Ticket> a = admit("a", filter("a"));
+        final AsyncFuture<QueryAdmission.Ticket> b = admit("b", filter("a"));
+
+        assertFalse(a.isDone());
+        assertTrue(b.isResolved());
+    }
+
+    @Test
+    public void testRejectExpensive() throws Exception {
+        series = 3;
+
+        final QueryAdmission.Ticket ticket = admit("a", filter("a")).get();
+        final AdmissionError error = ticket.getRejection().get();
+
+        assertEquals("a", error.getClient());
+        assertEquals(30L, error.getCost());
+        assertEquals(20L, error.getBudget());
+        assertEquals(0L, admission.running());
+        verify(reporter).reportQueryRejected();
+
+        /* counting stops as soon as the query can't fit */
+        assertEquals(3L, counted.get(0).getLimit().asLong().get().longValue());
+    }
+
+    @Test
+    public void testRejectQueueFull() throws Exception {
+        series = 2;
+
+        admit("a", filter("a")).get();
+        admit("b", filter("a"));
+        admit("c", filter("a"));
+
+        final QueryAdmission.Ticket ticket = admit("d", filter("a")).get();
+
+        assertTrue(ticket.getRejection().isPresent());
+        assertEquals(2, admission.queued());
+    }
+
+    @Test
+    public void testCancelQueued() throws Exception {
+        series = 2;
+
+        final QueryAdmission.Ticket a = admit("a", filter("a")).get();
+        final AsyncFuture<QueryAdmission.Ticket> b = admit("b", filter("a"));
+
+        b.cancel();
+        assertEquals(0, admission.queued());
+
+        a.release();
+        assertEquals(0L, admission.running());
+    }
+
+    @Test
+    public void testClient() {
+        final HttpContext http = new HttpContext("addr", "host", "client-addr", Optional.empty(),
+            Optional.of("client-id"));
+        final HttpContext anonymous =
+            new HttpContext("addr", "host", "client-addr", Optional.empty(), Optional.empty());
+
+        assertEquals("client-id", QueryAdmission.client(context(Optional.of(http))));
+        assertEquals("client-addr", QueryAdmission.client(context(Optional.of(anonymous))));
+        assertEquals(QueryAdmission.INTERNAL_CLIENT, QueryAdmission.client(QueryContext.empty()));
+    }
+
+    @Test
+    public void testCostSaturates() {
+        assertEquals(Long.MAX_VALUE, QueryAdmission.cost(Long.MAX_VALUE, 2, 0));
+    }
+
+    private AsyncFuture<QueryAdmission.Ticket> admit(final String client, final Filter filter) {
+        return admission.admit(context(client), filter, range, aggregation, count());
+    }
+
+    private Function<CountSeries.Request, AsyncFuture<CountSeries>> count() {
+        return request -> {
+            counted.add(request);
+            final long limit = request.getLimit().asLong().get();
+            return async.resolved(CountSeries.of(Math.min(series, limit), series > limit));
+        };
+    }
+
+    private QueryContext context(final String client) {
+        final HttpContext http =
+            new HttpContext(client, client, client, Optional.empty(), Optional.of(client));
+        return context(Optional.of(http));
+    }
+
+    private Filter filter(final String key) {
+        return new MatchKeyFilter(key);
+    }
+
+    private QueryContext context(final Optional<HttpContext> http) {
+        return new QueryContext(UUID.randomUUID(), Optional.empty(), http);
+    }
+}
@@ -0,0 +1,186 @@
+package com.spotify.heroic.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Features;
+import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.TrueFilter;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.QueryError;
+import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.RequestError;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import com.spotify.heroic.querylogging.QueryContext;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.TinyAsync;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QuerySegmentCacheTest {
+    private static final long CADENCE = 1000L;
+    private static final long TOLERANCE = 500L;
+    private static final List<Map<String, String>> SHARDS = ImmutableList.of(ImmutableMap.of());
+    private static final Map<String, String> SHARD = ImmutableMap.of("site", "lon");
+    private static final Series SERIES = Series.of("foo");
+
+    private AsyncFramework async;
+    private AggregationInstance aggregation;
+    private ObjectMapper mapper;
+    private QuerySegmentCache cache;
+
+    private List<DateRange> loaded;
+    private List<RequestError> errors;
+
+    @Before
+    public void setup() throws Exception {
+        async = TinyAsync.builder().executor(Executors.newSingleThreadExecutor()).build();
+
+        aggregation = mock(AggregationInstance.class);
+        doReturn(CADENCE).when(aggregation).cadence();
+
+        mapper = mock(ObjectMapper.class);
+        doReturn("aggregation").when(mapper).writeValueAsString(any());
+
+        /* segments are two cadences wide */
+        cache = new QuerySegmentCache(async, mapper, 100, 2, TOLERANCE, 3600000L);
+
+        loaded = new ArrayList<>();
+        errors = ImmutableList.of();
+    }
+
+    @Test
+    public void testColdLoadIsSingleFetch() throws Exception {
+        final QueryResult result = load(range(0L, 10000L), 100000L);
+
+        assertEquals(ImmutableList.of(range(0L, 10000L)), loaded);
+        assertEquals(points(range(0L, 10000L)), points(result));
+    }
+
+    @Test
+    public void testSlidingQueryOnlyFetchesUncached() throws Exception {
+        load(range(0L, 10000L), 100000L);
+        loaded.clear();
+
+        final QueryResult result = load(range(2000L, 13000L), 100000L);
+
+        /* the first segment is always fetched, the rest of the head is cached */
+        assertEquals(ImmutableList.of(range(2000L, 4000L), range(10000L, 13000L)), loaded);
+        assertEquals(points(range(2000L, 13000L)), points(result));
+        assertEquals(ImmutableSet.of(SERIES), result.getGroups().get(0).getSeries());
+        assertEquals(ImmutableList.of(), result.getErrors());
+    }
+
+    @Test
+    public void testOpenSegmentsAreNotCached() throws Exception {
+        /* (8000, 10000] is still open */
+        load(range(0L, 10000L), 10000L);
+        loaded.clear();
+
+        final QueryResult result = load(range(2000L, 10000L), 100000L);
+
+        assertEquals(ImmutableList.of(range(2000L, 4000L), range(8000L, 10000L)), loaded);
+        assertEquals(points(range(2000L, 10000L)), points(result));
+    }
+
+    @Test
+    public void testErrorsAreNotCached() throws Exception {
+        errors = ImmutableList.of(QueryError.fromMessage("error"));
+        load(range(0L, 10000L), 100000L);
+        loaded.clear();
+
+        errors = ImmutableList.of();
+        load(range(0L, 10000L), 100000L);
+
+        assertEquals(ImmutableList.of(range(0L, 10000L)), loaded);
+    }
+
+    @Test
+    public void testAggregationIsPartOfIdentity() throws Exception {
+        load(range(0L, 10000L), 100000L);
+        loaded.clear();
+
+        /* same cadence, but a different aggregation */
+        doReturn("other").when(mapper).writeValueAsString(any());
+        load(range(0L, 10000L), 100000L);
+
+        assertEquals(ImmutableList.of(range(0L, 10000L)), loaded);
+    }
+
+    @Test
+    public void testUnalignedRangeBypassesCache() throws Exception {
+        load(range(0L, 10000L), 100000L);
+        loaded.clear();
+
+        load(range(500L, 10500L), 100000L);
+
+        assertEquals(ImmutableList.of(range(500L, 10500L)), loaded);
+    }
+
+    private QueryResult load(final DateRange range, final long now) throws Exception {
+        final FullQuery.Request request =
+            new FullQuery.Request(MetricType.POINT, TrueFilter.get(), range, aggregation,
+                QueryOptions.defaults(), QueryContext.empty(), Features.empty());
+
+        return cache.load(SHARDS, request, OptionalLimit.empty(), now, this::fetch).get();
+    }
+
+    /**
+     * Fake a bucketed query, the bucket at the start of the range is negative to verify that it
+     * is only included once.
+     */
+    private AsyncFuture<QueryResult> fetch(final DateRange range) {
+        loaded.add(range);
+        return async.resolved(result(range, errors));
+    }
+
+    private static QueryResult result(final DateRange range, final List<RequestError> errors) {
+        final List<Point> points = new ArrayList<>();
+
+        points.add(new Point(range.start(), -1D));
+
+        for (long ts = range.start() + CADENCE; ts <= range.end(); ts += CADENCE) {
+            points.add(new Point(ts, ts));
+        }
+
+        final ShardedResultGroup group =
+            new ShardedResultGroup(SHARD, ImmutableMap.of(), ImmutableSet.of(SERIES),
+                MetricCollection.points(points), CADENCE);
+
+        return new QueryResult(range, ImmutableList.of(group), errors,
+            QueryTrace.of(QueryTrace.identifier("test"), 0L), ResultLimits.of(), points.size());
+    }
+
+    private static List<Point> points(final DateRange range) {
+        return points(result(range, ImmutableList.of()));
+    }
+
+    private static List<Point> points(final QueryResult result) {
+        assertEquals(1, result.getGroups().size());
+        return result.getGroups().get(0).getMetrics().getDataAs(Point.class);
+    }
+
+    private static DateRange range(final long start, final long end) {
+        return new DateRange(start, end);
+    }
+}
@@ -0,0 +1,192 @@
+package com.spotify.heroic.cache.memcached;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Duration;
+import com.spotify.heroic.common.Features;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.TrueFilter;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.QueryError;
+import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.RequestError;
+import com.spotify.heroic.metric.ResultLimit;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import com.spotify.heroic.querylogging.QueryContext;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.Managed;
+import eu.toolchain.async.ManagedSetup;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemcachedQueryCacheTest {
+    private static final DateRange RANGE = new DateRange(0L, 10000L);
+
+    private AsyncFramework async;
+    private ObjectMapper mapper;
+    private FakeMemcachedConnection connection;
+    private FullQuery.Request request;
+
+    @Before
+    public void setup() throws Exception {
+        async = TinyAsync.builder().executor(Executors.newSingleThreadExecutor()).build();
+        connection = new FakeMemcachedConnection(async);
+
+        mapper = mock(ObjectMapper.class);
+        doReturn(new byte[0]).when(mapper).writeValueAsBytes(any());
+
+        final AggregationInstance aggregation = mock(AggregationInstance.class);
+        doReturn(1000L).when(aggregation).cadence();
+
+        request = new FullQuery.Request(MetricType.POINT, TrueFilter.get(), RANGE, aggregation,
+            QueryOptions.defaults(), mock(QueryContext.class), Features.empty());
+    }
+
+    @Test
+    public void testSharedBetweenNodes() throws Exception {
+        final QueryResult expected = result(ImmutableList.of(), ResultLimits.of());
+        final AtomicInteger loads = new AtomicInteger();
+
+        final QueryResult first = newCache().load(request, () -> {
+            loads.incrementAndGet();
+            return async.resolved(expected);
+        }).get();
+
+        final QueryResult second = newCache().load(request, () -> {
+            loads.incrementAndGet();
+            return async.resolved(expected);
+        }).get();
+
+        assertEquals(1, loads.get());
+        assertEquals(expected, first);
+        assertEquals(expected.getGroups(), second.getGroups());
+        assertEquals(expected.getLimits(), second.getLimits());
+        assertEquals(expected.getRange(), second.getRange());
+    }
+
+    @Test
+    public void testErrorsAreNotCached() throws Exception {
+        final QueryResult failed =
+            result(ImmutableList.of(QueryError.fromMessage("shard failed")),
+                ResultLimits.of());
+        final AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            newCache().load(request, () -> {
+                loads.incrementAndGet();
+                return async.resolved(failed);
+            }).get();
+        }
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testLimitedAreNotCached() throws Exception {
+        final QueryResult limited =
+            result(ImmutableList.of(), ResultLimits.of(ResultLimit.SERIES));
+        final AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            newCache().load(request, () -> {
+                loads.incrementAndGet();
+                return async.resolved(limited);
+            }).get();
+        }
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testCancelOnlyAffectsCaller() throws Exception {
+        final QueryResult expected = result(ImmutableList.of(), ResultLimits.of());
+        final ResolvableFuture<QueryResult> loading = async.future();
+        final AtomicInteger loads = new AtomicInteger();
+
+        final MemcachedQueryCache cache = newCache();
+
+        final AsyncFuture<QueryResult> first = cache.load(request, () -> {
+            loads.incrementAndGet();
+            return loading;
+        });
+
+        final AsyncFuture<QueryResult> second = cache.load(request, () -> {
+            loads.incrementAndGet();
+            return loading;
+        });
+
+        second.cancel();
+        loading.resolve(expected);
+
+        assertEquals(expected, first.get());
+        assertTrue(second.isCancelled());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        final QueryResultSerializer serializer = new QueryResultSerializer(mapper);
+        final QueryResult expected =
+            result(ImmutableList.of(), ResultLimits.of(ResultLimit.SERIES));
+        final QueryResult result =
+            serializer.deserialize(serializer.serialize(expected), expected.getTrace());
+
+        assertEquals(expected, result);
+    }
+
+    private MemcachedQueryCache newCache() throws Exception {
+        final Managed<MemcachedConnection> managed =
+            async.managed(new ManagedSetup<MemcachedConnection>() {
+                @Override
+                public AsyncFuture<MemcachedConnection> construct() {
+                    return async.resolved(connection);
+                }
+
+                @Override
+                public AsyncFuture<Void> destruct(final MemcachedConnection value) {
+                    return async.resolved();
+                }
+            });
+
+        managed.start().get();
+
+        return new MemcachedQueryCache(async, managed, mapper, "test:",
+            Duration.of(1, TimeUnit.SECONDS), Duration.of(1, TimeUnit.HOURS), 1024 * 1024);
+    }
+
+    private QueryResult result(final List<RequestError> errors, final ResultLimits limits) {
+        final MetricCollection points = MetricCollection.points(
+            ImmutableList.of(new Point(1000L, 1D), new Point(2000L, Double.NaN),
+                new Point(-5000L, 3D)));
+
+        final ShardedResultGroup group =
+            new ShardedResultGroup(ImmutableMap.of("site", "lon"), ImmutableMap.of("host", "a"),
+                ImmutableSet.of(Series.of("foo", ImmutableMap.of("host", "a"))), points, 1000L);
+
+        return new QueryResult(RANGE, ImmutableList.of(group), errors,
+            QueryTrace.of(QueryTrace.identifier("test")), limits, 42L);
+    }
+}
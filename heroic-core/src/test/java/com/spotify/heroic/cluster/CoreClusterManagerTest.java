@@ -48,6 +48,9 @@ public class CoreClusterManagerTest {
     @Mock
     HeroicContext context;
 
+    @Mock
+    ReplicaSelector selector;
+
     private CoreClusterManager manager;
 
     @Before
@@ -55,7 +58,7 @@ public class CoreClusterManagerTest {
         final boolean useLocal = true;
 
         manager = spy(new CoreClusterManager(async, discovery, localMetadata, protocols, scheduler,
-            useLocal, options, local, context));
+            useLocal, options, local, context, selector));
     }
 
     @Test
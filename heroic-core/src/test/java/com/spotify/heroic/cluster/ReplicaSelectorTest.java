@@ -0,0 +1,168 @@
+package com.spotify.heroic.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.spotify.heroic.metadata.FindTags;
+import com.spotify.heroic.metrics.Clock;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReplicaSelectorTest {
+    private AsyncFramework async;
+    private long tick;
+    private ReplicaSelector selector;
+
+    private ClusterNode a;
+    private ClusterNode b;
+
+    @Before
+    public void setup() {
+        async = TinyAsync.builder().executor(MoreExecutors.newDirectExecutorService()).build();
+        tick = 0L;
+
+        final Clock clock = () -> tick;
+        selector = new ReplicaSelector(clock, new Random(0L));
+
+        a = mock(ClusterNode.class);
+        b = mock(ClusterNode.class);
+    }
+
+    @Test
+    public void testPrefersFastReplica() {
+        for (int i = 0; i < 10; i++) {
+            request(a, 10, false);
+            request(b, 100, false);
+        }
+
+        elapse(TimeUnit.SECONDS.toMillis(6));
+
+        assertTrue(firstPicks(a) > 900);
+        assertEquals(10D, selector.snapshot(a).getLatency(), 0.001D);
+        assertEquals(100D, selector.snapshot(b).getLatency(), 0.001D);
+    }
+
+    @Test
+    public void testAvoidsFailingReplica() {
+        for (int i = 0; i < 10; i++) {
+            request(a, 10, true);
+            request(b, 10, false);
+        }
+
+        elapse(TimeUnit.SECONDS.toMillis(6));
+
+        assertTrue(firstPicks(b) > 900);
+        assertEquals(1D, selector.snapshot(a).getErrorRate(), 0.001D);
+        assertEquals(0D, selector.snapshot(b).getErrorRate(), 0.001D);
+    }
+
+    @Test
+    public void testAvoidsOutstanding() {
+        final ResolvableFuture<FindTags> pending = async.future();
+        final ClusterNode.Group group = group(a, pending);
+
+        for (int i = 0; i < 3; i++) {
+            group.findTags(mock(FindTags.Request.class));
+        }
+
+        assertEquals(3, selector.snapshot(a).getOutstanding());
+        assertTrue(firstPicks(b) > 900);
+
+        pending.resolve(mock(FindTags.class));
+        assertEquals(0, selector.snapshot(a).getOutstanding());
+    }
+
+    @Test
+    public void testCancelledHedgeCountsAsSlow() {
+        for (int i = 0; i < 10; i++) {
+            request(a, 10, false);
+
+            /* the request to b is still outstanding when a hedge wins, and is cancelled */
+            final ResolvableFuture<FindTags> hedged = async.future();
+            group(b, hedged).findTags(mock(FindTags.Request.class));
+            elapse(100);
+            hedged.cancel();
+        }
+
+        elapse(TimeUnit.SECONDS.toMillis(6));
+
+        assertEquals(0, selector.snapshot(b).getOutstanding());
+        assertEquals(100D, selector.snapshot(b).getLatency(), 0.001D);
+        assertTrue(selector.snapshot(b).getScore() > selector.snapshot(a).getScore());
+        assertTrue(firstPicks(a) > 900);
+    }
+
+    @Test
+    public void testExplore() {
+        for (int i = 0; i < 4; i++) {
+            request(a, 10, false);
+            request(b, 1000, false);
+        }
+
+        elapse(TimeUnit.SECONDS.toMillis(6));
+
+        /* the slow replica is still picked first every now and then */
+        assertTrue(firstPicks(b) > 0);
+    }
+
+    @Test
+    public void testOrderContainsAll() {
+        final ClusterNode c = mock(ClusterNode.class);
+        final List<ClusterNode> ordered = selector.order(ImmutableList.of(a, b, c));
+
+        assertEquals(3, ordered.size());
+        assertTrue(ordered.containsAll(ImmutableList.of(a, b, c)));
+        assertSame(a, selector.pickOne(ImmutableList.of(a)).get());
+        assertTrue(!selector.pickOne(ImmutableList.of()).isPresent());
+    }
+
+    /**
+     * Count how many times the given node is ordered first out of 1000 orderings.
+     */
+    private int firstPicks(final ClusterNode node) {
+        int count = 0;
+
+        for (int i = 0; i < 1000; i++) {
+            if (selector.order(ImmutableList.of(a, b)).get(0) == node) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private void request(final ClusterNode node, final long latencyMillis, final boolean fail) {
+        final ResolvableFuture<FindTags> future = async.future();
+        group(node, future).findTags(mock(FindTags.Request.class));
+
+        elapse(latencyMillis);
+
+        if (fail) {
+            future.fail(new RuntimeException("request failed"));
+        } else {
+            future.resolve(mock(FindTags.class));
+        }
+    }
+
+    private ClusterNode.Group group(final ClusterNode node, final ResolvableFuture<FindTags> f) {
+        final ClusterNode.Group group = mock(ClusterNode.Group.class);
+        doReturn(f).when(group).findTags(any(FindTags.Request.class));
+        return selector.track(node, group);
+    }
+
+    private void elapse(final long millis) {
+        tick += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
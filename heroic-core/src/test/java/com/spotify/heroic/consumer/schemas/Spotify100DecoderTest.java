@@ -0,0 +1,89 @@
+package com.spotify.heroic.consumer.schemas;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.consumer.ConsumerSchemaValidationException;
+import com.spotify.heroic.metric.Point;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class Spotify100DecoderTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Spotify100Decoder decoder = new Spotify100Decoder();
+
+    @Test
+    public void testSameAsJackson() throws Exception {
+        final List<String> messages = ImmutableList.of(
+            "{\"version\": \"1.0.0\", \"key\": \"a\", \"host\": \"h\", \"time\": 1, " +
+                "\"attributes\": {\"b\": \"2\", \"a\": \"1\"}, \"value\": 4.5}",
+            "{\"attributes\": {\"a\": \"1\", \"n\": null, \"i\": 3}, \"value\": 2, " +
+                "\"unknown\": {\"x\": [1, 2]}, \"time\": \"10\", \"key\": \"b\", " +
+                "\"version\": \"1.0.0\"}",
+            "{\"version\": \"1.0.0\", \"key\": \"c\", \"time\": 1, \"attributes\": {}, " +
+                "\"value\": \"1.5\"}");
+
+        for (final String message : messages) {
+            final byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+            final Spotify100.JsonMetric expected = mapper.readValue(bytes,
+                Spotify100.JsonMetric.class);
+
+            final Map<String, String> tags = new HashMap<>(expected.getAttributes());
+            tags.put("host", expected.getHost());
+
+            final Spotify100Decoder.Decoded decoded = decoder.decode(bytes);
+
+            assertEquals(message, Series.of(expected.getKey(), tags), decoded.getSeries());
+            assertEquals(message, new Point(expected.getTime(), expected.getValue()),
+                decoded.getPoint());
+        }
+    }
+
+    @Test
+    public void testCachedSeries() throws Exception {
+        final Series a = decoder.decode(message("a", "{\"role\": \"web\"}", 1)).getSeries();
+        final Series b = decoder.decode(message("a", "{\"role\": \"web\"}", 2)).getSeries();
+        final Series c = decoder.decode(message("a", "{\"role\": \"db\"}", 3)).getSeries();
+
+        assertSame(a, b);
+        assertEquals(Series.of("a", ImmutableMap.of("role", "db", "host", "h")), c);
+        assertEquals(2, decoder.cachedSeries());
+    }
+
+    @Test
+    public void testInvalid() throws Exception {
+        final List<String> messages = ImmutableList.of("[]", "{\"version\": \"1.0.0\"",
+            "{\"version\": \"1.0.0\", \"key\": \"a\", \"time\": 1}",
+            "{\"version\": \"0.0.1\", \"key\": \"a\", \"time\": 1, \"value\": 1}",
+            "{\"version\": \"1.0.0\", \"key\": \"a\", \"value\": 1}",
+            "{\"version\": \"1.0.0\", \"time\": 1, \"value\": 1}",
+            "{\"version\": \"1.0.0\", \"key\": \"a\", \"time\": \"x\", \"value\": 1}",
+            "{\"version\": \"1.0.0\", \"key\": \"a\", \"time\": 1, \"value\": 1, " +
+                "\"attributes\": {\"a\": {}}}");
+
+        for (final String message : messages) {
+            try {
+                decoder.decode(message.getBytes(StandardCharsets.UTF_8));
+                fail("expected invalid: " + message);
+            } catch (final ConsumerSchemaValidationException e) {
+                /* expected */
+            }
+        }
+    }
+
+    private byte[] message(final String key, final String attributes, final long time) {
+        return String
+            .format("{\"version\": \"1.0.0\", \"key\": \"%s\", \"host\": \"h\", \"time\": %d, " +
+                "\"attributes\": %s, \"value\": 1.0}", key, time, attributes)
+            .getBytes(StandardCharsets.UTF_8);
+    }
+}
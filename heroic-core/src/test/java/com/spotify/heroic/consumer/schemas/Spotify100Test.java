@@ -1,10 +1,26 @@
 package com.spotify.heroic.consumer.schemas;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.consumer.ConsumerSchema;
+import com.spotify.heroic.ingestion.Ingestion;
+import com.spotify.heroic.ingestion.IngestionGroup;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.statistics.ConsumerReporter;
+import com.spotify.heroic.time.Clock;
+import eu.toolchain.async.AsyncFuture;
 import org.junit.Assert;
 import org.junit.Test;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
 public class Spotify100Test {
     @Test
     public void testIgnoreNullAttributes() throws Exception {
@@ -15,4 +31,36 @@ public class Spotify100Test {
         Assert.assertEquals(ImmutableMap.of("foo", "value"), m.getAttributes());
         Assert.assertEquals("a key", m.getKey());
     }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testConsumeBatchGroupsSeries() throws Exception {
+        final IngestionGroup ingestion = mock(IngestionGroup.class);
+        final AsyncFuture<Ingestion> write = mock(AsyncFuture.class);
+        doReturn(write).when(ingestion).write(any(Ingestion.Request.class));
+
+        final Spotify100.Consumer consumer =
+            new Spotify100.Consumer(mock(Clock.class), ingestion, mock(ConsumerReporter.class));
+
+        final ConsumerSchema.Batch batch = consumer.consumeBatch(
+            ImmutableList.of(message("a", 1, 1D), message("b", 1, 2D), message("a", 2, 3D),
+                "{\"version\": \"1.0.0\"}".getBytes()));
+
+        Assert.assertEquals(1, batch.getInvalid());
+        Assert.assertEquals(2, batch.getWrites().size());
+
+        final Series a = Series.of("a", ImmutableMap.of("host", "host", "tag", "value"));
+
+        verify(ingestion).write(new Ingestion.Request(a,
+            MetricCollection.points(ImmutableList.of(new Point(1, 1D), new Point(2, 3D)))));
+        verify(ingestion, times(2)).write(any(Ingestion.Request.class));
+    }
+
+    private byte[] message(final String key, final long time, final double value) {
+        return String
+            .format("{\"version\": \"1.0.0\", \"key\": \"%s\", \"host\": \"host\", " +
+                "\"time\": %d, \"attributes\": {\"tag\": \"value\"}, \"value\": %s}", key, time,
+                value)
+            .getBytes();
+    }
 }
@@ -0,0 +1,180 @@
+package com.spotify.heroic.ingestion;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.scheduler.Scheduler;
+import com.spotify.heroic.scheduler.Task;
+import com.spotify.heroic.statistics.IngestionManagerReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchingIngestionGroupTest {
+    private final Series a = Series.of("a");
+    private final Series b = Series.of("b");
+
+    @Mock
+    private Scheduler scheduler;
+    @Mock
+    private IngestionManagerReporter reporter;
+    @Mock
+    private CoreIngestionGroup delegate;
+
+    private AsyncFramework async;
+    private BatchingIngestionGroup group;
+
+    @Before
+    public void setup() {
+        async = TinyAsync.builder().executor(MoreExecutors.newDirectExecutorService()).build();
+
+        doReturn(async.resolved(Ingestion.of(ImmutableList.of(1L))))
+            .when(delegate)
+            .doWrite(any(Ingestion.Request.class));
+
+        group = new BatchingIngestionGroup(async, scheduler, () -> s -> !s.getKey().equals("x"),
+            reporter, new LongAdder(), delegate, 4, 100, 6);
+    }
+
+    @Test
+    public void testFlushWhenFull() throws Exception {
+        final AsyncFuture<Ingestion> first = group.write(request(a, 1, 2));
+        final AsyncFuture<Ingestion> second = group.write(request(b, 3));
+
+        verify(scheduler).schedule(any(String.class), eq(100L), eq(TimeUnit.MILLISECONDS),
+            any(Task.class));
+        verify(delegate, never()).doWrite(any(Ingestion.Request.class));
+        assertFalse(first.isDone());
+
+        final AsyncFuture<Ingestion> third = group.write(request(a, 4));
+
+        /* writes for the same series are merged */
+        verify(delegate).doWrite(request(a, 1, 2, 4));
+        verify(delegate).doWrite(request(b, 3));
+        verify(reporter).reportBatchSize(4);
+
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertTrue(third.isDone());
+
+        /* every caller receives the result of its own series */
+        assertEquals(1, third.get().getTimes().size());
+    }
+
+    @Test
+    public void testFailureOnlyAffectsItsSeries() throws Exception {
+        doReturn(async.failed(new IllegalStateException("failed")))
+            .when(delegate)
+            .doWrite(request(b, 3));
+
+        final AsyncFuture<Ingestion> first = group.write(request(a, 1, 2));
+        final AsyncFuture<Ingestion> second = group.write(request(b, 3));
+        final AsyncFuture<Ingestion> third = group.write(request(a, 4));
+
+        assertTrue(first.isResolved());
+        assertTrue(second.isFailed());
+        assertTrue(third.isResolved());
+        verify(reporter).decrementPendingPoints(4);
+        verify(reporter).decrementConcurrentWrites();
+    }
+
+    @Test
+    public void testResolveWhenOwnSeriesIsWritten() throws Exception {
+        final ResolvableFuture<Ingestion> slow = async.future();
+        doReturn(slow).when(delegate).doWrite(request(b, 3));
+
+        final AsyncFuture<Ingestion> first = group.write(request(a, 1, 2));
+        final AsyncFuture<Ingestion> second = group.write(request(b, 3));
+        final AsyncFuture<Ingestion> third = group.write(request(a, 4));
+
+        /* the callers of a don't wait for the write of b */
+        assertTrue(first.isResolved());
+        assertTrue(third.isResolved());
+        assertFalse(second.isDone());
+        verify(reporter, never()).decrementConcurrentWrites();
+
+        slow.resolve(Ingestion.of(ImmutableList.of(1L)));
+
+        assertTrue(second.isResolved());
+        verify(reporter).decrementConcurrentWrites();
+    }
+
+    @Test
+    public void testFlushAfterDelay() throws Exception {
+        final AsyncFuture<Ingestion> write = group.write(request(a, 1));
+
+        final ArgumentCaptor<Task> task = ArgumentCaptor.forClass(Task.class);
+        verify(scheduler).schedule(any(String.class), anyLong(), any(TimeUnit.class),
+            task.capture());
+
+        task.getValue().run();
+
+        verify(delegate).doWrite(request(a, 1));
+        assertTrue(write.isDone());
+
+        /* running an expired task again must not write anything */
+        task.getValue().run();
+        verify(delegate, times(1)).doWrite(any(Ingestion.Request.class));
+    }
+
+    @Test
+    public void testRejectWhenTooManyPending() throws Exception {
+        final Ingestion.Request pending = request(a, 1, 2, 3);
+
+        doReturn(async.future()).when(delegate).doWrite(pending);
+
+        group.write(pending);
+        group.write(request(b, 4));
+
+        final AsyncFuture<Ingestion> rejected = group.write(request(b, 5, 6, 7));
+
+        assertTrue(rejected.isFailed());
+        assertTrue(rejected.cause() instanceof RejectedExecutionException);
+        verify(reporter).reportRejectedWrite();
+    }
+
+    @Test
+    public void testFiltered() throws Exception {
+        final AsyncFuture<Ingestion> write = group.write(request(Series.of("x"), 1));
+
+        assertTrue(write.isResolved());
+        verify(reporter).reportDroppedByFilter();
+        verify(scheduler, never()).schedule(any(String.class), anyLong(), any(TimeUnit.class),
+            any(Task.class));
+    }
+
+    private Ingestion.Request request(final Series series, final long... timestamps) {
+        final ImmutableList.Builder<Point> points = ImmutableList.builder();
+
+        for (final long t : timestamps) {
+            points.add(new Point(t, 42D));
+        }
+
+        return new Ingestion.Request(series, MetricCollection.points(points.build()));
+    }
+}
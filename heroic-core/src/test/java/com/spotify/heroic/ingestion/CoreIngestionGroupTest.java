@@ -3,7 +3,6 @@ package com.spotify.heroic.ingestion;
 import com.google.common.collect.ImmutableList;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
-import com.spotify.heroic.filter.Filter;
 import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metric.MetricBackend;
 import com.spotify.heroic.statistics.IngestionManagerReporter;
@@ -22,6 +21,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import static java.util.Optional.empty;
@@ -42,11 +42,11 @@ public class CoreIngestionGroupTest {
     @Mock
     private AsyncFramework async;
     @Mock
-    private Supplier<Filter> filterSupplier;
+    private Supplier<Predicate<Series>> filterSupplier;
     @Mock
     private Supplier<DateRange> rangeSupplier;
     @Mock
-    private Filter filter;
+    private Predicate<Series> filter;
     @Mock
     private Semaphore writePermits;
     @Mock
@@ -127,7 +127,7 @@ public class CoreIngestionGroupTest {
         doReturn(filter).when(filterSupplier).get();
         doReturn(failed).when(async).failed(any(Throwable.class));
         doReturn(resolved).when(async).resolved(any(Ingestion.class));
-        doReturn(true).when(filter).apply(series);
+        doReturn(true).when(filter).test(series);
         doNothing().when(writePermits).acquire();
         doNothing().when(writePermits).release();
         doReturn(expected).when(group).doWrite(request);
@@ -151,7 +151,7 @@ public class CoreIngestionGroupTest {
         doReturn(filter).when(filterSupplier).get();
         doReturn(other).when(async).failed(any(Throwable.class));
         doReturn(expected).when(async).resolved(any(Ingestion.class));
-        doReturn(false).when(filter).apply(series);
+        doReturn(false).when(filter).test(series);
         doNothing().when(writePermits).acquire();
         doNothing().when(writePermits).release();
 
@@ -180,7 +180,7 @@ public class CoreIngestionGroupTest {
         doReturn(filter).when(filterSupplier).get();
         doReturn(expected).when(async).failed(any(Throwable.class));
         doReturn(resolved).when(async).resolved(any(Ingestion.class));
-        doReturn(true).when(filter).apply(series);
+        doReturn(true).when(filter).test(series);
         doThrow(e).when(writePermits).acquire();
         doNothing().when(writePermits).release();
 
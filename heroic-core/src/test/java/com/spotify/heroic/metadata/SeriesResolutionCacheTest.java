@@ -0,0 +1,271 @@
+package com.spotify.heroic.metadata;
+
+import static com.spotify.heroic.filter.Filter.and;
+import static com.spotify.heroic.filter.Filter.matchKey;
+import static com.spotify.heroic.filter.Filter.matchTag;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.metric.QueryError;
+import com.spotify.heroic.statistics.MetadataBackendReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SeriesResolutionCacheTest {
+    private static final long BUCKET = 1000L;
+    private static final long REFRESH = 60000L;
+    private static final Set<String> BACKENDS = ImmutableSet.of("backend");
+
+    private final Series web = Series.of("cpu", ImmutableMap.of("role", "web"));
+    private final Series db = Series.of("cpu", ImmutableMap.of("role", "db"));
+    private final Filter filter = and(matchKey("cpu"), matchTag("role", "web"));
+
+    @Mock
+    private MetadataBackendReporter reporter;
+
+    private AsyncFramework async;
+    private long now;
+
+    /* requests issued to the backends, and their pending results */
+    private List<FindSeries.Request> requests;
+    private List<ResolvableFuture<FindSeries>> results;
+
+    private SeriesResolutionCache cache;
+
+    @Before
+    public void setup() {
+        async = TinyAsync.builder().executor(MoreExecutors.newDirectExecutorService()).build();
+        now = 0L;
+        requests = new ArrayList<>();
+        results = new ArrayList<>();
+        cache = new SeriesResolutionCache(async, reporter, () -> now, 1000, BUCKET, REFRESH);
+    }
+
+    @Test
+    public void testHit() throws Exception {
+        final AsyncFuture<FindSeries> first = find(new DateRange(1500L, 2500L));
+        results.get(0).resolve(FindSeries.of(ImmutableSet.of(web), false));
+
+        /* another range within the same buckets is served from the cache */
+        final AsyncFuture<FindSeries> second = find(new DateRange(1200L, 2900L));
+
+        assertEquals(1, requests.size());
+        assertEquals(new DateRange(1000L, 3000L), requests.get(0).getRange());
+        assertSame(first.get(), second.get());
+
+        verify(reporter).reportFindSeriesCacheMiss();
+        verify(reporter).reportFindSeriesCacheHit(anyLong());
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        final AsyncFuture<FindSeries> first = find(new DateRange(0L, 1000L));
+        final AsyncFuture<FindSeries> second = find(new DateRange(0L, 1000L));
+
+        assertEquals(1, requests.size());
+
+        results.get(0).resolve(FindSeries.of(ImmutableSet.of(web), false));
+        assertSame(first.get(), second.get());
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+        find(new DateRange(0L, 1000L));
+        results.get(0).resolve(FindSeries.of(ImmutableSet.of(web), false));
+
+        now += REFRESH;
+
+        /* stale entries are served while they are being refreshed */
+        final AsyncFuture<FindSeries> stale = find(new DateRange(0L, 1000L));
+        find(new DateRange(0L, 1000L));
+
+        assertEquals(ImmutableSet.of(web), stale.get().getSeries());
+        assertEquals(2, requests.size());
+
+        final Series other = Series.of("cpu", ImmutableMap.of("role", "web", "host", "b"));
+        results.get(1).resolve(FindSeries.of(ImmutableSet.of(web, other), false));
+
+        assertEquals(ImmutableSet.of(web, other),
+            find(new DateRange(0L, 1000L)).get().getSeries());
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void testWrittenInvalidates() throws Exception {
+        find(new DateRange(0L, 1000L));
+        results.get(0).resolve(FindSeries.of(ImmutableSet.of(web), false));
+
+        /* neither known nor matching series leave the entry alone */
+        cache.written(web, new DateRange(0L, 1000L));
+        cache.written(db, new DateRange(0L, 1000L));
+        find(new DateRange(0L, 1000L));
+        assertEquals(1, requests.size());
+
+        /* series written outside of the range of the entry leave it alone */
+        cache.written(Series.of("cpu", ImmutableMap.of("role", "web", "host", "a")),
+            new DateRange(5000L, 6000L));
+        find(new DateRange(0L, 1000L));
+        assertEquals(1, requests.size());
+
+        cache.written(Series.of("cpu", ImmutableMap.of("role", "web", "host", "b")),
+            new DateRange(0L, 1000L));
+        find(new DateRange(0L, 1000L));
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void testKnownSeriesDoNotInvalidate() throws Exception {
+        final Series other = Series.of("cpu", ImmutableMap.of("role", "web", "host", "b"));
+
+        find(new DateRange(0L, 1000L));
+        results.get(0).resolve(FindSeries.of(ImmutableSet.of(web, other), false));
+
+        find(new DateRange(2000L, 3000L));
+        results.get(1).resolve(FindSeries.of(ImmutableSet.of(web), false));
+
+        /* other was resolved by the first entry, so it's not new */
+        cache.written(other, new DateRange(2000L, 3000L));
+        find(new DateRange(2000L, 3000L));
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void testWrittenDuringLoad() throws Exception {
+        find(new DateRange(0L, 1000L));
+        find(new DateRange(2000L, 3000L));
+        cache.written(Series.of("cpu", ImmutableMap.of("role", "web", "host", "b")),
+            new DateRange(0L, 1000L));
+        results.get(0).resolve(FindSeries.of(ImmutableSet.of(web), false));
+        results.get(1).resolve(FindSeries.of(ImmutableSet.of(web), false));
+
+        /* the first load might have missed the written series, so it's not cached */
+        find(new DateRange(0L, 1000L));
+        assertEquals(3, requests.size());
+
+        /* the second load doesn't overlap the write */
+        find(new DateRange(2000L, 3000L));
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    public void testConcurrentWritesAndLoads() throws Exception {
+        final DateRange range = new DateRange(0L, 1000L);
+        final Set<Series> backend = ConcurrentHashMap.newKeySet();
+        backend.add(web);
+        backend.add(db);
+
+        final Function<FindSeries.Request, AsyncFuture<FindSeries>> loader =
+            request -> async.resolved(FindSeries.of(ImmutableSet.copyOf(backend
+                .stream()
+                .filter(request.getFilter()::apply)
+                .iterator()), false));
+
+        final int threads = 4;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+        final CountDownLatch writers = new CountDownLatch(threads);
+        final List<Future<?>> tasks = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        final Series s = Series.of("cpu",
+                            ImmutableMap.of("role", "web", "host", thread + "-" + i));
+                        backend.add(s);
+                        cache.written(s, range);
+                    }
+
+                    writers.countDown();
+                }));
+
+                tasks.add(executor.submit(() -> {
+                    while (writers.getCount() > 0) {
+                        cache.findSeries(BACKENDS,
+                            new FindSeries.Request(filter, range, OptionalLimit.empty()), loader);
+                    }
+                }));
+            }
+
+            for (final Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final Set<Series> expected =
+            backend.stream().filter(filter::apply).collect(Collectors.toSet());
+
+        /* whatever is cached has to include every series written before */
+        assertEquals(expected, cache
+            .findSeries(BACKENDS, new FindSeries.Request(filter, range, OptionalLimit.empty()),
+                loader)
+            .get()
+            .getSeries());
+    }
+
+    @Test
+    public void testErrorsNotCached() throws Exception {
+        find(new DateRange(0L, 1000L));
+        results
+            .get(0)
+            .resolve(new FindSeries(ImmutableList.of(QueryError.fromMessage("error")),
+                ImmutableSet.of(web), false));
+
+        find(new DateRange(0L, 1000L));
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        cache = new SeriesResolutionCache(async, reporter, () -> now, 0, BUCKET, REFRESH);
+
+        find(new DateRange(1500L, 2500L));
+        find(new DateRange(1500L, 2500L));
+
+        assertEquals(2, requests.size());
+        assertEquals(new DateRange(1500L, 2500L), requests.get(0).getRange());
+        assertFalse(results.get(0).isDone());
+    }
+
+    private AsyncFuture<FindSeries> find(final DateRange range) {
+        return cache.findSeries(BACKENDS,
+            new FindSeries.Request(filter, range, OptionalLimit.empty()), request -> {
+                final ResolvableFuture<FindSeries> result = async.future();
+                requests.add(request);
+                results.add(result);
+                return result;
+            });
+    }
+}
@@ -0,0 +1,195 @@
+package com.spotify.heroic.metric;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.spotify.heroic.statistics.MetricBackendReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.StreamCollector;
+import eu.toolchain.async.TinyAsync;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FetchSchedulerTest {
+    @Mock
+    private MetricBackendReporter reporter;
+
+    private AsyncFramework async;
+
+    /* names of dispatched fetches, in order */
+    private List<String> started;
+    private List<ResolvableFuture<Integer>> results;
+
+    @Before
+    public void setup() {
+        async = TinyAsync.builder().executor(MoreExecutors.newDirectExecutorService()).build();
+        started = new ArrayList<>();
+        results = new ArrayList<>();
+    }
+
+    @Test
+    public void testMaxInFlight() throws Exception {
+        final FetchScheduler scheduler = new FetchScheduler(async, reporter, 2, 10, 0);
+
+        final AsyncFuture<String> query =
+            scheduler.schedule(fetches("a", 3), new Counts(), () -> 0L);
+
+        assertEquals(ImmutableList.of("a", "a"), started);
+        assertEquals(2, scheduler.inFlight());
+
+        results.get(0).resolve(1);
+        assertEquals(3, started.size());
+
+        results.get(1).resolve(1);
+        results.get(2).fail(new RuntimeException("boom"));
+
+        assertEquals("2/1/0", query.get());
+        assertEquals(0, scheduler.inFlight());
+        verify(reporter, atLeastOnce()).reportFetchQueueWait(anyLong());
+        verify(reporter, atLeastOnce()).reportFetchLatency(anyLong());
+    }
+
+    @Test
+    public void testFairShare() throws Exception {
+        final FetchScheduler scheduler = new FetchScheduler(async, reporter, 4, 4, 0);
+
+        scheduler.schedule(fetches("a", 6), new Counts(), () -> 0L);
+        scheduler.schedule(fetches("b", 2), new Counts(), () -> 0L);
+
+        assertEquals(ImmutableList.of("a", "a", "a", "a"), started);
+
+        /* the next free slot goes to the query which has nothing in flight */
+        results.get(0).resolve(1);
+        assertEquals("b", started.get(4));
+    }
+
+    @Test
+    public void testFastLane() throws Exception {
+        final FetchScheduler scheduler = new FetchScheduler(async, reporter, 1, 10, 10);
+
+        scheduler.schedule(fetches("large", 2), new Counts(), () -> 100L);
+        scheduler.schedule(fetches("small", 1), new Counts(), () -> 0L);
+
+        results.get(0).resolve(1);
+
+        assertEquals(ImmutableList.of("large", "small"), started);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final FetchScheduler scheduler = new FetchScheduler(async, reporter, 1, 10, 0);
+
+        final AsyncFuture<String> query =
+            scheduler.schedule(fetches("a", 3), new Counts(), () -> 0L);
+
+        query.cancel();
+        results.get(0).resolve(1);
+
+        assertEquals(1, started.size());
+        assertEquals(0, scheduler.inFlight());
+
+        /* a cancelled query doesn't hold on to its share */
+        scheduler.schedule(fetches("b", 1), new Counts(), () -> 0L);
+        assertEquals("b", started.get(1));
+    }
+
+    @Test
+    public void testThrowingCollector() throws Exception {
+        final FetchScheduler scheduler = new FetchScheduler(async, reporter, 1, 10, 0);
+
+        final AsyncFuture<String> query =
+            scheduler.schedule(fetches("a", 3), new Counts() {
+                @Override
+                public void resolved(final Integer result) throws Exception {
+                    throw new IllegalStateException("collector failed");
+                }
+            }, () -> 0L);
+
+        results.get(0).resolve(1);
+
+        assertTrue(query.isFailed());
+        assertEquals(1, started.size());
+        assertEquals(0, scheduler.inFlight());
+
+        /* the failed query doesn't hold on to its slots */
+        scheduler.schedule(fetches("b", 1), new Counts(), () -> 0L);
+        assertEquals("b", started.get(1));
+    }
+
+    @Test
+    public void testSynchronousFetches() throws Exception {
+        final FetchScheduler scheduler = new FetchScheduler(async, reporter, 1, 1, 0);
+        final List<Callable<AsyncFuture<Integer>>> fetches = new ArrayList<>();
+
+        for (int i = 0; i < 100000; i++) {
+            fetches.add(() -> async.resolved(1));
+        }
+
+        final AsyncFuture<String> query = scheduler.schedule(fetches, new Counts(), () -> 0L);
+
+        assertEquals("100000/0/0", query.get());
+        assertEquals(0, scheduler.inFlight());
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        final FetchScheduler scheduler = new FetchScheduler(async, reporter, 1, 1, 0);
+
+        final AsyncFuture<String> query =
+            scheduler.schedule(ImmutableList.of(), new Counts(), () -> 0L);
+
+        assertTrue(query.isResolved());
+        assertEquals("0/0/0", query.get());
+        assertFalse(started.iterator().hasNext());
+    }
+
+    private List<Callable<AsyncFuture<Integer>>> fetches(final String name, final int count) {
+        final List<Callable<AsyncFuture<Integer>>> fetches = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            fetches.add(() -> {
+                final ResolvableFuture<Integer> result = async.future();
+                started.add(name);
+                results.add(result);
+                return result;
+            });
+        }
+
+        return fetches;
+    }
+
+    private static class Counts implements StreamCollector<Integer, String> {
+        @Override
+        public void resolved(final Integer result) throws Exception {
+        }
+
+        @Override
+        public void failed(final Throwable cause) throws Exception {
+        }
+
+        @Override
+        public void cancelled() throws Exception {
+        }
+
+        @Override
+        public String end(final int resolved, final int failed, final int cancelled)
+            throws Exception {
+            return resolved + "/" + failed + "/" + cancelled;
+        }
+    }
+}
@@ -54,7 +54,6 @@ public class LocalMetricManagerTest {
         final OptionalLimit seriesLimit = OptionalLimit.empty();
         final OptionalLimit aggregationLimit = OptionalLimit.empty();
         final OptionalLimit dataLimit = OptionalLimit.empty();
-        final int fetchParallelism = 20;
         final boolean failOnLimits = true;
         final Groups groups = Groups.of("foo");
         doReturn(groups).when(metricBackend).groups();
@@ -65,9 +64,10 @@ public class LocalMetricManagerTest {
         final QueryLoggerFactory queryLoggerFactory = mock(QueryLoggerFactory.class);
         when(queryLoggerFactory.create(any())).thenReturn(queryLogger);
 
+        final FetchScheduler fetchScheduler = new FetchScheduler(async, reporter, 100, 20, 0);
+
         manager = new LocalMetricManager(groupLimit, seriesLimit, aggregationLimit, dataLimit,
-            fetchParallelism, failOnLimits, async, groupSet, metadata, reporter,
-            queryLoggerFactory);
+            failOnLimits, async, groupSet, metadata, reporter, fetchScheduler, queryLoggerFactory);
     }
 
     @Test
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.elasticsearch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe, blocked Bloom filter over 128-bit hashes.
+ * <p>
+ * All bits of an entry are set in a single block of 512 bits, so that a lookup touches only one
+ * cache line. This costs slightly more bits than a classic Bloom filter for the same false
+ * positive rate, which is compensated for when sizing the filter.
+ * <p>
+ * See: Putze, Sanders and Singler, "Cache-, Hash- and Space-Efficient Bloom Filters", 2007
+ */
+class BlockedBloomFilter {
+    static final int BLOCK_BITS = 512;
+    static final int BLOCK_LONGS = BLOCK_BITS / Long.SIZE;
+
+    /* extra bits to compensate for the uneven load of blocks */
+    private static final double BLOCK_OVERHEAD = 1.2D;
+
+    private final AtomicLongArray bits;
+    private final int blocks;
+    private final int hashes;
+
+    BlockedBloomFilter(final long expectedInsertions, final double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+
+        if (falsePositiveRate <= 0D || falsePositiveRate >= 1D) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+
+        final double ln2 = Math.log(2D);
+        final double optimal =
+            -expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2) * BLOCK_OVERHEAD;
+
+        final long blocks = Math.max(1L, (long) Math.ceil(optimal / BLOCK_BITS));
+
+        if (blocks * BLOCK_LONGS > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("filter would be too large: " + blocks + " blocks");
+        }
+
+        this.blocks = (int) blocks;
+        final double bitsPerEntry = blocks * BLOCK_BITS / (double) expectedInsertions;
+        this.hashes = Math.max(1, Math.min(16, (int) Math.round(bitsPerEntry * ln2)));
+        this.bits = new AtomicLongArray(this.blocks * BLOCK_LONGS);
+    }
+
+    /**
+     * Check if the given hash might have been put in the filter.
+     */
+    boolean mightContain(final long h1, final long h2) {
+        final int base = block(h1);
+
+        for (int i = 0; i < hashes; i++) {
+            final int bit = bit(h1, h2, i);
+
+            if ((bits.get(base + (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Put the given hash in the filter.
+     *
+     * @return {@code true} if any bit changed, which means that the hash definitely wasn't in the
+     * filter before.
+     */
+    boolean put(final long h1, final long h2) {
+        final int base = block(h1);
+        boolean changed = false;
+
+        for (int i = 0; i < hashes; i++) {
+            final int bit = bit(h1, h2, i);
+            final int index = base + (bit >>> 6);
+            final long mask = 1L << bit;
+
+            while (true) {
+                final long current = bits.get(index);
+
+                if ((current & mask) != 0) {
+                    break;
+                }
+
+                if (bits.compareAndSet(index, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Remove all entries from the filter.
+     * <p>
+     * Concurrent puts might partially survive, which can only cause false positives.
+     */
+    void clear() {
+        for (int i = 0; i < bits.length(); i++) {
+            bits.set(i, 0L);
+        }
+    }
+
+    /**
+     * Size of the filter in bytes.
+     */
+    long memoryUsage() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    private int block(final long h1) {
+        return (int) ((h1 >>> 1) % blocks) * BLOCK_LONGS;
+    }
+
+    /**
+     * The i-th bit of the block to use, using double hashing.
+     */
+    private int bit(final long h1, final long h2, final int i) {
+        return (int) ((h2 + i * Long.rotateLeft(h1, 32)) >>> (Long.SIZE - 9));
+    }
+}
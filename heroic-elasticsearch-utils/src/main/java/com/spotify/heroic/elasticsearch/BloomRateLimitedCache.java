@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.elasticsearch;
+
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.RateLimiter;
+import com.spotify.heroic.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * A write cache which keeps track of written series using blocked Bloom filters instead of a map.
+ * <p>
+ * Every index that is written to gets its own window of filters, so that rolling over to a new
+ * index (see {@link com.spotify.heroic.elasticsearch.index.RotatingIndexMapping}) starts out
+ * empty without touching the windows of other indices. A window holds two generations of filters
+ * which are swapped every {@code rotateMillis}. Entries are only put in the current generation when
+ * they are written, so a series is written again at most two rotations after it was last written,
+ * like the expiry of the map based cache. This also bounds how saturated a filter can become for an
+ * index which is written to for a long time.
+ * <p>
+ * Memory is allocated when a window is created and never grows, at most {@code maxWindows} windows
+ * are kept around. False positives cause a series to not be written, which is why the rate is
+ * configurable and rotation is bounded.
+ */
+public class BloomRateLimitedCache implements RateLimitedCache<Pair<String, HashCode>> {
+    private final Clock clock;
+    private final Optional<RateLimiter> rateLimiter;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final long rotateMillis;
+    private final int maxWindows;
+
+    /* guarded by windows */
+    private final Map<String, Window> windows = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    public BloomRateLimitedCache(
+        final Clock clock, final Optional<RateLimiter> rateLimiter, final long expectedInsertions,
+        final double falsePositiveRate, final long rotateMillis, final int maxWindows
+    ) {
+        if (rotateMillis <= 0) {
+            throw new IllegalArgumentException("rotateMillis must be positive");
+        }
+
+        if (maxWindows <= 0) {
+            throw new IllegalArgumentException("maxWindows must be positive");
+        }
+
+        this.clock = clock;
+        this.rateLimiter = rateLimiter;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rotateMillis = rotateMillis;
+        this.maxWindows = maxWindows;
+
+        /* fail early on bad sizing */
+        new BlockedBloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    @Override
+    public boolean acquire(final Pair<String, HashCode> key) {
+        requests.incrementAndGet();
+
+        final byte[] bytes = key.getRight().asBytes();
+        final long h1 = longAt(bytes, 0);
+        final long h2 = bytes.length >= 16 ? longAt(bytes, 8) : Long.rotateLeft(h1, 32) ^ h1;
+
+        final Window window = window(key.getLeft());
+
+        if (window.current.mightContain(h1, h2) || window.previous.mightContain(h1, h2)) {
+            hits.incrementAndGet();
+            return false;
+        }
+
+        if (rateLimiter.isPresent() && !rateLimiter.get().tryAcquire()) {
+            return false;
+        }
+
+        /* another thread might have raced us to put the same series */
+        if (!window.current.put(h1, h2)) {
+            return false;
+        }
+
+        window.inserted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Number of entries put in the current generation of every window.
+     */
+    @Override
+    public int size() {
+        synchronized (windows) {
+            long size = 0;
+
+            for (final Window window : windows.values()) {
+                size += window.inserted.get();
+            }
+
+            return (int) Math.min(Integer.MAX_VALUE, size);
+        }
+    }
+
+    @Override
+    public long memoryUsage() {
+        synchronized (windows) {
+            long memory = 0;
+
+            for (final Window window : windows.values()) {
+                memory += window.current.memoryUsage() + window.previous.memoryUsage();
+            }
+
+            return memory;
+        }
+    }
+
+    @Override
+    public long requests() {
+        return requests.get();
+    }
+
+    @Override
+    public long hits() {
+        return hits.get();
+    }
+
+    private Window window(final String index) {
+        final long now = clock.currentTimeMillis();
+
+        synchronized (windows) {
+            Window window = windows.get(index);
+
+            if (window == null) {
+                expire(now);
+                window = new Window(newFilter(), newFilter(), now);
+                windows.put(index, window);
+            } else if (now - window.rotated >= rotateMillis) {
+                /* re-use the memory of the oldest generation */
+                window.previous.clear();
+                window = new Window(window.previous, window.current, now);
+                windows.put(index, window);
+            }
+
+            window.lastUsed = now;
+            return window;
+        }
+    }
+
+    /**
+     * Drop windows for indices which are no longer written to, and make room for a new window.
+     */
+    private void expire(final long now) {
+        final Iterator<Window> it = windows.values().iterator();
+
+        while (it.hasNext()) {
+            final Window window = it.next();
+
+            if (windows.size() < maxWindows && now - window.lastUsed < rotateMillis * 2) {
+                break;
+            }
+
+            it.remove();
+        }
+    }
+
+    private BlockedBloomFilter newFilter() {
+        return new BlockedBloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    private static long longAt(final byte[] bytes, final int offset) {
+        long value = 0;
+
+        for (int i = Math.min(bytes.length, offset + Long.BYTES) - 1; i >= offset; i--) {
+            value = (value << 8) | (bytes[i] & 0xffL);
+        }
+
+        return value;
+    }
+
+    private static class Window {
+        private final BlockedBloomFilter current;
+        private final BlockedBloomFilter previous;
+        private final long rotated;
+        private final AtomicLong inserted = new AtomicLong();
+        private long lastUsed;
+
+        private Window(
+            final BlockedBloomFilter current, final BlockedBloomFilter previous, final long rotated
+        ) {
+            this.current = current;
+            this.previous = previous;
+            this.rotated = rotated;
+            this.lastUsed = rotated;
+        }
+    }
+}
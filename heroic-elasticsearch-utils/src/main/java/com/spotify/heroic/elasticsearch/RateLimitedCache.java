@@ -33,4 +33,25 @@ public interface RateLimitedCache<K> {
      * @return Number of entries cached.
      */
     public int size();
+
+    /**
+     * Get the number of bytes allocated to keep track of cached entries, if known.
+     */
+    default long memoryUsage() {
+        return 0L;
+    }
+
+    /**
+     * Get the number of permits that have been requested, if known.
+     */
+    default long requests() {
+        return 0L;
+    }
+
+    /**
+     * Get the number of requests that were denied because the key was already cached, if known.
+     */
+    default long hits() {
+        return 0L;
+    }
 }
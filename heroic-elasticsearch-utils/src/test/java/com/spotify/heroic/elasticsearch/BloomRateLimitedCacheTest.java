@@ -0,0 +1,142 @@
+package com.spotify.heroic.elasticsearch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.Optional;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BloomRateLimitedCacheTest {
+    private static final long ROTATE = 1000L;
+
+    private final HashFunction hashFunction = Hashing.murmur3_128();
+
+    private long now;
+    private BloomRateLimitedCache cache;
+
+    @Before
+    public void setup() {
+        now = 0L;
+        cache = new BloomRateLimitedCache(() -> now, Optional.empty(), 1000, 0.01D, ROTATE, 2);
+    }
+
+    @Test
+    public void testAcquire() {
+        assertTrue(cache.acquire(key("index-1", 1)));
+        assertFalse(cache.acquire(key("index-1", 1)));
+
+        assertEquals(1, cache.size());
+        assertEquals(2L, cache.requests());
+        assertEquals(1L, cache.hits());
+    }
+
+    @Test
+    public void testSeparateIndices() {
+        assertTrue(cache.acquire(key("index-1", 1)));
+        assertTrue(cache.acquire(key("index-2", 1)));
+        assertFalse(cache.acquire(key("index-2", 1)));
+    }
+
+    @Test
+    public void testRotation() {
+        assertTrue(cache.acquire(key("index-1", 1)));
+
+        /* the first entry is now in the previous generation */
+        now += ROTATE;
+        assertTrue(cache.acquire(key("index-1", 2)));
+
+        /* the first entry expired with the second rotation */
+        now += ROTATE;
+        assertFalse(cache.acquire(key("index-1", 2)));
+        assertTrue(cache.acquire(key("index-1", 1)));
+    }
+
+    @Test
+    public void testReacquiredAfterTwoRotations() {
+        assertTrue(cache.acquire(key("index-1", 1)));
+
+        /* hits in the previous generation don't keep an entry around */
+        now += ROTATE;
+        assertFalse(cache.acquire(key("index-1", 1)));
+
+        now += ROTATE;
+        assertTrue(cache.acquire(key("index-1", 1)));
+        assertFalse(cache.acquire(key("index-1", 1)));
+    }
+
+    @Test
+    public void testFixedMemory() {
+        cache.acquire(key("index-1", 0));
+        final long memory = cache.memoryUsage();
+
+        for (int i = 0; i < 10000; i++) {
+            cache.acquire(key("index-1", i));
+        }
+
+        assertEquals(memory, cache.memoryUsage());
+
+        /* at most two windows are kept around */
+        cache.acquire(key("index-2", 0));
+        cache.acquire(key("index-3", 0));
+        assertEquals(memory * 2, cache.memoryUsage());
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        final BlockedBloomFilter filter = new BlockedBloomFilter(10000, 0.01D);
+
+        for (int i = 0; i < 10000; i++) {
+            final byte[] hash = hashFunction.hashInt(i).asBytes();
+            filter.put(longAt(hash, 0), longAt(hash, 8));
+        }
+
+        int falsePositives = 0;
+
+        for (int i = 10000; i < 110000; i++) {
+            final byte[] hash = hashFunction.hashInt(i).asBytes();
+
+            if (filter.mightContain(longAt(hash, 0), longAt(hash, 8))) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue("false positives: " + falsePositives, falsePositives < 100000 * 0.01D * 1.5D);
+    }
+
+    @Test
+    public void testRateLimited() {
+        final RateLimiter rateLimiter = mock(RateLimiter.class);
+        cache = new BloomRateLimitedCache(() -> now, Optional.of(rateLimiter), 1000, 0.01D,
+            ROTATE, 2);
+
+        doReturn(false).when(rateLimiter).tryAcquire();
+        assertFalse(cache.acquire(key("index-1", 1)));
+
+        doReturn(true).when(rateLimiter).tryAcquire();
+        assertTrue(cache.acquire(key("index-1", 1)));
+        assertEquals(0L, cache.hits());
+    }
+
+    private long longAt(final byte[] bytes, final int offset) {
+        long value = 0;
+
+        for (int i = offset + 7; i >= offset; i--) {
+            value = (value << 8) | (bytes[i] & 0xffL);
+        }
+
+        return value;
+    }
+
+    private Pair<String, HashCode> key(final String index, final int series) {
+        return Pair.of(index, hashFunction.hashInt(series));
+    }
+}
@@ -35,6 +35,7 @@ import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.ModuleId;
 import com.spotify.heroic.dagger.PrimaryComponent;
 import com.spotify.heroic.elasticsearch.BackendType;
+import com.spotify.heroic.elasticsearch.BloomRateLimitedCache;
 import com.spotify.heroic.elasticsearch.Connection;
 import com.spotify.heroic.elasticsearch.ConnectionModule;
 import com.spotify.heroic.elasticsearch.DefaultRateLimitedCache;
@@ -44,6 +45,7 @@ import com.spotify.heroic.lifecycle.LifeCycle;
 import com.spotify.heroic.lifecycle.LifeCycleManager;
 import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metadata.MetadataModule;
+import com.spotify.heroic.time.Clock;
 import dagger.Component;
 import dagger.Lazy;
 import dagger.Module;
@@ -71,6 +73,8 @@ import static java.util.Optional.ofNullable;
 public final class ElasticsearchMetadataModule implements MetadataModule, DynamicModuleId {
     private static final double DEFAULT_WRITES_PER_SECOND = 3000d;
     private static final long DEFAULT_WRITES_CACHE_DURATION_MINUTES = 240L;
+    private static final double DEFAULT_WRITE_CACHE_FALSE_POSITIVE_RATE = 0.01D;
+    private static final int DEFAULT_WRITE_CACHE_FILTER_INDICES = 4;
     public static final String DEFAULT_GROUP = "elasticsearch";
     public static final String DEFAULT_TEMPLATE_NAME = "heroic-metadata";
 
@@ -80,6 +84,8 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
     private final String templateName;
     private final Double writesPerSecond;
     private final Long writeCacheDurationMinutes;
+    private final Optional<Long> writeCacheFilterSize;
+    private final Double writeCacheFalsePositiveRate;
     private final boolean configure;
 
     private static Supplier<BackendType> defaultSetup = MetadataBackendKV::backendType;
@@ -104,6 +110,8 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
         @JsonProperty("connection") Optional<ConnectionModule> connection,
         @JsonProperty("writesPerSecond") Optional<Double> writesPerSecond,
         @JsonProperty("writeCacheDurationMinutes") Optional<Long> writeCacheDurationMinutes,
+        @JsonProperty("writeCacheFilterSize") Optional<Long> writeCacheFilterSize,
+        @JsonProperty("writeCacheFalsePositiveRate") Optional<Double> writeCacheFalsePositiveRate,
         @JsonProperty("templateName") Optional<String> templateName,
         @JsonProperty("backendType") Optional<String> backendType,
         @JsonProperty("configure") Optional<Boolean> configure
@@ -114,6 +122,9 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
         this.writesPerSecond = writesPerSecond.orElse(DEFAULT_WRITES_PER_SECOND);
         this.writeCacheDurationMinutes =
             writeCacheDurationMinutes.orElse(DEFAULT_WRITES_CACHE_DURATION_MINUTES);
+        this.writeCacheFilterSize = writeCacheFilterSize;
+        this.writeCacheFalsePositiveRate =
+            writeCacheFalsePositiveRate.orElse(DEFAULT_WRITE_CACHE_FALSE_POSITIVE_RATE);
         this.templateName = templateName.orElse(DEFAULT_TEMPLATE_NAME);
         this.backendTypeBuilder =
             backendType.flatMap(bt -> ofNullable(backendTypes.get(bt))).orElse(defaultSetup);
@@ -134,7 +145,8 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
             .primaryComponent(primary)
             .depends(depends)
             .connectionModule(connection)
-            .m(new M(groups, templateName, backendType, writesPerSecond, writeCacheDurationMinutes))
+            .m(new M(groups, templateName, backendType, writesPerSecond, writeCacheDurationMinutes,
+                writeCacheFilterSize, writeCacheFalsePositiveRate))
             .build();
     }
 
@@ -159,6 +171,8 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
         private final BackendType backendType;
         private final Double writesPerSecond;
         private final Long writeCacheDurationMinutes;
+        private final Optional<Long> writeCacheFilterSize;
+        private final Double writeCacheFalsePositiveRate;
 
         @Provides
         @ElasticsearchScope
@@ -182,7 +196,17 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
 
         @Provides
         @ElasticsearchScope
-        public RateLimitedCache<Pair<String, HashCode>> writeCache() {
+        public RateLimitedCache<Pair<String, HashCode>> writeCache(final Clock clock) {
+            if (writeCacheFilterSize.isPresent()) {
+                final Optional<RateLimiter> rateLimiter = writesPerSecond <= 0d ? empty()
+                    : of(RateLimiter.create(writesPerSecond));
+
+                return new BloomRateLimitedCache(clock, rateLimiter, writeCacheFilterSize.get(),
+                    writeCacheFalsePositiveRate,
+                    TimeUnit.MINUTES.toMillis(writeCacheDurationMinutes),
+                    DEFAULT_WRITE_CACHE_FILTER_INDICES);
+            }
+
             final Cache<Pair<String, HashCode>, Boolean> cache = CacheBuilder
                 .newBuilder()
                 .concurrencyLevel(4)
@@ -230,6 +254,8 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
         private Optional<ConnectionModule> connection = empty();
         private Optional<Double> writesPerSecond = empty();
         private Optional<Long> writeCacheDurationMinutes = empty();
+        private Optional<Long> writeCacheFilterSize = empty();
+        private Optional<Double> writeCacheFalsePositiveRate = empty();
         private Optional<String> templateName = empty();
         private Optional<String> backendType = empty();
         private Optional<Boolean> configure = empty();
@@ -264,6 +290,18 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
             return this;
         }
 
+        public Builder writeCacheFilterSize(final long writeCacheFilterSize) {
+            checkNotNull(writeCacheFilterSize, "writeCacheFilterSize");
+            this.writeCacheFilterSize = of(writeCacheFilterSize);
+            return this;
+        }
+
+        public Builder writeCacheFalsePositiveRate(final double writeCacheFalsePositiveRate) {
+            checkNotNull(writeCacheFalsePositiveRate, "writeCacheFalsePositiveRate");
+            this.writeCacheFalsePositiveRate = of(writeCacheFalsePositiveRate);
+            return this;
+        }
+
         public Builder templateName(final String templateName) {
             checkNotNull(templateName, "templateName");
             this.templateName = of(templateName);
@@ -283,7 +321,8 @@ public final class ElasticsearchMetadataModule implements MetadataModule, Dynami
 
         public ElasticsearchMetadataModule build() {
             return new ElasticsearchMetadataModule(id, groups, connection, writesPerSecond,
-                writeCacheDurationMinutes, templateName, backendType, configure);
+                writeCacheDurationMinutes, writeCacheFilterSize, writeCacheFalsePositiveRate,
+                templateName, backendType, configure);
         }
     }
 }
@@ -108,6 +108,9 @@ import static org.elasticsearch.index.query.FilterBuilders.termFilter;
 public class MetadataBackendKV extends AbstractElasticsearchMetadataBackend
     implements MetadataBackend, LifeCycles {
     public static final String WRITE_CACHE_SIZE = "write-cache-size";
+    public static final String WRITE_CACHE_MEMORY = "write-cache-memory";
+    public static final String WRITE_CACHE_REQUESTS = "write-cache-requests";
+    public static final String WRITE_CACHE_HITS = "write-cache-hits";
 
     static final String KEY = "key";
     static final String TAGS = "tags";
@@ -513,7 +516,9 @@ public class MetadataBackendKV extends AbstractElasticsearchMetadataBackend
 
     @Override
     public Statistics getStatistics() {
-        return Statistics.of(WRITE_CACHE_SIZE, writeCache.size());
+        return Statistics.of(ImmutableMap.of(WRITE_CACHE_SIZE, (long) writeCache.size(),
+            WRITE_CACHE_MEMORY, writeCache.memoryUsage(), WRITE_CACHE_REQUESTS,
+            writeCache.requests(), WRITE_CACHE_HITS, writeCache.hits()));
     }
 
     public static BackendType backendType() {
@@ -44,7 +44,6 @@ import eu.toolchain.async.AsyncFuture;
 import lombok.ToString;
 
 import javax.inject.Inject;
-import javax.inject.Named;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -53,19 +52,17 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @MemoryScope
-@ToString(exclude = {"async", "storage"})
+@ToString(exclude = {"async", "index"})
 public class MemoryBackend implements MetadataBackend {
     private final AsyncFramework async;
     private final Groups groups;
-    private final Set<Series> storage;
+    private final MemoryIndex index;
 
     @Inject
-    public MemoryBackend(
-        final AsyncFramework async, final Groups groups, @Named("storage") final Set<Series> storage
-    ) {
+    public MemoryBackend(final AsyncFramework async, final Groups groups, final MemoryIndex index) {
         this.async = async;
         this.groups = groups;
-        this.storage = storage;
+        this.index = index;
     }
 
     @Override
@@ -85,7 +82,7 @@ public class MemoryBackend implements MetadataBackend {
 
     @Override
     public AsyncFuture<WriteMetadata> write(final WriteMetadata.Request request) {
-        this.storage.add(request.getSeries());
+        index.add(request.getSeries());
         return async.resolved(WriteMetadata.of());
     }
 
@@ -162,15 +159,13 @@ public class MemoryBackend implements MetadataBackend {
     @Override
     public AsyncFuture<CountSeries> countSeries(final CountSeries.Request request) {
         return async.resolved(
-            new CountSeries(ImmutableList.of(), lookupFilter(request.getFilter()).count(), false));
+            new CountSeries(ImmutableList.of(), index.count(request.getFilter()), false));
     }
 
     @Override
     public AsyncFuture<DeleteSeries> deleteSeries(final DeleteSeries.Request request) {
-        final int deletes = (int) lookup(request.getFilter(), request.getLimit())
-            .map(storage::remove)
-            .filter(b -> b)
-            .count();
+        final int deletes = index.removeAll(
+            lookup(request.getFilter(), request.getLimit()).collect(Collectors.toList()));
 
         return async.resolved(DeleteSeries.of(deletes, 0));
     }
@@ -191,12 +186,7 @@ public class MemoryBackend implements MetadataBackend {
             .onFinished(observer::end);
     }
 
-    private Stream<Series> lookupFilter(final Filter filter) {
-        return storage.stream().filter(filter::apply);
-    }
-
     private Stream<Series> lookup(final Filter filter, final OptionalLimit limit) {
-        final Stream<Series> series = lookupFilter(filter);
-        return limit.asLong().map(series::limit).orElse(series);
+        return index.lookup(filter, limit.asLong().orElse(Long.MAX_VALUE)).stream();
     }
 }
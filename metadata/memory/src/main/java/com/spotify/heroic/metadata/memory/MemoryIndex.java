@@ -0,0 +1,595 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metadata.memory;
+
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.AndFilter;
+import com.spotify.heroic.filter.FalseFilter;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.FilterCompiler;
+import com.spotify.heroic.filter.HasTagFilter;
+import com.spotify.heroic.filter.MatchKeyFilter;
+import com.spotify.heroic.filter.MatchTagFilter;
+import com.spotify.heroic.filter.NotFilter;
+import com.spotify.heroic.filter.OrFilter;
+import com.spotify.heroic.filter.TrueFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * An inverted index over series.
+ * <p>
+ * Every series is assigned an id, and sorted id postings are kept for every key, tag key and tag
+ * key-value pair. Filters on keys and tags are resolved with set operations on the postings, only
+ * filters which can't be resolved through the index (like regular expressions) are evaluated
+ * against the candidate series.
+ * <p>
+ * Ids are assigned in increasing order, which keeps every posting sorted by appending. Removed
+ * series leave a tombstone behind, once tombstones make up half of the index the remaining series
+ * are given new ids in the same order.
+ */
+class MemoryIndex {
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * Minimum number of tombstones before ids are compacted.
+     */
+    static final int COMPACT_MIN_TOMBSTONES = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int compactMinTombstones;
+
+    /* series by id, removed series leave a null behind */
+    private final List<Series> series = new ArrayList<>();
+    private final Map<Series, Integer> ids = new HashMap<>();
+
+    private final Postings all = new Postings();
+    private final Map<String, Postings> keys = new HashMap<>();
+    private final Map<String, Postings> tagKeys = new HashMap<>();
+    private final Map<String, Map<String, Postings>> tags = new HashMap<>();
+
+    /* number of nulls in series */
+    private int tombstones = 0;
+
+    MemoryIndex() {
+        this(COMPACT_MIN_TOMBSTONES);
+    }
+
+    MemoryIndex(final int compactMinTombstones) {
+        this.compactMinTombstones = compactMinTombstones;
+    }
+
+    /**
+     * Add the given series to the index.
+     *
+     * @return {@code true} if the series was not already indexed
+     */
+    public boolean add(final Series s) {
+        /* most writes are for series which are already indexed, only those need the write lock */
+        final Lock r = lock.readLock();
+        r.lock();
+
+        try {
+            if (ids.containsKey(s)) {
+                return false;
+            }
+        } finally {
+            r.unlock();
+        }
+
+        final Lock l = lock.writeLock();
+        l.lock();
+
+        try {
+            /* might have been added since the read lock was released */
+            if (ids.containsKey(s)) {
+                return false;
+            }
+
+            final int id = series.size();
+            series.add(s);
+            ids.put(s, id);
+
+            all.add(id);
+            keys.computeIfAbsent(s.getKey(), k -> new Postings()).add(id);
+
+            for (final Map.Entry<String, String> e : s.getTags().entrySet()) {
+                tagKeys.computeIfAbsent(e.getKey(), k -> new Postings()).add(id);
+                tags
+                    .computeIfAbsent(e.getKey(), k -> new HashMap<>())
+                    .computeIfAbsent(e.getValue(), v -> new Postings())
+                    .add(id);
+            }
+
+            return true;
+        } finally {
+            l.unlock();
+        }
+    }
+
+    /**
+     * Remove the given series from the index.
+     *
+     * @return {@code true} if the series was indexed
+     */
+    public boolean remove(final Series s) {
+        return removeAll(Collections.singletonList(s)) > 0;
+    }
+
+    /**
+     * Remove all the given series from the index.
+     * <p>
+     * The ids to remove are gathered per posting first, so that every posting is only rewritten
+     * once regardless of how many series are removed from it.
+     *
+     * @return the number of series that were indexed
+     */
+    public int removeAll(final Collection<Series> remove) {
+        final Lock l = lock.writeLock();
+        l.lock();
+
+        try {
+            final List<Integer> removed = new ArrayList<>();
+
+            for (final Series s : remove) {
+                final Integer id = ids.remove(s);
+
+                if (id != null) {
+                    removed.add(id);
+                }
+            }
+
+            if (removed.isEmpty()) {
+                return 0;
+            }
+
+            /* sorted ids, so that the ids gathered for every posting are sorted as well */
+            Collections.sort(removed);
+
+            final Map<Postings, List<Integer>> removals = new IdentityHashMap<>();
+
+            for (final int id : removed) {
+                final Series s = series.get(id);
+
+                removals.computeIfAbsent(all, p -> new ArrayList<>()).add(id);
+                removals.computeIfAbsent(keys.get(s.getKey()), p -> new ArrayList<>()).add(id);
+
+                for (final Map.Entry<String, String> e : s.getTags().entrySet()) {
+                    removals
+                        .computeIfAbsent(tagKeys.get(e.getKey()), p -> new ArrayList<>())
+                        .add(id);
+                    removals
+                        .computeIfAbsent(tags.get(e.getKey()).get(e.getValue()),
+                            p -> new ArrayList<>())
+                        .add(id);
+                }
+            }
+
+            for (final Map.Entry<Postings, List<Integer>> e : removals.entrySet()) {
+                e.getKey().removeAll(e.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+
+            for (final int id : removed) {
+                final Series s = series.set(id, null);
+
+                removeIfEmpty(keys, s.getKey());
+
+                for (final Map.Entry<String, String> e : s.getTags().entrySet()) {
+                    removeIfEmpty(tagKeys, e.getKey());
+
+                    final Map<String, Postings> values = tags.get(e.getKey());
+
+                    if (values == null) {
+                        continue;
+                    }
+
+                    removeIfEmpty(values, e.getValue());
+
+                    if (values.isEmpty()) {
+                        tags.remove(e.getKey());
+                    }
+                }
+            }
+
+            tombstones += removed.size();
+
+            if (tombstones >= compactMinTombstones && tombstones * 2 >= series.size()) {
+                compact();
+            }
+
+            return removed.size();
+        } finally {
+            l.unlock();
+        }
+    }
+
+    /**
+     * Find all series matching the given filter, in the order they were added.
+     *
+     * @param limit Maximum number of series to return.
+     */
+    public List<Series> lookup(final Filter filter, final long limit) {
+        final Lock l = lock.readLock();
+        l.lock();
+
+        try {
+            final int[] result = filter.optimize().visit(new Resolver());
+            final int size = (int) Math.min(result.length, limit);
+
+            final List<Series> matches = new ArrayList<>(size);
+
+            for (int i = 0; i < size; i++) {
+                matches.add(series.get(result[i]));
+            }
+
+            return matches;
+        } finally {
+            l.unlock();
+        }
+    }
+
+    /**
+     * Count all series matching the given filter.
+     */
+    public long count(final Filter filter) {
+        final Lock l = lock.readLock();
+        l.lock();
+
+        try {
+            return filter.optimize().visit(new Resolver()).length;
+        } finally {
+            l.unlock();
+        }
+    }
+
+    /**
+     * Number of tombstones currently in the index.
+     */
+    int tombstones() {
+        final Lock l = lock.readLock();
+        l.lock();
+
+        try {
+            return tombstones;
+        } finally {
+            l.unlock();
+        }
+    }
+
+    /**
+     * Give all remaining series new ids in the order they were added, which drops all
+     * tombstones.
+     * <p>
+     * Must be called while holding the write lock.
+     */
+    private void compact() {
+        final int[] remap = new int[series.size()];
+        final List<Series> live = new ArrayList<>(series.size() - tombstones);
+
+        for (int id = 0; id < series.size(); id++) {
+            final Series s = series.get(id);
+
+            if (s == null) {
+                remap[id] = -1;
+                continue;
+            }
+
+            remap[id] = live.size();
+            ids.put(s, live.size());
+            live.add(s);
+        }
+
+        series.clear();
+        series.addAll(live);
+
+        all.remap(remap);
+        keys.values().forEach(p -> p.remap(remap));
+        tagKeys.values().forEach(p -> p.remap(remap));
+        tags.values().forEach(values -> values.values().forEach(p -> p.remap(remap)));
+
+        tombstones = 0;
+    }
+
+    private static void removeIfEmpty(final Map<String, Postings> postings, final String value) {
+        final Postings p = postings.get(value);
+
+        if (p != null && p.size == 0) {
+            postings.remove(value);
+        }
+    }
+
+    /**
+     * Resolves a filter into the sorted ids of all matching series.
+     * <p>
+     * Must be used while holding the read lock.
+     */
+    private class Resolver implements Filter.Visitor<int[]> {
+        @Override
+        public int[] visitTrue(final TrueFilter t) {
+            return all.toArray();
+        }
+
+        @Override
+        public int[] visitFalse(final FalseFilter f) {
+            return EMPTY;
+        }
+
+        @Override
+        public int[] visitMatchKey(final MatchKeyFilter matchKey) {
+            return toArray(keys.get(matchKey.getValue()));
+        }
+
+        @Override
+        public int[] visitHasTag(final HasTagFilter hasTag) {
+            return toArray(tagKeys.get(hasTag.getTag()));
+        }
+
+        @Override
+        public int[] visitMatchTag(final MatchTagFilter matchTag) {
+            final Map<String, Postings> values = tags.get(matchTag.getTag());
+
+            if (values == null) {
+                return EMPTY;
+            }
+
+            return toArray(values.get(matchTag.getValue()));
+        }
+
+        @Override
+        public int[] visitNot(final NotFilter not) {
+            return difference(all.toArray(), not.getFilter().visit(this));
+        }
+
+        /**
+         * Intersect all indexed statements, subtract negated ones, and only evaluate the residue
+         * against what is left.
+         */
+        @Override
+        public int[] visitAnd(final AndFilter and) {
+            int[] result = null;
+            final List<int[]> excluded = new ArrayList<>();
+            final List<Filter> residue = new ArrayList<>();
+
+            for (final Filter f : and.getStatements()) {
+                if (f instanceof NotFilter && indexed(((NotFilter) f).getFilter())) {
+                    excluded.add(((NotFilter) f).getFilter().visit(this));
+                    continue;
+                }
+
+                if (!indexed(f)) {
+                    residue.add(f);
+                    continue;
+                }
+
+                final int[] ids = f.visit(this);
+                result = result == null ? ids : intersection(result, ids);
+
+                if (result.length == 0) {
+                    return EMPTY;
+                }
+            }
+
+            if (result == null) {
+                result = all.toArray();
+            }
+
+            for (final int[] e : excluded) {
+                result = difference(result, e);
+            }
+
+            if (residue.isEmpty()) {
+                return result;
+            }
+
+            return scan(result, FilterCompiler.compile(new AndFilter(residue)));
+        }
+
+        @Override
+        public int[] visitOr(final OrFilter or) {
+            int[] result = EMPTY;
+
+            for (final Filter f : or.getStatements()) {
+                result = union(result, f.visit(this));
+            }
+
+            return result;
+        }
+
+        /**
+         * Filters which can't be resolved through the index scan every series.
+         */
+        @Override
+        public int[] defaultAction(final Filter filter) {
+            return scan(all.toArray(), FilterCompiler.compile(filter));
+        }
+
+        private boolean indexed(final Filter f) {
+            return f instanceof MatchKeyFilter || f instanceof MatchTagFilter ||
+                f instanceof HasTagFilter || f instanceof TrueFilter || f instanceof FalseFilter;
+        }
+
+        private int[] scan(final int[] candidates, final Predicate<Series> predicate) {
+            final int[] result = new int[candidates.length];
+            int size = 0;
+
+            for (final int id : candidates) {
+                if (predicate.test(series.get(id))) {
+                    result[size++] = id;
+                }
+            }
+
+            return Arrays.copyOf(result, size);
+        }
+    }
+
+    private static int[] toArray(final Postings postings) {
+        return postings == null ? EMPTY : postings.toArray();
+    }
+
+    static int[] intersection(final int[] a, final int[] b) {
+        final int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+
+    static int[] union(final int[] a, final int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+
+        if (b.length == 0) {
+            return a;
+        }
+
+        final int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[size++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[size++] = b[j++];
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+
+        while (i < a.length) {
+            result[size++] = a[i++];
+        }
+
+        while (j < b.length) {
+            result[size++] = b[j++];
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+
+    static int[] difference(final int[] a, final int[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+
+        final int[] result = new int[a.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+
+        while (i < a.length) {
+            if (j >= b.length || a[i] < b[j]) {
+                result[size++] = a[i++];
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                i++;
+                j++;
+            }
+        }
+
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * A sorted, growable array of series ids.
+     */
+    static class Postings {
+        private int[] ids = new int[4];
+        private int size = 0;
+
+        /**
+         * Add an id, which must be larger than any id already added.
+         */
+        void add(final int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+
+            ids[size++] = id;
+        }
+
+        /**
+         * Remove all the given sorted ids, in a single pass like
+         * {@link MemoryIndex#difference(int[], int[])}.
+         */
+        void removeAll(final int[] remove) {
+            int j = 0;
+            int kept = 0;
+
+            for (int i = 0; i < size; i++) {
+                while (j < remove.length && remove[j] < ids[i]) {
+                    j++;
+                }
+
+                if (j < remove.length && remove[j] == ids[i]) {
+                    continue;
+                }
+
+                ids[kept++] = ids[i];
+            }
+
+            size = kept;
+        }
+
+        /**
+         * Replace every id with its new id, the mapping must keep the order of the ids.
+         */
+        void remap(final int[] remap) {
+            for (int i = 0; i < size; i++) {
+                ids[i] = remap[ids[i]];
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -26,7 +26,6 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.spotify.heroic.common.DynamicModuleId;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.ModuleId;
-import com.spotify.heroic.common.Series;
 import com.spotify.heroic.dagger.PrimaryComponent;
 import com.spotify.heroic.metadata.MetadataModule;
 import dagger.Component;
@@ -34,12 +33,7 @@ import dagger.Module;
 import dagger.Provides;
 import lombok.Data;
 
-import javax.inject.Named;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Optional;
-import java.util.Set;
-import java.util.concurrent.ConcurrentSkipListSet;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Optional.empty;
@@ -52,16 +46,13 @@ public final class MemoryMetadataModule implements MetadataModule, DynamicModule
 
     private final Optional<String> id;
     private final Groups groups;
-    private final boolean synchronizedStorage;
 
     @JsonCreator
     public MemoryMetadataModule(
-        @JsonProperty("id") Optional<String> id, @JsonProperty("groups") Optional<Groups> groups,
-        @JsonProperty("synchronizedStorage") Optional<Boolean> synchronizedStorage
+        @JsonProperty("id") Optional<String> id, @JsonProperty("groups") Optional<Groups> groups
     ) {
         this.id = id;
         this.groups = groups.orElseGet(Groups::empty).or(DEFAULT_GROUP);
-        this.synchronizedStorage = synchronizedStorage.orElse(false);
     }
 
     @Override
@@ -96,13 +87,8 @@ public final class MemoryMetadataModule implements MetadataModule, DynamicModule
 
         @MemoryScope
         @Provides
-        @Named("storage")
-        public Set<Series> storage() {
-            if (synchronizedStorage) {
-                return Collections.synchronizedSet(new HashSet<>());
-            } else {
-                return new ConcurrentSkipListSet<>();
-            }
+        public MemoryIndex index() {
+            return new MemoryIndex();
         }
     }
 
@@ -113,7 +99,6 @@ public final class MemoryMetadataModule implements MetadataModule, DynamicModule
     public static class Builder {
         private Optional<String> id = empty();
         private Optional<Groups> groups = empty();
-        private Optional<Boolean> synchronizedStorage = empty();
 
         public Builder id(final String id) {
             checkNotNull(id, "id");
@@ -127,13 +112,8 @@ public final class MemoryMetadataModule implements MetadataModule, DynamicModule
             return this;
         }
 
-        public Builder synchronizedStorage(final boolean synchronizedStorage) {
-            this.synchronizedStorage = of(synchronizedStorage);
-            return this;
-        }
-
         public MemoryMetadataModule build() {
-            return new MemoryMetadataModule(id, groups, synchronizedStorage);
+            return new MemoryMetadataModule(id, groups);
         }
     }
 }
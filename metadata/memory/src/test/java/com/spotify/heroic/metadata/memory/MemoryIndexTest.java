@@ -0,0 +1,167 @@
+package com.spotify.heroic.metadata.memory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.TrueFilter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.spotify.heroic.filter.Filter.and;
+import static com.spotify.heroic.filter.Filter.hasTag;
+import static com.spotify.heroic.filter.Filter.matchKey;
+import static com.spotify.heroic.filter.Filter.matchTag;
+import static com.spotify.heroic.filter.Filter.not;
+import static com.spotify.heroic.filter.Filter.or;
+import static com.spotify.heroic.filter.Filter.regex;
+import static com.spotify.heroic.filter.Filter.startsWith;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryIndexTest {
+    private final List<Filter> filters =
+        ImmutableList.of(TrueFilter.get(), matchKey("system"), matchKey("missing"),
+            hasTag("what"), matchTag("site", "lon"), matchTag("missing", "lon"),
+            not(matchTag("site", "lon")), startsWith("host", "host1"),
+            regex("host", "host[0-9]*5"), and(matchKey("system"), matchTag("site", "sto")),
+            and(matchKey("system"), not(hasTag("what")), regex("role", "role1.*")),
+            and(startsWith("host", "host2"), regex("role", "role[0-4]")),
+            or(matchKey("jvm"), matchTag("role", "role3"), startsWith("host", "host9")),
+            not(or(matchKey("jvm"), hasTag("what"))));
+
+    private List<Series> series;
+    private MemoryIndex index;
+
+    @Before
+    public void setup() {
+        series = new ArrayList<>();
+        index = new MemoryIndex(10);
+
+        for (int i = 0; i < 200; i++) {
+            final ImmutableMap.Builder<String, String> tags = ImmutableMap.builder();
+            tags.put("host", "host" + i);
+            tags.put("site", i % 3 == 0 ? "lon" : "sto");
+            tags.put("role", "role" + (i % 20));
+
+            if (i % 2 == 0) {
+                tags.put("what", "cpu");
+            }
+
+            final Series s = Series.of(i % 5 == 0 ? "jvm" : "system", tags.build());
+            series.add(s);
+            assertTrue(index.add(s));
+        }
+    }
+
+    @Test
+    public void testLookupSameAsApply() {
+        for (final Filter f : filters) {
+            assertEquals(f.toString(), expected(f), index.lookup(f, Long.MAX_VALUE));
+            assertEquals(f.toString(), expected(f).size(), index.count(f));
+        }
+    }
+
+    @Test
+    public void testAddExisting() {
+        for (final Series s : series) {
+            assertFalse(index.add(s));
+        }
+
+        for (final Filter f : filters) {
+            assertEquals(f.toString(), expected(f), index.lookup(f, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        final List<Series> removed = series.subList(0, 50);
+
+        for (final Series s : removed) {
+            assertTrue(index.remove(s));
+            assertFalse(index.remove(s));
+        }
+
+        removed.clear();
+
+        for (final Filter f : filters) {
+            assertEquals(f.toString(), expected(f), index.lookup(f, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void testRemoveAll() {
+        final List<Series> removed = series.subList(0, 50);
+
+        assertEquals(50, index.removeAll(removed));
+        assertEquals(0, index.removeAll(removed));
+
+        removed.clear();
+
+        for (final Filter f : filters) {
+            assertEquals(f.toString(), expected(f), index.lookup(f, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void testCompact() {
+        final List<Series> removed = series.subList(0, 150);
+
+        /* a quarter of the index is tombstones */
+        assertEquals(50, index.removeAll(series.subList(0, 50)));
+        assertEquals(50, index.tombstones());
+
+        /* three quarters of the index is tombstones, which compacts the ids */
+        assertEquals(100, index.removeAll(series.subList(50, 150)));
+        assertEquals(0, index.tombstones());
+
+        removed.clear();
+
+        for (final Filter f : filters) {
+            assertEquals(f.toString(), expected(f), index.lookup(f, Long.MAX_VALUE));
+        }
+
+        /* series added after compaction are ordered after the remaining ones */
+        final Series s = Series.of("system", ImmutableMap.of("host", "host0", "site", "lon"));
+        assertTrue(index.add(s));
+        series.add(s);
+
+        assertTrue(index.remove(series.get(0)));
+        series.remove(0);
+
+        for (final Filter f : filters) {
+            assertEquals(f.toString(), expected(f), index.lookup(f, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void testAddIsIdempotent() {
+        assertFalse(index.add(series.get(0)));
+        assertEquals(series.size(), index.count(TrueFilter.get()));
+    }
+
+    @Test
+    public void testLimit() {
+        assertEquals(expected(hasTag("what")).subList(0, 10), index.lookup(hasTag("what"), 10));
+    }
+
+    @Test
+    public void testSetOperations() {
+        final int[] a = {1, 3, 5, 7};
+        final int[] b = {3, 4, 5, 8};
+
+        assertArrayEquals(new int[]{3, 5}, MemoryIndex.intersection(a, b));
+        assertArrayEquals(new int[]{1, 3, 4, 5, 7, 8}, MemoryIndex.union(a, b));
+        assertArrayEquals(new int[]{1, 7}, MemoryIndex.difference(a, b));
+    }
+
+    private List<Series> expected(final Filter filter) {
+        return series.stream().filter(filter::apply).collect(Collectors.toList());
+    }
+}
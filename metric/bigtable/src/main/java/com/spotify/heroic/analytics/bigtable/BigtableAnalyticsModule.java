@@ -30,10 +30,12 @@ import com.spotify.heroic.lifecycle.LifeCycle;
 import com.spotify.heroic.lifecycle.LifeCycleManager;
 import com.spotify.heroic.metric.bigtable.BigtableConnection;
 import com.spotify.heroic.metric.bigtable.BigtableConnectionBuilder;
+import com.spotify.heroic.metric.bigtable.BigtableMetricModule;
 import com.spotify.heroic.metric.bigtable.CredentialsBuilder;
 import com.spotify.heroic.metric.bigtable.credentials.ComputeEngineCredentialsBuilder;
 import com.spotify.heroic.statistics.AnalyticsReporter;
 import com.spotify.heroic.statistics.HeroicReporter;
+import com.spotify.heroic.statistics.noop.NoopMetricBackendReporter;
 import dagger.Module;
 import dagger.Provides;
 import eu.toolchain.async.AsyncFramework;
@@ -94,7 +96,11 @@ public class BigtableAnalyticsModule implements AnalyticsModule {
                 return async.call(
                     new BigtableConnectionBuilder(project, cluster, credentials, async,
                         executorService, DEFAULT_DISABLE_BULK_MUTATIONS,
-                        DEFAULT_FLUSH_INTERVAL_SECONDS, Optional.empty()));
+                        DEFAULT_FLUSH_INTERVAL_SECONDS, Optional.empty(),
+                        NoopMetricBackendReporter.get(), false,
+                        BigtableMetricModule.DEFAULT_COALESCE_MAX_BATCH_BYTES,
+                        BigtableMetricModule.DEFAULT_COALESCE_MAX_BATCH_ROWS,
+                        BigtableMetricModule.DEFAULT_COALESCE_LATENCY_TARGET));
             }
 
             @Override
@@ -27,8 +27,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.bigtable.grpc.scanner.FlatRow;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
 import com.google.protobuf.ByteString;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Groups;
@@ -54,8 +52,6 @@ import com.spotify.heroic.metric.bigtable.api.BigtableTableAdminClient;
 import com.spotify.heroic.metric.bigtable.api.ColumnFamily;
 import com.spotify.heroic.metric.bigtable.api.Mutations;
 import com.spotify.heroic.metric.bigtable.api.ReadRowRangeRequest;
-import com.spotify.heroic.metric.bigtable.api.ReadRowsRequest;
-import com.spotify.heroic.metric.bigtable.api.RowFilter;
 import com.spotify.heroic.metric.bigtable.api.Table;
 import com.spotify.heroic.metrics.Meter;
 import com.spotify.heroic.statistics.MetricBackendReporter;
@@ -70,14 +66,13 @@ import eu.toolchain.serializer.SerializerFramework;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import javax.inject.Inject;
 import javax.inject.Named;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
@@ -108,6 +103,7 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     private final boolean configure;
     private final MetricBackendReporter reporter;
     private final ObjectMapper mapper;
+    private final RowReader reader;
 
     private static final TypeReference<Map<String, String>> PAYLOAD_TYPE =
         new TypeReference<Map<String, String>>() {
@@ -121,7 +117,9 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         final Serializer<RowKey> rowKeySerializer, final Managed<BigtableConnection> connection,
         final Groups groups, @Named("table") final String table,
         @Named("configure") final boolean configure, MetricBackendReporter reporter,
-        @Named("application/json") ObjectMapper mapper
+        @Named("application/json") ObjectMapper mapper,
+        @Named("maxRowsPerRead") final int maxRowsPerRead,
+        @Named("readParallelism") final int readParallelism
     ) {
         super(async);
         this.async = async;
@@ -133,6 +131,7 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         this.configure = configure;
         this.reporter = reporter;
         this.mapper = mapper;
+        this.reader = new RowReader(async, reporter, table, maxRowsPerRead, readParallelism);
     }
 
     @Override
@@ -232,10 +231,8 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     }
 
     private List<PreparedQuery> pointsRanges(final FetchData.Request request) throws IOException {
-        return ranges(request.getSeries(), request.getRange(), POINTS, (t, d) -> {
-            final double value = deserializeValue(d);
-            return new Point(t, value);
-        });
+        return ranges(request.getSeries(), request.getRange(), POINTS,
+            (t, d) -> new Point(t, deserializeValue(d)));
     }
 
     private List<PreparedQuery> eventsRanges(final FetchData.Request request) throws IOException {
@@ -406,35 +403,13 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         final List<AsyncFuture<FetchData>> fetches = new ArrayList<>(prepared.size());
 
         for (final PreparedQuery p : prepared) {
-            final AsyncFuture<List<FlatRow>> readRows = client.readRows(table, ReadRowsRequest
-                .builder()
-                .rowKey(p.request.getRowKey())
-                .filter(RowFilter.chain(Arrays.asList(RowFilter
-                    .newColumnRangeBuilder(p.request.getColumnFamily())
-                    .startQualifierOpen(p.request.getStartQualifierOpen())
-                    .endQualifierClosed(p.request.getEndQualifierClosed())
-                    .build(), RowFilter.onlyLatestCell())))
-                .build());
-
-            final Function<FlatRow.Cell, Metric> transform =
-                cell -> p.deserialize(cell.getQualifier(), cell.getValue());
-
             final QueryTrace.NamedWatch w = QueryTrace.watch(FETCH_SEGMENT);
 
-            fetches.add(readRows.directTransform(result -> {
-                final List<Iterable<Metric>> points = new ArrayList<>();
-
-                for (final FlatRow row : result) {
-                    watcher.readData(row.getCells().size());
-                    points.add(Iterables.transform(row.getCells(), transform));
-                }
-
+            fetches.add(reader.read(client, watcher, p).directTransform(metrics -> {
                 final QueryTrace trace = w.end();
                 final ImmutableList<Long> times = ImmutableList.of(trace.getElapsed());
-                final List<Metric> data =
-                    ImmutableList.copyOf(Iterables.mergeSorted(points, Metric.comparator()));
                 final List<MetricCollection> groups =
-                    ImmutableList.of(MetricCollection.build(type, data));
+                    ImmutableList.of(MetricCollection.build(type, metrics));
 
                 return FetchData.of(trace, times, groups);
             }));
@@ -453,30 +428,17 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         final List<AsyncFuture<FetchData.Result>> fetches = new ArrayList<>(prepared.size());
 
         for (final PreparedQuery p : prepared) {
-            QueryTrace.NamedWatch fs = QueryTrace.watch(FETCH_SEGMENT);
-
-            final AsyncFuture<List<FlatRow>> readRows = client.readRows(table, ReadRowsRequest
-                .builder()
-                .rowKey(p.request.getRowKey())
-                .filter(RowFilter.chain(Arrays.asList(RowFilter
-                    .newColumnRangeBuilder(p.request.getColumnFamily())
-                    .startQualifierOpen(p.request.getStartQualifierOpen())
-                    .endQualifierClosed(p.request.getEndQualifierClosed())
-                    .build(), RowFilter.onlyLatestCell())))
-                .build());
-
-            final Function<FlatRow.Cell, Metric> transform =
-                cell -> p.deserialize(cell.getQualifier(), cell.getValue());
-
-            fetches.add(readRows.directTransform(result -> {
-                for (final FlatRow row : result) {
-                    watcher.readData(row.getCells().size());
-                    List<Metric> metrics = Lists.transform(row.getCells(), transform);
+            final QueryTrace.NamedWatch fs = QueryTrace.watch(FETCH_SEGMENT);
+
+            fetches.add(reader.read(client, watcher, p).directTransform(metrics -> {
+                if (!metrics.isEmpty()) {
                     metricsConsumer.accept(MetricCollection.build(type, metrics));
                 }
+
                 return FetchData.result(fs.end());
             }));
         }
+
         return async.collect(fetches, FetchData.collectResult(FETCH));
     }
 
@@ -497,7 +459,7 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
 
     List<PreparedQuery> ranges(
         final Series series, final DateRange range, final String columnFamily,
-        final BiFunction<Long, ByteString, Metric> deserializer
+        final CellDeserializer deserializer
     ) throws IOException {
         final List<PreparedQuery> bases = new ArrayList<>();
 
@@ -518,7 +480,8 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
 
             final ReadRowRangeRequest request =
                 new ReadRowRangeRequest(keyBlob, columnFamily, startKey, endKey);
-            bases.add(new PreparedQuery(request, deserializer, base));
+            bases.add(new PreparedQuery(request, deserializer, base, offset(modified.start()),
+                offset(modified.end())));
         }
 
         return bases;
@@ -539,7 +502,13 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     }
 
     static double deserializeValue(ByteString value) {
-        return Double.longBitsToDouble(ByteBuffer.wrap(value.toByteArray()).getLong());
+        long bits = 0L;
+
+        for (int i = 0; i < Double.BYTES; i++) {
+            bits = (bits << 8) | (value.byteAt(i) & 0xff);
+        }
+
+        return Double.longBitsToDouble(bits);
     }
 
     /**
@@ -571,25 +540,48 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     }
 
     static long deserializeOffset(ByteString value) {
-        final byte[] bytes = value.toByteArray();
-
         // @formatter:off
-        return ((long) (bytes[0] & 0xff) << 24) +
-               ((long) (bytes[1] & 0xff) << 16) +
-               ((long) (bytes[2] & 0xff) << 8) +
-               ((long) (bytes[3] & 0xff) << 0);
+        return ((long) (value.byteAt(0) & 0xff) << 24) +
+               ((long) (value.byteAt(1) & 0xff) << 16) +
+               ((long) (value.byteAt(2) & 0xff) << 8) +
+               ((long) (value.byteAt(3) & 0xff) << 0);
         // @formatter:on
     }
 
+    /**
+     * Deserializes the value of a cell, without boxing its timestamp.
+     */
+    interface CellDeserializer {
+        Metric deserialize(long timestamp, ByteString value);
+    }
+
     @RequiredArgsConstructor
-    private static final class PreparedQuery {
+    static final class PreparedQuery {
+        @Getter
         private final ReadRowRangeRequest request;
-        private final BiFunction<Long, ByteString, Metric> deserializer;
+        private final CellDeserializer deserializer;
         private final long base;
+        /* offset range of the query within the row, start is exclusive and end is inclusive */
+        private final long startOffset;
+        private final long endOffset;
+
+        /**
+         * Deserialize the cells of the row, skipping cells which are outside of the range.
+         */
+        List<Metric> deserialize(final List<FlatRow.Cell> cells) {
+            final List<Metric> metrics = new ArrayList<>(cells.size());
+
+            for (final FlatRow.Cell cell : cells) {
+                final long offset = deserializeOffset(cell.getQualifier());
+
+                if (offset <= startOffset || offset > endOffset) {
+                    continue;
+                }
+
+                metrics.add(deserializer.deserialize(base + offset, cell.getValue()));
+            }
 
-        private Metric deserialize(final ByteString qualifier, final ByteString value) {
-            final long timestamp = base + deserializeOffset(qualifier);
-            return deserializer.apply(timestamp, value);
+            return metrics;
         }
     }
 }
@@ -27,6 +27,7 @@ import com.google.cloud.bigtable.config.BulkOptions;
 import com.google.cloud.bigtable.config.CredentialOptions;
 import com.google.cloud.bigtable.config.RetryOptions;
 import com.google.cloud.bigtable.grpc.BigtableSession;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.spotify.heroic.bigtable.grpc.Status;
 import com.spotify.heroic.metric.bigtable.api.BigtableDataClient;
 import com.spotify.heroic.metric.bigtable.api.BigtableDataClientImpl;
@@ -34,6 +35,8 @@ import com.spotify.heroic.metric.bigtable.api.BigtableMutator;
 import com.spotify.heroic.metric.bigtable.api.BigtableMutatorImpl;
 import com.spotify.heroic.metric.bigtable.api.BigtableTableAdminClient;
 import com.spotify.heroic.metric.bigtable.api.BigtableTableTableAdminClientImpl;
+import com.spotify.heroic.metric.bigtable.api.MutationCoalescer;
+import com.spotify.heroic.statistics.MetricBackendReporter;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import lombok.RequiredArgsConstructor;
@@ -42,6 +45,8 @@ import lombok.ToString;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 @ToString(of = {"project", "instance", "credentials"})
 @RequiredArgsConstructor
@@ -60,6 +65,12 @@ public class BigtableConnectionBuilder implements Callable<BigtableConnection> {
     private final int flushIntervalSeconds;
     private final Optional<Integer> batchSize;
 
+    private final MetricBackendReporter reporter;
+    private final boolean coalesceWrites;
+    private final long coalesceMaxBatchBytes;
+    private final int coalesceMaxBatchRows;
+    private final long coalesceLatencyTarget;
+
     @Override
     public BigtableConnection call() throws Exception {
         final CredentialOptions credentials = this.credentials.build();
@@ -89,8 +100,7 @@ public class BigtableConnectionBuilder implements Callable<BigtableConnection> {
             new BigtableTableTableAdminClientImpl(async, session.getTableAdminClient(), project,
               instance);
 
-        final BigtableMutator mutator =
-            new BigtableMutatorImpl(async, session, disableBulkMutations, flushIntervalSeconds);
+        final BigtableMutator mutator = buildMutator(session);
 
         final BigtableDataClient client =
             new BigtableDataClientImpl(async, session, mutator, project, instance);
@@ -99,6 +109,21 @@ public class BigtableConnectionBuilder implements Callable<BigtableConnection> {
             async, project, instance, session, mutator, adminClient, client);
     }
 
+    private BigtableMutator buildMutator(final BigtableSession session) {
+        final BigtableMutator mutator =
+            new BigtableMutatorImpl(async, session, disableBulkMutations, flushIntervalSeconds);
+
+        if (!coalesceWrites) {
+            return mutator;
+        }
+
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("heroic-bigtable-coalesce").build());
+
+        return new MutationCoalescer(async, mutator, scheduler, reporter, coalesceMaxBatchBytes,
+            coalesceMaxBatchRows, coalesceLatencyTarget);
+    }
+
     @RequiredArgsConstructor
     @ToString(of = {"project", "instance"})
     public static class GrpcBigtableConnection implements BigtableConnection {
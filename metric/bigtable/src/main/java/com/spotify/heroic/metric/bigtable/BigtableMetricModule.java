@@ -36,6 +36,7 @@ import com.spotify.heroic.lifecycle.LifeCycleManager;
 import com.spotify.heroic.metric.MetricModule;
 import com.spotify.heroic.metric.bigtable.api.FakeBigtableConnection;
 import com.spotify.heroic.metric.bigtable.credentials.ComputeEngineCredentialsBuilder;
+import com.spotify.heroic.statistics.MetricBackendReporter;
 import dagger.Component;
 import dagger.Lazy;
 import dagger.Module;
@@ -64,6 +65,12 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
     public static final boolean DEFAULT_DISABLE_BULK_MUTATIONS = false;
     public static final int DEFAULT_FLUSH_INTERVAL_SECONDS = 2;
     public static final boolean DEFAULT_FAKE = false;
+    public static final boolean DEFAULT_COALESCE_WRITES = false;
+    public static final long DEFAULT_COALESCE_MAX_BATCH_BYTES = 4 * 1024 * 1024;
+    public static final int DEFAULT_COALESCE_MAX_BATCH_ROWS = 1000;
+    public static final long DEFAULT_COALESCE_LATENCY_TARGET = 50;
+    public static final int DEFAULT_MAX_ROWS_PER_READ = 16;
+    public static final int DEFAULT_READ_PARALLELISM = 32;
 
     private final Optional<String> id;
     private final Groups groups;
@@ -76,6 +83,12 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
     private final int flushIntervalSeconds;
     private final Optional<Integer> batchSize;
     private final boolean fake;
+    private final boolean coalesceWrites;
+    private final long coalesceMaxBatchBytes;
+    private final int coalesceMaxBatchRows;
+    private final long coalesceLatencyTarget;
+    private final int maxRowsPerRead;
+    private final int readParallelism;
 
     @JsonCreator
     public BigtableMetricModule(
@@ -88,7 +101,13 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
         @JsonProperty("disableBulkMutations") Optional<Boolean> disableBulkMutations,
         @JsonProperty("flushIntervalSeconds") Optional<Integer> flushIntervalSeconds,
         @JsonProperty("batchSize") Optional<Integer> batchSize,
-        @JsonProperty("fake") Optional<Boolean> fake
+        @JsonProperty("fake") Optional<Boolean> fake,
+        @JsonProperty("coalesceWrites") Optional<Boolean> coalesceWrites,
+        @JsonProperty("coalesceMaxBatchBytes") Optional<Long> coalesceMaxBatchBytes,
+        @JsonProperty("coalesceMaxBatchRows") Optional<Integer> coalesceMaxBatchRows,
+        @JsonProperty("coalesceLatencyTarget") Optional<Long> coalesceLatencyTarget,
+        @JsonProperty("maxRowsPerRead") Optional<Integer> maxRowsPerRead,
+        @JsonProperty("readParallelism") Optional<Integer> readParallelism
     ) {
         this.id = id;
         this.groups = groups.orElseGet(Groups::empty).or(DEFAULT_GROUP);
@@ -101,6 +120,12 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
         this.flushIntervalSeconds = flushIntervalSeconds.orElse(DEFAULT_FLUSH_INTERVAL_SECONDS);
         this.batchSize = batchSize;
         this.fake = fake.orElse(DEFAULT_FAKE);
+        this.coalesceWrites = coalesceWrites.orElse(DEFAULT_COALESCE_WRITES);
+        this.coalesceMaxBatchBytes = coalesceMaxBatchBytes.orElse(DEFAULT_COALESCE_MAX_BATCH_BYTES);
+        this.coalesceMaxBatchRows = coalesceMaxBatchRows.orElse(DEFAULT_COALESCE_MAX_BATCH_ROWS);
+        this.coalesceLatencyTarget = coalesceLatencyTarget.orElse(DEFAULT_COALESCE_LATENCY_TARGET);
+        this.maxRowsPerRead = maxRowsPerRead.orElse(DEFAULT_MAX_ROWS_PER_READ);
+        this.readParallelism = readParallelism.orElse(DEFAULT_READ_PARALLELISM);
     }
 
     @Override
@@ -129,7 +154,8 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
         @BigtableScope
         public Managed<BigtableConnection> connection(
             final AsyncFramework async, final ExecutorService executorService,
-            final Lazy<FakeBigtableConnection> fakeBigtableConnection
+            final Lazy<FakeBigtableConnection> fakeBigtableConnection,
+            final MetricBackendReporter reporter
         ) {
             if (fake) {
                 return async.managed(new ManagedSetup<BigtableConnection>() {
@@ -152,7 +178,8 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
                     return async.call(
                         new BigtableConnectionBuilder(project, instance, credentials, async,
                             executorService, disableBulkMutations, flushIntervalSeconds,
-                            batchSize));
+                            batchSize, reporter, coalesceWrites, coalesceMaxBatchBytes,
+                            coalesceMaxBatchRows, coalesceLatencyTarget));
                 }
 
                 @Override
@@ -172,6 +199,20 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
             return table;
         }
 
+        @Provides
+        @BigtableScope
+        @Named("maxRowsPerRead")
+        public int maxRowsPerRead() {
+            return maxRowsPerRead;
+        }
+
+        @Provides
+        @BigtableScope
+        @Named("readParallelism")
+        public int readParallelism() {
+            return readParallelism;
+        }
+
         @Provides
         @BigtableScope
         @Named("configure")
@@ -220,6 +261,12 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
         private Optional<Integer> flushIntervalSeconds = empty();
         private Optional<Integer> batchSize = empty();
         private Optional<Boolean> fake = empty();
+        private Optional<Boolean> coalesceWrites = empty();
+        private Optional<Long> coalesceMaxBatchBytes = empty();
+        private Optional<Integer> coalesceMaxBatchRows = empty();
+        private Optional<Long> coalesceLatencyTarget = empty();
+        private Optional<Integer> maxRowsPerRead = empty();
+        private Optional<Integer> readParallelism = empty();
 
         public Builder id(String id) {
             this.id = of(id);
@@ -277,9 +324,41 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
             return this;
         }
 
+        public Builder coalesceWrites(final boolean coalesceWrites) {
+            this.coalesceWrites = of(coalesceWrites);
+            return this;
+        }
+
+        public Builder coalesceMaxBatchBytes(final long coalesceMaxBatchBytes) {
+            this.coalesceMaxBatchBytes = of(coalesceMaxBatchBytes);
+            return this;
+        }
+
+        public Builder coalesceMaxBatchRows(final int coalesceMaxBatchRows) {
+            this.coalesceMaxBatchRows = of(coalesceMaxBatchRows);
+            return this;
+        }
+
+        public Builder coalesceLatencyTarget(final long coalesceLatencyTarget) {
+            this.coalesceLatencyTarget = of(coalesceLatencyTarget);
+            return this;
+        }
+
+        public Builder maxRowsPerRead(final int maxRowsPerRead) {
+            this.maxRowsPerRead = of(maxRowsPerRead);
+            return this;
+        }
+
+        public Builder readParallelism(final int readParallelism) {
+            this.readParallelism = of(readParallelism);
+            return this;
+        }
+
         public BigtableMetricModule build() {
             return new BigtableMetricModule(id, groups, project, instance, table, credentials,
-                configure, disableBulkMutations, flushIntervalSeconds, batchSize, fake);
+                configure, disableBulkMutations, flushIntervalSeconds, batchSize, fake,
+                coalesceWrites, coalesceMaxBatchBytes, coalesceMaxBatchRows, coalesceLatencyTarget,
+                maxRowsPerRead, readParallelism);
         }
     }
 }
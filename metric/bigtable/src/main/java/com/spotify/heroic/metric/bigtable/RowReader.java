@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.bigtable;
+
+import com.google.cloud.bigtable.grpc.scanner.FlatRow;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.metric.FetchQuotaWatcher;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.bigtable.BigtableBackend.PreparedQuery;
+import com.spotify.heroic.metric.bigtable.api.BigtableDataClient;
+import com.spotify.heroic.metric.bigtable.api.ReadRowRangeRequest;
+import com.spotify.heroic.metric.bigtable.api.ReadRowsRequest;
+import com.spotify.heroic.metric.bigtable.api.RowFilter;
+import com.spotify.heroic.statistics.MetricBackendReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Reads rows on behalf of every fetch of a backend.
+ * <p>
+ * A read request has a single column filter, so rows are queued by their column range, and every
+ * read takes up to {@code maxRowsPerRead} queued rows which share a column range. The rows of
+ * different series in the same query share a column range, so they are read together.
+ * <p>
+ * At most {@code maxReads} reads are in flight. Rows are read right away while there is room, and
+ * rows which are queued while all reads are busy are batched into the next reads, so batching
+ * never delays a read on an idle backend.
+ */
+class RowReader {
+    private final AsyncFramework async;
+    private final MetricBackendReporter reporter;
+    private final String table;
+    private final int maxRowsPerRead;
+    private final int maxReads;
+
+    private final Object lock = new Object();
+
+    /* queued rows by column range, ranges take turns in this order, guarded by lock */
+    private final Map<ColumnRange, Queue<Row>> queued = new LinkedHashMap<>();
+    /* guarded by lock */
+    private int reads = 0;
+
+    RowReader(
+        final AsyncFramework async, final MetricBackendReporter reporter, final String table,
+        final int maxRowsPerRead, final int maxReads
+    ) {
+        this.async = async;
+        this.reporter = reporter;
+        this.table = table;
+        this.maxRowsPerRead = Math.max(1, maxRowsPerRead);
+        this.maxReads = Math.max(1, maxReads);
+    }
+
+    /**
+     * Read the row of the given query.
+     *
+     * @return The metrics within the range of the query, sorted by timestamp. Cancelling it drops
+     * the row if it is still queued.
+     */
+    AsyncFuture<List<Metric>> read(
+        final BigtableDataClient client, final FetchQuotaWatcher watcher,
+        final PreparedQuery query
+    ) {
+        final Row row = new Row(client, watcher, query, async.future());
+
+        synchronized (lock) {
+            queued.computeIfAbsent(ColumnRange.of(query.getRequest()), k -> new ArrayDeque<>())
+                .add(row);
+        }
+
+        dispatch();
+        return row.future;
+    }
+
+    private void dispatch() {
+        final List<List<Row>> batches = new ArrayList<>();
+
+        synchronized (lock) {
+            while (reads < maxReads) {
+                final List<Row> batch = take();
+
+                if (batch == null) {
+                    break;
+                }
+
+                reads++;
+                batches.add(batch);
+            }
+        }
+
+        batches.forEach(this::readBatch);
+    }
+
+    /**
+     * Take the next batch of rows, must be called while holding the lock.
+     * <p>
+     * A column range with rows left is moved to the back, so that ranges take turns.
+     */
+    private List<Row> take() {
+        final Iterator<Map.Entry<ColumnRange, Queue<Row>>> it = queued.entrySet().iterator();
+
+        while (it.hasNext()) {
+            final Map.Entry<ColumnRange, Queue<Row>> e = it.next();
+            it.remove();
+
+            final Queue<Row> rows = e.getValue();
+            final List<Row> batch = new ArrayList<>();
+            Row row;
+
+            while (batch.size() < maxRowsPerRead && (row = rows.poll()) != null) {
+                /* skip rows of fetches which were cancelled while queued */
+                if (!row.future.isDone()) {
+                    batch.add(row);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                if (!rows.isEmpty()) {
+                    queued.put(e.getKey(), rows);
+                }
+
+                return batch;
+            }
+        }
+
+        return null;
+    }
+
+    private void readBatch(final List<Row> batch) {
+        final Map<ByteString, List<Row>> byRowKey = new HashMap<>();
+
+        for (final Row row : batch) {
+            byRowKey
+                .computeIfAbsent(row.query.getRequest().getRowKey(), k -> new ArrayList<>())
+                .add(row);
+        }
+
+        final ReadRowRangeRequest first = batch.get(0).query.getRequest();
+
+        final ReadRowsRequest request = ReadRowsRequest
+            .builder()
+            .rowKeys(byRowKey.keySet())
+            .filter(RowFilter.chain(Arrays.asList(RowFilter
+                .newColumnRangeBuilder(first.getColumnFamily())
+                .startQualifierOpen(first.getStartQualifierOpen())
+                .endQualifierClosed(first.getEndQualifierClosed())
+                .build(), RowFilter.onlyLatestCell())))
+            .build();
+
+        reporter.reportRowsPerRead(byRowKey.size());
+
+        AsyncFuture<List<FlatRow>> read;
+
+        try {
+            read = batch.get(0).client.readRows(table, request);
+        } catch (final Exception e) {
+            read = async.failed(e);
+        }
+
+        read.onDone(new FutureDone<List<FlatRow>>() {
+            @Override
+            public void failed(final Throwable cause) {
+                batch.forEach(row -> row.future.fail(cause));
+            }
+
+            @Override
+            public void resolved(final List<FlatRow> result) {
+                for (final FlatRow flat : result) {
+                    final List<Row> rows = byRowKey.get(flat.getRowKey());
+
+                    if (rows == null) {
+                        continue;
+                    }
+
+                    for (final Row row : rows) {
+                        row.resolve(flat.getCells());
+                    }
+                }
+
+                /* rows without any cells in range are not returned at all */
+                batch.forEach(row -> row.future.resolve(ImmutableList.of()));
+            }
+
+            @Override
+            public void cancelled() {
+                batch.forEach(row -> row.future.cancel());
+            }
+        }).onFinished(() -> {
+            synchronized (lock) {
+                reads--;
+            }
+
+            dispatch();
+        });
+    }
+
+    /**
+     * The column range which a row is read with, rows share a read only if this is equal.
+     */
+    @Data
+    static class ColumnRange {
+        private final String columnFamily;
+        private final ByteString startQualifierOpen;
+        private final ByteString endQualifierClosed;
+
+        static ColumnRange of(final ReadRowRangeRequest request) {
+            return new ColumnRange(request.getColumnFamily(), request.getStartQualifierOpen(),
+                request.getEndQualifierClosed());
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Row {
+        private final BigtableDataClient client;
+        private final FetchQuotaWatcher watcher;
+        private final PreparedQuery query;
+        private final ResolvableFuture<List<Metric>> future;
+
+        void resolve(final List<FlatRow.Cell> cells) {
+            try {
+                watcher.readData(cells.size());
+                future.resolve(query.deserialize(cells));
+            } catch (final Exception e) {
+                future.fail(e);
+            }
+        }
+    }
+}
@@ -27,5 +27,11 @@ import eu.toolchain.async.AsyncFuture;
 public interface BigtableMutator {
     AsyncFuture<Void> mutateRow(String tableName, ByteString rowKey, Mutations mutations);
 
+    /**
+     * Send any mutations which have been buffered by the mutator.
+     */
+    default void flush() {
+    }
+
     AsyncFuture<Void> close();
 }
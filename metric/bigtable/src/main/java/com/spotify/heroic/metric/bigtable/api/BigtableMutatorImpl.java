@@ -164,7 +164,12 @@ public class BigtableMutatorImpl implements BigtableMutator {
         return future;
     }
 
-    private void flush() {
+    @Override
+    public void flush() {
+        if (disableBulkMutations) {
+            return;
+        }
+
         synchronized (lock) {
             tableToBulkMutation.values().stream().forEach(BulkMutation::flush);
         }
@@ -23,6 +23,7 @@ package com.spotify.heroic.metric.bigtable.api;
 
 import com.google.bigtable.v2.Mutation;
 import com.google.cloud.bigtable.grpc.scanner.FlatRow;
+import com.google.common.collect.ImmutableSet;
 import com.google.protobuf.ByteString;
 import com.spotify.heroic.async.AsyncObservable;
 import com.spotify.heroic.metric.bigtable.BigtableConnection;
@@ -30,6 +31,7 @@ import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
@@ -225,9 +227,10 @@ public class FakeBigtableConnection implements BigtableConnection {
                 request.getFilter().<Function<ByteString, Boolean>>map(
                     filter -> filter::matchesColumn).orElse(column -> true);
 
+            final Set<ByteString> rowKeys = ImmutableSet.copyOf(request.getRowKeys());
+
             final Function<ByteString, Boolean> matchesRowKey =
-                request.getRowKey().<Function<ByteString, Boolean>>map(
-                    rowKey -> rowKey::equals).orElse(key -> true);
+                rowKeys.isEmpty() ? key -> true : rowKeys::contains;
 
             return async.call(() -> rows.entrySet().stream().flatMap(entry -> {
                 final Pair<ByteString, ColumnFamily> key = entry.getKey();
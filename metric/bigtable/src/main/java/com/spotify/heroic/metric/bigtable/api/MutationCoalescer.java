@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.spotify.heroic.metric.bigtable.api;
+
+import com.google.bigtable.v2.Mutation;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.statistics.MetricBackendReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coalesces row mutations per table before handing them to a delegate mutator.
+ * <p>
+ * Mutations are put on a lock-free queue for their table. A table is flushed as soon as its
+ * pending mutations reach the maximum batch size in bytes or rows. Otherwise it is flushed after a
+ * delay which adapts to the latency of previous flushes, so that the time a mutation spends queued
+ * plus the time it takes to write stays close to the latency target.
+ * <p>
+ * Mutations for the same row key which are flushed together are merged into a single row
+ * mutation, where a later cell replaces an earlier one with the same family, column and
+ * timestamp.
+ */
+@Slf4j
+public class MutationCoalescer implements BigtableMutator {
+    /* weight of the latest flush in the moving average of the flush latency */
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private final AsyncFramework async;
+    private final BigtableMutator delegate;
+    private final ScheduledExecutorService scheduler;
+    private final MetricBackendReporter reporter;
+    private final long maxBatchBytes;
+    private final int maxBatchRows;
+    private final long latencyTargetNanos;
+
+    private final ConcurrentMap<String, TableQueue> tables = new ConcurrentHashMap<>();
+
+    /* moving average of the flush latency, in nanoseconds */
+    private final AtomicLong flushLatency = new AtomicLong();
+
+    public MutationCoalescer(
+        final AsyncFramework async, final BigtableMutator delegate,
+        final ScheduledExecutorService scheduler, final MetricBackendReporter reporter,
+        final long maxBatchBytes, final int maxBatchRows, final long latencyTargetMillis
+    ) {
+        this.async = async;
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+        this.reporter = reporter;
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxBatchRows = maxBatchRows;
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(latencyTargetMillis);
+    }
+
+    @Override
+    public AsyncFuture<Void> mutateRow(
+        final String tableName, final ByteString rowKey, final Mutations mutations
+    ) {
+        final ResolvableFuture<Void> future = async.future();
+        final Pending pending = new Pending(rowKey, mutations, future, bytes(rowKey, mutations));
+
+        reporter.incrementInFlightWriteBytes(pending.bytes);
+        tables.computeIfAbsent(tableName, TableQueue::new).add(pending);
+        return future;
+    }
+
+    @Override
+    public void flush() {
+        tables.values().forEach(TableQueue::flush);
+    }
+
+    @Override
+    public AsyncFuture<Void> close() {
+        scheduler.shutdownNow();
+        flush();
+        return delegate.close();
+    }
+
+    /**
+     * The current delay before a table with pending mutations is flushed, in nanoseconds.
+     */
+    long flushDelay() {
+        return Math.max(0L, latencyTargetNanos - flushLatency.get());
+    }
+
+    private void write(final String tableName, final Collection<Row> rows) {
+        final long start = System.nanoTime();
+        final List<AsyncFuture<Void>> writes = new ArrayList<>(rows.size());
+
+        for (final Row row : rows) {
+            writes.add(row.write(tableName));
+        }
+
+        delegate.flush();
+
+        async.collectAndDiscard(writes).onFinished(() -> {
+            final long elapsed = System.nanoTime() - start;
+            reporter.reportWriteFlushLatency(elapsed);
+            flushLatency.updateAndGet(average -> average == 0L ? elapsed
+                : (long) (average + LATENCY_WEIGHT * (elapsed - average)));
+        });
+    }
+
+    private static long bytes(final ByteString rowKey, final Mutations mutations) {
+        long bytes = rowKey.size();
+
+        for (final Mutation mutation : mutations.getMutations()) {
+            bytes += mutation.getSerializedSize();
+        }
+
+        return bytes;
+    }
+
+    @RequiredArgsConstructor
+    private class TableQueue {
+        private final String name;
+
+        private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicInteger rows = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void add(final Pending pending) {
+            queue.add(pending);
+
+            final long b = bytes.addAndGet(pending.bytes);
+            final int r = rows.incrementAndGet();
+
+            if (b >= maxBatchBytes || r >= maxBatchRows) {
+                flush();
+                return;
+            }
+
+            if (scheduled.compareAndSet(false, true)) {
+                schedule();
+            }
+        }
+
+        /**
+         * Write at most one batch of pending mutations, and schedule another flush if mutations
+         * remain after that.
+         */
+        void flush() {
+            scheduled.set(false);
+
+            final Map<ByteString, Row> batch = new LinkedHashMap<>();
+            long batchBytes = 0L;
+            Pending pending;
+
+            while (batch.size() < maxBatchRows && batchBytes < maxBatchBytes &&
+                (pending = queue.poll()) != null) {
+                bytes.addAndGet(-pending.bytes);
+                rows.decrementAndGet();
+                batchBytes += pending.bytes;
+                batch.computeIfAbsent(pending.rowKey, Row::new).add(pending);
+            }
+
+            if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                schedule();
+            }
+
+            if (!batch.isEmpty()) {
+                write(name, batch.values());
+            }
+        }
+
+        private void schedule() {
+            try {
+                scheduler.schedule(this::flush, flushDelay(), TimeUnit.NANOSECONDS);
+            } catch (final RejectedExecutionException e) {
+                /* the coalescer is closing, write directly */
+                flush();
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Pending {
+        private final ByteString rowKey;
+        private final Mutations mutations;
+        private final ResolvableFuture<Void> future;
+        private final long bytes;
+    }
+
+    @RequiredArgsConstructor
+    private class Row {
+        private final ByteString key;
+        private final List<Pending> pending = new ArrayList<>();
+
+        void add(final Pending p) {
+            pending.add(p);
+        }
+
+        AsyncFuture<Void> write(final String tableName) {
+            long rowBytes = 0L;
+
+            for (final Pending p : pending) {
+                rowBytes += p.bytes;
+            }
+
+            final long released = rowBytes;
+
+            AsyncFuture<Void> write;
+
+            try {
+                write = delegate.mutateRow(tableName, key, merge());
+            } catch (final Exception e) {
+                write = async.failed(e);
+            }
+
+            return write.onFinished(() -> reporter.decrementInFlightWriteBytes(released))
+                .onDone(new FutureDone<Void>() {
+                    @Override
+                    public void failed(final Throwable cause) {
+                        log.error("Failed to write {} coalesced mutation(s) to {}", pending.size(),
+                            tableName, cause);
+                        pending.forEach(p -> p.future.fail(cause));
+                    }
+
+                    @Override
+                    public void resolved(final Void result) {
+                        pending.forEach(p -> p.future.resolve(null));
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        pending.forEach(p -> p.future.cancel());
+                    }
+                });
+        }
+
+        /**
+         * Merge the mutations of all pending writes for this row. Cells are only replaced when the
+         * row consists of set cell mutations only, since the order of other mutations matters.
+         */
+        private Mutations merge() {
+            if (pending.size() == 1) {
+                return pending.get(0).mutations;
+            }
+
+            final List<Mutation> all = new ArrayList<>();
+            boolean onlySetCells = true;
+
+            for (final Pending p : pending) {
+                for (final Mutation mutation : p.mutations.getMutations()) {
+                    all.add(mutation);
+                    onlySetCells &= mutation.getMutationCase() == Mutation.MutationCase.SET_CELL;
+                }
+            }
+
+            if (!onlySetCells) {
+                return new Mutations(ImmutableList.copyOf(all));
+            }
+
+            final Map<List<Object>, Mutation> cells = new LinkedHashMap<>();
+
+            for (final Mutation mutation : all) {
+                final Mutation.SetCell cell = mutation.getSetCell();
+                cells.put(ImmutableList.of(cell.getFamilyName(), cell.getColumnQualifier(),
+                    cell.getTimestampMicros()), mutation);
+            }
+
+            return new Mutations(ImmutableList.copyOf(cells.values()));
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package com.spotify.heroic.metric.bigtable;
 
+import com.google.cloud.bigtable.grpc.scanner.FlatRow;
+import com.google.common.collect.ImmutableList;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.ByteString.ByteIterator;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.bigtable.api.ReadRowRangeRequest;
 import eu.toolchain.serializer.HexUtils;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -20,6 +28,56 @@ public class BigtableBackendTest {
         checkSmaller(0x1000000L, 0xffffffffL);
     }
 
+    @Test
+    public void testDeserializeWithinRange() {
+        final BigtableBackend.PreparedQuery query = query(1, 10, 20);
+
+        final List<Metric> metrics = query.deserialize(
+            ImmutableList.of(cell(10, 1D), cell(11, 2D), cell(20, 3D), cell(21, 4D)));
+
+        final long base = BigtableBackend.PERIOD;
+        assertEquals(ImmutableList.of(new Point(base + 11, 2D), new Point(base + 20, 3D)),
+            metrics);
+    }
+
+    @Test
+    public void testDeserializeValue() {
+        for (final double value : new double[]{0D, -1.5D, Double.MAX_VALUE, Double.NaN}) {
+            assertEquals(value, BigtableBackend.deserializeValue(serializeValue(value)), 0D);
+        }
+    }
+
+    private BigtableBackend.PreparedQuery query(
+        final long row, final long startOffset, final long endOffset
+    ) {
+        final ReadRowRangeRequest request = new ReadRowRangeRequest(
+            ByteString.copyFrom(new byte[]{(byte) row}), BigtableBackend.POINTS,
+            BigtableBackend.serializeOffset(startOffset),
+            BigtableBackend.serializeOffset(endOffset));
+
+        final BigtableBackend.CellDeserializer deserializer =
+            (t, d) -> new Point(t, BigtableBackend.deserializeValue(d));
+
+        return new BigtableBackend.PreparedQuery(request, deserializer,
+            row * BigtableBackend.PERIOD, startOffset, endOffset);
+    }
+
+    private FlatRow.Cell cell(final long offset, final double value) {
+        return FlatRow.Cell
+            .newBuilder()
+            .withFamily(BigtableBackend.POINTS)
+            .withQualifier(BigtableBackend.serializeOffset(offset))
+            .withValue(serializeValue(value))
+            .build();
+    }
+
+    private ByteString serializeValue(final double value) {
+        return ByteString.copyFrom(ByteBuffer
+            .allocate(Double.BYTES)
+            .putLong(Double.doubleToLongBits(value))
+            .array());
+    }
+
     private void checkSmaller(final long s, final long l) {
         assertEquals(BigtableBackend.offset(s), s);
         assertEquals(BigtableBackend.offset(l), l);
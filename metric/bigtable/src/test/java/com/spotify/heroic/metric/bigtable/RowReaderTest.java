@@ -0,0 +1,187 @@
+package com.spotify.heroic.metric.bigtable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import com.google.cloud.bigtable.grpc.scanner.FlatRow;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.metric.FetchQuotaWatcher;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.bigtable.api.BigtableDataClient;
+import com.spotify.heroic.metric.bigtable.api.ReadRowRangeRequest;
+import com.spotify.heroic.metric.bigtable.api.ReadRowsRequest;
+import com.spotify.heroic.statistics.MetricBackendReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RowReaderTest {
+    private static final long END = BigtableBackend.PERIOD - 1;
+
+    private AsyncFramework async;
+    private BigtableDataClient client;
+    private FetchQuotaWatcher watcher;
+
+    /* requests which were sent, and their pending results */
+    private List<ReadRowsRequest> requests;
+    private List<ResolvableFuture<List<FlatRow>>> results;
+
+    @Before
+    public void setup() {
+        async = TinyAsync.builder().executor(MoreExecutors.newDirectExecutorService()).build();
+        client = mock(BigtableDataClient.class);
+        watcher = mock(FetchQuotaWatcher.class);
+        requests = new ArrayList<>();
+        results = new ArrayList<>();
+
+        doAnswer(invocation -> {
+            final ResolvableFuture<List<FlatRow>> result = async.future();
+            requests.add((ReadRowsRequest) invocation.getArguments()[1]);
+            results.add(result);
+            return result;
+        }).when(client).readRows(anyString(), any(ReadRowsRequest.class));
+    }
+
+    @Test
+    public void testBatchesQueuedRows() {
+        final RowReader reader = reader(1, 2);
+
+        /* read right away, since the reader is idle */
+        reader.read(client, watcher, query(0, 0, END));
+
+        /* queued while the first read is in flight */
+        reader.read(client, watcher, query(1, 0, END));
+        reader.read(client, watcher, query(2, 0, END));
+        reader.read(client, watcher, query(3, 0, END));
+        reader.read(client, watcher, query(4, 0, 200));
+
+        assertEquals(1, requests.size());
+
+        results.get(0).resolve(ImmutableList.of());
+        assertEquals(rowKeys(1, 2), ImmutableSet.copyOf(requests.get(1).getRowKeys()));
+
+        /* column ranges take turns */
+        results.get(1).resolve(ImmutableList.of());
+        assertEquals(rowKeys(4), ImmutableSet.copyOf(requests.get(2).getRowKeys()));
+
+        results.get(2).resolve(ImmutableList.of());
+        assertEquals(rowKeys(3), ImmutableSet.copyOf(requests.get(3).getRowKeys()));
+    }
+
+    @Test
+    public void testResolvesEveryRow() throws Exception {
+        final RowReader reader = reader(1, 10);
+
+        reader.read(client, watcher, query(0, 0, END));
+
+        final AsyncFuture<List<Metric>> a = reader.read(client, watcher, query(1, 0, END));
+        final AsyncFuture<List<Metric>> b = reader.read(client, watcher, query(2, 0, END));
+
+        /* the same row, requested by two fetches */
+        final AsyncFuture<List<Metric>> c = reader.read(client, watcher, query(1, 0, END));
+
+        results.get(0).resolve(ImmutableList.of());
+        assertEquals(rowKeys(1, 2), ImmutableSet.copyOf(requests.get(1).getRowKeys()));
+
+        /* row 2 has no cells in range, and is not returned */
+        results.get(1).resolve(ImmutableList.of(row(1, 10, 1D)));
+
+        final List<Metric> expected =
+            ImmutableList.of(new Point(BigtableBackend.PERIOD + 10, 1D));
+
+        assertEquals(expected, a.get());
+        assertEquals(ImmutableList.of(), b.get());
+        assertEquals(expected, c.get());
+    }
+
+    @Test
+    public void testCancelledRowsAreSkipped() {
+        final RowReader reader = reader(1, 10);
+
+        reader.read(client, watcher, query(0, 0, END));
+        reader.read(client, watcher, query(1, 0, END)).cancel();
+        reader.read(client, watcher, query(2, 0, END));
+
+        results.get(0).resolve(ImmutableList.of());
+        assertEquals(rowKeys(2), ImmutableSet.copyOf(requests.get(1).getRowKeys()));
+    }
+
+    @Test
+    public void testFailure() {
+        final RowReader reader = reader(1, 10);
+
+        final AsyncFuture<List<Metric>> a = reader.read(client, watcher, query(0, 0, END));
+        results.get(0).fail(new RuntimeException("read failed"));
+
+        assertTrue(a.isFailed());
+
+        /* a failed read releases its slot */
+        reader.read(client, watcher, query(1, 0, END));
+        assertEquals(2, requests.size());
+    }
+
+    private RowReader reader(final int maxReads, final int maxRowsPerRead) {
+        return new RowReader(async, mock(MetricBackendReporter.class), "metrics", maxRowsPerRead,
+            maxReads);
+    }
+
+    private BigtableBackend.PreparedQuery query(
+        final long row, final long startOffset, final long endOffset
+    ) {
+        final ReadRowRangeRequest request =
+            new ReadRowRangeRequest(rowKey(row), BigtableBackend.POINTS,
+                BigtableBackend.serializeOffset(startOffset),
+                BigtableBackend.serializeOffset(endOffset));
+
+        final BigtableBackend.CellDeserializer deserializer =
+            (t, d) -> new Point(t, BigtableBackend.deserializeValue(d));
+
+        return new BigtableBackend.PreparedQuery(request, deserializer,
+            row * BigtableBackend.PERIOD, startOffset, endOffset);
+    }
+
+    private FlatRow row(final long row, final long offset, final double value) {
+        return FlatRow
+            .newBuilder()
+            .withRowKey(rowKey(row))
+            .addCell(FlatRow.Cell
+                .newBuilder()
+                .withFamily(BigtableBackend.POINTS)
+                .withQualifier(BigtableBackend.serializeOffset(offset))
+                .withValue(ByteString.copyFrom(ByteBuffer
+                    .allocate(Double.BYTES)
+                    .putLong(Double.doubleToLongBits(value))
+                    .array()))
+                .build())
+            .build();
+    }
+
+    private Set<ByteString> rowKeys(final long... rows) {
+        final ImmutableSet.Builder<ByteString> keys = ImmutableSet.builder();
+
+        for (final long row : rows) {
+            keys.add(rowKey(row));
+        }
+
+        return keys.build();
+    }
+
+    private ByteString rowKey(final long row) {
+        return ByteString.copyFrom(new byte[]{(byte) row});
+    }
+}
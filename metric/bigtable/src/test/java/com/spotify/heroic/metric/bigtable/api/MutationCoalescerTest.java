@@ -0,0 +1,183 @@
+package com.spotify.heroic.metric.bigtable.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.google.cloud.bigtable.grpc.scanner.FlatRow;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.statistics.MetricBackendReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class MutationCoalescerTest {
+    private static final String TABLE = "table";
+    private static final String FAMILY = "family";
+
+    private final ByteString a = ByteString.copyFromUtf8("a");
+    private final ByteString b = ByteString.copyFromUtf8("b");
+
+    private AsyncFramework async;
+    private BigtableDataClient client;
+    private ScheduledExecutorService scheduler;
+    private MetricBackendReporter reporter;
+
+    private List<Mutations> written;
+    private Supplier<AsyncFuture<Void>> result;
+    private MutationCoalescer coalescer;
+
+    @Before
+    public void setup() {
+        async = TinyAsync.builder().executor(MoreExecutors.newDirectExecutorService()).build();
+
+        final FakeBigtableConnection connection = new FakeBigtableConnection(async);
+        final Table table = connection.tableAdminClient().createTable(TABLE);
+        connection.tableAdminClient().createColumnFamily(table, FAMILY);
+
+        client = connection.dataClient();
+        scheduler = mock(ScheduledExecutorService.class);
+        reporter = mock(MetricBackendReporter.class);
+        written = new ArrayList<>();
+        result = async::resolved;
+
+        final BigtableMutator delegate = new BigtableMutator() {
+            @Override
+            public AsyncFuture<Void> mutateRow(
+                final String tableName, final ByteString rowKey, final Mutations mutations
+            ) {
+                written.add(mutations);
+                return client
+                    .mutateRow(tableName, rowKey, mutations)
+                    .lazyTransform(ignore -> result.get());
+            }
+
+            @Override
+            public AsyncFuture<Void> close() {
+                return async.resolved();
+            }
+        };
+
+        coalescer = new MutationCoalescer(async, delegate, scheduler, reporter, 1024, 3, 50);
+    }
+
+    @Test
+    public void testFlushWhenFull() throws Exception {
+        final AsyncFuture<Void> first = coalescer.mutateRow(TABLE, a, cell("x", "1"));
+        final AsyncFuture<Void> second = coalescer.mutateRow(TABLE, b, cell("x", "2"));
+
+        verify(scheduler).schedule(any(Runnable.class), eq(TimeUnit.MILLISECONDS.toNanos(50)),
+            eq(TimeUnit.NANOSECONDS));
+        assertFalse(first.isDone());
+
+        final AsyncFuture<Void> third = coalescer.mutateRow(TABLE, a, cell("y", "3"));
+
+        /* writes for the same row are merged */
+        assertEquals(2, written.size());
+        assertEquals(2, written.get(0).getMutations().size());
+
+        assertTrue(first.isResolved());
+        assertTrue(second.isResolved());
+        assertTrue(third.isResolved());
+
+        assertEquals(2, read(a).getCells().size());
+        assertEquals(1, read(b).getCells().size());
+    }
+
+    @Test
+    public void testScheduledFlush() throws Exception {
+        final AsyncFuture<Void> write = coalescer.mutateRow(TABLE, a, cell("x", "1"));
+
+        final ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(flush.capture(), anyLong(), any(TimeUnit.class));
+
+        flush.getValue().run();
+        assertTrue(write.isResolved());
+
+        /* running the flush again must not write anything */
+        flush.getValue().run();
+        assertEquals(1, written.size());
+    }
+
+    @Test
+    public void testMergeSameCell() throws Exception {
+        coalescer.mutateRow(TABLE, a, cell("x", "1"));
+        coalescer.mutateRow(TABLE, a, cell("x", "2"));
+        coalescer.flush();
+
+        assertEquals(1, written.size());
+        assertEquals(1, written.get(0).getMutations().size());
+        assertEquals(ByteString.copyFromUtf8("2"), read(a).getCells().get(0).getValue());
+    }
+
+    @Test
+    public void testInFlightBytes() throws Exception {
+        final ResolvableFuture<Void> pending = async.future();
+        result = () -> pending;
+
+        coalescer.mutateRow(TABLE, a, cell("x", "1"));
+        coalescer.flush();
+
+        final ArgumentCaptor<Long> bytes = ArgumentCaptor.forClass(Long.class);
+        verify(reporter).incrementInFlightWriteBytes(bytes.capture());
+        verify(reporter, never()).decrementInFlightWriteBytes(anyLong());
+
+        pending.resolve(null);
+
+        verify(reporter).decrementInFlightWriteBytes(bytes.getValue());
+        verify(reporter).reportWriteFlushLatency(anyLong());
+    }
+
+    @Test
+    public void testAdaptiveDelay() throws Exception {
+        final ResolvableFuture<Void> pending = async.future();
+        result = () -> pending;
+
+        coalescer.mutateRow(TABLE, a, cell("x", "1"));
+        coalescer.flush();
+
+        Thread.sleep(10);
+        pending.resolve(null);
+
+        /* slow flushes shorten the time mutations are held back */
+        assertTrue(coalescer.flushDelay() <= TimeUnit.MILLISECONDS.toNanos(40));
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final AsyncFuture<Void> write = coalescer.mutateRow("missing", a, cell("x", "1"));
+        coalescer.flush();
+
+        assertTrue(write.isFailed());
+    }
+
+    private Mutations cell(final String column, final String value) {
+        return Mutations
+            .builder()
+            .setCell(FAMILY, ByteString.copyFromUtf8(column), ByteString.copyFromUtf8(value))
+            .build();
+    }
+
+    private FlatRow read(final ByteString rowKey) throws Exception {
+        final List<FlatRow> rows =
+            client.readRows(TABLE, ReadRowsRequest.builder().rowKey(rowKey).build()).get();
+        assertEquals(1, rows.size());
+        return rows.get(0);
+    }
+}
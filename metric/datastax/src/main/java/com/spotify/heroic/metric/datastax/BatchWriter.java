@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.datastax;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Statement;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.Function;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Writes statements as unlogged batches, one batch per row.
+ * <p>
+ * At most one batch is in flight for every row. Statements for a row which are written while a
+ * batch for it is in flight are coalesced into the next batch for that row, so the coalescing
+ * window adapts to the write latency of the row. The total number of batches in flight is bounded,
+ * rows beyond that wait in a queue and are dispatched as other batches complete.
+ */
+@RequiredArgsConstructor
+public class BatchWriter {
+    private final AsyncFramework async;
+    private final Function<Statement, AsyncFuture<ResultSet>> execute;
+    @Getter
+    private final int maxBatchSize;
+    private final int maxInFlight;
+
+    private final Object lock = new Object();
+
+    /* rows with pending or in-flight statements, guarded by lock */
+    private final Map<ByteBuffer, Row> rows = new HashMap<>();
+    /* rows with pending statements which are waiting to be dispatched, guarded by lock */
+    private final Queue<Row> ready = new ArrayDeque<>();
+    /* guarded by lock */
+    private int inFlight = 0;
+
+    /**
+     * Write the given statements, which must all belong to the given row.
+     * <p>
+     * Callers should keep the number of statements at or below the maximum batch size, since
+     * statements written together are never split.
+     *
+     * @return a future which is resolved with the time in nanoseconds that the batch which
+     * contained the last of the statements took to write
+     */
+    public AsyncFuture<Long> write(
+        final ByteBuffer key, final List<? extends Statement> statements
+    ) {
+        final ResolvableFuture<Long> future = async.future();
+
+        synchronized (lock) {
+            final Row row = rows.computeIfAbsent(key, Row::new);
+            row.pending.add(new Pending(statements, future));
+
+            if (!row.inFlight && !row.ready) {
+                row.ready = true;
+                ready.add(row);
+            }
+        }
+
+        dispatch();
+        return future;
+    }
+
+    /**
+     * Number of batches which are currently in flight.
+     */
+    public int inFlight() {
+        synchronized (lock) {
+            return inFlight;
+        }
+    }
+
+    private void dispatch() {
+        final List<Batch> batches = new ArrayList<>();
+
+        synchronized (lock) {
+            while (inFlight < maxInFlight && !ready.isEmpty()) {
+                final Row row = ready.poll();
+                row.ready = false;
+                row.inFlight = true;
+                inFlight++;
+
+                batches.add(row.take(maxBatchSize));
+            }
+        }
+
+        for (final Batch batch : batches) {
+            send(batch);
+        }
+    }
+
+    private void send(final Batch batch) {
+        final long start = System.nanoTime();
+
+        final AsyncFuture<ResultSet> result;
+
+        try {
+            result = execute.apply(batch.statement());
+        } catch (final Exception e) {
+            complete(batch);
+            batch.fail(e);
+            return;
+        }
+
+        result.onDone(new FutureDone<ResultSet>() {
+            @Override
+            public void failed(final Throwable cause) {
+                complete(batch);
+                batch.fail(cause);
+            }
+
+            @Override
+            public void resolved(final ResultSet r) {
+                complete(batch);
+                batch.resolve(System.nanoTime() - start);
+            }
+
+            @Override
+            public void cancelled() {
+                complete(batch);
+                batch.cancel();
+            }
+        });
+    }
+
+    /**
+     * Release the in-flight slot of a batch, and re-queue its row if more statements have been
+     * written to it since.
+     */
+    private void complete(final Batch batch) {
+        synchronized (lock) {
+            final Row row = batch.row;
+            row.inFlight = false;
+            inFlight--;
+
+            if (row.pending.isEmpty()) {
+                rows.remove(row.key);
+            } else {
+                row.ready = true;
+                ready.add(row);
+            }
+        }
+
+        dispatch();
+    }
+
+    @RequiredArgsConstructor
+    private static class Row {
+        private final ByteBuffer key;
+        private final Queue<Pending> pending = new ArrayDeque<>();
+        private boolean inFlight = false;
+        private boolean ready = false;
+
+        /**
+         * Take pending writes as long as the batch stays within the given number of statements,
+         * but always at least one.
+         */
+        Batch take(final int maxBatchSize) {
+            final List<Pending> taken = new ArrayList<>();
+            int size = 0;
+
+            while (!pending.isEmpty()) {
+                final int next = pending.peek().statements.size();
+
+                if (!taken.isEmpty() && size + next > maxBatchSize) {
+                    break;
+                }
+
+                taken.add(pending.poll());
+                size += next;
+            }
+
+            return new Batch(this, taken);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Pending {
+        private final List<? extends Statement> statements;
+        private final ResolvableFuture<Long> future;
+    }
+
+    @RequiredArgsConstructor
+    private static class Batch {
+        private final Row row;
+        private final List<Pending> pending;
+
+        /**
+         * Build the statement to execute, a single statement is executed without a batch.
+         */
+        Statement statement() {
+            if (pending.size() == 1 && pending.get(0).statements.size() == 1) {
+                return pending.get(0).statements.get(0);
+            }
+
+            final BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+
+            for (final Pending p : pending) {
+                batch.addAll(p.statements);
+            }
+
+            return batch;
+        }
+
+        void resolve(final long elapsed) {
+            for (final Pending p : pending) {
+                p.future.resolve(elapsed);
+            }
+        }
+
+        void fail(final Throwable cause) {
+            for (final Pending p : pending) {
+                p.future.fail(cause);
+            }
+        }
+
+        void cancel() {
+            for (final Pending p : pending) {
+                p.future.cancel();
+            }
+        }
+    }
+}
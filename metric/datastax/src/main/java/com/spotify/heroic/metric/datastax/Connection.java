@@ -23,10 +23,13 @@ package com.spotify.heroic.metric.datastax;
 
 import com.datastax.driver.core.Session;
 import com.spotify.heroic.metric.datastax.schema.SchemaInstance;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 
 @RequiredArgsConstructor
 public final class Connection {
     protected final Session session;
     protected final SchemaInstance schema;
+    /* writes points in batches per row, if enabled */
+    protected final Optional<BatchWriter> batchWriter;
 }
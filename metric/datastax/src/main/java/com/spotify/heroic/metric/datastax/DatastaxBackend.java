@@ -67,7 +67,9 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.Callable;
@@ -438,6 +440,10 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
         final Connection c, final SchemaInstance.WriteSession session,
         final WriteMetric.Request request
     ) throws IOException {
+        if (c.batchWriter.isPresent()) {
+            return doBatchedWrite(c.batchWriter.get(), session, request);
+        }
+
         final List<Callable<AsyncFuture<Long>>> callables = new ArrayList<>();
 
         final MetricCollection g = request.getData();
@@ -478,6 +484,43 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
         }, 500);
     }
 
+    /**
+     * Group points by row, and write each row through the batch writer in chunks of at most the
+     * batch size.
+     */
+    private AsyncFuture<WriteMetric> doBatchedWrite(
+        final BatchWriter writer, final SchemaInstance.WriteSession session,
+        final WriteMetric.Request request
+    ) throws IOException {
+        final MetricCollection g = request.getData();
+
+        if (g.getType() != MetricType.POINT) {
+            return async.resolved(new WriteMetric(ImmutableList.of(), ImmutableList.of()));
+        }
+
+        final Map<ByteBuffer, List<BoundStatement>> rows = new LinkedHashMap<>();
+
+        for (final Point d : g.getDataAs(Point.class)) {
+            rows
+                .computeIfAbsent(session.rowKey(request.getSeries(), d), k -> new ArrayList<>())
+                .add(session.writePoint(request.getSeries(), d));
+        }
+
+        final List<AsyncFuture<Long>> writes = new ArrayList<>();
+
+        for (final Map.Entry<ByteBuffer, List<BoundStatement>> e : rows.entrySet()) {
+            for (final List<BoundStatement> chunk : Lists.partition(e.getValue(),
+                writer.getMaxBatchSize())) {
+                writes.add(writer.write(e.getKey(), chunk));
+            }
+        }
+
+        return async
+            .collect(writes)
+            .directTransform(times -> new WriteMetric(ImmutableList.of(),
+                ImmutableList.copyOf(times)));
+    }
+
     private AsyncFuture<QueryTrace> buildTrace(
         final Connection c, final QueryTrace.Identifier what, final long elapsed,
         List<ExecutionInfo> info
@@ -71,6 +71,9 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
     public static final boolean DEFAULT_CONFIGURE = false;
     public static final int DEFAULT_FETCH_SIZE = 5000;
     public static final Duration DEFAULT_READ_TIMEOUT = new Duration(30, TimeUnit.SECONDS);
+    /* batched writes are disabled by default */
+    public static final int DEFAULT_WRITE_BATCH_SIZE = 0;
+    public static final int DEFAULT_MAX_IN_FLIGHT_WRITES = 256;
 
     /* id of backend (defualt will be generated) */
     private final Optional<String> id;
@@ -92,6 +95,10 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
     private final RetryPolicy retryPolicy;
     /* authentication to apply to builder */
     private final DatastaxAuthentication authentication;
+    /* max number of points written in a single batch, 0 writes every point individually */
+    private final int writeBatchSize;
+    /* max number of batches in flight for a connection */
+    private final int maxInFlightWrites;
 
     @JsonCreator
     public DatastaxMetricModule(
@@ -103,7 +110,9 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
         @JsonProperty("readTimeout") Optional<Duration> readTimeout,
         @JsonProperty("consistencyLevel") Optional<ConsistencyLevel> consistencyLevel,
         @JsonProperty("retryPolicy") Optional<RetryPolicy> retryPolicy,
-        @JsonProperty("authentication") Optional<DatastaxAuthentication> authentication
+        @JsonProperty("authentication") Optional<DatastaxAuthentication> authentication,
+        @JsonProperty("writeBatchSize") Optional<Integer> writeBatchSize,
+        @JsonProperty("maxInFlightWrites") Optional<Integer> maxInFlightWrites
     ) {
         this.id = id;
         this.groups = groups.orElseGet(Groups::empty).or("heroic");
@@ -115,6 +124,8 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
         this.consistencyLevel = consistencyLevel.orElse(ConsistencyLevel.ONE);
         this.retryPolicy = retryPolicy.orElse(DefaultRetryPolicy.INSTANCE);
         this.authentication = authentication.orElseGet(DatastaxAuthentication.None::new);
+        this.writeBatchSize = writeBatchSize.orElse(DEFAULT_WRITE_BATCH_SIZE);
+        this.maxInFlightWrites = maxInFlightWrites.orElse(DEFAULT_MAX_IN_FLIGHT_WRITES);
     }
 
     private static List<InetSocketAddress> convert(Set<String> source) {
@@ -199,7 +210,8 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
         ) {
             return async.managed(
                 new ManagedSetupConnection(async, seeds, schema, configure, fetchSize, readTimeout,
-                    consistencyLevel, retryPolicy, authentication));
+                    consistencyLevel, retryPolicy, authentication, writeBatchSize,
+                    maxInFlightWrites));
         }
 
         @Provides
@@ -229,6 +241,8 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
         private Optional<ConsistencyLevel> consistencyLevel = empty();
         private Optional<RetryPolicy> retryPolicy = empty();
         private Optional<DatastaxAuthentication> authentication = empty();
+        private Optional<Integer> writeBatchSize = empty();
+        private Optional<Integer> maxInFlightWrites = empty();
 
         public Builder id(String id) {
             this.id = of(id);
@@ -280,9 +294,20 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
             return this;
         }
 
+        public Builder writeBatchSize(int writeBatchSize) {
+            this.writeBatchSize = of(writeBatchSize);
+            return this;
+        }
+
+        public Builder maxInFlightWrites(int maxInFlightWrites) {
+            this.maxInFlightWrites = of(maxInFlightWrites);
+            return this;
+        }
+
         public DatastaxMetricModule build() {
             return new DatastaxMetricModule(id, groups, seeds, schema, configure, fetchSize,
-                readTimeout, consistencyLevel, retryPolicy, authentication);
+                readTimeout, consistencyLevel, retryPolicy, authentication, writeBatchSize,
+                maxInFlightWrites);
         }
     }
 }
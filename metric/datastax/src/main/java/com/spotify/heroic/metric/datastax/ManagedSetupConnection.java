@@ -40,6 +40,7 @@ import lombok.ToString;
 
 import java.net.InetSocketAddress;
 import java.util.Collection;
+import java.util.Optional;
 
 @RequiredArgsConstructor
 @ToString(of = {"seeds"})
@@ -53,6 +54,8 @@ public class ManagedSetupConnection implements ManagedSetup<Connection> {
     private final ConsistencyLevel consistencyLevel;
     private final RetryPolicy retryPolicy;
     private final DatastaxAuthentication authentication;
+    private final int writeBatchSize;
+    private final int maxInFlightWrites;
 
     public AsyncFuture<Connection> construct() {
         AsyncFuture<Session> session = async.call(() -> {
@@ -87,7 +90,17 @@ public class ManagedSetupConnection implements ManagedSetup<Connection> {
 
         return session.lazyTransform(s -> {
             return schema.instance(s).directTransform(schema -> {
-                return new Connection(s, schema);
+                final Optional<BatchWriter> batchWriter;
+
+                if (writeBatchSize > 0) {
+                    batchWriter = Optional.of(new BatchWriter(async,
+                        statement -> Async.bind(async, s.executeAsync(statement)),
+                        writeBatchSize, maxInFlightWrites));
+                } else {
+                    batchWriter = Optional.empty();
+                }
+
+                return new Connection(s, schema, batchWriter);
             });
         });
     }
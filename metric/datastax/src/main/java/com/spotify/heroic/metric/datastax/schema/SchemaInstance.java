@@ -55,6 +55,11 @@ public interface SchemaInstance {
     public BackendKeyUtils keyUtils();
 
     public static interface WriteSession {
+        /**
+         * The row (partition) key that the given point is written to.
+         */
+        public ByteBuffer rowKey(Series series, Point d) throws IOException;
+
         public BoundStatement writePoint(Series series, Point d) throws IOException;
     }
 }
@@ -88,7 +88,7 @@ public class NextGenSchemaInstance extends AbstractSchemaInstance {
             final Map<Long, ByteBuffer> cache = new HashMap<>();
 
             @Override
-            public BoundStatement writePoint(Series series, Point d) throws IOException {
+            public ByteBuffer rowKey(Series series, Point d) throws IOException {
                 final long base = calculateBaseTimestamp(d.getTimestamp());
 
                 ByteBuffer key = cache.get(base);
@@ -98,8 +98,13 @@ public class NextGenSchemaInstance extends AbstractSchemaInstance {
                     cache.put(base, key);
                 }
 
+                return key;
+            }
+
+            @Override
+            public BoundStatement writePoint(Series series, Point d) throws IOException {
                 final int offset = calculateColumnKey(d.getTimestamp());
-                return write.bind(key, offset, d.getValue());
+                return write.bind(rowKey(series, d), offset, d.getValue());
             }
         };
     }
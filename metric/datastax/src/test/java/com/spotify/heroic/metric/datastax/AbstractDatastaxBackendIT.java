@@ -21,9 +21,13 @@ public abstract class AbstractDatastaxBackendIT extends AbstractMetricBackendIT
 
             properties.getOptionalString("seed").map(ImmutableSet::of).ifPresent(builder::seeds);
 
+            setupBuilder(builder);
             return builder.build();
         });
     }
 
+    protected void setupBuilder(final DatastaxMetricModule.Builder builder) {
+    }
+
     abstract protected SchemaModule setupSchema(final String keyspace);
 }
@@ -0,0 +1,120 @@
+package com.spotify.heroic.metric.datastax;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BatchWriterTest {
+    private final ByteBuffer a = ByteBuffer.wrap(new byte[]{1});
+    private final ByteBuffer b = ByteBuffer.wrap(new byte[]{2});
+
+    private AsyncFramework async;
+    private List<Statement> executed;
+    private List<ResolvableFuture<ResultSet>> results;
+    private BatchWriter writer;
+
+    @Before
+    public void setup() {
+        async = TinyAsync.builder().executor(MoreExecutors.newDirectExecutorService()).build();
+        executed = new ArrayList<>();
+        results = new ArrayList<>();
+
+        writer = new BatchWriter(async, statement -> {
+            final ResolvableFuture<ResultSet> result = async.future();
+            executed.add(statement);
+            results.add(result);
+            return result;
+        }, 3, 2);
+    }
+
+    @Test
+    public void testCoalesceWhileInFlight() throws Exception {
+        final Statement s1 = statement();
+        final AsyncFuture<Long> first = writer.write(a, ImmutableList.of(s1));
+
+        /* a single statement is executed without a batch */
+        assertEquals(1, executed.size());
+        assertSame(s1, executed.get(0));
+
+        final AsyncFuture<Long> second = writer.write(a, ImmutableList.of(statement()));
+        final AsyncFuture<Long> third = writer.write(a, ImmutableList.of(statement()));
+
+        /* only one batch per row is in flight */
+        assertEquals(1, executed.size());
+
+        results.get(0).resolve(null);
+        assertTrue(first.isResolved());
+        assertFalse(second.isDone());
+
+        assertEquals(2, executed.size());
+        assertEquals(2, ((BatchStatement) executed.get(1)).size());
+
+        results.get(1).resolve(null);
+        assertTrue(second.isResolved());
+        assertTrue(third.isResolved());
+        assertEquals(0, writer.inFlight());
+    }
+
+    @Test
+    public void testMaxBatchSize() throws Exception {
+        writer.write(a, ImmutableList.of(statement()));
+        writer.write(a, ImmutableList.of(statement(), statement()));
+        writer.write(a, ImmutableList.of(statement(), statement()));
+
+        results.get(0).resolve(null);
+        assertEquals(2, ((BatchStatement) executed.get(1)).size());
+
+        results.get(1).resolve(null);
+        assertEquals(2, ((BatchStatement) executed.get(2)).size());
+    }
+
+    @Test
+    public void testMaxInFlight() throws Exception {
+        final ByteBuffer c = ByteBuffer.wrap(new byte[]{3});
+
+        writer.write(a, ImmutableList.of(statement()));
+        writer.write(b, ImmutableList.of(statement()));
+        final AsyncFuture<Long> waiting = writer.write(c, ImmutableList.of(statement()));
+
+        assertEquals(2, executed.size());
+        assertEquals(2, writer.inFlight());
+
+        results.get(1).resolve(null);
+        assertEquals(3, executed.size());
+
+        results.get(2).resolve(null);
+        assertTrue(waiting.isResolved());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final AsyncFuture<Long> write = writer.write(a, ImmutableList.of(statement()));
+
+        results.get(0).fail(new RuntimeException("boom"));
+
+        assertTrue(write.isFailed());
+        assertEquals(0, writer.inFlight());
+    }
+
+    private Statement statement() {
+        return new SimpleStatement("INSERT INTO points (key, offset, value) VALUES (?, ?, ?)");
+    }
+}
@@ -0,0 +1,8 @@
+package com.spotify.heroic.metric.datastax;
+
+public class BatchedLegacyDatastaxBackendIT extends LegacyDatastaxBackendIT {
+    @Override
+    protected void setupBuilder(final DatastaxMetricModule.Builder builder) {
+        builder.writeBatchSize(100);
+    }
+}
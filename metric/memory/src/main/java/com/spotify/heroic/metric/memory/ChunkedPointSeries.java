@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.metric.CompressedPoints;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar series storage for points.
+ * <p>
+ * Samples are kept in sorted, primitive {@code long[]} timestamp and {@code double[]} value
+ * blocks. New samples go into a single mutable head chunk, which is sealed into an immutable chunk
+ * once it reaches the configured chunk size. Sealed chunks never overlap and are ordered by time,
+ * so range fetches can binary search over them.
+ * <p>
+ * If compression is enabled, sealed chunks are stored as {@link CompressedPoints} and are only
+ * decoded when fetched.
+ * <p>
+ * Samples that arrive out of order for an already sealed chunk cause that chunk to be replaced
+ * with an updated copy.
+ */
+public class ChunkedPointSeries implements MemorySeries {
+    static final int INITIAL_HEAD_CAPACITY = 8;
+
+    private static final Chunk[] EMPTY_CHUNKS = new Chunk[0];
+    private static final long[] EMPTY_TIMESTAMPS = new long[0];
+    private static final double[] EMPTY_VALUES = new double[0];
+
+    private final int chunkSize;
+    private final boolean compressed;
+
+    private final Object lock = new Object();
+
+    /* sealed chunks, the array is never modified after being published */
+    private Chunk[] sealed = EMPTY_CHUNKS;
+
+    private long[] headTimestamps = EMPTY_TIMESTAMPS;
+    private double[] headValues = EMPTY_VALUES;
+    private int headSize = 0;
+
+    public ChunkedPointSeries(final int chunkSize, final boolean compressed) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+
+        this.chunkSize = chunkSize;
+        this.compressed = compressed;
+    }
+
+    @Override
+    public void write(final List<? extends Metric> data) {
+        synchronized (lock) {
+            for (final Metric d : data) {
+                final Point p = (Point) d;
+                put(p.getTimestamp(), p.getValue());
+            }
+        }
+    }
+
+    @Override
+    public List<Point> fetch(final DateRange range) {
+        final long start = range.getStart();
+        final long end = range.getEnd();
+
+        final Chunk[] chunks;
+        final List<Point> head;
+
+        synchronized (lock) {
+            chunks = sealed;
+
+            final int from = after(headTimestamps, headSize, start);
+            final int length = Math.max(0, after(headTimestamps, headSize, end) - from);
+
+            head = new PointArrayList(Arrays.copyOfRange(headTimestamps, from, from + length),
+                Arrays.copyOfRange(headValues, from, from + length), 0, length);
+        }
+
+        /* sealed chunks are immutable, so they can be read without holding the lock */
+        final List<List<Point>> segments = new ArrayList<>();
+
+        for (int c = firstChunkAfter(chunks, start); c < chunks.length; c++) {
+            if (chunks[c].first() > end) {
+                break;
+            }
+
+            final List<Point> slice = chunks[c].slice(start, end);
+
+            if (!slice.isEmpty()) {
+                segments.add(slice);
+            }
+        }
+
+        if (segments.isEmpty()) {
+            return head;
+        }
+
+        if (!head.isEmpty()) {
+            segments.add(head);
+        }
+
+        if (segments.size() == 1) {
+            return segments.get(0);
+        }
+
+        return new SegmentedPointList(segments);
+    }
+
+    private void put(final long timestamp, final double value) {
+        if (sealed.length > 0 && timestamp <= sealed[sealed.length - 1].last()) {
+            putSealed(timestamp, value);
+            return;
+        }
+
+        int index = Arrays.binarySearch(headTimestamps, 0, headSize, timestamp);
+
+        if (index >= 0) {
+            headValues[index] = value;
+            return;
+        }
+
+        index = -(index + 1);
+
+        if (headSize == headTimestamps.length) {
+            final int capacity =
+                Math.min(Math.max(headSize * 2, INITIAL_HEAD_CAPACITY), chunkSize);
+            headTimestamps = Arrays.copyOf(headTimestamps, capacity);
+            headValues = Arrays.copyOf(headValues, capacity);
+        }
+
+        System.arraycopy(headTimestamps, index, headTimestamps, index + 1, headSize - index);
+        System.arraycopy(headValues, index, headValues, index + 1, headSize - index);
+        headTimestamps[index] = timestamp;
+        headValues[index] = value;
+        headSize++;
+
+        if (headSize >= chunkSize) {
+            seal();
+        }
+    }
+
+    /**
+     * Write a sample which belongs to one of the sealed chunks by replacing that chunk.
+     */
+    private void putSealed(final long timestamp, final double value) {
+        int c = 0;
+        int high = sealed.length - 1;
+
+        /* find the last chunk which starts at, or before the timestamp */
+        while (c < high) {
+            final int mid = (c + high + 1) >>> 1;
+
+            if (sealed[mid].first() <= timestamp) {
+                c = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        final Chunk[] updated = Arrays.copyOf(sealed, sealed.length);
+        updated[c] = sealed[c].with(timestamp, value);
+        sealed = updated;
+    }
+
+    private void seal() {
+        final long[] timestamps = Arrays.copyOf(headTimestamps, headSize);
+        final double[] values = Arrays.copyOf(headValues, headSize);
+
+        final Chunk[] updated = Arrays.copyOf(sealed, sealed.length + 1);
+        updated[sealed.length] = newChunk(timestamps, values);
+        sealed = updated;
+
+        headTimestamps = EMPTY_TIMESTAMPS;
+        headValues = EMPTY_VALUES;
+        headSize = 0;
+    }
+
+    private Chunk newChunk(final long[] timestamps, final double[] values) {
+        if (compressed) {
+            return new CompressedChunk(
+                CompressedPoints.encode(timestamps, values, 0, timestamps.length));
+        }
+
+        return new ArrayChunk(timestamps, values);
+    }
+
+    /**
+     * Find the index of the first chunk which might contain timestamps after the given one.
+     */
+    static int firstChunkAfter(final Chunk[] chunks, final long start) {
+        int low = 0;
+        int high = chunks.length;
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+
+            if (chunks[mid].last() <= start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Find the index of the first timestamp that is strictly greater than the given key.
+     */
+    static int after(final long[] timestamps, final int size, final long key) {
+        final int index = Arrays.binarySearch(timestamps, 0, size, key);
+        return index >= 0 ? index + 1 : -(index + 1);
+    }
+
+    /**
+     * An immutable, sorted block of samples.
+     */
+    interface Chunk {
+        long first();
+
+        long last();
+
+        /**
+         * Get all samples in the range (start, end].
+         */
+        List<Point> slice(long start, long end);
+
+        /**
+         * Build a copy of this chunk with the given sample inserted or replaced.
+         */
+        Chunk with(long timestamp, double value);
+    }
+
+    static final class ArrayChunk implements Chunk {
+        private final long[] timestamps;
+        private final double[] values;
+
+        ArrayChunk(final long[] timestamps, final double[] values) {
+            this.timestamps = timestamps;
+            this.values = values;
+        }
+
+        @Override
+        public long first() {
+            return timestamps[0];
+        }
+
+        @Override
+        public long last() {
+            return timestamps[timestamps.length - 1];
+        }
+
+        @Override
+        public List<Point> slice(final long start, final long end) {
+            final int from = after(timestamps, timestamps.length, start);
+            final int length = Math.max(0, after(timestamps, timestamps.length, end) - from);
+            return new PointArrayList(timestamps, values, from, length);
+        }
+
+        @Override
+        public ArrayChunk with(final long timestamp, final double value) {
+            int index = Arrays.binarySearch(timestamps, timestamp);
+
+            if (index >= 0) {
+                final double[] v = Arrays.copyOf(values, values.length);
+                v[index] = value;
+                return new ArrayChunk(timestamps, v);
+            }
+
+            index = -(index + 1);
+
+            final long[] t = new long[timestamps.length + 1];
+            final double[] v = new double[values.length + 1];
+
+            System.arraycopy(timestamps, 0, t, 0, index);
+            System.arraycopy(values, 0, v, 0, index);
+            t[index] = timestamp;
+            v[index] = value;
+            System.arraycopy(timestamps, index, t, index + 1, timestamps.length - index);
+            System.arraycopy(values, index, v, index + 1, values.length - index);
+
+            return new ArrayChunk(t, v);
+        }
+    }
+
+    static final class CompressedChunk implements Chunk {
+        private final CompressedPoints points;
+
+        CompressedChunk(final CompressedPoints points) {
+            this.points = points;
+        }
+
+        @Override
+        public long first() {
+            return points.first();
+        }
+
+        @Override
+        public long last() {
+            return points.last();
+        }
+
+        @Override
+        public List<Point> slice(final long start, final long end) {
+            /* the whole chunk is covered, decode lazily while it's being iterated over */
+            if (points.first() > start && points.last() <= end) {
+                return points.asList();
+            }
+
+            return decode().slice(start, end);
+        }
+
+        private ArrayChunk decode() {
+            final long[] timestamps = new long[points.size()];
+            final double[] values = new double[points.size()];
+            points.decode(timestamps, values, 0);
+            return new ArrayChunk(timestamps, values);
+        }
+
+        @Override
+        public Chunk with(final long timestamp, final double value) {
+            final ArrayChunk inserted = decode().with(timestamp, value);
+            return new CompressedChunk(CompressedPoints.encode(inserted.timestamps,
+                inserted.values, 0, inserted.timestamps.length));
+        }
+    }
+}
@@ -45,8 +45,6 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.NavigableMap;
-import java.util.TreeMap;
 import java.util.function.Consumer;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -56,7 +54,7 @@ import lombok.ToString;
 /**
  * MetricBackend for Heroic cassandra datastore.
  */
-@ToString(exclude = {"storage", "async", "createLock"})
+@ToString(exclude = {"storage", "seriesFactory", "async", "createLock"})
 public class MemoryBackend extends AbstractMetricBackend {
     public static final String MEMORY_KEYS = "memory-keys";
 
@@ -79,18 +77,20 @@ public class MemoryBackend extends AbstractMetricBackend {
 
     private final AsyncFramework async;
     private final Groups groups;
-    private final Map<MemoryKey, NavigableMap<Long, Metric>> storage;
+    private final Map<MemoryKey, MemorySeries> storage;
+    private final MemorySeries.Factory seriesFactory;
 
     @Inject
     public MemoryBackend(
         final AsyncFramework async, final Groups groups,
-        @Named("storage") final Map<MemoryKey, NavigableMap<Long, Metric>> storage,
-        LifeCycleRegistry registry
+        @Named("storage") final Map<MemoryKey, MemorySeries> storage,
+        final MemorySeries.Factory seriesFactory, LifeCycleRegistry registry
     ) {
         super(async);
         this.async = async;
         this.groups = groups;
         this.storage = storage;
+        this.seriesFactory = seriesFactory;
     }
 
     @Override
@@ -161,54 +161,44 @@ public class MemoryBackend extends AbstractMetricBackend {
         final MetricCollection g = request.getData();
 
         final MemoryKey key = new MemoryKey(g.getType(), request.getSeries());
-        final NavigableMap<Long, Metric> tree = getOrCreate(key);
-
-        synchronized (tree) {
-            for (final Metric d : g.getData()) {
-                tree.put(d.getTimestamp(), d);
-            }
-        }
+        getOrCreate(key).write(g.getData());
     }
 
     private MetricCollection doFetch(
         final MemoryKey key, final DateRange range, final FetchQuotaWatcher watcher
     ) {
-        final NavigableMap<Long, Metric> tree = storage.get(key);
+        final MemorySeries series = storage.get(key);
 
-        if (tree == null) {
+        if (series == null) {
             return MetricCollection.build(key.getSource(), ImmutableList.of());
         }
 
-        synchronized (tree) {
-            final Iterable<Metric> metrics =
-                tree.subMap(range.getStart(), false, range.getEnd(), true).values();
-            final List<Metric> data = ImmutableList.copyOf(metrics);
-            watcher.readData(data.size());
-            return MetricCollection.build(key.getSource(), data);
-        }
+        final List<? extends Metric> data = series.fetch(range);
+        watcher.readData(data.size());
+        return MetricCollection.build(key.getSource(), data);
     }
 
     /**
-     * Get or create a new navigable map to store time data.
+     * Get or create a new series storage to store time data.
      *
-     * @param key The key to create the map under.
-     * @return An existing, or a newly created navigable map for the given key.
+     * @param key The key to create the series under.
+     * @return An existing, or a newly created series storage for the given key.
      */
-    private NavigableMap<Long, Metric> getOrCreate(final MemoryKey key) {
-        final NavigableMap<Long, Metric> tree = storage.get(key);
+    private MemorySeries getOrCreate(final MemoryKey key) {
+        final MemorySeries series = storage.get(key);
 
-        if (tree != null) {
-            return tree;
+        if (series != null) {
+            return series;
         }
 
         synchronized (createLock) {
-            final NavigableMap<Long, Metric> checked = storage.get(key);
+            final MemorySeries checked = storage.get(key);
 
             if (checked != null) {
                 return checked;
             }
 
-            final NavigableMap<Long, Metric> created = new TreeMap<>();
+            final MemorySeries created = seriesFactory.newSeries(key.getSource());
             storage.put(key, created);
             return created;
         }
@@ -27,8 +27,8 @@ import com.spotify.heroic.common.DynamicModuleId;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.ModuleId;
 import com.spotify.heroic.dagger.PrimaryComponent;
-import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricModule;
+import com.spotify.heroic.metric.MetricType;
 import dagger.Component;
 import dagger.Module;
 import dagger.Provides;
@@ -39,7 +39,6 @@ import javax.inject.Named;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentSkipListMap;
 
@@ -50,19 +49,29 @@ import static java.util.Optional.of;
 @ModuleId("memory")
 public final class MemoryMetricModule implements MetricModule, DynamicModuleId {
     public static final String DEFAULT_GROUP = "memory";
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
 
     private final Optional<String> id;
     private final Groups groups;
     private final boolean synchronizedStorage;
+    private final boolean columnar;
+    private final int chunkSize;
+    private final boolean compressed;
 
     @JsonCreator
     public MemoryMetricModule(
         @JsonProperty("id") Optional<String> id, @JsonProperty("groups") Optional<Groups> groups,
-        @JsonProperty("synchronizedStorage") Optional<Boolean> synchronizedStorage
+        @JsonProperty("synchronizedStorage") Optional<Boolean> synchronizedStorage,
+        @JsonProperty("columnar") Optional<Boolean> columnar,
+        @JsonProperty("chunkSize") Optional<Integer> chunkSize,
+        @JsonProperty("compressed") Optional<Boolean> compressed
     ) {
         this.id = id;
         this.groups = groups.orElseGet(Groups::empty).or(DEFAULT_GROUP);
         this.synchronizedStorage = synchronizedStorage.orElse(false);
+        this.columnar = columnar.orElse(false);
+        this.chunkSize = chunkSize.orElse(DEFAULT_CHUNK_SIZE);
+        this.compressed = compressed.orElse(false);
     }
 
     @Override
@@ -93,7 +102,7 @@ public final class MemoryMetricModule implements MetricModule, DynamicModuleId {
         @Provides
         @MemoryScope
         @Named("storage")
-        public Map<MemoryBackend.MemoryKey, NavigableMap<Long, Metric>> metricBackend(
+        public Map<MemoryBackend.MemoryKey, MemorySeries> metricBackend(
             final AsyncFramework async
         ) {
             if (synchronizedStorage) {
@@ -102,6 +111,19 @@ public final class MemoryMetricModule implements MetricModule, DynamicModuleId {
 
             return new ConcurrentSkipListMap<>(MemoryBackend.COMPARATOR);
         }
+
+        @Provides
+        @MemoryScope
+        public MemorySeries.Factory seriesFactory() {
+            return type -> {
+                /* columnar storage only applies to points, other types are kept boxed */
+                if (columnar && type == MetricType.POINT) {
+                    return new ChunkedPointSeries(chunkSize, compressed);
+                }
+
+                return new TreeMemorySeries();
+            };
+        }
     }
 
     @Override
@@ -117,6 +139,9 @@ public final class MemoryMetricModule implements MetricModule, DynamicModuleId {
         private Optional<String> id = empty();
         private Optional<Groups> groups = empty();
         private Optional<Boolean> synchronizedStorage = empty();
+        private Optional<Boolean> columnar = empty();
+        private Optional<Integer> chunkSize = empty();
+        private Optional<Boolean> compressed = empty();
 
         public Builder id(String id) {
             this.id = of(id);
@@ -133,8 +158,24 @@ public final class MemoryMetricModule implements MetricModule, DynamicModuleId {
             return this;
         }
 
+        public Builder columnar(final boolean columnar) {
+            this.columnar = of(columnar);
+            return this;
+        }
+
+        public Builder chunkSize(final int chunkSize) {
+            this.chunkSize = of(chunkSize);
+            return this;
+        }
+
+        public Builder compressed(final boolean compressed) {
+            this.compressed = of(compressed);
+            return this;
+        }
+
         public MemoryMetricModule build() {
-            return new MemoryMetricModule(id, groups, synchronizedStorage);
+            return new MemoryMetricModule(id, groups, synchronizedStorage, columnar, chunkSize,
+                compressed);
         }
     }
 }
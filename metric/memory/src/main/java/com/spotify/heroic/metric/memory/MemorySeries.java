@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricType;
+
+import java.util.List;
+
+/**
+ * Storage for the samples of a single in-memory time series.
+ * <p>
+ * Implementations are responsible for their own thread-safety.
+ */
+public interface MemorySeries {
+    /**
+     * Write the given metrics, replacing any existing metrics with the same timestamp.
+     */
+    void write(List<? extends Metric> data);
+
+    /**
+     * Fetch all metrics in the given range, where the start is exclusive and the end inclusive.
+     *
+     * @return a list of metrics, sorted by timestamp.
+     */
+    List<? extends Metric> fetch(DateRange range);
+
+    /**
+     * Creates new series storage for a given type of metric.
+     */
+    interface Factory {
+        MemorySeries newSeries(MetricType type);
+    }
+}
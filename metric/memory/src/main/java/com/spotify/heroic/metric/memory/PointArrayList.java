@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.spotify.heroic.metric.Point;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of points backed by primitive arrays.
+ * <p>
+ * Points are only materialized when accessed, which avoids keeping a boxed {@link Point} around
+ * for every stored sample.
+ */
+final class PointArrayList extends AbstractList<Point> implements RandomAccess {
+    private final long[] timestamps;
+    private final double[] values;
+    private final int offset;
+    private final int size;
+
+    PointArrayList(
+        final long[] timestamps, final double[] values, final int offset, final int size
+    ) {
+        this.timestamps = timestamps;
+        this.values = values;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    @Override
+    public Point get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+
+        return new Point(timestamps[offset + index], values[offset + index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
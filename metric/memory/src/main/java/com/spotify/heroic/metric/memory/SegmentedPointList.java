@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.google.common.collect.Iterators;
+import com.spotify.heroic.metric.Point;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of points which is the concatenation of a number of sorted segments.
+ * <p>
+ * Iteration delegates to the iterators of each segment, so segments that decode lazily are never
+ * fully materialized unless accessed by index.
+ */
+final class SegmentedPointList extends AbstractList<Point> implements RandomAccess {
+    private final List<List<Point>> segments;
+    private final int[] offsets;
+    private final int size;
+
+    SegmentedPointList(final List<List<Point>> segments) {
+        this.segments = segments;
+        this.offsets = new int[segments.size()];
+
+        int size = 0;
+
+        for (int i = 0; i < segments.size(); i++) {
+            offsets[i] = size;
+            size += segments.get(i).size();
+        }
+
+        this.size = size;
+    }
+
+    @Override
+    public Iterator<Point> iterator() {
+        return Iterators.concat(Iterators.transform(segments.iterator(), List::iterator));
+    }
+
+    @Override
+    public Point get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+
+        int low = 0;
+        int high = offsets.length - 1;
+
+        /* find the last segment starting at, or before the index */
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+
+            if (offsets[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return segments.get(low).get(index - offsets[low]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.metric.Metric;
+
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Series storage which keeps every metric boxed in a navigable map.
+ * <p>
+ * Supports every type of metric.
+ */
+public class TreeMemorySeries implements MemorySeries {
+    private final NavigableMap<Long, Metric> tree = new TreeMap<>();
+
+    @Override
+    public void write(final List<? extends Metric> data) {
+        synchronized (tree) {
+            for (final Metric d : data) {
+                tree.put(d.getTimestamp(), d);
+            }
+        }
+    }
+
+    @Override
+    public List<? extends Metric> fetch(final DateRange range) {
+        synchronized (tree) {
+            return ImmutableList.copyOf(
+                tree.subMap(range.getStart(), false, range.getEnd(), true).values());
+        }
+    }
+}
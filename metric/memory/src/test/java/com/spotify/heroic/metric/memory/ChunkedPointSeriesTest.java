@@ -0,0 +1,60 @@
+package com.spotify.heroic.metric.memory;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.metric.Point;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class ChunkedPointSeriesTest {
+    @Test
+    public void testFetchAcrossChunks() {
+        fetchAcrossChunks(new ChunkedPointSeries(4, false));
+    }
+
+    @Test
+    public void testFetchAcrossCompressedChunks() {
+        fetchAcrossChunks(new ChunkedPointSeries(4, true));
+    }
+
+    @Test
+    public void testOutOfOrderAndReplace() {
+        outOfOrderAndReplace(new ChunkedPointSeries(2, false));
+    }
+
+    @Test
+    public void testOutOfOrderAndReplaceCompressed() {
+        outOfOrderAndReplace(new ChunkedPointSeries(2, true));
+    }
+
+    private void fetchAcrossChunks(final ChunkedPointSeries series) {
+        final List<Point> points = new ArrayList<>();
+
+        for (long t = 1; t <= 10; t++) {
+            points.add(new Point(t * 10, t));
+        }
+
+        series.write(points);
+
+        assertEquals(points, series.fetch(new DateRange(0L, 100L)));
+        assertEquals(points.subList(2, 7), series.fetch(new DateRange(20L, 70L)));
+        assertEquals(points.subList(3, 4), series.fetch(new DateRange(35L, 45L)));
+        assertEquals(ImmutableList.of(), series.fetch(new DateRange(100L, 200L)));
+    }
+
+    private void outOfOrderAndReplace(final ChunkedPointSeries series) {
+        series.write(ImmutableList.of(new Point(50L, 5D), new Point(10L, 1D), new Point(30L, 3D)));
+        series.write(ImmutableList.of(new Point(20L, 2D), new Point(40L, 4D), new Point(60L, 6D)));
+        /* replaces values in both sealed and head chunks */
+        series.write(ImmutableList.of(new Point(10L, 10D), new Point(60L, 60D)));
+        /* earlier than any sealed chunk */
+        series.write(ImmutableList.of(new Point(0L, 0D)));
+
+        assertEquals(ImmutableList.of(new Point(0L, 0D), new Point(10L, 10D), new Point(20L, 2D),
+            new Point(30L, 3D), new Point(40L, 4D), new Point(50L, 5D), new Point(60L, 60D)),
+            series.fetch(new DateRange(-1L, 100L)));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.rpc.grpc;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultGroup;
+import com.spotify.heroic.metric.ResultLimits;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Collects streamed result groups into chunks with roughly the given number of metrics each.
+ * <p>
+ * Chunks only carry groups, the trace, errors, statistics and limits of the query are sent
+ * together with any remaining groups in the last chunk, see {@link #last(FullQuery)}. A single
+ * group is never split.
+ */
+@RequiredArgsConstructor
+class FullQueryChunker implements Consumer<List<ResultGroup>> {
+    private final Consumer<FullQuery> send;
+    private final int chunkSize;
+
+    private List<ResultGroup> current = new ArrayList<>();
+    private int size = 0;
+
+    @Override
+    public synchronized void accept(final List<ResultGroup> groups) {
+        for (final ResultGroup g : groups) {
+            current.add(g);
+            size += g.getGroup().size();
+
+            if (size >= chunkSize) {
+                send.accept(new FullQuery(QueryTrace.PASSIVE, ImmutableList.of(), current,
+                    Statistics.empty(), ResultLimits.of()));
+                current = new ArrayList<>();
+                size = 0;
+            }
+        }
+    }
+
+    /**
+     * Build the last chunk of the given result.
+     */
+    public synchronized FullQuery last(final FullQuery result) {
+        final List<ResultGroup> groups = current;
+        current = new ArrayList<>();
+        size = 0;
+
+        groups.addAll(result.getGroups());
+        return result.withGroups(groups);
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.rpc.grpc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metadata.FindSeries;
+import com.spotify.heroic.metric.CompactSeriesSet;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.ResultGroup;
+import com.spotify.heroic.metric.WriteMetric;
+import com.spotify.heroic.rpc.grpc.GrpcRpcProtocol.GroupedQuery;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Compact binary codecs for the endpoints which carry the bulk of the data between nodes.
+ * <p>
+ * Points are written column-wise, timestamps as zig-zag encoded varint deltas followed by the raw
+ * values. Other metric types are rare enough that they are embedded as JSON. Everything else that
+ * is small, like traces, errors and statistics, is embedded as a JSON envelope so that it doesn't
+ * need a binary schema of its own.
+ */
+public final class GrpcBinaryCodecs {
+    private static final int POINTS = 0;
+    private static final int JSON = 1;
+
+    private static final int SERIES_SET = 0;
+    private static final int COMPACT_SERIES_SET = 1;
+
+    /* rough size of a single encoded point and series, used to size buffers up front */
+    private static final int POINT_SIZE = 10;
+    private static final int SERIES_SIZE = 64;
+    private static final int BASE_SIZE = 256;
+
+    public static final GrpcCodec<FullQuery> FULL_QUERY = new GrpcCodec<FullQuery>() {
+        @Override
+        public byte[] encode(final ObjectMapper mapper, final FullQuery value) throws IOException {
+            int points = 0;
+
+            for (final ResultGroup g : value.getGroups()) {
+                points += g.getGroup().size();
+            }
+
+            final GrpcBinaryOutput out = new GrpcBinaryOutput(BASE_SIZE + points * POINT_SIZE);
+
+            out.writeBytes(mapper.writeValueAsBytes(
+                new FullQuery(value.getTrace(), value.getErrors(), ImmutableList.of(),
+                    value.getStatistics(), value.getLimits())));
+
+            out.writeVarInt(value.getGroups().size());
+
+            for (final ResultGroup g : value.getGroups()) {
+                writeTags(out, g.getKey());
+                writeResultSeries(out, g.getSeries());
+                out.writeVarLong(g.getCadence());
+                writeMetrics(out, mapper, g.getGroup());
+            }
+
+            return out.toByteArray();
+        }
+
+        @Override
+        public FullQuery decode(final ObjectMapper mapper, final byte[] bytes) throws IOException {
+            final GrpcBinaryInput in = new GrpcBinaryInput(bytes);
+
+            final FullQuery envelope = mapper.readValue(in.readBytes(), FullQuery.class);
+
+            final int size = in.readSize();
+            final List<ResultGroup> groups = new ArrayList<>(size);
+
+            for (int i = 0; i < size; i++) {
+                final Map<String, String> key = readTags(in);
+                final Set<Series> series = readResultSeries(in);
+                final long cadence = in.readVarLong();
+                final MetricCollection metrics = readMetrics(in, mapper);
+                groups.add(new ResultGroup(key, series, metrics, cadence));
+            }
+
+            return new FullQuery(envelope.getTrace(), envelope.getErrors(), groups,
+                envelope.getStatistics(), envelope.getLimits());
+        }
+    };
+
+    public static final GrpcCodec<GroupedQuery<WriteMetric.Request>> WRITE_METRIC_REQUEST =
+        new GrpcCodec<GroupedQuery<WriteMetric.Request>>() {
+            @Override
+            public byte[] encode(
+                final ObjectMapper mapper, final GroupedQuery<WriteMetric.Request> value
+            ) throws IOException {
+                final WriteMetric.Request request = value.getQuery();
+
+                final GrpcBinaryOutput out =
+                    new GrpcBinaryOutput(BASE_SIZE + request.getData().size() * POINT_SIZE);
+
+                out.writeString(value.getGroup().orElse(null));
+                writeSeries(out, request.getSeries());
+                writeMetrics(out, mapper, request.getData());
+                return out.toByteArray();
+            }
+
+            @Override
+            public GroupedQuery<WriteMetric.Request> decode(
+                final ObjectMapper mapper, final byte[] bytes
+            ) throws IOException {
+                final GrpcBinaryInput in = new GrpcBinaryInput(bytes);
+
+                final Optional<String> group = Optional.ofNullable(in.readString());
+                final Series series = readSeries(in);
+                final MetricCollection data = readMetrics(in, mapper);
+                return new GroupedQuery<>(group, new WriteMetric.Request(series, data));
+            }
+        };
+
+    public static final GrpcCodec<FindSeries> FIND_SERIES = new GrpcCodec<FindSeries>() {
+        @Override
+        public byte[] encode(final ObjectMapper mapper, final FindSeries value) throws IOException {
+            final GrpcBinaryOutput out =
+                new GrpcBinaryOutput(BASE_SIZE + value.getSeries().size() * SERIES_SIZE);
+
+            out.writeBytes(mapper.writeValueAsBytes(
+                new FindSeries(value.getErrors(), ImmutableSet.of(), value.isLimited())));
+            writeSeriesSet(out, value.getSeries());
+            return out.toByteArray();
+        }
+
+        @Override
+        public FindSeries decode(final ObjectMapper mapper, final byte[] bytes) throws IOException {
+            final GrpcBinaryInput in = new GrpcBinaryInput(bytes);
+
+            final FindSeries envelope = mapper.readValue(in.readBytes(), FindSeries.class);
+            final Set<Series> series = readSeriesSet(in);
+            return new FindSeries(envelope.getErrors(), series, envelope.isLimited());
+        }
+    };
+
+    static void writeMetrics(
+        final GrpcBinaryOutput out, final ObjectMapper mapper, final MetricCollection metrics
+    ) throws IOException {
+        if (metrics.getType() != MetricType.POINT) {
+            out.writeByte(JSON);
+            out.writeBytes(mapper.writeValueAsBytes(metrics));
+            return;
+        }
+
+        final List<Point> points = metrics.getDataAs(Point.class);
+
+        out.writeByte(POINTS);
+        out.writeVarInt(points.size());
+
+        long last = 0L;
+
+        for (final Point p : points) {
+            out.writeSignedVarLong(p.getTimestamp() - last);
+            last = p.getTimestamp();
+        }
+
+        for (final Point p : points) {
+            out.writeDouble(p.getValue());
+        }
+    }
+
+    static MetricCollection readMetrics(
+        final GrpcBinaryInput in, final ObjectMapper mapper
+    ) throws IOException {
+        final int encoding = in.readByte();
+
+        switch (encoding) {
+            case POINTS:
+                break;
+            case JSON:
+                return mapper.readValue(in.readBytes(), MetricCollection.class);
+            default:
+                throw new IOException("Unsupported metric encoding: " + encoding);
+        }
+
+        final int size = in.readSize();
+        final long[] timestamps = new long[size];
+
+        long last = 0L;
+
+        for (int i = 0; i < size; i++) {
+            last += in.readSignedVarLong();
+            timestamps[i] = last;
+        }
+
+        final List<Point> points = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            points.add(new Point(timestamps[i], in.readDouble()));
+        }
+
+        return MetricCollection.points(points);
+    }
+
+    /**
+     * Write the series of a result group, which might be compact.
+     */
+    static void writeResultSeries(final GrpcBinaryOutput out, final Set<Series> series) {
+        if (!(series instanceof CompactSeriesSet)) {
+            out.writeByte(SERIES_SET);
+            writeSeriesSet(out, series);
+            return;
+        }
+
+        final CompactSeriesSet compact = (CompactSeriesSet) series;
+
+        out.writeByte(COMPACT_SERIES_SET);
+        out.writeVarLong(compact.getCount());
+        writeValues(out, compact.getKeys());
+        out.writeVarInt(compact.getTags().size());
+
+        for (final Map.Entry<String, CompactSeriesSet.Values> e : compact.getTags().entrySet()) {
+            out.writeString(e.getKey());
+            writeValues(out, e.getValue());
+        }
+
+        writeSeriesSet(out, compact.getSample());
+    }
+
+    static Set<Series> readResultSeries(final GrpcBinaryInput in) throws IOException {
+        final int encoding = in.readByte();
+
+        switch (encoding) {
+            case SERIES_SET:
+                return readSeriesSet(in);
+            case COMPACT_SERIES_SET:
+                break;
+            default:
+                throw new IOException("Unsupported series encoding: " + encoding);
+        }
+
+        final long count = in.readVarLong();
+        final CompactSeriesSet.Values keys = readValues(in);
+
+        final int size = in.readSize();
+        final SortedMap<String, CompactSeriesSet.Values> tags = new TreeMap<>();
+
+        for (int i = 0; i < size; i++) {
+            tags.put(in.readString(), readValues(in));
+        }
+
+        return new CompactSeriesSet(count, keys, tags, readSeriesSet(in));
+    }
+
+    static void writeValues(final GrpcBinaryOutput out, final CompactSeriesSet.Values values) {
+        out.writeVarLong(values.getCount());
+        out.writeVarInt(values.getValues().size());
+
+        for (final String value : values.getValues()) {
+            out.writeString(value);
+        }
+    }
+
+    static CompactSeriesSet.Values readValues(final GrpcBinaryInput in) throws IOException {
+        final long count = in.readVarLong();
+        final int size = in.readSize();
+        final List<String> values = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            values.add(in.readString());
+        }
+
+        return CompactSeriesSet.Values.create(values, count);
+    }
+
+    static void writeSeriesSet(final GrpcBinaryOutput out, final Set<Series> series) {
+        out.writeVarInt(series.size());
+
+        for (final Series s : series) {
+            writeSeries(out, s);
+        }
+    }
+
+    static Set<Series> readSeriesSet(final GrpcBinaryInput in) throws IOException {
+        final int size = in.readSize();
+        final ImmutableSet.Builder<Series> series = ImmutableSet.builder();
+
+        for (int i = 0; i < size; i++) {
+            series.add(readSeries(in));
+        }
+
+        return series.build();
+    }
+
+    static void writeSeries(final GrpcBinaryOutput out, final Series series) {
+        out.writeString(series.getKey());
+        writeTags(out, series.getTags());
+    }
+
+    static Series readSeries(final GrpcBinaryInput in) throws IOException {
+        final String key = in.readString();
+        final int size = in.readSize();
+        final Map<String, String> tags = new TreeMap<>();
+
+        for (int i = 0; i < size; i++) {
+            tags.put(in.readString(), in.readString());
+        }
+
+        return Series.of(key, tags);
+    }
+
+    static void writeTags(final GrpcBinaryOutput out, final Map<String, String> tags) {
+        out.writeVarInt(tags.size());
+
+        for (final Map.Entry<String, String> e : tags.entrySet()) {
+            out.writeString(e.getKey());
+            out.writeString(e.getValue());
+        }
+    }
+
+    static Map<String, String> readTags(final GrpcBinaryInput in) throws IOException {
+        final int size = in.readSize();
+
+        if (size == 0) {
+            return ImmutableMap.of();
+        }
+
+        final Map<String, String> tags = new TreeMap<>();
+
+        for (int i = 0; i < size; i++) {
+            tags.put(in.readString(), in.readString());
+        }
+
+        return tags;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.rpc.grpc;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads values written by {@link GrpcBinaryOutput}.
+ */
+class GrpcBinaryInput {
+    private final byte[] buffer;
+    private int position = 0;
+
+    GrpcBinaryInput(final byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    int readByte() throws IOException {
+        require(1);
+        return buffer[position++] & 0xff;
+    }
+
+    long readVarLong() throws IOException {
+        long value = 0L;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = readByte();
+            value |= (long) (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed varint at position " + position);
+    }
+
+    long readSignedVarLong() throws IOException {
+        final long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    int readVarInt() throws IOException {
+        final long value = readVarLong();
+
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Integer out of range: " + value);
+        }
+
+        return (int) value;
+    }
+
+    double readDouble() throws IOException {
+        require(8);
+
+        long bits = 0L;
+
+        for (int i = 0; i < 8; i++) {
+            bits = (bits << 8) | (buffer[position++] & 0xff);
+        }
+
+        return Double.longBitsToDouble(bits);
+    }
+
+    byte[] readBytes() throws IOException {
+        final int length = readVarInt();
+        require(length);
+        final byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return bytes;
+    }
+
+    String readString() throws IOException {
+        final int prefix = readVarInt();
+
+        if (prefix == 0) {
+            return null;
+        }
+
+        final int length = prefix - 1;
+        require(length);
+        final String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Read the length of a collection, where each element takes at least one byte.
+     * <p>
+     * Guards against allocating huge collections because of a corrupt length.
+     */
+    int readSize() throws IOException {
+        final int size = readVarInt();
+        require(size);
+        return size;
+    }
+
+    private void require(final int size) throws IOException {
+        if (buffer.length - position < size) {
+            throw new IOException(
+                "Unexpected end of input, " + size + " byte(s) required at position " + position);
+        }
+    }
+}
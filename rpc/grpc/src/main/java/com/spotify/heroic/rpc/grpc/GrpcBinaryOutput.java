@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.rpc.grpc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable buffer that binary codecs write to.
+ * <p>
+ * Integers are written as base 128 varints, signed integers are zig-zag encoded first so that
+ * small negative values stay small. Doubles are written as their raw 8 byte representation.
+ */
+class GrpcBinaryOutput {
+    private byte[] buffer;
+    private int position = 0;
+
+    GrpcBinaryOutput(final int capacity) {
+        this.buffer = new byte[Math.max(capacity, 16)];
+    }
+
+    void writeByte(final int value) {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    void writeVarLong(long value) {
+        ensure(10);
+
+        while ((value & ~0x7fL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+
+        buffer[position++] = (byte) value;
+    }
+
+    void writeSignedVarLong(final long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeVarInt(final int value) {
+        writeVarLong(value & 0xffffffffL);
+    }
+
+    void writeDouble(final double value) {
+        ensure(8);
+
+        final long bits = Double.doubleToRawLongBits(value);
+
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (bits >>> shift);
+        }
+    }
+
+    void writeBytes(final byte[] bytes) {
+        writeVarInt(bytes.length);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * Write a string, which may be {@code null}. The length is offset by one so that zero can be
+     * used to represent {@code null}.
+     */
+    void writeString(final String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensure(final int size) {
+        if (position + size <= buffer.length) {
+            return;
+        }
+
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + size));
+    }
+}
@@ -21,13 +21,19 @@
 
 package com.spotify.heroic.rpc.grpc;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import io.grpc.MethodDescriptor;
+import java.util.Optional;
 
 public interface GrpcDescriptor<Q, R> {
-    TypeReference<Q> queryType();
+    GrpcCodec<Q> queryCodec();
 
-    TypeReference<R> responseType();
+    GrpcCodec<R> responseCodec();
 
     MethodDescriptor<byte[], byte[]> descriptor();
+
+    /**
+     * A variant of this endpoint that uses the binary codec, which can only be used against nodes
+     * that advertise {@link GrpcRpcProtocol#BINARY_CODEC} in their metadata.
+     */
+    Optional<GrpcDescriptor<Q, R>> binary();
 }
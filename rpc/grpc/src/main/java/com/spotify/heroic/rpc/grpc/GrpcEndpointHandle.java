@@ -22,7 +22,18 @@
 package com.spotify.heroic.rpc.grpc;
 
 import eu.toolchain.async.AsyncFuture;
+import java.util.function.Consumer;
 
 public interface GrpcEndpointHandle<Q, R> extends GrpcDescriptor<Q, R> {
     AsyncFuture<R> handle(final Q request) throws Exception;
+
+    /**
+     * Handle a request, where partial responses may be emitted before the final response.
+     * <p>
+     * Every emitted response is sent to the client as it is emitted, followed by the response
+     * that the returned future resolves to.
+     */
+    default AsyncFuture<R> handle(final Q request, final Consumer<R> emit) throws Exception {
+        return handle(request);
+    }
 }
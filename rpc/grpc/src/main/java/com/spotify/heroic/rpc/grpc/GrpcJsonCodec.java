@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.rpc.grpc;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Codec that sends bodies as JSON, supported by every node.
+ */
+@RequiredArgsConstructor
+public class GrpcJsonCodec<T> implements GrpcCodec<T> {
+    private final TypeReference<T> type;
+
+    @Override
+    public byte[] encode(final ObjectMapper mapper, final T value) throws IOException {
+        return mapper.writeValueAsBytes(value);
+    }
+
+    @Override
+    public T decode(final ObjectMapper mapper, final byte[] bytes) throws IOException {
+        return mapper.readValue(bytes, type);
+    }
+}
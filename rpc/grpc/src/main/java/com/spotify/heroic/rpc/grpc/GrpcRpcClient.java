@@ -21,8 +21,8 @@
 
 package com.spotify.heroic.rpc.grpc;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Joiner;
 import com.spotify.heroic.metrics.Meter;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
@@ -35,6 +35,8 @@ import io.grpc.Metadata;
 import io.grpc.Status;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -48,6 +50,7 @@ public class GrpcRpcClient {
     private final Meter errors = new Meter();
 
     private static final GrpcRpcEmptyBody EMPTY = new GrpcRpcEmptyBody();
+    private static final String CODECS = Joiner.on(',').join(GrpcRpcProtocol.CODECS);
 
     public AsyncFuture<Void> close() {
         return channel.stop();
@@ -66,14 +69,15 @@ public class GrpcRpcClient {
             final byte[] body;
 
             try {
-                body = mapper.writeValueAsBytes(entity);
-            } catch (JsonProcessingException e) {
+                body = endpoint.queryCodec().encode(mapper, entity);
+            } catch (IOException e) {
                 return async.failed(e);
             }
 
             final ClientCall<byte[], byte[]> call = channel.newCall(endpoint.descriptor(), options);
 
             final Metadata metadata = new Metadata();
+            metadata.put(GrpcRpcProtocol.CODECS_HEADER, CODECS);
 
             final ResolvableFuture<R> future = async.future();
 
@@ -83,7 +87,7 @@ public class GrpcRpcClient {
                     final R response;
 
                     try {
-                        response = mapper.readValue(message, endpoint.responseType());
+                        response = endpoint.responseCodec().decode(mapper, message);
                     } catch (IOException e) {
                         future.fail(e);
                         return;
@@ -118,6 +122,92 @@ public class GrpcRpcClient {
             call.request(1);
             call.halfClose();
 
+            /* cancel the call on the wire when the request is no longer needed, like a hedged
+             * request that lost */
+            future.onCancelled(call::cancel);
+
+            return future.onFailed(e -> errors.mark());
+        });
+    }
+
+    /**
+     * Perform a streaming request, where every message of the response is handed to the given
+     * consumer in order.
+     * <p>
+     * If decoding or consuming a message fails, the remaining messages are drained and the
+     * request fails with the first error.
+     */
+    public <Q, R> AsyncFuture<Void> stream(
+        final GrpcDescriptor<Q, R> endpoint, final Q entity, final CallOptions options,
+        final Consumer<R> consumer
+    ) {
+        return channel.doto(channel -> {
+            final byte[] body;
+
+            try {
+                body = endpoint.queryCodec().encode(mapper, entity);
+            } catch (IOException e) {
+                return async.failed(e);
+            }
+
+            final ClientCall<byte[], byte[]> call = channel.newCall(endpoint.descriptor(), options);
+
+            final Metadata metadata = new Metadata();
+            metadata.put(GrpcRpcProtocol.CODECS_HEADER, CODECS);
+
+            final ResolvableFuture<Void> future = async.future();
+            final AtomicReference<Exception> error = new AtomicReference<>();
+
+            call.start(new ClientCall.Listener<byte[]>() {
+                @Override
+                public void onMessage(final byte[] message) {
+                    if (error.get() == null) {
+                        try {
+                            consumer.accept(endpoint.responseCodec().decode(mapper, message));
+                        } catch (final Exception e) {
+                            error.compareAndSet(null, e);
+                        }
+                    }
+
+                    call.request(1);
+                }
+
+                @Override
+                public void onClose(final Status status, final Metadata trailers) {
+                    if (!status.isOk()) {
+                        future.fail(new RuntimeException(
+                            "Request finished with status code (" + status + ")"));
+                        return;
+                    }
+
+                    final Exception e = error.get();
+
+                    if (e != null) {
+                        future.fail(e);
+                        return;
+                    }
+
+                    future.resolve(null);
+                }
+
+                @Override
+                public void onHeaders(final Metadata headers) {
+                }
+
+                @Override
+                public void onReady() {
+                }
+            }, metadata);
+
+            call.sendMessage(body);
+            call.setMessageCompression(true);
+            call.request(1);
+            call.halfClose();
+
+            /* cancel the call on the wire when the request is no longer needed, like a hedged
+             * request that lost */
+            future.onCancelled(call::cancel);
+
             return future.onFailed(e -> errors.mark());
         });
     }
@@ -25,6 +25,8 @@ import eu.toolchain.async.AsyncFuture;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public class GrpcRpcContainer {
@@ -46,6 +48,28 @@ public class GrpcRpcContainer {
         });
     }
 
+    /**
+     * Register a streaming endpoint, where the handle may emit partial responses which are sent
+     * before the final response.
+     */
+    public <Q, R> void register(
+        final GrpcDescriptor<Q, R> spec, BiFunction<Q, Consumer<R>, AsyncFuture<R>> handle
+    ) {
+        register(new GrpcRpcEndpointHandleBase<Q, R>(spec) {
+            @Override
+            public AsyncFuture<R> handle(final Q request) throws Exception {
+                return handle.apply(request, part -> {
+                });
+            }
+
+            @Override
+            public AsyncFuture<R> handle(final Q request, final Consumer<R> emit)
+                throws Exception {
+                return handle.apply(request, emit);
+            }
+        });
+    }
+
     public List<GrpcEndpointHandle<?, ?>> getEndpoints() {
         return endpoints;
     }
@@ -21,8 +21,8 @@
 
 package com.spotify.heroic.rpc.grpc;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import io.grpc.MethodDescriptor;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 
 @RequiredArgsConstructor
@@ -30,17 +30,22 @@ public abstract class GrpcRpcEndpointHandleBase<Q, R> implements GrpcEndpointHan
     private final GrpcDescriptor<Q, R> spec;
 
     @Override
-    public TypeReference<Q> queryType() {
-        return spec.queryType();
+    public GrpcCodec<Q> queryCodec() {
+        return spec.queryCodec();
     }
 
     @Override
-    public TypeReference<R> responseType() {
-        return spec.responseType();
+    public GrpcCodec<R> responseCodec() {
+        return spec.responseCodec();
     }
 
     @Override
     public MethodDescriptor<byte[], byte[]> descriptor() {
         return spec.descriptor();
     }
+
+    @Override
+    public Optional<GrpcDescriptor<Q, R>> binary() {
+        return spec.binary();
+    }
 }
@@ -21,28 +21,34 @@
 
 package com.spotify.heroic.rpc.grpc;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import io.grpc.MethodDescriptor;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 
 @RequiredArgsConstructor
 public class GrpcRpcEndpointSpec<Q, R> implements GrpcDescriptor<Q, R> {
-    private final TypeReference<Q> queryType;
-    private final TypeReference<R> responseType;
+    private final GrpcCodec<Q> queryCodec;
+    private final GrpcCodec<R> responseCodec;
     private final MethodDescriptor<byte[], byte[]> descriptor;
+    private final Optional<GrpcDescriptor<Q, R>> binary;
 
     @Override
-    public TypeReference<Q> queryType() {
-        return queryType;
+    public GrpcCodec<Q> queryCodec() {
+        return queryCodec;
     }
 
     @Override
-    public TypeReference<R> responseType() {
-        return responseType;
+    public GrpcCodec<R> responseCodec() {
+        return responseCodec;
     }
 
     @Override
     public MethodDescriptor<byte[], byte[]> descriptor() {
         return descriptor;
     }
+
+    @Override
+    public Optional<GrpcDescriptor<Q, R>> binary() {
+        return binary;
+    }
 }
@@ -28,6 +28,8 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.io.ByteStreams;
 import com.spotify.heroic.cluster.ClusterNode;
 import com.spotify.heroic.cluster.NodeMetadata;
@@ -41,6 +43,7 @@ import com.spotify.heroic.metadata.FindSeries;
 import com.spotify.heroic.metadata.FindTags;
 import com.spotify.heroic.metadata.WriteMetadata;
 import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.ResultGroup;
 import com.spotify.heroic.metric.WriteMetric;
 import com.spotify.heroic.suggest.KeySuggest;
 import com.spotify.heroic.suggest.TagKeyCount;
@@ -54,6 +57,7 @@ import eu.toolchain.async.ManagedSetup;
 import eu.toolchain.async.ResolvableFuture;
 import io.grpc.CallOptions;
 import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
 import io.grpc.MethodDescriptor;
 import io.grpc.netty.NettyChannelBuilder;
 import io.netty.channel.nio.NioEventLoopGroup;
@@ -63,9 +67,13 @@ import java.io.InputStream;
 import java.net.Inet6Address;
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import javax.inject.Inject;
 import javax.inject.Named;
 import lombok.Data;
@@ -151,10 +159,18 @@ public class GrpcRpcProtocol implements RpcProtocol {
         });
     }
 
-    @RequiredArgsConstructor
     public class GrpcRpcClusterNode implements ClusterNode {
         private final GrpcRpcClient client;
         private final NodeMetadata metadata;
+        private final boolean binary;
+        private final boolean chunked;
+
+        public GrpcRpcClusterNode(final GrpcRpcClient client, final NodeMetadata metadata) {
+            this.client = client;
+            this.metadata = metadata;
+            this.binary = metadata.getCodecs().contains(BINARY_CODEC);
+            this.chunked = metadata.getCodecs().contains(CHUNKED_CODEC);
+        }
 
         @Override
         public NodeMetadata metadata() {
@@ -202,6 +218,35 @@ public class GrpcRpcProtocol implements RpcProtocol {
                 return request(METRICS_FULL_QUERY, request);
             }
 
+            @Override
+            public AsyncFuture<FullQuery> queryStream(
+                final FullQuery.Request request, final Consumer<List<ResultGroup>> consumer
+            ) {
+                if (!chunked) {
+                    return ClusterNode.Group.super.queryStream(request, consumer);
+                }
+
+                /* the last chunk carries everything but the groups */
+                final AtomicReference<FullQuery> last = new AtomicReference<>();
+
+                return stream(METRICS_FULL_QUERY_STREAM, request, chunk -> {
+                    if (!chunk.getGroups().isEmpty()) {
+                        consumer.accept(chunk.getGroups());
+                    }
+
+                    last.set(chunk);
+                }).lazyTransform(v -> {
+                    final FullQuery result = last.get();
+
+                    if (result == null) {
+                        return async.failed(
+                            new RuntimeException("Stream finished without response"));
+                    }
+
+                    return async.resolved(result.withGroups(ImmutableList.of()));
+                });
+            }
+
             @Override
             public AsyncFuture<WriteMetric> writeMetric(final WriteMetric.Request request) {
                 return request(METRICS_WRITE, request);
@@ -268,8 +313,27 @@ public class GrpcRpcProtocol implements RpcProtocol {
                 GrpcDescriptor<GroupedQuery<T>, R> endpoint, T body
             ) {
                 final GroupedQuery<T> grouped = new GroupedQuery<>(group, body);
+
+                if (binary) {
+                    return client.request(endpoint.binary().orElse(endpoint), grouped,
+                        CallOptions.DEFAULT);
+                }
+
                 return client.request(endpoint, grouped, CallOptions.DEFAULT);
             }
+
+            private <T, R> AsyncFuture<Void> stream(
+                GrpcDescriptor<GroupedQuery<T>, R> endpoint, T body, Consumer<R> consumer
+            ) {
+                final GroupedQuery<T> grouped = new GroupedQuery<>(group, body);
+
+                if (binary) {
+                    return client.stream(endpoint.binary().orElse(endpoint), grouped,
+                        CallOptions.DEFAULT, consumer);
+                }
+
+                return client.stream(endpoint, grouped, CallOptions.DEFAULT, consumer);
+            }
         }
     }
 
@@ -313,15 +377,71 @@ public class GrpcRpcProtocol implements RpcProtocol {
 
     public static final String SERVICE = "heroic";
 
+    /**
+     * Codec implemented by {@link GrpcBinaryCodecs}.
+     */
+    public static final String BINARY_CODEC = "binary";
+
+    /**
+     * Transfer encoding where full query results are streamed in chunks of groups, see
+     * {@link FullQueryChunker}.
+     */
+    public static final String CHUNKED_CODEC = "chunked";
+
+    /**
+     * All codecs that this node supports in addition to JSON.
+     */
+    public static final Set<String> CODECS = ImmutableSet.of(BINARY_CODEC, CHUNKED_CODEC);
+
+    /**
+     * Number of metrics to aim for in every streamed chunk.
+     */
+    public static final int STREAM_CHUNK_SIZE = 10000;
+
+    /**
+     * Header with the comma-separated codecs that a client supports. A node only advertises its
+     * own codecs in its metadata when this header is present, since older clients can't parse
+     * metadata with unknown fields.
+     */
+    public static final Metadata.Key<String> CODECS_HEADER =
+        Metadata.Key.of("heroic-codecs", Metadata.ASCII_STRING_MARSHALLER);
+
     private static <Q, R> GrpcDescriptor<Q, R> descriptor(
         final String endpointName, final TypeReference<Q> requestType,
         final TypeReference<R> responseType
+    ) {
+        return descriptor(endpointName, new GrpcJsonCodec<>(requestType),
+            new GrpcJsonCodec<>(responseType), Optional.empty());
+    }
+
+    /**
+     * Build a descriptor which has a binary variant, where the given binary codecs are used in
+     * place of JSON.
+     */
+    private static <Q, R> GrpcDescriptor<Q, R> binaryDescriptor(
+        final String endpointName, final TypeReference<Q> requestType,
+        final TypeReference<R> responseType, final Optional<GrpcCodec<Q>> binaryQuery,
+        final Optional<GrpcCodec<R>> binaryResponse
+    ) {
+        final GrpcCodec<Q> query = new GrpcJsonCodec<>(requestType);
+        final GrpcCodec<R> response = new GrpcJsonCodec<>(responseType);
+
+        final GrpcDescriptor<Q, R> binary =
+            descriptor(endpointName + ":" + BINARY_CODEC, binaryQuery.orElse(query),
+                binaryResponse.orElse(response), Optional.empty());
+
+        return descriptor(endpointName, query, response, Optional.of(binary));
+    }
+
+    private static <Q, R> GrpcDescriptor<Q, R> descriptor(
+        final String endpointName, final GrpcCodec<Q> query, final GrpcCodec<R> response,
+        final Optional<GrpcDescriptor<Q, R>> binary
     ) {
         final MethodDescriptor<byte[], byte[]> descriptor =
             MethodDescriptor.create(MethodDescriptor.MethodType.SERVER_STREAMING,
                 generateFullMethodName(SERVICE, endpointName), BYTE_MARSHALLER, BYTE_MARSHALLER);
 
-        return new GrpcRpcEndpointSpec<>(requestType, responseType, descriptor);
+        return new GrpcRpcEndpointSpec<>(query, response, descriptor, binary);
     }
 
     public static final GrpcDescriptor<GrpcRpcEmptyBody, NodeMetadata> METADATA =
@@ -330,16 +450,22 @@ public class GrpcRpcProtocol implements RpcProtocol {
         });
 
     public static final GrpcDescriptor<GroupedQuery<FullQuery.Request>, FullQuery>
-        METRICS_FULL_QUERY =
-        descriptor("metrics:fullQuery", new TypeReference<GroupedQuery<FullQuery.Request>>() {
+        METRICS_FULL_QUERY = binaryDescriptor("metrics:fullQuery",
+        new TypeReference<GroupedQuery<FullQuery.Request>>() {
         }, new TypeReference<FullQuery>() {
-        });
+        }, Optional.empty(), Optional.of(GrpcBinaryCodecs.FULL_QUERY));
+
+    public static final GrpcDescriptor<GroupedQuery<FullQuery.Request>, FullQuery>
+        METRICS_FULL_QUERY_STREAM = binaryDescriptor("metrics:fullQueryStream",
+        new TypeReference<GroupedQuery<FullQuery.Request>>() {
+        }, new TypeReference<FullQuery>() {
+        }, Optional.empty(), Optional.of(GrpcBinaryCodecs.FULL_QUERY));
 
     public static final GrpcDescriptor<GroupedQuery<WriteMetric.Request>, WriteMetric>
-        METRICS_WRITE =
-        descriptor("metrics:write", new TypeReference<GroupedQuery<WriteMetric.Request>>() {
+        METRICS_WRITE = binaryDescriptor("metrics:write",
+        new TypeReference<GroupedQuery<WriteMetric.Request>>() {
         }, new TypeReference<WriteMetric>() {
-        });
+        }, Optional.of(GrpcBinaryCodecs.WRITE_METRIC_REQUEST), Optional.empty());
 
     public static final GrpcDescriptor<GroupedQuery<FindTags.Request>, FindTags>
         METADATA_FIND_TAGS =
@@ -354,10 +480,10 @@ public class GrpcRpcProtocol implements RpcProtocol {
         });
 
     public static final GrpcDescriptor<GroupedQuery<FindSeries.Request>, FindSeries>
-        METADATA_FIND_SERIES =
-        descriptor("metadata:findSeries", new TypeReference<GroupedQuery<FindSeries.Request>>() {
+        METADATA_FIND_SERIES = binaryDescriptor("metadata:findSeries",
+        new TypeReference<GroupedQuery<FindSeries.Request>>() {
         }, new TypeReference<FindSeries>() {
-        });
+        }, Optional.empty(), Optional.of(GrpcBinaryCodecs.FIND_SERIES));
 
     public static final GrpcDescriptor<GroupedQuery<CountSeries.Request>, CountSeries>
         METADATA_COUNT_SERIES =
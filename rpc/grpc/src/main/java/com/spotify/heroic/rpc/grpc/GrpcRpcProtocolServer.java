@@ -22,6 +22,9 @@
 package com.spotify.heroic.rpc.grpc;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import com.spotify.heroic.cluster.NodeMetadata;
 import com.spotify.heroic.lifecycle.LifeCycleRegistry;
 import com.spotify.heroic.lifecycle.LifeCycles;
@@ -54,9 +57,11 @@ import java.lang.reflect.Field;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
-import static io.grpc.stub.ServerCalls.asyncUnaryCall;
+import static io.grpc.stub.ServerCalls.asyncServerStreamingCall;
 
 @Slf4j
 public class GrpcRpcProtocolServer implements LifeCycles {
@@ -102,11 +107,18 @@ public class GrpcRpcProtocolServer implements LifeCycles {
     private GrpcRpcContainer setupContainer() {
         final GrpcRpcContainer container = new GrpcRpcContainer();
 
-        container.register(GrpcRpcProtocol.METADATA, empty -> async.resolved(localMetadata));
-
         container.register(GrpcRpcProtocol.METRICS_FULL_QUERY,
             g -> g.apply(metrics, MetricBackendGroup::query));
 
+        container.register(GrpcRpcProtocol.METRICS_FULL_QUERY_STREAM, (g, emit) -> {
+            final FullQueryChunker chunker =
+                new FullQueryChunker(emit, GrpcRpcProtocol.STREAM_CHUNK_SIZE);
+
+            return g
+                .apply(metrics, (m, q) -> m.queryStream(q, chunker))
+                .directTransform(chunker::last);
+        });
+
         container.register(GrpcRpcProtocol.METRICS_WRITE,
             g -> g.apply(metrics, MetricBackend::write));
 
@@ -200,46 +212,105 @@ public class GrpcRpcProtocolServer implements LifeCycles {
         final ServerServiceDefinition.Builder builder =
             ServerServiceDefinition.builder(GrpcRpcProtocol.SERVICE);
 
+        builder.addMethod(GrpcRpcProtocol.METADATA.descriptor(), metadataCallHandler());
+
         for (final GrpcEndpointHandle<?, ?> spec : container.getEndpoints()) {
-            final ServerCallHandler<byte[], byte[]> handler =
-                serverCallHandlerFor((GrpcEndpointHandle<Object, Object>) spec);
-            builder.addMethod(spec.descriptor(), handler);
+            bindEndpoint(builder, spec);
         }
 
         return builder.build();
     }
 
-    private ServerCallHandler<byte[], byte[]> serverCallHandlerFor(
-        final GrpcEndpointHandle<Object, Object> spec
+    private <Q, R> void bindEndpoint(
+        final ServerServiceDefinition.Builder builder, final GrpcEndpointHandle<Q, R> spec
+    ) {
+        builder.addMethod(spec.descriptor(), serverCallHandlerFor(spec, spec));
+
+        spec.binary().ifPresent(binary -> {
+            builder.addMethod(binary.descriptor(), serverCallHandlerFor(spec, binary));
+        });
+    }
+
+    /**
+     * Metadata requests also negotiate codecs. Only the codecs which the client has declared
+     * support for are advertised, which keeps the metadata readable by older clients.
+     */
+    private ServerCallHandler<byte[], byte[]> metadataCallHandler() {
+        return (method, call, headers) -> {
+            final String header = headers.get(GrpcRpcProtocol.CODECS_HEADER);
+
+            final Set<String> codecs = header == null ? ImmutableSet.of() : ImmutableSet.copyOf(
+                Sets.intersection(GrpcRpcProtocol.CODECS,
+                    ImmutableSet.copyOf(Splitter.on(',').trimResults().split(header))));
+
+            final NodeMetadata metadata = localMetadata.withCodecs(codecs);
+
+            final GrpcEndpointHandle<GrpcRpcEmptyBody, NodeMetadata> spec =
+                new GrpcRpcEndpointHandleBase<GrpcRpcEmptyBody, NodeMetadata>(
+                    GrpcRpcProtocol.METADATA) {
+                    @Override
+                    public AsyncFuture<NodeMetadata> handle(final GrpcRpcEmptyBody request) {
+                        return async.resolved(metadata);
+                    }
+                };
+
+            return serverCallHandlerFor(spec, spec).startCall(method, call, headers);
+        };
+    }
+
+    private <Q, R> ServerCallHandler<byte[], byte[]> serverCallHandlerFor(
+        final GrpcEndpointHandle<Q, R> spec, final GrpcDescriptor<Q, R> descriptor
     ) {
-        return asyncUnaryCall((request, observer) -> {
-            final AsyncFuture<Object> future;
+        return asyncServerStreamingCall((request, observer) -> {
+            final AsyncFuture<R> future;
+
+            /* the observer may not be called concurrently, so every call to it is synchronized on
+             * the observer */
+            final Consumer<R> emit = part -> {
+                final byte[] bytes;
+
+                try {
+                    bytes = descriptor.responseCodec().encode(mapper, part);
+                } catch (final Exception e) {
+                    throw new RuntimeException("Failed to encode response", e);
+                }
+
+                synchronized (observer) {
+                    observer.onNext(bytes);
+                }
+            };
 
             try {
-                final Object obj = mapper.readValue(request, spec.queryType());
-                future = spec.handle(obj);
+                final Q obj = descriptor.queryCodec().decode(mapper, request);
+                future = spec.handle(obj, emit);
             } catch (final Exception e) {
                 log.error("Failed to handle request (sent {})", Status.INTERNAL, e);
                 observer.onError(new StatusException(Status.INTERNAL));
                 return;
             }
 
-            future.onDone(new FutureDone<Object>() {
+            future.onDone(new FutureDone<R>() {
                 @Override
                 public void failed(final Throwable cause) throws Exception {
-                    observer.onError(cause);
+                    synchronized (observer) {
+                        observer.onError(cause);
+                    }
                 }
 
                 @Override
-                public void resolved(final Object result) throws Exception {
-                    final byte[] body = mapper.writeValueAsBytes(result);
-                    observer.onNext(body);
-                    observer.onCompleted();
+                public void resolved(final R result) throws Exception {
+                    emit.accept(result);
+
+                    synchronized (observer) {
+                        observer.onCompleted();
+                    }
                 }
 
                 @Override
                 public void cancelled() throws Exception {
-                    observer.onError(new RuntimeException("Request cancelled"));
+                    synchronized (observer) {
+                        observer.onError(new RuntimeException("Request cancelled"));
+                    }
                 }
             });
         });
@@ -0,0 +1,79 @@
+package com.spotify.heroic.rpc.grpc;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.QueryError;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultGroup;
+import com.spotify.heroic.metric.ResultLimits;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FullQueryChunkerTest {
+    private final ResultGroup small = group(1);
+    private final ResultGroup large = group(3);
+
+    private final FullQuery query = new FullQuery(QueryTrace.PASSIVE,
+        ImmutableList.of(QueryError.fromMessage("error")), ImmutableList.of(),
+        new Statistics(ImmutableMap.of("foo", 42L)), ResultLimits.of());
+
+    private List<FullQuery> sent;
+    private FullQueryChunker chunker;
+
+    @Before
+    public void setup() {
+        sent = new ArrayList<>();
+        chunker = new FullQueryChunker(sent::add, 2);
+    }
+
+    @Test
+    public void testChunks() {
+        chunker.accept(ImmutableList.of(small));
+        assertEquals(ImmutableList.of(), sent);
+
+        /* groups are never split, a chunk is sent as soon as it is over the chunk size */
+        chunker.accept(ImmutableList.of(large, small));
+        assertEquals(1, sent.size());
+        assertEquals(ImmutableList.of(small, large), sent.get(0).getGroups());
+        assertEquals(ImmutableList.of(), sent.get(0).getErrors());
+        assertEquals(Statistics.empty(), sent.get(0).getStatistics());
+
+        /* the last chunk carries everything but the sent groups */
+        assertEquals(query.withGroups(ImmutableList.of(small)), chunker.last(query));
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    public void testLastIncludesResultGroups() {
+        chunker.accept(ImmutableList.of(small));
+
+        assertEquals(query.withGroups(ImmutableList.of(small, small)),
+            chunker.last(query.withGroups(ImmutableList.of(small))));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(query, chunker.last(query));
+        assertEquals(ImmutableList.of(), sent);
+    }
+
+    private static ResultGroup group(final int size) {
+        final ImmutableList.Builder<Point> points = ImmutableList.builder();
+
+        for (int i = 0; i < size; i++) {
+            points.add(new Point(i, i));
+        }
+
+        return new ResultGroup(ImmutableMap.of("size", Integer.toString(size)), ImmutableSet.of(),
+            MetricCollection.points(points.build()), 0L);
+    }
+}
@@ -0,0 +1,108 @@
+package com.spotify.heroic.rpc.grpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.metadata.FindSeries;
+import com.spotify.heroic.metric.CompactSeriesSet;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultGroup;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.WriteMetric;
+import com.spotify.heroic.rpc.grpc.GrpcRpcProtocol.GroupedQuery;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Test;
+
+public class GrpcBinaryCodecsTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final Series a = Series.of("a", ImmutableMap.of("host", "foo", "role", "bar"));
+    private final Series b = Series.of("b", nullTag());
+
+    /* out of order timestamps and odd values to exercise negative deltas and raw doubles */
+    private final MetricCollection points = MetricCollection.points(
+        ImmutableList.of(new Point(1000L, 1D), new Point(500L, Double.NaN),
+            new Point(Long.MAX_VALUE, -0D), new Point(-1L, Double.MAX_VALUE)));
+
+    @Test
+    public void testFullQuery() throws IOException {
+        final FullQuery query = new FullQuery(QueryTrace.PASSIVE, ImmutableList.of(),
+            ImmutableList.of(
+                new ResultGroup(ImmutableMap.of("role", "bar"), ImmutableSet.of(a, b), points,
+                    1000L),
+                new ResultGroup(ImmutableMap.of(), ImmutableSet.of(), MetricCollection.points(
+                    ImmutableList.of()), 0L)), new Statistics(ImmutableMap.of("foo", 42L)),
+            ResultLimits.of());
+
+        final FullQuery result = roundTrip(GrpcBinaryCodecs.FULL_QUERY, query);
+
+        assertEquals(query.getGroups(), result.getGroups());
+        assertEquals(query.getStatistics(), result.getStatistics());
+        assertEquals(query.getLimits(), result.getLimits());
+    }
+
+    @Test
+    public void testCompactSeries() throws IOException {
+        final FullQuery query = new FullQuery(QueryTrace.PASSIVE, ImmutableList.of(),
+            ImmutableList.of(
+                new ResultGroup(ImmutableMap.of(), CompactSeriesSet.of(ImmutableSet.of(a, b), 1),
+                    points, 1000L)), Statistics.empty(), ResultLimits.of());
+
+        final FullQuery result = roundTrip(GrpcBinaryCodecs.FULL_QUERY, query);
+
+        assertEquals(query.getGroups(), result.getGroups());
+        assertTrue(result.getGroups().get(0).getSeries() instanceof CompactSeriesSet);
+        assertEquals(2,
+            ((CompactSeriesSet) result.getGroups().get(0).getSeries()).getCount());
+    }
+
+    @Test
+    public void testWriteMetricRequest() throws IOException {
+        final GroupedQuery<WriteMetric.Request> request =
+            new GroupedQuery<>(Optional.of("group"), new WriteMetric.Request(a, points));
+
+        assertEquals(request, roundTrip(GrpcBinaryCodecs.WRITE_METRIC_REQUEST, request));
+
+        final GroupedQuery<WriteMetric.Request> noGroup =
+            new GroupedQuery<>(Optional.empty(), new WriteMetric.Request(b, points));
+
+        assertEquals(noGroup, roundTrip(GrpcBinaryCodecs.WRITE_METRIC_REQUEST, noGroup));
+    }
+
+    @Test
+    public void testFindSeries() throws IOException {
+        final FindSeries series = new FindSeries(ImmutableList.of(), ImmutableSet.of(a, b), true);
+        assertEquals(series, roundTrip(GrpcBinaryCodecs.FIND_SERIES, series));
+    }
+
+    @Test
+    public void testPointEncodingSize() throws IOException {
+        final GrpcBinaryOutput out = new GrpcBinaryOutput(0);
+        GrpcBinaryCodecs.writeMetrics(out, mapper, points);
+
+        /* varint count and type, plus at most 10 bytes per timestamp and 8 bytes per value */
+        assertTrue(out.toByteArray().length <= 2 + points.size() * 18);
+    }
+
+    private <T> T roundTrip(final GrpcCodec<T> codec, final T value) throws IOException {
+        return codec.decode(mapper, codec.encode(mapper, value));
+    }
+
+    private static Map<String, String> nullTag() {
+        final Map<String, String> tags = new HashMap<>();
+        tags.put("empty", null);
+        return tags;
+    }
+}
@@ -0,0 +1,99 @@
+package com.spotify.heroic.rpc.grpc;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.spotify.heroic.metric.FullQuery;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.Managed;
+import eu.toolchain.async.ManagedSetup;
+import eu.toolchain.async.TinyAsync;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import java.net.InetSocketAddress;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GrpcRpcClientTest {
+    @Mock
+    private ManagedChannel channel;
+
+    @Mock
+    private ClientCall<byte[], byte[]> call;
+
+    @Mock
+    private GrpcDescriptor<FullQuery.Request, FullQuery> endpoint;
+
+    @Mock
+    private GrpcCodec<FullQuery.Request> queryCodec;
+
+    @Mock
+    private FullQuery.Request request;
+
+    private GrpcRpcClient client;
+
+    @Before
+    public void setup() throws Exception {
+        final AsyncFramework async =
+            TinyAsync.builder().executor(MoreExecutors.newDirectExecutorService()).build();
+        final ObjectMapper mapper = new ObjectMapper();
+
+        doReturn(queryCodec).when(endpoint).queryCodec();
+        doReturn(new byte[0]).when(queryCodec).encode(mapper, request);
+        doReturn(call).when(channel).newCall(any(), any());
+
+        final Managed<ManagedChannel> managed =
+            async.managed(new ManagedSetup<ManagedChannel>() {
+                @Override
+                public AsyncFuture<ManagedChannel> construct() {
+                    return async.resolved(channel);
+                }
+
+                @Override
+                public AsyncFuture<Void> destruct(final ManagedChannel value) {
+                    return async.resolved();
+                }
+            });
+
+        managed.start().get();
+
+        client = new GrpcRpcClient(async, new InetSocketAddress("localhost", 0), mapper, managed);
+    }
+
+    /**
+     * A request which loses a hedge is cancelled, which has to cancel the call to the node.
+     */
+    @Test
+    public void testCancelRequest() throws Exception {
+        final AsyncFuture<FullQuery> future =
+            client.request(endpoint, request, CallOptions.DEFAULT);
+
+        verify(call, never()).cancel();
+
+        assertTrue(future.cancel());
+        verify(call).cancel();
+    }
+
+    @Test
+    public void testCancelStream() throws Exception {
+        final AsyncFuture<Void> future =
+            client.stream(endpoint, request, CallOptions.DEFAULT, result -> {
+            });
+
+        verify(call, never()).cancel();
+
+        assertTrue(future.cancel());
+        verify(call).cancel();
+    }
+}
@@ -22,6 +22,7 @@
 package com.spotify.heroic.statistics.semantic;
 
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.spotify.heroic.statistics.ApiReporter;
 import com.spotify.heroic.statistics.FutureReporter;
 import com.spotify.metrics.core.MetricId;
@@ -36,6 +37,10 @@ public class SemanticApiReporter implements ApiReporter {
 
     private final FutureReporter query;
     private final Histogram smallQueryLatency;
+    private final Meter hedge;
+    private final Meter hedgeWin;
+    private final Meter queryQueued;
+    private final Meter queryRejected;
 
     public SemanticApiReporter(final SemanticMetricRegistry registry) {
         final MetricId base = MetricId.build().tagged("component", COMPONENT);
@@ -44,6 +49,10 @@ public class SemanticApiReporter implements ApiReporter {
             new SemanticFutureReporter(registry, base.tagged("what", "query", "unit", Units.QUERY));
         smallQueryLatency = registry.histogram(
             base.tagged("what", "small-query-latency", "unit", Units.MILLISECOND));
+        hedge = registry.meter(base.tagged("what", "hedge", "unit", Units.QUERY));
+        hedgeWin = registry.meter(base.tagged("what", "hedge-win", "unit", Units.QUERY));
+        queryQueued = registry.meter(base.tagged("what", "query-queued", "unit", Units.QUERY));
+        queryRejected = registry.meter(base.tagged("what", "query-rejected", "unit", Units.QUERY));
     }
 
     @Override
@@ -55,4 +64,24 @@ public class SemanticApiReporter implements ApiReporter {
     public void reportSmallQueryLatency(final long duration) {
         smallQueryLatency.update(duration);
     }
+
+    @Override
+    public void reportHedge() {
+        hedge.mark();
+    }
+
+    @Override
+    public void reportHedgeWin() {
+        hedgeWin.mark();
+    }
+
+    @Override
+    public void reportQueryQueued() {
+        queryQueued.mark();
+    }
+
+    @Override
+    public void reportQueryRejected() {
+        queryRejected.mark();
+    }
 }
@@ -22,6 +22,7 @@
 package com.spotify.heroic.statistics.semantic;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.spotify.heroic.statistics.FutureReporter;
 import com.spotify.heroic.statistics.FutureReporter.Context;
@@ -38,6 +39,9 @@ public class SemanticIngestionManagerReporter implements IngestionManagerReporte
 
     private final Counter concurrentWritesCounter;
     private final Meter droppedByFilter;
+    private final Counter pendingPoints;
+    private final Histogram batchSize;
+    private final Meter rejectedWrites;
 
     public SemanticIngestionManagerReporter(SemanticMetricRegistry registry) {
         final MetricId id = MetricId.build().tagged("component", COMPONENT);
@@ -47,6 +51,11 @@ public class SemanticIngestionManagerReporter implements IngestionManagerReporte
             registry.counter(id.tagged("what", "concurrent-writes", "unit", Units.WRITE));
         this.droppedByFilter =
             registry.meter(id.tagged("what", "dropped-by-filter", "unit", Units.DROP));
+        this.pendingPoints =
+            registry.counter(id.tagged("what", "pending-points", "unit", Units.SAMPLE));
+        this.batchSize = registry.histogram(id.tagged("what", "batch-size", "unit", Units.SAMPLE));
+        this.rejectedWrites =
+            registry.meter(id.tagged("what", "rejected-writes", "unit", Units.DROP));
     }
 
     @Override
@@ -68,4 +77,24 @@ public class SemanticIngestionManagerReporter implements IngestionManagerReporte
     public void decrementConcurrentWrites() {
         concurrentWritesCounter.dec();
     }
+
+    @Override
+    public void incrementPendingPoints(final int points) {
+        pendingPoints.inc(points);
+    }
+
+    @Override
+    public void decrementPendingPoints(final int points) {
+        pendingPoints.dec(points);
+    }
+
+    @Override
+    public void reportBatchSize(final int points) {
+        batchSize.update(points);
+    }
+
+    @Override
+    public void reportRejectedWrite() {
+        rejectedWrites.mark();
+    }
 }
@@ -45,6 +45,8 @@ import eu.toolchain.async.AsyncFuture;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 
+import java.util.concurrent.TimeUnit;
+
 @ToString(of = {"base"})
 public class SemanticMetadataBackendReporter implements MetadataBackendReporter {
     private static final String COMPONENT = "metadata-backend";
@@ -65,6 +67,10 @@ public class SemanticMetadataBackendReporter implements MetadataBackendReporter
 
     private final Histogram writeBatchDuration;
 
+    private final Meter findSeriesCacheHit;
+    private final Meter findSeriesCacheMiss;
+    private final Histogram findSeriesCacheSavedLatency;
+
     public SemanticMetadataBackendReporter(SemanticMetricRegistry registry) {
         final MetricId base = MetricId.build().tagged("component", COMPONENT);
 
@@ -91,6 +97,13 @@ public class SemanticMetadataBackendReporter implements MetadataBackendReporter
 
         writeBatchDuration = registry.histogram(
             base.tagged("what", "write-bulk-duration", "unit", Units.MILLISECOND));
+
+        findSeriesCacheHit =
+            registry.meter(base.tagged("what", "find-series-cache-hit", "unit", Units.QUERY));
+        findSeriesCacheMiss =
+            registry.meter(base.tagged("what", "find-series-cache-miss", "unit", Units.QUERY));
+        findSeriesCacheSavedLatency = registry.histogram(
+            base.tagged("what", "find-series-cache-saved-latency", "unit", Units.MILLISECOND));
     }
 
     @Override
@@ -120,6 +133,17 @@ public class SemanticMetadataBackendReporter implements MetadataBackendReporter
         writeBatchDuration.update(millis);
     }
 
+    @Override
+    public void reportFindSeriesCacheHit(long savedNanos) {
+        findSeriesCacheHit.mark();
+        findSeriesCacheSavedLatency.update(TimeUnit.NANOSECONDS.toMillis(savedNanos));
+    }
+
+    @Override
+    public void reportFindSeriesCacheMiss() {
+        findSeriesCacheMiss.mark();
+    }
+
     @RequiredArgsConstructor
     class InstrumentedMetadataBackend implements MetadataBackend {
         private final MetadataBackend delegate;
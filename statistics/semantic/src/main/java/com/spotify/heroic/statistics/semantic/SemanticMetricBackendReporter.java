@@ -22,6 +22,8 @@
 package com.spotify.heroic.statistics.semantic;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.spotify.heroic.QueryOptions;
 import com.spotify.heroic.async.AsyncObservable;
 import com.spotify.heroic.common.Groups;
@@ -44,6 +46,7 @@ import com.spotify.metrics.core.SemanticMetricRegistry;
 import eu.toolchain.async.AsyncFuture;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
@@ -76,6 +79,14 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
      */
     private final Counter sampleSizeAccumulated;
 
+    private final Counter inFlightWriteBytes;
+    private final Timer writeFlushLatency;
+
+    private final Histogram rowsPerRead;
+
+    private final Histogram fetchQueueWait;
+    private final Histogram scheduledFetchLatency;
+
     public SemanticMetricBackendReporter(SemanticMetricRegistry registry) {
         final MetricId base = MetricId.build().tagged("component", COMPONENT);
 
@@ -101,6 +112,18 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
             registry.counter(base.tagged("what", "sample-size-live", "unit", Units.SAMPLE));
         sampleSizeAccumulated =
             registry.counter(base.tagged("what", "sample-size-accumulated", "unit", Units.SAMPLE));
+
+        inFlightWriteBytes =
+            registry.counter(base.tagged("what", "in-flight-write-bytes", "unit", Units.BYTE));
+        writeFlushLatency = registry.timer(base.tagged("what", "write-flush-latency"));
+
+        rowsPerRead =
+            registry.histogram(base.tagged("what", "rows-per-read", "unit", Units.COUNT));
+
+        fetchQueueWait = registry.histogram(
+            base.tagged("what", "fetch-queue-wait", "unit", Units.MILLISECOND));
+        scheduledFetchLatency = registry.histogram(
+            base.tagged("what", "scheduled-fetch-latency", "unit", Units.MILLISECOND));
     }
 
     @Override
@@ -142,6 +165,36 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
         return queryMetrics.setup();
     }
 
+    @Override
+    public void incrementInFlightWriteBytes(final long bytes) {
+        inFlightWriteBytes.inc(bytes);
+    }
+
+    @Override
+    public void decrementInFlightWriteBytes(final long bytes) {
+        inFlightWriteBytes.dec(bytes);
+    }
+
+    @Override
+    public void reportWriteFlushLatency(final long nanos) {
+        writeFlushLatency.update(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void reportRowsPerRead(final int rows) {
+        rowsPerRead.update(rows);
+    }
+
+    @Override
+    public void reportFetchQueueWait(final long nanos) {
+        fetchQueueWait.update(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    @Override
+    public void reportFetchLatency(final long nanos) {
+        scheduledFetchLatency.update(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
     @RequiredArgsConstructor
     private class InstrumentedMetricBackend implements MetricBackend {
         private final MetricBackend delegate;
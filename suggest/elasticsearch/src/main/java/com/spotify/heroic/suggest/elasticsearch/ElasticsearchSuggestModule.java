@@ -35,6 +35,7 @@ import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.ModuleId;
 import com.spotify.heroic.dagger.PrimaryComponent;
 import com.spotify.heroic.elasticsearch.BackendType;
+import com.spotify.heroic.elasticsearch.BloomRateLimitedCache;
 import com.spotify.heroic.elasticsearch.Connection;
 import com.spotify.heroic.elasticsearch.ConnectionModule;
 import com.spotify.heroic.elasticsearch.DefaultRateLimitedCache;
@@ -44,6 +45,7 @@ import com.spotify.heroic.lifecycle.LifeCycle;
 import com.spotify.heroic.lifecycle.LifeCycleManager;
 import com.spotify.heroic.suggest.SuggestBackend;
 import com.spotify.heroic.suggest.SuggestModule;
+import com.spotify.heroic.time.Clock;
 import dagger.Component;
 import dagger.Lazy;
 import dagger.Module;
@@ -72,6 +74,8 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
 
     private static final double DEFAULT_WRITES_PER_SECOND = 3000d;
     private static final long DEFAULT_WRITES_CACHE_DURATION_MINUTES = 240L;
+    private static final double DEFAULT_WRITE_CACHE_FALSE_POSITIVE_RATE = 0.01D;
+    private static final int DEFAULT_WRITE_CACHE_FILTER_INDICES = 4;
     public static final String DEFAULT_GROUP = "elasticsearch";
     public static final String DEFAULT_TEMPLATE_NAME = "heroic-suggest";
     public static final String DEFAULT_BACKEND_TYPE = "default";
@@ -82,6 +86,8 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
     private final ConnectionModule connection;
     private final double writesPerSecond;
     private final long writeCacheDurationMinutes;
+    private final Optional<Long> writeCacheFilterSize;
+    private final double writeCacheFalsePositiveRate;
     private final String templateName;
     private final String backendType;
     private final boolean configure;
@@ -107,6 +113,8 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
         @JsonProperty("connection") Optional<ConnectionModule> connection,
         @JsonProperty("writesPerSecond") Optional<Double> writesPerSecond,
         @JsonProperty("writeCacheDurationMinutes") Optional<Long> writeCacheDurationMinutes,
+        @JsonProperty("writeCacheFilterSize") Optional<Long> writeCacheFilterSize,
+        @JsonProperty("writeCacheFalsePositiveRate") Optional<Double> writeCacheFalsePositiveRate,
         @JsonProperty("templateName") Optional<String> templateName,
         @JsonProperty("backendType") Optional<String> backendType,
         @JsonProperty("configure") Optional<Boolean> configure
@@ -117,6 +125,9 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
         this.writesPerSecond = writesPerSecond.orElse(DEFAULT_WRITES_PER_SECOND);
         this.writeCacheDurationMinutes =
             writeCacheDurationMinutes.orElse(DEFAULT_WRITES_CACHE_DURATION_MINUTES);
+        this.writeCacheFilterSize = writeCacheFilterSize;
+        this.writeCacheFalsePositiveRate =
+            writeCacheFalsePositiveRate.orElse(DEFAULT_WRITE_CACHE_FALSE_POSITIVE_RATE);
         this.templateName = templateName.orElse(DEFAULT_TEMPLATE_NAME);
         this.backendType = backendType.orElse(DEFAULT_BACKEND_TYPE);
         this.type = backendType.map(this::lookupBackendType).orElse(defaultSetup);
@@ -185,7 +196,17 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
 
         @Provides
         @ElasticsearchScope
-        public RateLimitedCache<Pair<String, HashCode>> writeCache() {
+        public RateLimitedCache<Pair<String, HashCode>> writeCache(final Clock clock) {
+            if (writeCacheFilterSize.isPresent()) {
+                final Optional<RateLimiter> rateLimiter = writesPerSecond <= 0d ? empty()
+                    : of(RateLimiter.create(writesPerSecond));
+
+                return new BloomRateLimitedCache(clock, rateLimiter, writeCacheFilterSize.get(),
+                    writeCacheFalsePositiveRate,
+                    TimeUnit.MINUTES.toMillis(writeCacheDurationMinutes),
+                    DEFAULT_WRITE_CACHE_FILTER_INDICES);
+            }
+
             final Cache<Pair<String, HashCode>, Boolean> cache = CacheBuilder
                 .newBuilder()
                 .concurrencyLevel(4)
@@ -230,6 +251,8 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
         private Optional<ConnectionModule> connection = empty();
         private Optional<Double> writesPerSecond = empty();
         private Optional<Long> writeCacheDurationMinutes = empty();
+        private Optional<Long> writeCacheFilterSize = empty();
+        private Optional<Double> writeCacheFalsePositiveRate = empty();
         private Optional<String> templateName = empty();
         private Optional<String> backendType = empty();
         private Optional<Boolean> configure = empty();
@@ -264,6 +287,18 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
             return this;
         }
 
+        public Builder writeCacheFilterSize(long writeCacheFilterSize) {
+            checkNotNull(writeCacheFilterSize, "writeCacheFilterSize");
+            this.writeCacheFilterSize = of(writeCacheFilterSize);
+            return this;
+        }
+
+        public Builder writeCacheFalsePositiveRate(double writeCacheFalsePositiveRate) {
+            checkNotNull(writeCacheFalsePositiveRate, "writeCacheFalsePositiveRate");
+            this.writeCacheFalsePositiveRate = of(writeCacheFalsePositiveRate);
+            return this;
+        }
+
         public Builder templateName(final String templateName) {
             checkNotNull(templateName, "templateName");
             this.templateName = of(templateName);
@@ -283,7 +318,8 @@ public final class ElasticsearchSuggestModule implements SuggestModule, DynamicM
 
         public ElasticsearchSuggestModule build() {
             return new ElasticsearchSuggestModule(id, groups, connection, writesPerSecond,
-                writeCacheDurationMinutes, templateName, backendType, configure);
+                writeCacheDurationMinutes, writeCacheFilterSize, writeCacheFalsePositiveRate,
+                templateName, backendType, configure);
         }
     }
 }
@@ -125,6 +125,9 @@ import static org.elasticsearch.index.query.QueryBuilders.termQuery;
 public class SuggestBackendKV extends AbstractElasticsearchBackend
     implements SuggestBackend, Grouped, LifeCycles {
     public static final String WRITE_CACHE_SIZE = "write-cache-size";
+    public static final String WRITE_CACHE_MEMORY = "write-cache-memory";
+    public static final String WRITE_CACHE_REQUESTS = "write-cache-requests";
+    public static final String WRITE_CACHE_HITS = "write-cache-hits";
 
     static final String TAG_TYPE = "tag";
     static final String SERIES_TYPE = "series";
@@ -593,7 +596,9 @@ public class SuggestBackendKV extends AbstractElasticsearchBackend
 
     @Override
     public Statistics getStatistics() {
-        return Statistics.of(WRITE_CACHE_SIZE, writeCache.size());
+        return Statistics.of(ImmutableMap.of(WRITE_CACHE_SIZE, (long) writeCache.size(),
+            WRITE_CACHE_MEMORY, writeCache.memoryUsage(), WRITE_CACHE_REQUESTS,
+            writeCache.requests(), WRITE_CACHE_HITS, writeCache.hits()));
     }
 
     private AsyncFuture<Void> start() {
@@ -29,6 +29,7 @@ import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.OptionalLimit;
 import com.spotify.heroic.common.Series;
 import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.filter.FilterCompiler;
 import com.spotify.heroic.suggest.KeySuggest;
 import com.spotify.heroic.suggest.SuggestBackend;
 import com.spotify.heroic.suggest.TagKeyCount;
@@ -56,6 +57,7 @@ import java.util.TreeSet;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -314,20 +316,23 @@ public class MemoryBackend implements SuggestBackend, Grouped {
 
     private Stream<KeyDocument> lookupKeys(final Filter filter) {
         final Lock l = lock.readLock();
+        final Predicate<Series> predicate = FilterCompiler.compile(filter);
         l.lock();
-        return keyIndex.values().stream().filter(e -> filter.apply(e.series)).onClose(l::unlock);
+        return keyIndex.values().stream().filter(e -> predicate.test(e.series)).onClose(l::unlock);
     }
 
     private Stream<TagDocument> lookupTags(final Filter filter) {
         final Lock l = lock.readLock();
+        final Predicate<Series> predicate = FilterCompiler.compile(filter);
         l.lock();
-        return tagIndex.values().stream().filter(e -> filter.apply(e.series)).onClose(l::unlock);
+        return tagIndex.values().stream().filter(e -> predicate.test(e.series)).onClose(l::unlock);
     }
 
     private Stream<Series> lookupSeries(final Filter filter) {
         final Lock l = lock.readLock();
+        final Predicate<Series> predicate = FilterCompiler.compile(filter);
         l.lock();
-        return series.stream().filter(filter::apply).onClose(l::unlock);
+        return series.stream().filter(predicate).onClose(l::unlock);
     }
 
     @Data